@@ -0,0 +1,447 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste, 
+ * Italy (http://machinelearning.inginf.units.it/)  
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.console;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import it.units.inginf.male.configuration.Configuration;
+import it.units.inginf.male.dto.SimpleConfig;
+import it.units.inginf.male.evaluators.TreeEvaluationException;
+import it.units.inginf.male.inputs.Context;
+import it.units.inginf.male.objective.Objective;
+import it.units.inginf.male.objective.Ranking;
+import it.units.inginf.male.objective.performance.PerformancesFactory;
+import it.units.inginf.male.outputs.Results;
+import it.units.inginf.male.strategy.ExecutionListener;
+import it.units.inginf.male.strategy.ExecutionListenerFactory;
+import it.units.inginf.male.strategy.ExecutionStrategy;
+import it.units.inginf.male.strategy.RunStrategy;
+import it.units.inginf.male.strategy.impl.BasicExecutionListener;
+import it.units.inginf.male.strategy.impl.CompositeExecutionListener;
+import it.units.inginf.male.tree.Node;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * End-to-end benchmark over the datasets embedded into ConsoleRegexTurtle.
+ * Runs the matrix datasets x threads x population sizes x execution strategies, with the default (fixed) initial seed,
+ * and records wall time, character evaluations per second, time to reach a target learning f-measure, heap peak
+ * and GC time. The results are saved in JSON format and can be compared with a previous results file (the baseline).
+ * Runs are executed in the same JVM one after the other, a run is preceded by a garbage collection.
+ *
+ * @author MaleLabTs
+ */
+public class ConsoleBenchmark {
+
+    private static final Logger LOG = Logger.getLogger(ConsoleBenchmark.class.getName());
+    static final String RESULTS_FILE_NAME = "benchmark.json";
+    static final String COMPARISON_FILE_NAME = "benchmark-comparison.txt";
+
+    /**
+     * The result of a single run of the benchmark matrix; baseline files contain arrays of RunResult.
+     */
+    public static class RunResult {
+
+        int dataset;
+        int threads;
+        int populationSize;
+        String strategy;
+        int jobs;
+        int generations;
+        long wallMillis;
+        long characterEvaluations;
+        double characterEvaluationsPerSecond;
+        /**
+         * Milliseconds from the run start to the first generation best with learning f-measure over the target, -1 when
+         * the target has not been reached.
+         */
+        long timeToTargetMillis = -1;
+        double bestLearningFMeasure;
+        /**
+         * Sum of the peak usages of the heap memory pools.
+         */
+        long peakHeapBytes;
+        long gcMillis;
+        long gcCount;
+
+        String key() {
+            return "dataset " + dataset + ", threads " + threads + ", population " + populationSize + ", " + strategy;
+        }
+    }
+
+    private static class Settings {
+
+        List<Integer> datasets = new ArrayList<>();
+        List<Integer> threads = new ArrayList<>();
+        List<Integer> populationSizes = new ArrayList<>();
+        List<String> strategies = new ArrayList<>();
+        int generations = 200;
+        int jobs = 4;
+        double targetFMeasure = 0.9;
+        String outputFolder = ".";
+        String baseline;
+        double threshold = 10.0;
+    }
+
+    /**
+     * Tracks the best learning f-measure among the generation bests of all the jobs and the time it first reaches the target.
+     * The learning performance is evaluated only when a job best changes.
+     */
+    private static class TargetListener implements ExecutionListener, ExecutionListenerFactory {
+
+        private static final long serialVersionUID = 1L;
+        private final double targetFMeasure;
+        private final long startTime = System.currentTimeMillis();
+        private final AtomicLong timeToTarget = new AtomicLong(-1);
+        private final Map<Integer, String> jobBests = new ConcurrentHashMap<>();
+        private double bestFMeasure = 0;
+
+        TargetListener(double targetFMeasure) {
+            this.targetFMeasure = targetFMeasure;
+        }
+
+        @Override
+        public void evolutionStarted(RunStrategy strategy) {
+        }
+
+        @Override
+        public void logGeneration(RunStrategy strategy, int generation, Node best, double[] fitness, List<Ranking> population) {
+            StringBuilder builder = new StringBuilder();
+            best.describe(builder);
+            String description = builder.toString();
+            String previous = this.jobBests.put(strategy.getConfiguration().getJobId(), description);
+            if (description.equals(previous)) {
+                return;
+            }
+            Objective learningObjective = PerformancesFactory.buildObjective(Context.EvaluationPhases.LEARNING, strategy.getConfiguration());
+            //performance index 5 is the match f-measure, see PerformacesObjective
+            double fMeasure = learningObjective.fitness(best)[5];
+            if (Double.isNaN(fMeasure)) {
+                return;
+            }
+            synchronized (this) {
+                this.bestFMeasure = Math.max(this.bestFMeasure, fMeasure);
+            }
+            if (fMeasure >= this.targetFMeasure) {
+                this.timeToTarget.compareAndSet(-1, System.currentTimeMillis() - this.startTime);
+            }
+        }
+
+        @Override
+        public void evolutionComplete(RunStrategy strategy, int generation, List<Ranking> population) {
+        }
+
+        @Override
+        public void evolutionFailed(RunStrategy strategy, TreeEvaluationException cause) {
+        }
+
+        @Override
+        public void evolutionStopped() {
+        }
+
+        @Override
+        public void register(ExecutionStrategy strategy) {
+        }
+
+        @Override
+        public ExecutionListener getNewListener() {
+            return this;
+        }
+
+        synchronized double getBestFMeasure() {
+            return bestFMeasure;
+        }
+    }
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        Settings settings = parseArgs(args);
+        List<RunResult> runResults = new ArrayList<>();
+        for (int dataset : settings.datasets) {
+            for (int threads : settings.threads) {
+                for (int populationSize : settings.populationSizes) {
+                    for (String strategy : settings.strategies) {
+                        RunResult runResult = run(dataset, threads, populationSize, strategy, settings);
+                        if (runResult != null) {
+                            System.out.println(describe(runResult));
+                            runResults.add(runResult);
+                        }
+                    }
+                }
+            }
+        }
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        File resultsFile = new File(settings.outputFolder, RESULTS_FILE_NAME);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(resultsFile), "UTF-8")) {
+            gson.toJson(runResults, writer);
+        } catch (IOException ex) {
+            LOG.log(Level.SEVERE, "Cannot save the benchmark results", ex);
+        }
+        System.out.println("Results saved into: " + resultsFile.getPath());
+        if (settings.baseline != null) {
+            try (Reader reader = new InputStreamReader(new FileInputStream(settings.baseline), "UTF-8")) {
+                RunResult[] baseline = gson.fromJson(reader, RunResult[].class);
+                String report = compare(runResults, baseline, settings.threshold);
+                System.out.println(report);
+                File comparisonFile = new File(settings.outputFolder, COMPARISON_FILE_NAME);
+                try (Writer writer = new OutputStreamWriter(new FileOutputStream(comparisonFile), "UTF-8")) {
+                    writer.write(report);
+                }
+            } catch (IOException ex) {
+                LOG.log(Level.SEVERE, "Cannot compare with the baseline", ex);
+            }
+        }
+    }
+
+    private static RunResult run(int datasetNumber, int threads, int populationSize, String strategyName, Settings settings) {
+        SimpleConfig simpleConfiguration = new SimpleConfig();
+        simpleConfiguration.numberThreads = threads;
+        simpleConfiguration.numberOfJobs = settings.jobs;
+        simpleConfiguration.generations = settings.generations;
+        simpleConfiguration.populationSize = populationSize;
+        simpleConfiguration.dataset = ConsoleRegexTurtle.createDataset(datasetNumber);
+        Configuration config = simpleConfiguration.buildConfiguration();
+        try {
+            String className = strategyName.contains(".") ? strategyName : "it.units.inginf.male.strategy.impl." + strategyName;
+            config.setStrategy(Class.forName(className).asSubclass(ExecutionStrategy.class).getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException ex) {
+            LOG.log(Level.SEVERE, "Unknown execution strategy: " + strategyName, ex);
+            return null;
+        }
+
+        Results results = new Results(config);
+        TargetListener targetListener = new TargetListener(settings.targetFMeasure);
+        ExecutionListenerFactory listenerFactory = new CompositeExecutionListener(new BasicExecutionListener(config, results), targetListener);
+
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+        long[] gcStart = gcTotals();
+        long startTime = System.currentTimeMillis();
+        try {
+            config.getStrategy().execute(config, listenerFactory);
+        } catch (Exception ex) {
+            LOG.log(Level.SEVERE, "Benchmark run failed", ex);
+            return null;
+        }
+        long wallMillis = System.currentTimeMillis() - startTime;
+        long[] gcEnd = gcTotals();
+
+        RunResult runResult = new RunResult();
+        runResult.dataset = datasetNumber;
+        runResult.threads = threads;
+        runResult.populationSize = populationSize;
+        runResult.strategy = strategyName;
+        runResult.jobs = settings.jobs;
+        runResult.generations = settings.generations;
+        runResult.wallMillis = wallMillis;
+        runResult.characterEvaluations = results.getCharacterEvaluations();
+        runResult.characterEvaluationsPerSecond = results.getCharacterEvaluations() * 1000.0 / Math.max(1, wallMillis);
+        runResult.timeToTargetMillis = targetListener.timeToTarget.get();
+        runResult.bestLearningFMeasure = targetListener.getBestFMeasure();
+        for (MemoryPoolMXBean pool : heapPools) {
+            runResult.peakHeapBytes += pool.getPeakUsage().getUsed();
+        }
+        runResult.gcMillis = gcEnd[0] - gcStart[0];
+        runResult.gcCount = gcEnd[1] - gcStart[1];
+        return runResult;
+    }
+
+    //returns the overall collection time and count
+    private static long[] gcTotals() {
+        long[] totals = new long[2];
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            totals[0] += Math.max(0, collector.getCollectionTime());
+            totals[1] += Math.max(0, collector.getCollectionCount());
+        }
+        return totals;
+    }
+
+    private static String describe(RunResult runResult) {
+        return String.format("%s: wall %d ms, %.0f chars/s, time to target %s, best learning f-measure %.4f, peak heap %d MB, GC %d ms (%d collections)",
+                runResult.key(), runResult.wallMillis, runResult.characterEvaluationsPerSecond,
+                runResult.timeToTargetMillis < 0 ? "n/a" : runResult.timeToTargetMillis + " ms", runResult.bestLearningFMeasure,
+                runResult.peakHeapBytes / (1024 * 1024), runResult.gcMillis, runResult.gcCount);
+    }
+
+    /**
+     * Compares the results with the baseline ones; runs are matched by dataset, threads, population size and strategy.
+     * A run is marked as a regression when its wall time grows, or its throughput drops, more than threshold percent.
+     * @param runResults
+     * @param baseline
+     * @param threshold percentage
+     * @return the textual report
+     */
+    static String compare(List<RunResult> runResults, RunResult[] baseline, double threshold) {
+        Map<String, RunResult> baselineRuns = new HashMap<>();
+        for (RunResult runResult : baseline) {
+            baselineRuns.put(runResult.key(), runResult);
+        }
+        StringBuilder report = new StringBuilder("******Comparison with baseline******\n");
+        int regressions = 0;
+        for (RunResult runResult : runResults) {
+            RunResult base = baselineRuns.get(runResult.key());
+            if (base == null) {
+                report.append(runResult.key()).append(": not in baseline\n");
+                continue;
+            }
+            double wallDelta = percentDelta(base.wallMillis, runResult.wallMillis);
+            double throughputDelta = percentDelta(base.characterEvaluationsPerSecond, runResult.characterEvaluationsPerSecond);
+            boolean regression = wallDelta > threshold || throughputDelta < -threshold;
+            if (regression) {
+                regressions++;
+            }
+            report.append(String.format("%s: wall %d -> %d ms (%+.1f%%), chars/s %+.1f%%, time to target %s -> %s, f-measure %.4f -> %.4f, peak heap %+.1f%%, GC %d -> %d ms%s\n",
+                    runResult.key(), base.wallMillis, runResult.wallMillis, wallDelta, throughputDelta,
+                    base.timeToTargetMillis < 0 ? "n/a" : base.timeToTargetMillis + " ms",
+                    runResult.timeToTargetMillis < 0 ? "n/a" : runResult.timeToTargetMillis + " ms",
+                    base.bestLearningFMeasure, runResult.bestLearningFMeasure,
+                    percentDelta(base.peakHeapBytes, runResult.peakHeapBytes), base.gcMillis, runResult.gcMillis,
+                    regression ? " REGRESSION" : ""));
+        }
+        report.append(String.format("%d regressions over %d runs, threshold %.1f%%\n", regressions, runResults.size(), threshold));
+        return report.toString();
+    }
+
+    private static double percentDelta(double base, double value) {
+        return base == 0 ? 0 : 100 * (value - base) / base;
+    }
+
+    static private final String HELP_MESSAGE
+            = "Usage:\n"
+            + "java -cp ConsoleRegexTurtle.jar it.units.inginf.male.console.ConsoleBenchmark -d 1,5,25 -t 1,4 -p 250,500 -s CombinedMultithreadStrategy -b baseline.json\n"
+            + "\nParameters (lists are comma separated):\n"
+            + "-d list of the embedded dataset numbers, 1.." + ConsoleRegexTurtle.NUMBER_OF_DATASETS + ", default is 25\n"
+            + "-t list of thread numbers, default is 4\n"
+            + "-p list of population sizes, default is 500\n"
+            + "-s list of execution strategies, simple names in it.units.inginf.male.strategy.impl or full class names; default is CombinedMultithreadStrategy\n"
+            + "-g maximum number of generations, per Job, default is 200\n"
+            + "-j number of Jobs, default is 4\n"
+            + "-a target learning f-measure for the time to target measure, default is 0.9\n"
+            + "-o name of the output folder, " + RESULTS_FILE_NAME + " and " + COMPARISON_FILE_NAME + " are saved into this folder; default is '.'\n"
+            + "-b path of a previous " + RESULTS_FILE_NAME + " file, the baseline to compare with\n"
+            + "-x regression threshold percentage for the comparison, default is 10\n"
+            + "-h visualizes this help message\n";
+
+    static private Settings parseArgs(String[] args) {
+        Settings settings = new Settings();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String string = args[i];
+                if (string.equals("-h")) {
+                    System.out.println(HELP_MESSAGE);
+                    System.exit(0);
+                }
+                i = i + 1;
+                String parameter = args[i];
+                switch (string) {
+                    case "-d":
+                        settings.datasets = parseIntegers(parameter);
+                        break;
+                    case "-t":
+                        settings.threads = parseIntegers(parameter);
+                        break;
+                    case "-p":
+                        settings.populationSizes = parseIntegers(parameter);
+                        break;
+                    case "-s":
+                        for (String strategy : parameter.split(",")) {
+                            settings.strategies.add(strategy.trim());
+                        }
+                        break;
+                    case "-g":
+                        settings.generations = Integer.valueOf(parameter);
+                        break;
+                    case "-j":
+                        settings.jobs = Integer.valueOf(parameter);
+                        break;
+                    case "-a":
+                        settings.targetFMeasure = Double.valueOf(parameter);
+                        break;
+                    case "-o":
+                        settings.outputFolder = parameter;
+                        break;
+                    case "-b":
+                        settings.baseline = parameter;
+                        break;
+                    case "-x":
+                        settings.threshold = Double.valueOf(parameter);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown parameter " + string);
+                }
+            }
+            for (int dataset : settings.datasets) {
+                if (dataset < 1 || dataset > ConsoleRegexTurtle.NUMBER_OF_DATASETS) {
+                    throw new IllegalArgumentException("Unknown dataset " + dataset);
+                }
+            }
+        } catch (RuntimeException ex) {
+            System.out.println("Problem parsing commandline parameters.\n" + HELP_MESSAGE);
+            System.out.println("Error details:" + ex.toString());
+            System.exit(1);
+        }
+        //defaults
+        if (settings.datasets.isEmpty()) {
+            settings.datasets.add(ConsoleRegexTurtle.NUMBER_OF_DATASETS);
+        }
+        if (settings.threads.isEmpty()) {
+            settings.threads.add(4);
+        }
+        if (settings.populationSizes.isEmpty()) {
+            settings.populationSizes.add(500);
+        }
+        if (settings.strategies.isEmpty()) {
+            settings.strategies.add("CombinedMultithreadStrategy");
+        }
+        return settings;
+    }
+
+    private static List<Integer> parseIntegers(String parameter) {
+        List<Integer> values = new ArrayList<>();
+        for (String value : parameter.split(",")) {
+            values.add(Integer.valueOf(value.trim()));
+        }
+        return values;
+    }
+}
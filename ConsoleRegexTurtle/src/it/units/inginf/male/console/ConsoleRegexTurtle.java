@@ -27,8 +27,12 @@ import it.units.inginf.male.outputs.FinalSolution;
 import it.units.inginf.male.outputs.Results;
 import it.units.inginf.male.postprocessing.BasicPostprocessor;
 import it.units.inginf.male.postprocessing.JsonPostProcessor;
+import it.units.inginf.male.strategy.ExecutionListenerFactory;
 import it.units.inginf.male.strategy.ExecutionStrategy;
+import it.units.inginf.male.strategy.impl.CompositeExecutionListener;
 import it.units.inginf.male.strategy.impl.CoolTextualExecutionListener;
+import it.units.inginf.male.strategy.impl.JmxExecutionListener;
+import it.units.inginf.male.strategy.impl.MetricsExecutionListener;
 import it.units.inginf.male.tree.Anchor;
 import it.units.inginf.male.tree.Constant;
 import it.units.inginf.male.tree.Node;
@@ -43,6 +47,7 @@ import it.units.inginf.male.tree.operator.MatchZeroOrMoreGreedy;
 import it.units.inginf.male.tree.operator.MatchZeroOrOne;
 import it.units.inginf.male.tree.operator.Or;
 import it.units.inginf.male.utils.Utils;
+import java.io.File;
 import java.io.IOException;
 import java.util.Scanner;
 import java.util.logging.Level;
@@ -108,11 +113,21 @@ public class ConsoleRegexTurtle {
             Logger.getLogger(ConsoleRegexTurtle.class.getName()).log(Level.SEVERE, null, ex);
         }
         CoolTextualExecutionListener consolelistener = new CoolTextualExecutionListener(message, config, results);
+        JmxExecutionListener jmxListener = new JmxExecutionListener();
+        ExecutionListenerFactory listenerFactory = new CompositeExecutionListener(consolelistener, jmxListener);
+        if (simpleConfiguration.metricsFile != null) {
+            try {
+                File metricsFile = new File(simpleConfiguration.metricsFile);
+                listenerFactory = new CompositeExecutionListener(consolelistener, jmxListener, new MetricsExecutionListener(metricsFile, MetricsExecutionListener.formatOf(metricsFile)));
+            } catch (IOException ex) {
+                Logger.getLogger(ConsoleRegexTurtle.class.getName()).log(Level.SEVERE, "Cannot create the metrics file", ex);
+            }
+        }
 
         long startTime = System.currentTimeMillis();
         ExecutionStrategy strategy = config.getStrategy();
         try {
-            strategy.execute(config, consolelistener);
+            strategy.execute(config, listenerFactory);
         } catch (Exception ex) {
             Logger.getLogger(ConsoleRegexTurtle.class.getName()).log(Level.SEVERE, null, ex);
         }
@@ -3533,6 +3548,73 @@ public class ConsoleRegexTurtle {
         return data;
     }
 
+    /**
+     * The number of the embedded datasets, they are numbered from 1 to NUMBER_OF_DATASETS.
+     */
+    static final int NUMBER_OF_DATASETS = 25;
+
+    /**
+     * Returns a new instance of the requested embedded dataset.
+     * @param number the dataset number, 1..NUMBER_OF_DATASETS
+     * @return
+     */
+    static DataSet createDataset(int number) {
+        switch (number) {
+            case 1:
+                return createDataset1();
+            case 2:
+                return createDataset2();
+            case 3:
+                return createDataset3();
+            case 4:
+                return createDataset4();
+            case 5:
+                return createDataset5();
+            case 6:
+                return createDataset6();
+            case 7:
+                return createDataset7();
+            case 8:
+                return createDataset8();
+            case 9:
+                return createDataset9();
+            case 10:
+                return createDataset10();
+            case 11:
+                return createDataset11();
+            case 12:
+                return createDataset12();
+            case 13:
+                return createDataset13();
+            case 14:
+                return createDataset14();
+            case 15:
+                return createDataset15();
+            case 16:
+                return createDataset16();
+            case 17:
+                return createDataset17();
+            case 18:
+                return createDataset18();
+            case 19:
+                return createDataset19();
+            case 20:
+                return createDataset20();
+            case 21:
+                return createDataset21();
+            case 22:
+                return createDataset22();
+            case 23:
+                return createDataset23();
+            case 24:
+                return createDataset24();
+            case 25:
+                return createDataset25();
+            default:
+                throw new IllegalArgumentException("Unknown dataset: " + number);
+        }
+    }
+
     private static void writeBestPerformances(FinalSolution solution, boolean isFlagging) {
         if (solution != null) {
             System.out.println("Best on learning (JAVA): " + solution.getSolution());
@@ -3600,7 +3682,10 @@ public class ConsoleRegexTurtle {
             + "-o name of the output folder, results.json is saved into this folder; default is '.'\n"
             + "-x boolean, populates an extra field in results file, when 'true' adds all dataset examples in the results file 'examples' field, default is 'false'\n"
             + "-s boolean, when 'true' enables dataset striping, striping is an experimental feature, default is disabled: 'false'\n"
+            + "-a boolean, when 'true' and striping is enabled, the striping margin and interval are tuned at runtime, default is 'false'\n"
             + "-c adds an optional comment string\n"
+            + "-m name of the metrics file, per-generation metrics are saved into this file; CSV format when the name ends with '.csv', JSONL otherwise\n"
+            + "-k number of slowest evaluations recorded per Job and saved into the results file, default is 0: disabled\n"
             + "-f enables the flagging mode: solves a flagging problem with a separate-and-conquer strategy\n"
             + "-h visualizes this help message\n";
 
@@ -3646,9 +3731,18 @@ public class ConsoleRegexTurtle {
                     case "-c":
                         simpleConfig.comment = parameter;
                         break;
+                    case "-m":
+                        simpleConfig.metricsFile = parameter;
+                        break;
                     case "-s":
                         simpleConfig.isStriped = Boolean.valueOf(parameter);
                         break;
+                    case "-a":
+                        simpleConfig.isAdaptiveStriping = Boolean.valueOf(parameter);
+                        break;
+                    case "-k":
+                        simpleConfig.slowestEvaluations = Integer.valueOf(parameter);
+                        break;
                     case "-f":
                         simpleConfig.isFlagging = true;
                         i=i-1; //Do not use parameter
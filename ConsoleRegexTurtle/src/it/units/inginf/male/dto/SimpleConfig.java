@@ -47,10 +47,15 @@ public class SimpleConfig {
     public DataSet dataset;
     public boolean populateOptionalFields;
     public boolean isStriped = false;
+    /**
+     * When striping is enabled, the striping margin and the normal dataset interval are tuned at runtime.
+     */
+    public boolean isAdaptiveStriping = false;
     public boolean isFlagging = false;
     
     transient public String datasetName;
     transient public String outputFolder;
+    transient public String metricsFile;
 
     /**
      * Percentange [0,100] of the number of the generations used for the Spared termination
@@ -58,6 +63,10 @@ public class SimpleConfig {
      */
     public double termination = 20.0;
     public String comment;
+    /**
+     * Number of slowest evaluations recorded per Job, 0 disables the recording.
+     */
+    public int slowestEvaluations = 0;
     
     public Configuration buildConfiguration(){
         assert !(isFlagging&&isStriped);
@@ -79,6 +88,7 @@ public class SimpleConfig {
         configuration.getStrategyParameters().put("terminationCriteriaGenerations", String.valueOf(terminationGenerations));
         //Added terminationCriteria for the second strategy
         configuration.getStrategyParameters().put("terminationCriteria2","false");
+        configuration.getStrategyParameters().put("slowestEvaluations", String.valueOf(slowestEvaluations));
         
         if(dataset == null){
             throw new IllegalArgumentException("You must define a dataset");
@@ -93,6 +103,11 @@ public class SimpleConfig {
             datasetContainer.setDataSetsStriped(true);
             datasetContainer.setDatasetStripeMarginSize(STRIPING_DEFAULT_MARGIN_SIZE);
             datasetContainer.setProposedNormalDatasetInterval(100);//terminationGenerations+50);
+            if(isAdaptiveStriping){
+                //margin and interval are initial values, the strategy tunes them at runtime
+                Logger.getLogger(this.getClass().getName()).info("Enabled adaptive striping.");
+                datasetContainer.setAdaptiveStriping(true);
+            }
         }
         configuration.setDatasetContainer(datasetContainer); //remind that after setting the DataSetContainer.. we need to update configuration in order to invoke datacontainer update methods
         
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.console;
+
+import it.units.inginf.male.console.ConsoleBenchmark.RunResult;
+import java.util.Arrays;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class ConsoleBenchmarkTest {
+
+    private static RunResult runResult(int threads, long wallMillis, double characterEvaluationsPerSecond) {
+        RunResult runResult = new RunResult();
+        runResult.dataset = 25;
+        runResult.threads = threads;
+        runResult.populationSize = 500;
+        runResult.strategy = "CombinedMultithreadStrategy";
+        runResult.wallMillis = wallMillis;
+        runResult.characterEvaluationsPerSecond = characterEvaluationsPerSecond;
+        return runResult;
+    }
+
+    private static String line(String report, int threads) {
+        for (String line : report.split("\n")) {
+            if (line.startsWith("dataset 25, threads " + threads + ",")) {
+                return line;
+            }
+        }
+        fail("no report line for " + threads + " threads");
+        return null;
+    }
+
+    /**
+     * Test of compare method, of class ConsoleBenchmark: runs are matched by their key, slower wall times and lower
+     * throughputs over the threshold are regressions.
+     */
+    @Test
+    public void testCompare() {
+        RunResult[] baseline = {runResult(1, 1000, 5000), runResult(2, 1000, 5000), runResult(4, 1000, 5000)};
+        String report = ConsoleBenchmark.compare(Arrays.asList(
+                //within the threshold
+                runResult(1, 1050, 4800),
+                //slower
+                runResult(2, 1200, 5000),
+                //lower throughput, same wall time
+                runResult(4, 1000, 4000),
+                runResult(8, 500, 10000)), baseline, 10.0);
+        assertFalse(line(report, 1).endsWith("REGRESSION"));
+        assertTrue(line(report, 1).contains("wall 1000 -> 1050 ms (+5.0%)"));
+        assertTrue(line(report, 2).endsWith("REGRESSION"));
+        assertTrue(line(report, 4).endsWith("REGRESSION"));
+        assertTrue(line(report, 4).contains("chars/s -20.0%"));
+        assertEquals("dataset 25, threads 8, population 500, CombinedMultithreadStrategy: not in baseline", line(report, 8));
+        assertTrue(report.endsWith("2 regressions over 4 runs, threshold 10.0%\n"));
+
+        //a higher threshold accepts the same runs
+        report = ConsoleBenchmark.compare(Arrays.asList(runResult(2, 1200, 5000), runResult(4, 1000, 4000)), baseline, 25.0);
+        assertFalse(report.contains("REGRESSION"));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.tree.analysis;
+
+/**
+ * Worst case backtracking estimate of a regex, computed by BacktrackingRiskAnalyzer.
+ * The degree is the exponent of the polynomial cost of a single match attempt in the text length:
+ * 0 for fixed width regexes, 1 for a repetition, one more for every ambiguous pair of adjacent
+ * repetitions. An exponential regex has no polynomial bound: a backtracking repetition of something
+ * which backtracks itself or which can match the same chars in different ways.
+ * @author MaleLabTs
+ */
+public class BacktrackingRisk {
+
+    /**
+     * Degrees are capped to this value.
+     */
+    public static final int MAX_DEGREE = 32;
+
+    private final int degree;
+    private final boolean exponential;
+    private final int starHeight;
+    private final int nestedQuantifiers;
+    private final int ambiguousAdjacencies;
+    private final int ambiguousAlternations;
+
+    BacktrackingRisk(int degree, boolean exponential, int starHeight, int nestedQuantifiers, int ambiguousAdjacencies, int ambiguousAlternations) {
+        this.degree = Math.min(degree, MAX_DEGREE);
+        this.exponential = exponential;
+        this.starHeight = starHeight;
+        this.nestedQuantifiers = nestedQuantifiers;
+        this.ambiguousAdjacencies = ambiguousAdjacencies;
+        this.ambiguousAlternations = ambiguousAlternations;
+    }
+
+    public int getDegree() {
+        return degree;
+    }
+
+    public boolean isExponential() {
+        return exponential;
+    }
+
+    /**
+     * @return the maximum nesting of unbounded repetitions
+     */
+    public int getStarHeight() {
+        return starHeight;
+    }
+
+    /**
+     * @return the number of repetitions which contain another repetition
+     */
+    public int getNestedQuantifiers() {
+        return nestedQuantifiers;
+    }
+
+    /**
+     * @return the number of backtracking repetitions followed by a repetition of overlapping chars
+     */
+    public int getAmbiguousAdjacencies() {
+        return ambiguousAdjacencies;
+    }
+
+    /**
+     * @return the number of repeated alternations whose alternatives can start with the same char
+     */
+    public int getAmbiguousAlternations() {
+        return ambiguousAlternations;
+    }
+
+    /**
+     * @param maxDegree
+     * @return true when the regex is exponential or its degree exceeds maxDegree
+     */
+    public boolean isRisky(int maxDegree) {
+        return exponential || degree > maxDegree;
+    }
+
+    @Override
+    public String toString() {
+        return "BacktrackingRisk{" + "degree=" + (exponential ? "exponential" : degree) + ", starHeight=" + starHeight
+                + ", nestedQuantifiers=" + nestedQuantifiers + ", ambiguousAdjacencies=" + ambiguousAdjacencies
+                + ", ambiguousAlternations=" + ambiguousAlternations + '}';
+    }
+}
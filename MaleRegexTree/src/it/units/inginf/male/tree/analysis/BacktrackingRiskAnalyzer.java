@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.tree.analysis;
+
+import it.units.inginf.male.tree.Anchor;
+import it.units.inginf.male.tree.Leaf;
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.tree.operator.Backreference;
+import it.units.inginf.male.tree.operator.Concatenator;
+import it.units.inginf.male.tree.operator.Group;
+import it.units.inginf.male.tree.operator.ListMatch;
+import it.units.inginf.male.tree.operator.ListNotMatch;
+import it.units.inginf.male.tree.operator.Lookaround;
+import it.units.inginf.male.tree.operator.MatchMinMax;
+import it.units.inginf.male.tree.operator.MatchMinMaxGreedy;
+import it.units.inginf.male.tree.operator.MatchOneOrMore;
+import it.units.inginf.male.tree.operator.MatchOneOrMoreGreedy;
+import it.units.inginf.male.tree.operator.MatchZeroOrMore;
+import it.units.inginf.male.tree.operator.MatchZeroOrMoreGreedy;
+import it.units.inginf.male.tree.operator.MatchZeroOrOne;
+import it.units.inginf.male.tree.operator.MatchZeroOrOneGreedy;
+import it.units.inginf.male.tree.operator.NonCapturingGroup;
+import it.units.inginf.male.tree.operator.Or;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Static estimate of the worst case backtracking of the regex described by a tree (Java flavour).
+ * The possessive repetitions (MatchOneOrMore, MatchZeroOrMore, MatchZeroOrOne, MatchMinMax) never
+ * give back what they matched; the *Greedy repetitions do, and they are the source of the explosive cases:
+ * <ul>
+ * <li>a backtracking unbounded repetition of something which backtracks itself, i.e. (?:\w+)+, is exponential</li>
+ * <li>a backtracking unbounded repetition of alternatives which can start with the same char, i.e. (?:a|ab)+, is exponential</li>
+ * <li>a backtracking bounded repetition of the same things costs one degree per repetition of its range</li>
+ * <li>a backtracking repetition followed by a repetition of overlapping chars, i.e. \w+\d+, costs one more degree</li>
+ * </ul>
+ * The estimate is a heuristic: it may flag regexes which the engine handles well, it is meant to catch the
+ * evaluation time spikes of the evolution, not to prove bounds.
+ * @author MaleLabTs
+ */
+public class BacktrackingRiskAnalyzer {
+
+    private int nestedQuantifiers = 0;
+    private int ambiguousAdjacencies = 0;
+    private int ambiguousAlternations = 0;
+
+    private BacktrackingRiskAnalyzer() {
+    }
+
+    /**
+     * Estimates the backtracking risk of the tree.
+     * @param root
+     * @return
+     */
+    public static BacktrackingRisk analyze(Node root) {
+        BacktrackingRiskAnalyzer analyzer = new BacktrackingRiskAnalyzer();
+        Assessment assessment = analyzer.assess(root);
+        return new BacktrackingRisk(assessment.degree, assessment.exponential, assessment.starHeight,
+                analyzer.nestedQuantifiers, analyzer.ambiguousAdjacencies, analyzer.ambiguousAlternations);
+    }
+
+    /**
+     * The risk of a subtree, plus what its parent needs to know to combine it.
+     */
+    private static class Assessment {
+
+        int degree = 0;
+        boolean exponential = false;
+        int starHeight = 0;
+        //the subtree contains a repetition
+        boolean quantified = false;
+        //the subtree contains a backtracking repetition
+        boolean backtracking = false;
+        //the subtree is a repetition of variable count
+        boolean variable = false;
+        //the subtree is a backtracking repetition of variable count
+        boolean backtrackingVariable = false;
+        //the subtree is an alternation whose alternatives can start with the same char
+        boolean ambiguousAlternation = false;
+        //the chars the subtree can consume
+        CharacterSet chars = CharacterSet.EMPTY;
+
+        void add(Assessment other) {
+            degree = Math.max(degree, other.degree);
+            exponential |= other.exponential;
+            starHeight = Math.max(starHeight, other.starHeight);
+            quantified |= other.quantified;
+            backtracking |= other.backtracking;
+            chars = chars.union(other.chars);
+        }
+    }
+
+    private Assessment assess(Node node) {
+        //an ungrouped repetition applies to the last item of its child only, see RegexAnalyzer.flatten
+        if (node instanceof Concatenator || node instanceof Or || RegexAnalyzer.isUngroupedRepetition(node)) {
+            return assessAlternatives(node);
+        }
+        if (node instanceof Group || node instanceof NonCapturingGroup) {
+            return assess(node.getChildrens().get(0));
+        }
+        if (node instanceof MatchOneOrMore || node instanceof MatchZeroOrMore) {
+            return repetition(assess(node.getChildrens().get(0)), false, RegexFacts.UNBOUNDED);
+        }
+        if (node instanceof MatchOneOrMoreGreedy || node instanceof MatchZeroOrMoreGreedy) {
+            return repetition(assess(node.getChildrens().get(0)), true, RegexFacts.UNBOUNDED);
+        }
+        if (node instanceof MatchZeroOrOne || node instanceof MatchZeroOrOneGreedy) {
+            return repetition(assess(node.getChildrens().get(0)), node instanceof MatchZeroOrOneGreedy, 1);
+        }
+        if (node instanceof MatchMinMax || node instanceof MatchMinMaxGreedy) {
+            List<Node> childrens = node.getChildrens();
+            int range;
+            try {
+                int min = Integer.parseInt(RegexAnalyzer.describe(childrens.get(1)));
+                int max = Integer.parseInt(RegexAnalyzer.describe(childrens.get(2)));
+                range = (min < 0 || max < min) ? RegexFacts.UNBOUNDED : max - min;
+            } catch (NumberFormatException ex) {
+                range = RegexFacts.UNBOUNDED;
+            }
+            return repetition(assess(childrens.get(0)), node instanceof MatchMinMaxGreedy, range);
+        }
+        if (node instanceof Lookaround) {
+            Assessment assessment = new Assessment();
+            assessment.add(assess(node.getChildrens().get(0)));
+            //zero width
+            assessment.chars = CharacterSet.EMPTY;
+            return assessment;
+        }
+        Assessment assessment = new Assessment();
+        if (node instanceof Anchor) {
+            return assessment;
+        }
+        if (node instanceof ListMatch || node instanceof ListNotMatch) {
+            CharacterSet characterSet = RegexAnalyzer.parseList(RegexAnalyzer.describe(node.getChildrens().get(0)));
+            if (characterSet == null) {
+                assessment.chars = CharacterSet.ALL;
+            } else {
+                assessment.chars = node instanceof ListMatch ? characterSet : characterSet.complement();
+            }
+            return assessment;
+        }
+        if (node instanceof Leaf && !(node instanceof Backreference)) {
+            assessment.chars = RegexAnalyzer.sequenceChars(RegexAnalyzer.describe(node));
+            return assessment;
+        }
+        //not understood
+        assessment.chars = CharacterSet.ALL;
+        for (Node child : node.getChildrens()) {
+            assessment.add(assess(child));
+        }
+        return assessment;
+    }
+
+    /**
+     * @param child
+     * @param backtracking true when the repetition gives back what it matched
+     * @param range the number of optional repetitions, or UNBOUNDED
+     */
+    private Assessment repetition(Assessment child, boolean backtracking, int range) {
+        Assessment assessment = new Assessment();
+        assessment.add(child);
+        assessment.quantified = true;
+        if (child.quantified) {
+            nestedQuantifiers++;
+        }
+        boolean unbounded = range == RegexFacts.UNBOUNDED;
+        if (unbounded) {
+            assessment.starHeight++;
+        }
+        assessment.variable = range > 0;
+        assessment.backtrackingVariable = backtracking && range > 0;
+        //an optional item is a single choice, it cannot split the text in different ways by itself
+        boolean repeated = backtracking && (unbounded || range > 1);
+        assessment.backtracking |= repeated;
+        if (repeated && (child.backtracking || child.ambiguousAlternation)) {
+            if (child.ambiguousAlternation) {
+                ambiguousAlternations++;
+            }
+            if (unbounded) {
+                assessment.exponential = true;
+            } else {
+                assessment.degree = child.degree + Math.min(range, BacktrackingRisk.MAX_DEGREE);
+            }
+        } else if (unbounded) {
+            assessment.degree = child.degree + 1;
+        }
+        return assessment;
+    }
+
+    private Assessment assessAlternatives(Node node) {
+        List<List<Node>> alternatives = new ArrayList<>();
+        alternatives.add(new ArrayList<Node>());
+        RegexAnalyzer.flatten(node, alternatives);
+        Assessment assessment = new Assessment();
+        List<RegexFacts> alternativesFacts = new ArrayList<>(alternatives.size());
+        for (List<Node> alternative : alternatives) {
+            Assessment sequence = new Assessment();
+            int ambiguousPairs = 0;
+            Assessment previous = null;
+            for (Node item : alternative) {
+                Assessment itemAssessment = assess(item);
+                sequence.add(itemAssessment);
+                if (itemAssessment.chars.isEmpty()) {
+                    //zero width items do not separate their neighbours
+                    continue;
+                }
+                if (previous != null && previous.backtrackingVariable && itemAssessment.variable
+                        && previous.chars.intersects(itemAssessment.chars)) {
+                    ambiguousPairs++;
+                }
+                previous = itemAssessment;
+            }
+            ambiguousAdjacencies += ambiguousPairs;
+            sequence.degree = Math.min(sequence.degree + ambiguousPairs, BacktrackingRisk.MAX_DEGREE);
+            assessment.add(sequence);
+            if (alternatives.size() > 1) {
+                List<RegexFacts> items = new ArrayList<>(alternative.size());
+                for (Node item : alternative) {
+                    items.add(RegexAnalyzer.analyze(item, null));
+                }
+                alternativesFacts.add(RegexFacts.sequence(items, null));
+            }
+        }
+        for (int i = 0; i < alternativesFacts.size() && !assessment.ambiguousAlternation; i++) {
+            RegexFacts first = alternativesFacts.get(i);
+            for (int j = i + 1; j < alternativesFacts.size(); j++) {
+                RegexFacts second = alternativesFacts.get(j);
+                if (first.getFirstChars().intersects(second.getFirstChars()) || (first.isNullable() && second.isNullable())) {
+                    assessment.ambiguousAlternation = true;
+                    break;
+                }
+            }
+        }
+        return assessment;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.tree.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of chars, stored as sorted and disjoint intervals.
+ * @author MaleLabTs
+ */
+public final class CharacterSet {
+
+    public static final CharacterSet EMPTY = new CharacterSet(new char[0]);
+    public static final CharacterSet ALL = range(Character.MIN_VALUE, Character.MAX_VALUE);
+    public static final CharacterSet DIGIT = range('0', '9');
+    public static final CharacterSet WORD = range('a', 'z').union(range('A', 'Z')).union(DIGIT).union(of('_'));
+    public static final CharacterSet SPACE = of(' ').union(of('\t')).union(of('\n')).union(of('\u000B')).union(of('\f')).union(of('\r'));
+    /**
+     * The "." class, without the DOTALL flag line terminators are excluded.
+     */
+    public static final CharacterSet DOT = of('\n').union(of('\r')).union(of('\u0085')).union(of('\u2028')).union(of('\u2029')).complement();
+
+    //interval i is [bounds[2*i], bounds[2*i+1]]
+    private final char[] bounds;
+
+    private CharacterSet(char[] bounds) {
+        this.bounds = bounds;
+    }
+
+    public static CharacterSet of(char c) {
+        return new CharacterSet(new char[]{c, c});
+    }
+
+    public static CharacterSet range(char first, char last) {
+        if (first > last) {
+            return EMPTY;
+        }
+        return new CharacterSet(new char[]{first, last});
+    }
+
+    public boolean isEmpty() {
+        return bounds.length == 0;
+    }
+
+    public boolean contains(char c) {
+        int low = 0;
+        int high = bounds.length / 2 - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (c < bounds[2 * middle]) {
+                high = middle - 1;
+            } else if (c > bounds[2 * middle + 1]) {
+                low = middle + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean intersects(CharacterSet other) {
+        int i = 0;
+        int j = 0;
+        while (i < this.bounds.length && j < other.bounds.length) {
+            if (this.bounds[i + 1] < other.bounds[j]) {
+                i += 2;
+            } else if (other.bounds[j + 1] < this.bounds[i]) {
+                j += 2;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public CharacterSet union(CharacterSet other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (this.isEmpty()) {
+            return other;
+        }
+        char[] merged = new char[this.bounds.length + other.bounds.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < this.bounds.length || j < other.bounds.length) {
+            char first;
+            char last;
+            if (j >= other.bounds.length || (i < this.bounds.length && this.bounds[i] <= other.bounds[j])) {
+                first = this.bounds[i];
+                last = this.bounds[i + 1];
+                i += 2;
+            } else {
+                first = other.bounds[j];
+                last = other.bounds[j + 1];
+                j += 2;
+            }
+            //intervals are merged when they overlap or are adjacent
+            if (size > 0 && first <= merged[size - 1] + 1) {
+                merged[size - 1] = (char) Math.max(merged[size - 1], last);
+            } else {
+                merged[size++] = first;
+                merged[size++] = last;
+            }
+        }
+        return new CharacterSet(Arrays.copyOf(merged, size));
+    }
+
+    public CharacterSet complement() {
+        char[] complement = new char[bounds.length + 2];
+        int size = 0;
+        int next = Character.MIN_VALUE;
+        for (int i = 0; i < bounds.length; i += 2) {
+            if (bounds[i] > next) {
+                complement[size++] = (char) next;
+                complement[size++] = (char) (bounds[i] - 1);
+            }
+            next = bounds[i + 1] + 1;
+        }
+        if (next <= Character.MAX_VALUE) {
+            complement[size++] = (char) next;
+            complement[size++] = Character.MAX_VALUE;
+        }
+        return new CharacterSet(Arrays.copyOf(complement, size));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bounds);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof CharacterSet)) {
+            return false;
+        }
+        return Arrays.equals(this.bounds, ((CharacterSet) obj).bounds);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < bounds.length; i += 2) {
+            appendChar(builder, bounds[i]);
+            if (bounds[i + 1] != bounds[i]) {
+                builder.append('-');
+                appendChar(builder, bounds[i + 1]);
+            }
+        }
+        return builder.append(']').toString();
+    }
+
+    private static void appendChar(StringBuilder builder, char c) {
+        if (c < 0x20 || c > 0x7E || c == '-' || c == ']' || c == '\\' || c == '[' || c == '^') {
+            builder.append(String.format("\\u%04X", (int) c));
+        } else {
+            builder.append(c);
+        }
+    }
+}
@@ -0,0 +1,442 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.tree.analysis;
+
+import it.units.inginf.male.tree.Anchor;
+import it.units.inginf.male.tree.Constant;
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.tree.operator.Concatenator;
+import it.units.inginf.male.tree.operator.Group;
+import it.units.inginf.male.tree.operator.ListMatch;
+import it.units.inginf.male.tree.operator.ListNotMatch;
+import it.units.inginf.male.tree.operator.MatchMinMax;
+import it.units.inginf.male.tree.operator.MatchMinMaxGreedy;
+import it.units.inginf.male.tree.operator.MatchOneOrMore;
+import it.units.inginf.male.tree.operator.MatchOneOrMoreGreedy;
+import it.units.inginf.male.tree.operator.MatchZeroOrMore;
+import it.units.inginf.male.tree.operator.MatchZeroOrMoreGreedy;
+import it.units.inginf.male.tree.operator.MatchZeroOrOne;
+import it.units.inginf.male.tree.operator.MatchZeroOrOneGreedy;
+import it.units.inginf.male.tree.operator.NegativeLookahead;
+import it.units.inginf.male.tree.operator.NegativeLookbehind;
+import it.units.inginf.male.tree.operator.NonCapturingGroup;
+import it.units.inginf.male.tree.operator.Or;
+import it.units.inginf.male.tree.operator.PositiveLookahead;
+import it.units.inginf.male.tree.operator.PositiveLookbehind;
+import it.units.inginf.male.tree.operator.Quantifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Static analysis of a tree: computes the RegexFacts of the regex the tree describes (Java flavour),
+ * without compiling it. The analysis follows the description rules: an Or which is not the child of a
+ * Quantifier is not enclosed by a group, so it splits the whole enclosing concatenation.
+ * Leaves and character lists are analysed from their textual description; constructs which are not
+ * understood (backreferences, nested classes, ranges outside lists...) get unknown facts, which never
+ * lead to wrong conclusions.
+ * @author MaleLabTs
+ */
+public class RegexAnalyzer {
+
+    private static final String UNKNOWN_METACHARS = "?+*[](){}|^$";
+
+    private RegexAnalyzer() {
+    }
+
+    /**
+     * Computes the facts of the tree.
+     * @param root
+     * @param text the facts of the texts the regex is going to be applied to, or null
+     * @return
+     */
+    public static RegexFacts analyze(Node root, TextFacts text) {
+        if (root instanceof Concatenator || root instanceof Or || isUngroupedRepetition(root)) {
+            List<List<Node>> alternatives = new ArrayList<>();
+            alternatives.add(new ArrayList<Node>());
+            flatten(root, alternatives);
+            List<RegexFacts> alternativesFacts = new ArrayList<>(alternatives.size());
+            for (List<Node> alternative : alternatives) {
+                List<RegexFacts> items = new ArrayList<>(alternative.size());
+                for (Node node : alternative) {
+                    items.add(analyze(node, text));
+                }
+                alternativesFacts.add(RegexFacts.sequence(items, text));
+            }
+            return alternativesFacts.size() == 1 ? alternativesFacts.get(0) : RegexFacts.alternation(alternativesFacts, text);
+        }
+        if (root instanceof Constant) {
+            return analyzeSequence(describe(root), text);
+        }
+        if (root instanceof Anchor) {
+            return analyzeAnchor(describe(root), text);
+        }
+        if (root instanceof ListMatch || root instanceof ListNotMatch) {
+            CharacterSet characterSet = parseList(describe(root.getChildrens().get(0)));
+            if (characterSet == null) {
+                return RegexFacts.unknown();
+            }
+            return RegexFacts.characterClass(root instanceof ListMatch ? characterSet : characterSet.complement(), text);
+        }
+        if (root instanceof Group || root instanceof NonCapturingGroup) {
+            return analyze(root.getChildrens().get(0), text);
+        }
+        if (root instanceof MatchOneOrMore) {
+            return RegexFacts.repetition(analyze(root.getChildrens().get(0), text), 1, RegexFacts.UNBOUNDED, text);
+        }
+        if (root instanceof MatchOneOrMoreGreedy) {
+            return analyzeGreedy(root.getChildrens().get(0), 1, RegexFacts.UNBOUNDED, text);
+        }
+        if (root instanceof MatchZeroOrMore) {
+            return RegexFacts.repetition(analyze(root.getChildrens().get(0), text), 0, RegexFacts.UNBOUNDED, text);
+        }
+        if (root instanceof MatchZeroOrMoreGreedy) {
+            return analyzeGreedy(root.getChildrens().get(0), 0, RegexFacts.UNBOUNDED, text);
+        }
+        if (root instanceof MatchZeroOrOne) {
+            return RegexFacts.repetition(analyze(root.getChildrens().get(0), text), 0, 1, text);
+        }
+        if (root instanceof MatchZeroOrOneGreedy) {
+            return analyzeGreedy(root.getChildrens().get(0), 0, 1, text);
+        }
+        if (root instanceof MatchMinMax || root instanceof MatchMinMaxGreedy) {
+            List<Node> childrens = root.getChildrens();
+            int min;
+            int max;
+            try {
+                min = Integer.parseInt(describe(childrens.get(1)));
+                max = Integer.parseInt(describe(childrens.get(2)));
+            } catch (NumberFormatException ex) {
+                return RegexFacts.unknown();
+            }
+            if (min < 0 || max < min) {
+                return RegexFacts.unknown();
+            }
+            if (root instanceof MatchMinMaxGreedy) {
+                return analyzeGreedy(childrens.get(0), min, max, text);
+            }
+            return RegexFacts.repetition(analyze(childrens.get(0), text), min, max, text);
+        }
+        if (root instanceof PositiveLookahead || root instanceof PositiveLookbehind) {
+            RegexFacts child = analyze(root.getChildrens().get(0), text);
+            return RegexFacts.assertion(child.isComplete(), child.isSatisfiable());
+        }
+        if (root instanceof NegativeLookahead || root instanceof NegativeLookbehind) {
+            return RegexFacts.assertion(true, true);
+        }
+        return RegexFacts.unknown();
+    }
+
+    /**
+     * The greedy quantifiers do not group their child, the quantifier binds to the last atom of the
+     * described child: ab{2,3} is the literal a followed by two or three b. Concatenated children
+     * are split by <code>flatten</code>; an Or child reaches this method only when the quantifier
+     * is a Quantifier, which groups it: (?:a|b)+. Other children are not modeled.
+     */
+    static RegexFacts analyzeGreedy(Node child, int min, int max, TextFacts text) {
+        if (child instanceof Group || child instanceof NonCapturingGroup || child instanceof ListMatch || child instanceof ListNotMatch
+                || child instanceof Or) {
+            return RegexFacts.repetition(analyze(child, text), min, max, text);
+        }
+        if (!(child instanceof Constant)) {
+            return RegexFacts.unknown();
+        }
+        String regex = describe(child);
+        int lastAtom = lastAtomStart(regex);
+        if (lastAtom < 0) {
+            return RegexFacts.unknown();
+        }
+        RegexFacts repetition = RegexFacts.repetition(analyzeSequence(regex.substring(lastAtom), text), min, max, text);
+        if (lastAtom == 0) {
+            return repetition;
+        }
+        List<RegexFacts> items = new ArrayList<>(2);
+        items.add(analyzeSequence(regex.substring(0, lastAtom), text));
+        items.add(repetition);
+        return RegexFacts.sequence(items, text);
+    }
+
+    /**
+     * Returns the index where the last atom (a char or an escape sequence) of a literal sequence
+     * starts, or -1 when the sequence is empty.
+     * @param regex
+     * @return
+     */
+    public static int lastAtomStart(String regex) {
+        int last = -1;
+        int i = 0;
+        while (i < regex.length()) {
+            last = i;
+            i += regex.charAt(i) == '\\' ? 2 : 1;
+        }
+        return last;
+    }
+
+    /**
+     * Returns true when the node is a greedy quantifier whose child is described without a group
+     * and is not a single item: a Concatenator, or an Or under a MatchMinMaxGreedy (the Quantifier
+     * subclasses group an Or child). The quantifier binds to the last item of the described child,
+     * and an Or child splits the enclosing expression: Za|b{1,2} is Za or b{1,2}.
+     * @param node
+     * @return
+     */
+    static boolean isUngroupedRepetition(Node node) {
+        if (!(node instanceof MatchOneOrMoreGreedy || node instanceof MatchZeroOrMoreGreedy
+                || node instanceof MatchZeroOrOneGreedy || node instanceof MatchMinMaxGreedy)) {
+            return false;
+        }
+        Node child = node.getChildrens().get(0);
+        return child instanceof Concatenator || (child instanceof Or && !(node instanceof Quantifier));
+    }
+
+    /**
+     * Splits a Concatenator/Or subtree into the alternatives of the described regex, each alternative
+     * is the list of its concatenated nodes. An ungrouped repetition (see <code>isUngroupedRepetition</code>)
+     * is split like its child, a copy of the quantifier is applied to the last item only; the copy is
+     * not attached to the tree.
+     */
+    static void flatten(Node node, List<List<Node>> alternatives) {
+        if (node instanceof Concatenator) {
+            flatten(node.getChildrens().get(0), alternatives);
+            flatten(node.getChildrens().get(1), alternatives);
+        } else if (node instanceof Or) {
+            flatten(node.getChildrens().get(0), alternatives);
+            alternatives.add(new ArrayList<Node>());
+            flatten(node.getChildrens().get(1), alternatives);
+        } else if (isUngroupedRepetition(node)) {
+            flatten(node.getChildrens().get(0), alternatives);
+            List<Node> alternative = alternatives.get(alternatives.size() - 1);
+            Node repetition = node.cloneTree();
+            repetition.getChildrens().set(0, alternative.remove(alternative.size() - 1));
+            alternative.add(repetition);
+        } else {
+            alternatives.get(alternatives.size() - 1).add(node);
+        }
+    }
+
+    static String describe(Node node) {
+        StringBuilder builder = new StringBuilder();
+        node.describe(builder);
+        return builder.toString();
+    }
+
+    /**
+     * Analyses a sequence of literal chars, escaped chars and predefined classes.
+     */
+    static RegexFacts analyzeSequence(String regex, TextFacts text) {
+        List<RegexFacts> items = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            RegexFacts item = null;
+            if (c == '\\') {
+                if (i + 1 >= regex.length()) {
+                    return RegexFacts.unknown();
+                }
+                char escaped = regex.charAt(i + 1);
+                i += 2;
+                CharacterSet predefined = predefinedClass(escaped);
+                if (predefined != null) {
+                    item = RegexFacts.characterClass(predefined, text);
+                } else if (escaped == 'b') {
+                    item = wordBoundary(text);
+                } else if (escaped == 'B') {
+                    item = RegexFacts.assertion(true, true);
+                } else if (Character.isLetterOrDigit(escaped)) {
+                    return RegexFacts.unknown();
+                } else {
+                    literal.append(escaped);
+                }
+            } else if (c == '.') {
+                item = RegexFacts.characterClass(CharacterSet.DOT, text);
+                i++;
+            } else if (UNKNOWN_METACHARS.indexOf(c) >= 0) {
+                return RegexFacts.unknown();
+            } else {
+                literal.append(c);
+                i++;
+            }
+            if (item != null) {
+                if (literal.length() > 0) {
+                    items.add(RegexFacts.literal(literal.toString(), text));
+                    literal.setLength(0);
+                }
+                items.add(item);
+            }
+        }
+        if (literal.length() > 0) {
+            items.add(RegexFacts.literal(literal.toString(), text));
+        }
+        if (items.isEmpty()) {
+            return RegexFacts.unknown();
+        }
+        return items.size() == 1 ? items.get(0) : RegexFacts.sequence(items, text);
+    }
+
+    /**
+     * The chars a sequence of literal chars, escaped chars and predefined classes can consume.
+     * @param regex
+     * @return the consumed chars, ALL when the sequence is not understood
+     */
+    static CharacterSet sequenceChars(String regex) {
+        CharacterSet characterSet = CharacterSet.EMPTY;
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 >= regex.length()) {
+                    return CharacterSet.ALL;
+                }
+                char escaped = regex.charAt(i + 1);
+                i += 2;
+                CharacterSet predefined = predefinedClass(escaped);
+                if (predefined != null) {
+                    characterSet = characterSet.union(predefined);
+                } else if (escaped == 'b' || escaped == 'B') {
+                    //zero width
+                } else if (Character.isLetterOrDigit(escaped)) {
+                    return CharacterSet.ALL;
+                } else {
+                    characterSet = characterSet.union(CharacterSet.of(escaped));
+                }
+            } else if (c == '.') {
+                characterSet = characterSet.union(CharacterSet.DOT);
+                i++;
+            } else if (UNKNOWN_METACHARS.indexOf(c) >= 0) {
+                return CharacterSet.ALL;
+            } else {
+                characterSet = characterSet.union(CharacterSet.of(c));
+                i++;
+            }
+        }
+        return characterSet;
+    }
+
+    private static RegexFacts analyzeAnchor(String anchor, TextFacts text) {
+        switch (anchor) {
+            case "^":
+            case "$":
+            case "\\B":
+                return RegexFacts.assertion(true, true);
+            case "\\b":
+                return wordBoundary(text);
+            default:
+                return RegexFacts.unknown();
+        }
+    }
+
+    private static RegexFacts wordBoundary(TextFacts text) {
+        return RegexFacts.assertion(true, text == null || text.containsAny(CharacterSet.WORD));
+    }
+
+    private static CharacterSet predefinedClass(char escaped) {
+        switch (escaped) {
+            case 'd':
+                return CharacterSet.DIGIT;
+            case 'w':
+                return CharacterSet.WORD;
+            case 's':
+                return CharacterSet.SPACE;
+            case 'D':
+                return CharacterSet.DIGIT.complement();
+            case 'W':
+                return CharacterSet.WORD.complement();
+            case 'S':
+                return CharacterSet.SPACE.complement();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Parses the content of a character list, i.e. "a-z\\d_" for [a-z\\d_].
+     * @param content
+     * @return the listed chars, or null when the content is not understood
+     */
+    static CharacterSet parseList(String content) {
+        if (content.isEmpty() || content.charAt(0) == '^') {
+            return null;
+        }
+        CharacterSet characterSet = CharacterSet.EMPTY;
+        int pending = -1;
+        int i = 0;
+        int length = content.length();
+        while (i < length) {
+            char c = content.charAt(i);
+            char token;
+            if (c == '\\') {
+                if (i + 1 >= length) {
+                    return null;
+                }
+                char escaped = content.charAt(i + 1);
+                i += 2;
+                CharacterSet predefined = predefinedClass(escaped);
+                if (predefined != null) {
+                    if (pending >= 0) {
+                        characterSet = characterSet.union(CharacterSet.of((char) pending));
+                        pending = -1;
+                    }
+                    characterSet = characterSet.union(predefined);
+                    continue;
+                }
+                if (Character.isLetterOrDigit(escaped)) {
+                    return null;
+                }
+                token = escaped;
+            } else if (c == '[' || c == ']' || (c == '&' && i + 1 < length && content.charAt(i + 1) == '&')) {
+                return null;
+            } else if (c == '-' && i > 0 && i < length - 1) {
+                //a range, both the bounds must be single chars
+                if (pending < 0) {
+                    return null;
+                }
+                int last;
+                char next = content.charAt(i + 1);
+                if (next == '\\') {
+                    if (i + 2 >= length || Character.isLetterOrDigit(content.charAt(i + 2))) {
+                        return null;
+                    }
+                    last = content.charAt(i + 2);
+                    i += 3;
+                } else if (next == '[' || next == ']') {
+                    return null;
+                } else {
+                    last = next;
+                    i += 2;
+                }
+                if (last < pending) {
+                    return null;
+                }
+                characterSet = characterSet.union(CharacterSet.range((char) pending, (char) last));
+                pending = -1;
+                continue;
+            } else {
+                token = c;
+                i++;
+            }
+            if (pending >= 0) {
+                characterSet = characterSet.union(CharacterSet.of((char) pending));
+            }
+            pending = token;
+        }
+        if (pending >= 0) {
+            characterSet = characterSet.union(CharacterSet.of((char) pending));
+        }
+        return characterSet;
+    }
+}
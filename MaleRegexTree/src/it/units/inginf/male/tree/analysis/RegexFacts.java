@@ -0,0 +1,264 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.tree.analysis;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Static facts about the strings matched by a (sub)tree. The facts over-approximate the matched
+ * strings: a nullable regex may match the empty string, the first chars contain all the chars
+ * a non empty match can start with, and so on. Lengths are in chars.
+ * When the facts are computed against TextFacts, <code>satisfiable</code> is false only when the
+ * regex provably cannot match any of the texts.
+ * @author MaleLabTs
+ */
+public class RegexFacts {
+
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private final boolean complete;
+    private final boolean nullable;
+    private final int minLength;
+    private final int maxLength;
+    private final CharacterSet firstChars;
+    private final String literal;
+    private final Set<String> requiredLiterals;
+    private final boolean zeroWidthAssertions;
+    private final boolean satisfiable;
+
+    private RegexFacts(boolean complete, boolean nullable, int minLength, int maxLength, CharacterSet firstChars, String literal,
+            Set<String> requiredLiterals, boolean zeroWidthAssertions, boolean satisfiable, TextFacts text) {
+        this.complete = complete;
+        this.nullable = nullable;
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.firstChars = firstChars;
+        this.literal = literal;
+        this.requiredLiterals = requiredLiterals;
+        this.zeroWidthAssertions = zeroWidthAssertions;
+        this.satisfiable = satisfiable && (text == null || minLength <= text.getLongestText());
+    }
+
+    /**
+     * Facts of a regex which has not been understood by the analysis, nothing is known.
+     * @return
+     */
+    static RegexFacts unknown() {
+        return new RegexFacts(false, true, 0, UNBOUNDED, CharacterSet.ALL, null, Collections.<String>emptySet(), true, true, null);
+    }
+
+    static RegexFacts literal(String literal, TextFacts text) {
+        boolean satisfiable = (text == null) || text.mayContain(literal);
+        return new RegexFacts(true, false, literal.length(), literal.length(), CharacterSet.of(literal.charAt(0)), literal,
+                Collections.singleton(literal), false, satisfiable, text);
+    }
+
+    static RegexFacts characterClass(CharacterSet characterSet, TextFacts text) {
+        boolean satisfiable = (text == null) || text.containsAny(characterSet);
+        return new RegexFacts(true, false, 1, 1, characterSet, null, Collections.<String>emptySet(), false, satisfiable, text);
+    }
+
+    /**
+     * Facts of a zero width assertion: lookarounds, anchors and word boundaries.
+     * @param complete
+     * @param satisfiable
+     * @return
+     */
+    static RegexFacts assertion(boolean complete, boolean satisfiable) {
+        return new RegexFacts(complete, true, 0, 0, CharacterSet.EMPTY, null, Collections.<String>emptySet(), true, satisfiable, null);
+    }
+
+    static RegexFacts sequence(List<RegexFacts> items, TextFacts text) {
+        boolean complete = true;
+        boolean nullable = true;
+        int minLength = 0;
+        int maxLength = 0;
+        CharacterSet firstChars = CharacterSet.EMPTY;
+        boolean firstCharsDone = false;
+        Set<String> requiredLiterals = new LinkedHashSet<>();
+        boolean zeroWidthAssertions = false;
+        boolean satisfiable = true;
+        StringBuilder literal = new StringBuilder();
+        boolean allLiterals = true;
+        //consecutive literals are joined, the joined runs must be contained by the texts too
+        StringBuilder run = new StringBuilder();
+        for (RegexFacts item : items) {
+            complete &= item.complete;
+            minLength = add(minLength, item.minLength);
+            maxLength = add(maxLength, item.maxLength);
+            if (!firstCharsDone) {
+                firstChars = firstChars.union(item.firstChars);
+                firstCharsDone = !item.nullable;
+            }
+            nullable &= item.nullable;
+            requiredLiterals.addAll(item.requiredLiterals);
+            zeroWidthAssertions |= item.zeroWidthAssertions;
+            satisfiable &= item.satisfiable;
+            if (item.literal != null) {
+                literal.append(item.literal);
+                run.append(item.literal);
+            } else {
+                allLiterals = false;
+                satisfiable &= checkRun(run, requiredLiterals, text);
+            }
+        }
+        satisfiable &= checkRun(run, requiredLiterals, text);
+        return new RegexFacts(complete, nullable, minLength, maxLength, firstChars, allLiterals && literal.length() > 0 ? literal.toString() : null,
+                requiredLiterals, zeroWidthAssertions, satisfiable, text);
+    }
+
+    private static boolean checkRun(StringBuilder run, Set<String> requiredLiterals, TextFacts text) {
+        if (run.length() == 0) {
+            return true;
+        }
+        String runLiteral = run.toString();
+        run.setLength(0);
+        requiredLiterals.add(runLiteral);
+        return (text == null) || text.mayContain(runLiteral);
+    }
+
+    static RegexFacts alternation(List<RegexFacts> alternatives, TextFacts text) {
+        RegexFacts first = alternatives.get(0);
+        boolean complete = true;
+        boolean nullable = false;
+        int minLength = UNBOUNDED;
+        int maxLength = 0;
+        CharacterSet firstChars = CharacterSet.EMPTY;
+        String literal = first.literal;
+        Set<String> requiredLiterals = new HashSet<>(first.requiredLiterals);
+        boolean zeroWidthAssertions = false;
+        boolean satisfiable = false;
+        for (RegexFacts alternative : alternatives) {
+            complete &= alternative.complete;
+            nullable |= alternative.nullable;
+            minLength = Math.min(minLength, alternative.minLength);
+            maxLength = Math.max(maxLength, alternative.maxLength);
+            firstChars = firstChars.union(alternative.firstChars);
+            if (literal != null && !literal.equals(alternative.literal)) {
+                literal = null;
+            }
+            requiredLiterals.retainAll(alternative.requiredLiterals);
+            zeroWidthAssertions |= alternative.zeroWidthAssertions;
+            satisfiable |= alternative.satisfiable;
+        }
+        return new RegexFacts(complete, nullable, minLength, maxLength, firstChars, literal, requiredLiterals, zeroWidthAssertions, satisfiable, text);
+    }
+
+    /**
+     * Facts of the repetition of a regex.
+     * @param child
+     * @param min minimum number of repetitions
+     * @param max maximum number of repetitions, or UNBOUNDED
+     * @param text
+     * @return
+     */
+    static RegexFacts repetition(RegexFacts child, int min, int max, TextFacts text) {
+        int maxLength;
+        if (max == 0 || child.maxLength == 0) {
+            maxLength = 0;
+        } else if (max == UNBOUNDED) {
+            maxLength = UNBOUNDED;
+        } else {
+            maxLength = multiply(child.maxLength, max);
+        }
+        return new RegexFacts(child.complete, min == 0 || child.nullable, multiply(child.minLength, min), maxLength,
+                max == 0 ? CharacterSet.EMPTY : child.firstChars, (min == 1 && max == 1) ? child.literal : null,
+                min > 0 ? child.requiredLiterals : Collections.<String>emptySet(), child.zeroWidthAssertions,
+                min == 0 || child.satisfiable, text);
+    }
+
+    private static int add(int a, int b) {
+        return (int) Math.min(UNBOUNDED, (long) a + b);
+    }
+
+    private static int multiply(int a, int b) {
+        return (int) Math.min(UNBOUNDED, (long) a * b);
+    }
+
+    /**
+     * @return true when every node of the tree has been understood by the analysis
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    public int getMinLength() {
+        return minLength;
+    }
+
+    /**
+     * @return the maximum match length, or UNBOUNDED
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * @return the chars a non empty match can start with
+     */
+    public CharacterSet getFirstChars() {
+        return firstChars;
+    }
+
+    /**
+     * @return the only string the regex can match, or null
+     */
+    public String getLiteral() {
+        return literal;
+    }
+
+    /**
+     * @return the literals which are contained by all the matches
+     */
+    public Set<String> getRequiredLiterals() {
+        return Collections.unmodifiableSet(requiredLiterals);
+    }
+
+    public boolean hasZeroWidthAssertions() {
+        return zeroWidthAssertions;
+    }
+
+    /**
+     * @return false when the regex provably cannot match the texts the facts have been computed against
+     */
+    public boolean isSatisfiable() {
+        return satisfiable;
+    }
+
+    /**
+     * @return true when the regex can only match the empty string
+     */
+    public boolean isEmptyOnly() {
+        return maxLength == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "RegexFacts{" + "complete=" + complete + ", nullable=" + nullable + ", minLength=" + minLength
+                + ", maxLength=" + (maxLength == UNBOUNDED ? "unbounded" : maxLength) + ", firstChars=" + firstChars
+                + ", requiredLiterals=" + requiredLiterals + ", zeroWidthAssertions=" + zeroWidthAssertions + ", satisfiable=" + satisfiable + '}';
+    }
+}
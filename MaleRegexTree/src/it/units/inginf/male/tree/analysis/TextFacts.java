@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.tree.analysis;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Facts about a set of texts (i.e. the examples of a dataset) which are compared against the
+ * RegexFacts of an individual: the charset, the char bigrams and the longest text length.
+ * The answers are necessary conditions: when a method returns false the texts cannot contain
+ * the string or the char.
+ * @author MaleLabTs
+ */
+public class TextFacts {
+
+    private final BitSet charset = new BitSet();
+    private final Set<Integer> bigrams = new HashSet<>();
+    private int longestText = 0;
+
+    public void add(CharSequence text) {
+        int length = text.length();
+        longestText = Math.max(longestText, length);
+        char previous = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            charset.set(c);
+            if (i > 0) {
+                bigrams.add(bigram(previous, c));
+            }
+            previous = c;
+        }
+    }
+
+    private static int bigram(char first, char second) {
+        return (first << 16) | second;
+    }
+
+    public int getLongestText() {
+        return longestText;
+    }
+
+    public boolean contains(char c) {
+        return charset.get(c);
+    }
+
+    /**
+     * @param characterSet
+     * @return true when at least one char of the texts belongs to the set
+     */
+    public boolean containsAny(CharacterSet characterSet) {
+        for (int c = charset.nextSetBit(0); c >= 0; c = charset.nextSetBit(c + 1)) {
+            if (characterSet.contains((char) c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param string
+     * @return false when no text can contain the string
+     */
+    public boolean mayContain(String string) {
+        if (string.length() > longestText) {
+            return false;
+        }
+        for (int i = 0; i < string.length(); i++) {
+            if (!charset.get(string.charAt(i))) {
+                return false;
+            }
+            if (i > 0 && !bigrams.contains(bigram(string.charAt(i - 1), string.charAt(i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.tree.simplification;
+
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.tree.operator.Group;
+import it.units.inginf.male.tree.operator.Lookaround;
+import it.units.inginf.male.tree.operator.MatchMinMax;
+import it.units.inginf.male.tree.operator.MatchOneOrMoreGreedy;
+import it.units.inginf.male.tree.operator.MatchZeroOrMoreGreedy;
+import it.units.inginf.male.tree.operator.MatchZeroOrOneGreedy;
+import it.units.inginf.male.tree.operator.NonCapturingGroup;
+import it.units.inginf.male.tree.operator.Or;
+import it.units.inginf.male.tree.operator.Quantifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Removes the alternatives which are identical to a previous one, i.e. a|b|a to a|b: when the first one fails
+ * the copy fails too. A single remaining alternative replaces the alternation.
+ * The rule applies only when the parent delimits the alternation: in a concatenation (or under MatchMinMaxGreedy)
+ * the Or is not grouped, i.e. x(a|a) describes xa|a.
+ * @author MaleLabTs
+ */
+public class DuplicateAlternativesRule implements SimplificationRule {
+
+    @Override
+    public Node apply(Node node) {
+        Node parent = node.getParent();
+        boolean delimited = parent == null || parent instanceof Group || parent instanceof NonCapturingGroup
+                || parent instanceof Lookaround || parent instanceof Quantifier || parent instanceof MatchMinMax;
+        if (!Rewrites.isChainTop(node, Or.class) || !delimited) {
+            return null;
+        }
+        List<Node> alternatives = new ArrayList<>();
+        Rewrites.flatten(node, Or.class, alternatives);
+        Set<String> descriptions = new HashSet<>();
+        List<Node> kept = new ArrayList<>(alternatives.size());
+        for (Node alternative : alternatives) {
+            if (descriptions.add(Rewrites.describe(alternative))) {
+                kept.add(alternative);
+            }
+        }
+        if (kept.size() == alternatives.size()) {
+            return null;
+        }
+        Node result = Rewrites.alternation(kept);
+        if (kept.size() == 1 && (parent instanceof MatchOneOrMoreGreedy || parent instanceof MatchZeroOrMoreGreedy
+                || parent instanceof MatchZeroOrOneGreedy)) {
+            //the alternation was grouped by itself, the greedy repetitions do not group their child
+            NonCapturingGroup group = new NonCapturingGroup();
+            Rewrites.addChild(group, result);
+            return group;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isBackreferenceSafe() {
+        return false;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.tree.simplification;
+
+import it.units.inginf.male.tree.Constant;
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.tree.operator.Concatenator;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges the adjacent Constants of a concatenation into a single Constant, i.e. a chain of Concatenators
+ * of the leaves a, b and \d becomes the leaf ab\d. The described regex does not change.
+ * @author MaleLabTs
+ */
+public class MergeConstantsRule implements SimplificationRule {
+
+    @Override
+    public Node apply(Node node) {
+        if (!Rewrites.isChainTop(node, Concatenator.class)) {
+            return null;
+        }
+        List<Node> operands = new ArrayList<>();
+        Rewrites.flatten(node, Concatenator.class, operands);
+        List<Node> merged = new ArrayList<>(operands.size());
+        StringBuilder value = new StringBuilder();
+        int run = 0;
+        for (Node operand : operands) {
+            if (operand instanceof Constant) {
+                value.append(operand.toString());
+                run++;
+                continue;
+            }
+            addRun(merged, value, run);
+            run = 0;
+            merged.add(operand);
+        }
+        addRun(merged, value, run);
+        if (merged.size() == operands.size()) {
+            return null;
+        }
+        return Rewrites.concatenation(merged);
+    }
+
+    private static void addRun(List<Node> merged, StringBuilder value, int run) {
+        if (run > 0) {
+            merged.add(new Constant(value.toString()));
+            value.setLength(0);
+        }
+    }
+
+    @Override
+    public boolean isBackreferenceSafe() {
+        return true;
+    }
+}
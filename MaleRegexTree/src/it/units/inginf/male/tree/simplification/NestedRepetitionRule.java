@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.tree.simplification;
+
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.tree.operator.MatchOneOrMore;
+import it.units.inginf.male.tree.operator.MatchOneOrMoreGreedy;
+import it.units.inginf.male.tree.operator.MatchZeroOrMore;
+import it.units.inginf.male.tree.operator.MatchZeroOrMoreGreedy;
+import it.units.inginf.male.tree.operator.MatchZeroOrOne;
+import it.units.inginf.male.tree.operator.MatchZeroOrOneGreedy;
+import it.units.inginf.male.tree.operator.NonCapturingGroup;
+
+/**
+ * Collapses a repetition of a grouped repetition into a single repetition.
+ * Possessive repetitions: (?:x++)++ to x++, any other combination of ?+ *+ ++ to x*+ except (?:x?+)?+ to x?+.
+ * Greedy repetitions: (?:x*)? and (?:x+)? to x*, which try the same matches in the same order; x must be an atom
+ * because the greedy repetitions do not group their child.
+ * Mixed possessive and greedy repetitions are left alone.
+ * @author MaleLabTs
+ */
+public class NestedRepetitionRule implements SimplificationRule {
+
+    @Override
+    public Node apply(Node node) {
+        if (node.getChildrens().isEmpty() || !(node.getChildrens().get(0) instanceof NonCapturingGroup)) {
+            return null;
+        }
+        Node inner = node.getChildrens().get(0).getChildrens().get(0);
+        Node result;
+        if (isPossessive(node) && isPossessive(inner)) {
+            if (node instanceof MatchOneOrMore && inner instanceof MatchOneOrMore) {
+                result = new MatchOneOrMore();
+            } else if (node instanceof MatchZeroOrOne && inner instanceof MatchZeroOrOne) {
+                result = new MatchZeroOrOne();
+            } else {
+                result = new MatchZeroOrMore();
+            }
+        } else if (node instanceof MatchZeroOrOneGreedy && (inner instanceof MatchZeroOrMoreGreedy || inner instanceof MatchOneOrMoreGreedy)
+                && Rewrites.isAtom(inner.getChildrens().get(0))) {
+            result = new MatchZeroOrMoreGreedy();
+        } else {
+            return null;
+        }
+        Rewrites.addChild(result, inner.getChildrens().get(0));
+        return result;
+    }
+
+    private static boolean isPossessive(Node node) {
+        return node instanceof MatchOneOrMore || node instanceof MatchZeroOrMore || node instanceof MatchZeroOrOne;
+    }
+
+    @Override
+    public boolean isBackreferenceSafe() {
+        return true;
+    }
+}
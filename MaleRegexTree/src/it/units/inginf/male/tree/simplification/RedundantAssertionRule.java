@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.tree.simplification;
+
+import it.units.inginf.male.tree.Anchor;
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.tree.operator.Concatenator;
+import it.units.inginf.male.tree.operator.Lookaround;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Removes a zero width assertion (lookaround or anchor) which follows an identical one in a concatenation,
+ * i.e. (?=\d)(?=\d)a to (?=\d)a: the assertions are tested at the same position.
+ * @author MaleLabTs
+ */
+public class RedundantAssertionRule implements SimplificationRule {
+
+    @Override
+    public Node apply(Node node) {
+        if (!Rewrites.isChainTop(node, Concatenator.class)) {
+            return null;
+        }
+        List<Node> operands = new ArrayList<>();
+        Rewrites.flatten(node, Concatenator.class, operands);
+        List<Node> kept = new ArrayList<>(operands.size());
+        String previous = null;
+        for (Node operand : operands) {
+            if (operand instanceof Lookaround || operand instanceof Anchor) {
+                String description = Rewrites.describe(operand);
+                if (description.equals(previous)) {
+                    continue;
+                }
+                previous = description;
+            } else {
+                previous = null;
+            }
+            kept.add(operand);
+        }
+        if (kept.size() == operands.size()) {
+            return null;
+        }
+        return Rewrites.concatenation(kept);
+    }
+
+    @Override
+    public boolean isBackreferenceSafe() {
+        return false;
+    }
+}
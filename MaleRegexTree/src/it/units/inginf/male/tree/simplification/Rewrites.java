@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.tree.simplification;
+
+import it.units.inginf.male.tree.Constant;
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.tree.operator.Concatenator;
+import it.units.inginf.male.tree.operator.Group;
+import it.units.inginf.male.tree.operator.ListMatch;
+import it.units.inginf.male.tree.operator.ListNotMatch;
+import it.units.inginf.male.tree.operator.NonCapturingGroup;
+import it.units.inginf.male.tree.operator.Or;
+import java.util.List;
+
+/**
+ * Tree helpers shared by the simplification rules.
+ * @author MaleLabTs
+ */
+class Rewrites {
+
+    private Rewrites() {
+    }
+
+    static String describe(Node node) {
+        StringBuilder builder = new StringBuilder();
+        node.describe(builder);
+        return builder.toString();
+    }
+
+    /**
+     * @return true when the node describes a single regex atom: a char, an escaped char, a list or a group
+     */
+    static boolean isAtom(Node node) {
+        if (node instanceof ListMatch || node instanceof ListNotMatch || node instanceof Group || node instanceof NonCapturingGroup) {
+            return true;
+        }
+        if (node instanceof Constant) {
+            String value = node.toString();
+            return value.length() == 1 || (value.length() == 2 && value.charAt(0) == '\\');
+        }
+        return false;
+    }
+
+    static void addChild(Node parent, Node child) {
+        child.setParent(parent);
+        parent.getChildrens().add(child);
+    }
+
+    /**
+     * Moves the children of a node under a new node of a different type.
+     */
+    static Node replaceOperator(Node node, Node operator) {
+        for (Node child : node.getChildrens()) {
+            addChild(operator, child);
+        }
+        return operator;
+    }
+
+    /**
+     * @return true when the node is the topmost operator of a chain of operators of the provided type
+     */
+    static boolean isChainTop(Node node, Class<? extends Node> type) {
+        return type.isInstance(node) && !type.isInstance(node.getParent());
+    }
+
+    /**
+     * Lists the operands of a chain of Concatenators, or of Ors, in description order.
+     */
+    static void flatten(Node node, Class<? extends Node> type, List<Node> operands) {
+        if (type.isInstance(node)) {
+            for (Node child : node.getChildrens()) {
+                flatten(child, type, operands);
+            }
+        } else {
+            operands.add(node);
+        }
+    }
+
+    static Node concatenation(List<Node> operands) {
+        return chain(operands, Concatenator.class);
+    }
+
+    static Node alternation(List<Node> operands) {
+        return chain(operands, Or.class);
+    }
+
+    /**
+     * Builds a left deep chain of binary operators; a single operand is returned as it is.
+     */
+    private static Node chain(List<Node> operands, Class<? extends Node> type) {
+        Node result = operands.get(0);
+        for (int i = 1; i < operands.size(); i++) {
+            Node operator = type == Or.class ? new Or() : new Concatenator();
+            addChild(operator, result);
+            addChild(operator, operands.get(i));
+            result = operator;
+        }
+        return result;
+    }
+
+    static boolean contains(Node node, Class<? extends Node> type) {
+        if (type.isInstance(node)) {
+            return true;
+        }
+        for (Node child : node.getChildrens()) {
+            if (contains(child, type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static int size(Node node) {
+        int size = 1;
+        for (Node child : node.getChildrens()) {
+            size += size(child);
+        }
+        return size;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.tree.simplification;
+
+import it.units.inginf.male.tree.Node;
+
+/**
+ * A semantics preserving rewrite of a subtree, under the Java flavour of the described regex:
+ * the rewritten tree matches the same strings at the same positions, in the same order.
+ * @author MaleLabTs
+ */
+public interface SimplificationRule {
+
+    /**
+     * Rewrites the subtree rooted in node. The children of node have already been simplified; the node
+     * is still linked to its parent, the rule must not modify the parent.
+     * @param node
+     * @return the subtree which replaces node, or null when the rule does not apply
+     */
+    Node apply(Node node);
+
+    /**
+     * Rules which change the text next to a node or the numbering of the capturing groups are not
+     * applied to trees containing backreferences: \1 followed by 0 is \10.
+     * @return true when the rule can be applied to trees with backreferences
+     */
+    boolean isBackreferenceSafe();
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.tree.simplification;
+
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.tree.operator.Backreference;
+import it.units.inginf.male.tree.operator.Concatenator;
+import it.units.inginf.male.tree.operator.MatchMinMaxGreedy;
+import it.units.inginf.male.tree.operator.MatchOneOrMoreGreedy;
+import it.units.inginf.male.tree.operator.MatchZeroOrMoreGreedy;
+import it.units.inginf.male.tree.operator.MatchZeroOrOneGreedy;
+import it.units.inginf.male.tree.operator.Or;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rule based rewriting of trees into smaller trees which describe equivalent regexes.
+ * The rules are applied bottom up, a rewrite is accepted only when the parent of the rewritten node is
+ * still valid; passes are repeated until the tree does not change.
+ * The *Greedy repetitions do not group their child, their suffix applies to the last token of the child
+ * description: the nodes which describe that token are not rewritten.
+ * The trees are rewritten in place; the simplifier counts the rewrites and the removed nodes.
+ * @author MaleLabTs
+ */
+public class TreeSimplifier {
+
+    private static final int MAX_PASSES = 8;
+
+    private final List<SimplificationRule> rules;
+    private final AtomicLong[] applications;
+    private final AtomicLong trees = new AtomicLong();
+    private final AtomicLong simplifiedTrees = new AtomicLong();
+    private final AtomicLong nodesBefore = new AtomicLong();
+    private final AtomicLong nodesAfter = new AtomicLong();
+
+    public TreeSimplifier() {
+        this(Arrays.asList(new UnwrapGroupRule(), new DuplicateAlternativesRule(), new NestedRepetitionRule(),
+                new RedundantAssertionRule(), new MergeConstantsRule()));
+    }
+
+    public TreeSimplifier(List<SimplificationRule> rules) {
+        this.rules = rules;
+        this.applications = new AtomicLong[rules.size()];
+        for (int i = 0; i < applications.length; i++) {
+            applications[i] = new AtomicLong();
+        }
+    }
+
+    /**
+     * Simplifies the tree, in place.
+     * @param root
+     * @return the simplified tree, which may be a different node than root
+     */
+    public Node simplify(Node root) {
+        int sizeBefore = Rewrites.size(root);
+        boolean backreferences = Rewrites.contains(root, Backreference.class);
+        boolean simplified = false;
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            boolean[] changed = new boolean[1];
+            root = simplify(root, false, backreferences, changed);
+            if (!changed[0]) {
+                break;
+            }
+            simplified = true;
+        }
+        trees.incrementAndGet();
+        nodesBefore.addAndGet(sizeBefore);
+        if (simplified) {
+            simplifiedTrees.incrementAndGet();
+            nodesAfter.addAndGet(Rewrites.size(root));
+        } else {
+            nodesAfter.addAndGet(sizeBefore);
+        }
+        return root;
+    }
+
+    /**
+     * @param bound true when the end of the node description is bound to the suffix of a greedy repetition
+     */
+    private Node simplify(Node node, boolean bound, boolean backreferences, boolean[] changed) {
+        List<Node> childrens = node.getChildrens();
+        for (int i = 0; i < childrens.size(); i++) {
+            Node child = childrens.get(i);
+            Node simplifiedChild = simplify(child, isBound(node, bound, i), backreferences, changed);
+            if (simplifiedChild != child) {
+                simplifiedChild.setParent(node);
+                childrens.set(i, simplifiedChild);
+            }
+        }
+        if (bound) {
+            return node;
+        }
+        for (int r = 0; r < rules.size(); r++) {
+            SimplificationRule rule = rules.get(r);
+            if (backreferences && !rule.isBackreferenceSafe()) {
+                continue;
+            }
+            Node replacement = rule.apply(node);
+            if (replacement != null && replace(node, replacement)) {
+                applications[r].incrementAndGet();
+                changed[0] = true;
+                node = replacement;
+            }
+        }
+        return node;
+    }
+
+    private static boolean isBound(Node parent, boolean parentBound, int index) {
+        if (parent instanceof MatchOneOrMoreGreedy || parent instanceof MatchZeroOrMoreGreedy || parent instanceof MatchZeroOrOneGreedy
+                || parent instanceof MatchMinMaxGreedy) {
+            return index == 0;
+        }
+        //the other operators delimit their children, but concatenations and alternatives
+        if (parent instanceof Concatenator || parent instanceof Or) {
+            return parentBound && index == parent.getChildrens().size() - 1;
+        }
+        return false;
+    }
+
+    /**
+     * Links the replacement in place of node and checks the validity of the parent; an invalid
+     * replacement is rolled back.
+     */
+    private static boolean replace(Node node, Node replacement) {
+        Node parent = node.getParent();
+        replacement.setParent(parent);
+        if (parent == null) {
+            if (replacement.isValid()) {
+                return true;
+            }
+            relink(node);
+            return false;
+        }
+        List<Node> siblings = parent.getChildrens();
+        int index = 0;
+        while (siblings.get(index) != node) {
+            index++;
+        }
+        siblings.set(index, replacement);
+        if (parent.isValid()) {
+            return true;
+        }
+        siblings.set(index, node);
+        relink(node);
+        return false;
+    }
+
+    /**
+     * Restores the parents of the subtree, the rules move the nodes under the new operators.
+     */
+    private static void relink(Node node) {
+        for (Node child : node.getChildrens()) {
+            child.setParent(node);
+            relink(child);
+        }
+    }
+
+    public long getTrees() {
+        return trees.get();
+    }
+
+    public long getSimplifiedTrees() {
+        return simplifiedTrees.get();
+    }
+
+    public long getNodesBefore() {
+        return nodesBefore.get();
+    }
+
+    public long getNodesAfter() {
+        return nodesAfter.get();
+    }
+
+    /**
+     * @return the number of accepted rewrites of each rule, by rule name
+     */
+    public Map<String, Long> getApplications() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int r = 0; r < rules.size(); r++) {
+            result.put(rules.get(r).getClass().getSimpleName(), applications[r].get());
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public String toString() {
+        return "TreeSimplifier{" + "trees=" + trees + ", simplifiedTrees=" + simplifiedTrees + ", nodesBefore=" + nodesBefore
+                + ", nodesAfter=" + nodesAfter + ", applications=" + getApplications() + '}';
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.tree.simplification;
+
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.tree.operator.Concatenator;
+import it.units.inginf.male.tree.operator.Group;
+import it.units.inginf.male.tree.operator.Lookaround;
+import it.units.inginf.male.tree.operator.MatchMinMax;
+import it.units.inginf.male.tree.operator.MatchOneOrMore;
+import it.units.inginf.male.tree.operator.MatchZeroOrMore;
+import it.units.inginf.male.tree.operator.MatchZeroOrOne;
+import it.units.inginf.male.tree.operator.NonCapturingGroup;
+import it.units.inginf.male.tree.operator.Or;
+
+/**
+ * Removes a NonCapturingGroup when the parent already delimits the child: groups, lookarounds, alternatives,
+ * the possessive repetitions (which group their child when needed) and the root. In a concatenation the group
+ * is removed unless the child is an alternation. i.e. (?:(?:ab)) to (?:ab), (?:a)++ to a++.
+ * The *Greedy repetitions do not group their child, their groups are kept.
+ * @author MaleLabTs
+ */
+public class UnwrapGroupRule implements SimplificationRule {
+
+    @Override
+    public Node apply(Node node) {
+        if (!(node instanceof NonCapturingGroup)) {
+            return null;
+        }
+        Node child = node.getChildrens().get(0);
+        Node parent = node.getParent();
+        boolean delimited = parent == null || parent instanceof NonCapturingGroup || parent instanceof Group || parent instanceof Lookaround
+                || parent instanceof Or || parent instanceof MatchOneOrMore || parent instanceof MatchZeroOrMore
+                || parent instanceof MatchZeroOrOne || parent instanceof MatchMinMax;
+        if (delimited || (parent instanceof Concatenator && !(child instanceof Or))) {
+            return child;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isBackreferenceSafe() {
+        return false;
+    }
+}
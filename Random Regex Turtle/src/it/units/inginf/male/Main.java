@@ -24,7 +24,9 @@ package it.units.inginf.male;
 import it.units.inginf.male.configuration.Configuration;
 import it.units.inginf.male.configuration.Configurator;
 import it.units.inginf.male.strategy.ExecutionStrategy;
+import it.units.inginf.male.strategy.impl.CompositeExecutionListener;
 import it.units.inginf.male.strategy.impl.CoolTextualExecutionListener;
+import it.units.inginf.male.strategy.impl.JmxExecutionListener;
 import it.units.inginf.male.evaluators.TreeEvaluationException;
 import it.units.inginf.male.outputs.Results;
 import it.units.inginf.male.utils.Utils;
@@ -61,7 +63,8 @@ public class Main {
         ExecutionStrategy strategy = configuration.getStrategy();
         long startTime = System.currentTimeMillis();
         
-        strategy.execute(configuration, new CoolTextualExecutionListener(args[0], configuration, results));
+        //JMX monitors are published into the platform MBean server, see run.jvmargs for remote access
+        strategy.execute(configuration, new CompositeExecutionListener(new CoolTextualExecutionListener(args[0], configuration, results), new JmxExecutionListener()));
         
         if (configuration.getPostProcessor() != null) {
             startTime = System.currentTimeMillis() - startTime;
@@ -145,7 +145,20 @@ public class Configuration {
      * You should invoke this method when the original Dataset/DatasetContainer is modified.
      */
     public void setup(){ 
-        this.datasetContainer.update();
+        this.setup(true);
+    }
+
+    /**
+     * Initializes terminalSetBuilder and populationBuilder; when updateDataset is true the dataset and
+     * datasetCotainer stats and structures are updated first.
+     * A dataset just loaded by <code>DatasetContainer.loadDataset</code> is already up to date, processing
+     * it again doubles the loading cost.
+     * @param updateDataset
+     */
+    public void setup(boolean updateDataset){ 
+        if (updateDataset) {
+            this.datasetContainer.update();
+        }
         this.terminalSetBuilder.setup(this);
         this.populationBuilder.setup(this); 
     }
@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Reader;
 
 /**
  *
@@ -30,18 +31,20 @@ import java.io.InputStreamReader;
  */
 public class Configurator {
     public static Configuration configure(String fileName) throws IOException {
-        FileInputStream fis = new FileInputStream(new File(fileName));
-        InputStreamReader isr = new InputStreamReader(fis);
-        StringBuilder sb;
-        try (BufferedReader bufferedReader = new BufferedReader(isr)) {
-            sb = new StringBuilder();
-            String line;
-            while ((line = bufferedReader.readLine()) != null) {
-                sb.append(line);
-            }
+        Configuration configuration;
+        try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(new File(fileName)), "UTF-8"))) {
+            Gson gson = new Gson();
+            configuration = gson.fromJson(reader, Configuration.class);
         }
-        String json = sb.toString();
-        return configureFromJson(json);
+        DatasetContainer datasetContainer = configuration.getDatasetContainer();
+        boolean loaded = false;
+        if (datasetContainer.getDataset() == null && datasetContainer.getPath() != null) {
+            //loadDataset already updates stats and sub-datasets
+            datasetContainer.loadDataset();
+            loaded = true;
+        }
+        configuration.setup(!loaded);
+        return configuration;
     }
     
     public static Configuration configureFromJson(String jsonConfiguration){
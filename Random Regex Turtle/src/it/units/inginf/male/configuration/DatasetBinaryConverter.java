@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.configuration;
+
+import it.units.inginf.male.inputs.DataSet;
+import it.units.inginf.male.inputs.DataSetBinaryFile;
+import it.units.inginf.male.inputs.DataSetJsonReader;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Converts a JSON dataset into the binary dataset format (see <code>DataSetBinaryFile</code>).
+ * The default training and validation ranges are computed, with the provided seed, and stored
+ * into the binary file together with the dataset statistics.
+ * Usage: DatasetBinaryConverter input.json output.rgds [rangesSeed] [--populate-unmatches]
+ * @author MaleLabTs
+ */
+public class DatasetBinaryConverter {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            printUsage();
+            System.exit(0);
+        }
+        int seed = 0;
+        boolean populateUnmatches = false;
+        for (int i = 2; i < args.length; i++) {
+            if ("--populate-unmatches".equals(args[i])) {
+                populateUnmatches = true;
+            } else {
+                seed = Integer.parseInt(args[i]);
+            }
+        }
+        convert(new File(args[0]), new File(args[1]), seed, populateUnmatches);
+    }
+
+    /**
+     * Converts a JSON dataset file into a binary dataset file.
+     * @param jsonFile
+     * @param binaryFile
+     * @param rangesSeed the seed used for the default training/validation ranges
+     * @param populateUnmatches when true, all the not matched chars are annotated as unmatches, like <code>DataSet.populateUnmatchesFromMatches</code>
+     * @throws IOException
+     */
+    public static void convert(File jsonFile, File binaryFile, int rangesSeed, boolean populateUnmatches) throws IOException {
+        DataSet dataset = DataSetJsonReader.read(jsonFile);
+        if (populateUnmatches) {
+            dataset.populateUnmatchesFromMatches();
+        }
+        DatasetContainer datasetContainer = new DatasetContainer(dataset);
+        datasetContainer.createDefaultRanges(rangesSeed);
+        DataSetBinaryFile.write(dataset, datasetContainer.getTraining(), datasetContainer.getValidation(), binaryFile);
+        System.out.println("Binary dataset saved: " + binaryFile.getAbsolutePath());
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: java -cp \"Random_Regex_Turtle.jar\" it.units.inginf.male.configuration.DatasetBinaryConverter input.json output.rgds [rangesSeed] [--populate-unmatches]");
+    }
+}
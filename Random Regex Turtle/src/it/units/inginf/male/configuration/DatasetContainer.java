@@ -17,16 +17,15 @@
  */
 package it.units.inginf.male.configuration;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import it.units.inginf.male.inputs.DataSet;
+import it.units.inginf.male.inputs.DataSetBinaryFile;
+import it.units.inginf.male.inputs.DataSetJsonReader;
 import it.units.inginf.male.inputs.DataSet.Example;
 import it.units.inginf.male.utils.Range;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
@@ -46,9 +45,16 @@ public final class DatasetContainer {
     private boolean dataSetStriped = false;
     private double datasetStripeMarginSize = Integer.MAX_VALUE; //no slices are done
     private int normalProposedDatasetInterval = 0;
+    private boolean adaptiveStriping = false;
+    private boolean compactStorage = false;
+    private boolean dynamicSubsetSelection = false;
+    private double dynamicSubsetRatio = 0.25;
+    private double dynamicSubsetDifficultyExponent = 1.0;
+    private double dynamicSubsetAgeExponent = 1.0;
     private transient DataSet trainingDataset;
     private transient DataSet validationDataset;
     private transient DataSet learningDataset;
+    private transient DataSetBinaryFile binaryDataset;
 
     public DatasetContainer() {    
     }
@@ -61,9 +67,16 @@ public final class DatasetContainer {
         this.dataSetStriped = datasetContainer.isDataSetStriped();
         this.datasetStripeMarginSize = datasetContainer.getDatasetStripeMarginSize();
         this.normalProposedDatasetInterval = datasetContainer.getProposedNormalDatasetInterval();
+        this.adaptiveStriping = datasetContainer.isAdaptiveStriping();
+        this.compactStorage = datasetContainer.isCompactStorage();
+        this.dynamicSubsetSelection = datasetContainer.isDynamicSubsetSelection();
+        this.dynamicSubsetRatio = datasetContainer.getDynamicSubsetRatio();
+        this.dynamicSubsetDifficultyExponent = datasetContainer.getDynamicSubsetDifficultyExponent();
+        this.dynamicSubsetAgeExponent = datasetContainer.getDynamicSubsetAgeExponent();
         this.trainingDataset = datasetContainer.getTrainingDataset();
         this.validationDataset = datasetContainer.getValidationDataset();
         this.learningDataset = datasetContainer.getLearningDataset();
+        this.binaryDataset = datasetContainer.binaryDataset;
     }
     
     /**
@@ -225,6 +238,83 @@ public final class DatasetContainer {
         this.normalProposedDatasetInterval = unstripedDatasetInterval;
     }
 
+    /**
+     * When true, and the datasets are striped, the strategy tunes the margin size and the
+     * normal dataset interval at runtime (see <code>AdaptiveStripingController</code>).
+     * <code>datasetStripeMarginSize</code> and <code>normalProposedDatasetInterval</code> are the
+     * initial values.
+     *
+     * @return
+     */
+    public boolean isAdaptiveStriping() {
+        return adaptiveStriping;
+    }
+
+    public void setAdaptiveStriping(boolean adaptiveStriping) {
+        this.adaptiveStriping = adaptiveStriping;
+    }
+
+    /**
+     * When true, the dataset examples are moved into a compact columnar storage
+     * (<code>DataSet.compactStorage</code>) before the sub-datasets are generated.
+     * Compacted examples are read-only, the dataset annotations have to be final
+     * when <code>update</code> or <code>loadDataset</code> are called.
+     *
+     * @return
+     */
+    public boolean isCompactStorage() {
+        return compactStorage;
+    }
+
+    public void setCompactStorage(boolean compactStorage) {
+        this.compactStorage = compactStorage;
+    }
+
+    /**
+     * When true, the strategy evaluates the population on a dynamic subset of the
+     * training examples (see <code>DynamicSubsetSelector</code>); the full training
+     * view is used every <code>getProposedNormalDatasetInterval</code> generations.
+     * Like the striped views, this value does not affect the DatasetContainer behavior.
+     *
+     * @return
+     */
+    public boolean isDynamicSubsetSelection() {
+        return dynamicSubsetSelection;
+    }
+
+    public void setDynamicSubsetSelection(boolean dynamicSubsetSelection) {
+        this.dynamicSubsetSelection = dynamicSubsetSelection;
+    }
+
+    /**
+     * The dynamic subset size, as a fraction of the training view size.
+     *
+     * @return
+     */
+    public double getDynamicSubsetRatio() {
+        return dynamicSubsetRatio;
+    }
+
+    public void setDynamicSubsetRatio(double dynamicSubsetRatio) {
+        this.dynamicSubsetRatio = dynamicSubsetRatio;
+    }
+
+    public double getDynamicSubsetDifficultyExponent() {
+        return dynamicSubsetDifficultyExponent;
+    }
+
+    public void setDynamicSubsetDifficultyExponent(double dynamicSubsetDifficultyExponent) {
+        this.dynamicSubsetDifficultyExponent = dynamicSubsetDifficultyExponent;
+    }
+
+    public double getDynamicSubsetAgeExponent() {
+        return dynamicSubsetAgeExponent;
+    }
+
+    public void setDynamicSubsetAgeExponent(double dynamicSubsetAgeExponent) {
+        this.dynamicSubsetAgeExponent = dynamicSubsetAgeExponent;
+    }
+
     public DataSet getDataset() {
         return dataset;
     }
@@ -269,23 +359,37 @@ public final class DatasetContainer {
 
     /**
      * Forces reloading of the dataset from file; the dataset path URL is the
-     * DatasetContainer <code>path</code> property
+     * DatasetContainer <code>path</code> property.
+     * The file is either a JSON dataset or a binary dataset file (see <code>DataSetBinaryFile</code>).
+     * When a binary dataset is loaded and no ranges are defined inside the container, the
+     * ranges stored into the file are used.
      *
      * @throws IOException
      */
     public void loadDataset() throws IOException {
-        FileInputStream fis = new FileInputStream(new File(this.path));
-        InputStreamReader isr = new InputStreamReader(fis);
-        StringBuilder sb;
-        try (BufferedReader bufferedReader = new BufferedReader(isr)) {
-            sb = new StringBuilder();
-            String line;
-            while ((line = bufferedReader.readLine()) != null) {
-                sb.append(line);
+        File file = new File(this.path);
+        if (DataSetBinaryFile.isBinaryDataSet(file)) {
+            this.binaryDataset = DataSetBinaryFile.open(file);
+            this.dataset = this.binaryDataset.getDataset();
+            if (this.training.isEmpty() && this.validation.isEmpty()) {
+                this.training = new ArrayList<>(this.binaryDataset.getTraining());
+                this.validation = new ArrayList<>(this.binaryDataset.getValidation());
             }
+        } else {
+            this.binaryDataset = null;
+            //the streaming reader already populates annotated strings and dataset stats
+            this.dataset = DataSetJsonReader.read(file);
         }
-        String json = sb.toString();
-        this.loadDatasetJson(json);
+        this.updateSubDataset();
+    }
+    
+    /**
+     * Returns true when the managed dataset has been loaded from a binary dataset file;
+     * the examples are read-only and the statistics are precomputed.
+     * @return
+     */
+    private boolean isBinaryDataset() {
+        return this.binaryDataset != null && this.dataset == this.binaryDataset.getDataset();
     }
     
     /**
@@ -297,12 +401,22 @@ public final class DatasetContainer {
      * @param jsonDataset
      */
     public void loadDatasetJson(String jsonDataset) {
-        Gson gson = new GsonBuilder().disableHtmlEscaping().create();;
-        this.dataset = gson.fromJson(jsonDataset, DataSet.class);
-        this.update();
+        try {
+            this.dataset = DataSetJsonReader.read(new StringReader(jsonDataset));
+        } catch (IOException ex) {
+            throw new JsonParseException(ex);
+        }
+        this.updateSubDataset();
     }
 
     public final void updateSubDataset() {
+        if (this.isBinaryDataset()) {
+            this.updateBinarySubDataset();
+            return;
+        }
+        if (this.compactStorage) {
+            this.dataset.compactStorage();
+        }
         this.trainingDataset = this.dataset.subDataset("training", training);
         this.validationDataset = this.dataset.subDataset("validation", validation);
         this.trainingDataset.updateStats();
@@ -323,14 +437,35 @@ public final class DatasetContainer {
         }
     }
     
+    //binary datasets are read-only, the precomputed sub-datasets are used when the ranges are the stored ones
+    private void updateBinarySubDataset() {
+        if (this.binaryDataset.hasRanges(training, validation)) {
+            this.trainingDataset = this.binaryDataset.getTrainingDataset();
+            this.validationDataset = this.binaryDataset.getValidationDataset();
+        } else {
+            this.trainingDataset = this.dataset.subDataset("training", training);
+            this.validationDataset = this.dataset.subDataset("validation", validation);
+            this.trainingDataset.updateStats();
+            this.validationDataset.updateStats();
+        }
+        this.learningDataset = this.binaryDataset.getLearningDataset();
+        if (this.dataSetStriped) {
+            this.trainingDataset.initStripedDatasetView(this.datasetStripeMarginSize);
+            this.trainingDataset.getStripedDataset().updateStats();
+        }
+    }
+    
     /**
      * Updates the dataset and the defined subDataset (learning,training,validation).
      * Populates the matching strings in dataset and statistical info both in dataset and
      * subDataset.
+     * Datasets loaded from a binary dataset file are read-only and their statistics are not recomputed.
      */
     public void update(){
-        this.dataset.populateAnnotatedStrings();
-        this.dataset.updateStats();
+        if (!this.isBinaryDataset()) {
+            this.dataset.populateAnnotatedStrings();
+            this.dataset.updateStats();
+        }
         this.updateSubDataset();
     }
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.evaluators;
+
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.tree.operator.Backreference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Computes the extractions of an alternation (i.e. the Or of the separate and conquer bests) from the extractions
+ * of its alternatives, without matching. The extractions are merged leftmost first: at the same start the extraction
+ * of the first alternative is kept, and the extractions nested into a kept extraction are dropped. A matcher skips the
+ * positions inside its extractions, so an alternative may match at those positions when they are scanned by the
+ * alternation: when an extraction ends after the kept extraction it overlaps, there is a conflict, the merge fails and
+ * the alternation has to be really evaluated.
+ * Alternatives containing backreferences are not mergeable, the groups are renumbered in the alternation.
+ * @author MaleLabTs
+ */
+public class AlternationMerger {
+
+    /**
+     * @param alternative
+     * @return true when the extractions of the alternative can be merged
+     */
+    public static boolean isMergeable(Node alternative) {
+        if (alternative instanceof Backreference) {
+            return false;
+        }
+        for (Node child : alternative.getChildrens()) {
+            if (!isMergeable(child)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Merges the extractions of two alternatives on the same examples.
+     * @param first the extractions of the first alternative, per example
+     * @param second the extractions of the second alternative, per example
+     * @return the extractions of the alternation, per example, or null when there is a conflict
+     */
+    public static List<List<Bounds>> merge(List<List<Bounds>> first, List<List<Bounds>> second) {
+        List<List<Bounds>> merged = new ArrayList<>(first.size());
+        for (int i = 0; i < first.size(); i++) {
+            List<Bounds> exampleMerged = mergeExample(first.get(i), second.get(i));
+            if (exampleMerged == null) {
+                return null;
+            }
+            merged.add(exampleMerged);
+        }
+        return merged;
+    }
+
+    /**
+     * Merges the extractions of two alternatives on an example.
+     * @param first the extractions of the first alternative
+     * @param second the extractions of the second alternative
+     * @return the extractions of the alternation, or null when there is a conflict
+     */
+    public static List<Bounds> mergeExample(List<Bounds> first, List<Bounds> second) {
+        if (second.isEmpty()) {
+            return first;
+        }
+        if (first.isEmpty()) {
+            return second;
+        }
+        List<Bounds> all = new ArrayList<>(first.size() + second.size());
+        all.addAll(first);
+        all.addAll(second);
+        //sorts by start, the sort is stable: at the same start the extraction of the first alternative comes first
+        Collections.sort(all);
+        List<Bounds> merged = new ArrayList<>(all.size());
+        Bounds kept = null;
+        for (Bounds bounds : all) {
+            if (kept != null && (bounds.start == kept.start || bounds.start < kept.end)) {
+                if (bounds.end > kept.end) {
+                    return null;
+                }
+                continue;
+            }
+            merged.add(bounds);
+            kept = bounds;
+        }
+        return merged;
+    }
+}
@@ -24,4 +24,12 @@ package it.units.inginf.male.evaluators;
 public interface CachedEvaluator extends TreeEvaluator{
     public double getRatio();
     public long getCacheSizeBytes();
+    /**
+     * @return the number of evaluations served by the cache
+     */
+    public long getHits();
+    /**
+     * @return the number of evaluations not found in cache
+     */
+    public long getMisses();
 }
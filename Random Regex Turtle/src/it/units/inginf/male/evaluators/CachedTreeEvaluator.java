@@ -18,62 +18,120 @@
 package it.units.inginf.male.evaluators;
 
 import it.units.inginf.male.inputs.Context;
-import it.units.inginf.male.inputs.Context.EvaluationPhases;
+import it.units.inginf.male.inputs.DataSet;
 import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.inputs.TextPool;
 import it.units.inginf.male.tree.Node;
-import it.units.inginf.male.utils.Triplet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- *
+ * Caches the match results per regex and per example text (see TextResults); the match results depend only on
+ * the text, thus all the dataset views (training, validation, learning, striped, separate and conquer levels) share
+ * the cached results of the texts they contain. An evaluation is a cache hit when the results of all the texts of
+ * the current view are cached, otherwise only the missing texts are matched.
+ * The cache is a LRU on the regexes, the optional "evaluationCacheCapacity" parameter is the (approximate) maximum
+ * number of cached example results. Default value: 1000000
  * @author MaleLabTs
  */
 public class CachedTreeEvaluator extends DefaultTreeEvaluator implements CachedEvaluator{
 
-    private final WeakHashMap<Triplet<EvaluationPhases, Boolean, String>, List<List<Bounds>>> cache = new WeakHashMap<>();
-    private long hit = 0;
-    private long miss = 0;
+    private final LinkedHashMap<String, TextResults> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong cachedResults = new AtomicLong();
+    private long capacity = 1000000;
+    private final AtomicLong hit = new AtomicLong();
+    private final AtomicLong miss = new AtomicLong();
 
+    /**
+     * The results of a stopped progressive evaluation are partially cached.
+     */
     @Override
-    public List<List<Bounds>> evaluate(Node root, Context context) throws TreeEvaluationException {
+    public List<List<Bounds>> evaluate(Node root, Context context, int[] order, ExampleObserver observer) throws TreeEvaluationException {
 
         StringBuilder sb = new StringBuilder();
         root.describe(sb);
-        List<List<Bounds>> results;
-        Triplet<EvaluationPhases, Boolean, String> key = new Triplet<>(context.getPhase(), context.isStripedPhase(), sb.toString());
-        synchronized (cache) {
-            results = cache.get(key);
-        }
+        List<List<Bounds>> results = getTextResults(sb.toString()).assemble(context.getCurrentDataSet().getTextPool());
         if (results != null) {
-            hit++;
+            hit.incrementAndGet();
+            if (context.getJobMonitor() != null) {
+                context.getJobMonitor().recordCacheHit();
+            }
             return results;
         }
         
-        miss++;
-        results = super.evaluate(root, context);
-        
+        miss.incrementAndGet();
+        return super.evaluate(root, context, order, observer);
+    }
+
+    @Override
+    protected TextResults getTextResults(String regex) {
         synchronized (cache) {
-            cache.put(key, results);
+            TextResults textResults = cache.get(regex);
+            if (textResults == null) {
+                textResults = new TextResults(cachedResults);
+                cache.put(regex, textResults);
+            }
+            //evicts the least recently used regexes
+            for (Iterator<Map.Entry<String, TextResults>> it = cache.entrySet().iterator(); cachedResults.get() > capacity && it.hasNext();) {
+                TextResults evicted = it.next().getValue();
+                if (evicted != textResults) {
+                    cachedResults.addAndGet(-evicted.discard());
+                    it.remove();
+                }
+            }
+            return textResults;
+        }
+    }
+
+    /**
+     * Stores results which have been computed without matching (see AlternationMerger) for a regex on a dataset view.
+     * The cache keeps unmodifiable views of the results.
+     * @param regex
+     * @param view
+     * @param results the results of the view examples
+     */
+    public void putResults(String regex, DataSet view, List<List<Bounds>> results) {
+        TextPool textPool = view.getTextPool();
+        TextResults textResults = getTextResults(regex);
+        for (int i = 0; i < results.size(); i++) {
+            textResults.put(textPool.getTextId(textPool.getTextIndex(i)), Collections.unmodifiableList(results.get(i)));
+        }
+    }
+
+    @Override
+    public void setup(Map<String, String> parameters) {
+        super.setup(parameters);
+        if (parameters.containsKey("evaluationCacheCapacity")) {
+            this.capacity = Long.parseLong(parameters.get("evaluationCacheCapacity"));
         }
-        return results;
     }
 
     @Override
     public double getRatio(){
-        return (double)this.hit/(this.hit+this.miss);
+        long hits = this.hit.get();
+        return (double)hits/(hits+this.miss.get());
+    }
+
+    @Override
+    public long getHits() {
+        return this.hit.get();
+    }
+
+    @Override
+    public long getMisses() {
+        return this.miss.get();
     }
     
     @Override
     public long getCacheSizeBytes(){
         synchronized (cache) {
             long cacheSize = 0;
-            for (Map.Entry<Triplet<EvaluationPhases, Boolean, String>, List<List<Bounds>>> entry : cache.entrySet()) {
-                List<List<Bounds>> list = entry.getValue();
-                for (List<Bounds> exampleResult : list) {
-                    cacheSize+=exampleResult.size();
-                }            
+            for (TextResults textResults : cache.values()) {
+                cacheSize += textResults.countBounds();
             }
             cacheSize*=(Integer.SIZE/4);
             return cacheSize;
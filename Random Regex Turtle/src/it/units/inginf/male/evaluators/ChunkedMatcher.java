@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.evaluators;
+
+import it.units.inginf.male.inputs.IntervalFile;
+import it.units.inginf.male.inputs.MappedTextFile;
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Matches a regex on a <code>MappedTextFile</code>, a text too large for a String, window by window.
+ * Consecutive windows overlap by twice the maximum match length: the first half is context for lookbehinds,
+ * word boundaries and line anchors, the search never starts there; a match is extracted from the window where
+ * it starts, unless it starts in the second half, in that case it is left to the next window which contains it
+ * entirely. The search in a window resumes after the last extracted match, so the matches crossing a window
+ * boundary are extracted once and the extractions are the same of a match on the whole text, provided that
+ * no match, and no lookaround before or after it, is longer than the maximum match length.
+ * The matches which reach the end of a window, and could be truncated, are counted
+ * (see <code>getTruncatedMatches</code>).
+ * A ChunkedMatcher is not thread safe.
+ * @author MaleLabTs
+ */
+public class ChunkedMatcher {
+
+    private final int windowChars;
+    private final int maxMatchLength;
+    private long truncatedMatches = 0;
+
+    /**
+     * @param windowChars the window size in chars
+     * @param maxMatchLength the maximum match length, twice the maximum match length has to be lower than
+     * the window size minus one
+     */
+    public ChunkedMatcher(int windowChars, int maxMatchLength) {
+        if (maxMatchLength < 0 || 2L * maxMatchLength > windowChars - 2) {
+            throw new IllegalArgumentException("Twice the maximum match length must be lower than the window size minus one: " + maxMatchLength + ", " + windowChars);
+        }
+        this.windowChars = windowChars;
+        this.maxMatchLength = maxMatchLength;
+    }
+
+    /**
+     * Matches the regex on the text and appends the matches to the output.
+     * @param pattern
+     * @param text
+     * @param output
+     * @return the number of matches
+     * @throws IOException
+     */
+    public long match(Pattern pattern, MappedTextFile text, IntervalFile.Writer output) throws IOException {
+        MappedTextFile.ChunkReader reader = text.newChunkReader(windowChars, 2 * maxMatchLength);
+        Matcher matcher = pattern.matcher("");
+        //the regex sees the whole window, i.e. lookbehinds, word boundaries and line anchors at the search start
+        matcher.useTransparentBounds(true);
+        matcher.useAnchoringBounds(false);
+        long numberMatches = 0;
+        //the position where the search resumes, in the whole text
+        long from = 0;
+        while (reader.next()) {
+            CharSequence window = reader.getText();
+            long windowStart = reader.getStart();
+            boolean last = reader.isLast();
+            //matches starting from here are extracted from the next window
+            long nextWindowStart = last ? Long.MAX_VALUE : windowStart + window.length() - maxMatchLength;
+            //the context at the start of the window is only looked at, but the first window starts with the text
+            int contextChars = (windowStart == 0) ? 0 : maxMatchLength;
+            matcher.reset(window);
+            matcher.region((int) Math.max(contextChars, from - windowStart), window.length());
+            try {
+                while (matcher.find()) {
+                    long matchStart = windowStart + matcher.start();
+                    if (matchStart >= nextWindowStart) {
+                        break;
+                    }
+                    long matchEnd = windowStart + matcher.end();
+                    if (!last && matcher.hitEnd()) {
+                        truncatedMatches++;
+                    }
+                    output.add(matchStart, matchEnd);
+                    numberMatches++;
+                    //like Matcher.find, after an empty match the search resumes from the next char
+                    from = (matchEnd == matchStart) ? matchEnd + 1 : matchEnd;
+                }
+            } catch (StringIndexOutOfBoundsException ex) {
+                /**
+                 * Workaround: ref BUG: 6984178
+                 * http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=6984178
+                 * with greedy quantifiers returns exception 
+                 * instead than "false".
+                 */
+            }
+        }
+        return numberMatches;
+    }
+
+    /**
+     * Counts the extracted intervals which are equal to an annotated interval.
+     * @param extractions sorted, non overlapping, intervals (i.e. written by <code>match</code>)
+     * @param annotations sorted intervals
+     * @return
+     */
+    public static long countCorrectExtractions(IntervalFile extractions, IntervalFile annotations) {
+        long correct = 0;
+        long annotationIndex = 0;
+        for (long i = 0; i < extractions.size(); i++) {
+            long start = extractions.getStart(i);
+            while (annotationIndex < annotations.size() && annotations.getStart(annotationIndex) < start) {
+                annotationIndex++;
+            }
+            //annotations with the same start
+            for (long j = annotationIndex; j < annotations.size() && annotations.getStart(j) == start; j++) {
+                if (annotations.getEnd(j) == extractions.getEnd(i)) {
+                    correct++;
+                    break;
+                }
+            }
+        }
+        return correct;
+    }
+
+    /**
+     * @return the number of matches, since the ChunkedMatcher creation, which reached the end of a
+     * window; they are wrong when the actual match is longer than the maximum match length
+     */
+    public long getTruncatedMatches() {
+        return truncatedMatches;
+    }
+
+    public int getMaxMatchLength() {
+        return maxMatchLength;
+    }
+}
@@ -21,67 +21,196 @@ import it.units.inginf.male.inputs.Context;
 import it.units.inginf.male.inputs.DataSet;
 import it.units.inginf.male.inputs.DataSet.Bounds;
 import it.units.inginf.male.inputs.DataSet.Example;
+import it.units.inginf.male.inputs.TextPool;
+import it.units.inginf.male.management.JobMonitor;
 import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.tree.analysis.RegexAnalyzer;
+import it.units.inginf.male.tree.analysis.TextFacts;
+import it.units.inginf.male.utils.PatternCache;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 /**
- *
+ * Evaluates the individuals on the current dataset of the Context. The compiled Patterns and the Matchers
+ * are taken from the shared PatternCache; the optional "patternCacheCapacity" parameter changes its capacity.
+ * Before matching, the individuals are pre-screened by the static analysis of their tree against the dataset
+ * texts (charset, bigrams, longest example): the individuals which provably cannot match get their empty
+ * results without matching. The "staticPrescreening" parameter, default true, enables the pre-screening.
+ * The examples can be evaluated progressively, see ProgressiveEvaluator.
+ * Examples sharing the same text (see TextPool) are matched once.
  * @author MaleLabTs
  */
-public class DefaultTreeEvaluator implements TreeEvaluator {
+public class DefaultTreeEvaluator implements ProgressiveEvaluator {
+
+    private boolean staticPrescreening = true;
+    private final AtomicLong prescreenedEvaluations = new AtomicLong();
+    //text facts per dataset view, the views are compared by identity
+    private final Map<DataSet, TextFacts> textFacts = new WeakHashMap<>();
 
     @Override
     public List<List<Bounds>> evaluate(Node root, Context context) throws TreeEvaluationException {
+        return evaluate(root, context, null, null);
+    }
 
-        List<List<Bounds>> results = new ArrayList<>(context.getCurrentDataSetLength());
+    @Override
+    public List<List<Bounds>> evaluate(Node root, Context context, int[] order, ExampleObserver observer) throws TreeEvaluationException {
+        JobMonitor jobMonitor = context.getJobMonitor();
+        SlowestEvaluationsRecorder slowestEvaluations = context.getSlowestEvaluations();
+        long startTime = (jobMonitor != null || slowestEvaluations != null) ? System.nanoTime() : 0;
+        //per example timings, only when the slowest evaluations are recorded
+        long charactersScanned = 0;
+        int slowestExampleIndex = -1;
+        long slowestExampleTime = -1;
+
+        int numberExamples = context.getCurrentDataSetLength();
+        List<List<Bounds>> results = new ArrayList<>(Collections.<List<Bounds>>nCopies(numberExamples, null));
 
         StringBuilder sb = new StringBuilder();
         root.describe(sb);
+        String regex = sb.toString();
 
         try {
-             
-            Pattern regex = Pattern.compile(sb.toString());
-            Matcher matcher = regex.matcher("");
+            Matcher matcher = PatternCache.getInstance().getMatcher(regex);
 
-            int i = 0;
             DataSet dataSet = context.getCurrentDataSet();
-            for (Example example : dataSet.getExamples()) {
-                try {
-                    Matcher m = matcher.reset(example.getString());
-                    List<Bounds> b = new LinkedList<>();
-                    while (m.find()) {
-                        Bounds bounds = new Bounds(matcher.start(0), matcher.end(0));
-                        b.add(bounds);
+            if (this.staticPrescreening && !isSatisfiable(root, dataSet)) {
+                //the individual provably matches nothing: same results of the matching loop, without matching
+                prescreenedEvaluations.incrementAndGet();
+                for (int j = 0; j < numberExamples; j++) {
+                    results.set(j, Collections.<Bounds>emptyList());
+                }
+            } else {
+                List<Example> examples = dataSet.getExamples();
+                if (!(examples instanceof RandomAccess)) {
+                    examples = new ArrayList<>(examples);
+                }
+                //each unique text is matched once, the examples sharing the text share the (unmodifiable) results
+                TextPool textPool = dataSet.getTextPool();
+                List<List<Bounds>> textResults = textPool.hasDuplicates()
+                        ? new ArrayList<>(Collections.<List<Bounds>>nCopies(textPool.getNumberTexts(), null)) : null;
+                TextResults storedResults = getTextResults(regex);
+                for (int j = 0; j < numberExamples; j++) {
+                    int i = (order != null) ? order[j] : j;
+                    int textIndex = textPool.getTextIndex(i);
+                    List<Bounds> sharedResults = (textResults != null) ? textResults.get(textIndex) : null;
+                    List<Bounds> cachedResults = (sharedResults == null && storedResults != null) ? storedResults.get(textPool.getTextId(textIndex)) : null;
+                    if (sharedResults != null) {
+                        results.set(i, sharedResults);
+                    } else if (cachedResults != null) {
+                        results.set(i, cachedResults);
+                        if (textResults != null) {
+                            textResults.set(textIndex, cachedResults);
+                        }
+                    } else {
+                        Example example = examples.get(i);
+                        long exampleStartTime = (slowestEvaluations != null) ? System.nanoTime() : 0;
+                        try {
+                            Matcher m = matcher.reset(example.getText());
+                            List<Bounds> b = new LinkedList<>();
+                            while (m.find()) {
+                                Bounds bounds = new Bounds(matcher.start(0), matcher.end(0));
+                                b.add(bounds);
 
+                            }
+                            results.set(i, Collections.unmodifiableList(b));
+                        } catch (StringIndexOutOfBoundsException ex) {
+                            /**
+                             * Workaround: ref BUG: 6984178
+                             * http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=6984178
+                             * with greedy quantifiers returns exception 
+                             * instead than "false".
+                             */
+                            results.set(i, Collections.<Bounds>emptyList());
+                        }
+                        if (textResults != null) {
+                            textResults.set(textIndex, results.get(i));
+                        }
+                        if (storedResults != null) {
+                            storedResults.put(textPool.getTextId(textIndex), results.get(i));
+                        }
+                        if (slowestEvaluations != null) {
+                            long exampleTime = System.nanoTime() - exampleStartTime;
+                            if (exampleTime > slowestExampleTime) {
+                                slowestExampleTime = exampleTime;
+                                slowestExampleIndex = i;
+                            }
+                            charactersScanned += example.getNumberOfChars();
+                        }
+                    }
+                    if (observer != null && !observer.evaluated(i, results.get(i))) {
+                        results = null;
+                        break;
                     }
-                    results.add(b);
-                } catch (StringIndexOutOfBoundsException ex) {
-                    /**
-                     * Workaround: ref BUG: 6984178
-                     * http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=6984178
-                     * with greedy quantifiers returns exception 
-                     * instead than "false".
-                     */
-                    results.add(Collections.<Bounds>emptyList());
                 }
-
-                i++;
             }
 
         } catch (PatternSyntaxException ex) {
+            if (jobMonitor != null) {
+                jobMonitor.recordCompileError();
+            }
             throw new TreeEvaluationException(ex);
         }
+        if (jobMonitor != null || slowestEvaluations != null) {
+            long evaluationTime = System.nanoTime() - startTime;
+            if (jobMonitor != null) {
+                jobMonitor.recordEvaluation(evaluationTime);
+            }
+            if (slowestEvaluations != null) {
+                slowestEvaluations.offer(regex, context, evaluationTime, charactersScanned, slowestExampleIndex, slowestExampleTime);
+            }
+        }
         return results;
     }
 
+    /**
+     * Returns the store of the results of a regex on the unique example texts; the evaluation reads the stored
+     * results and stores the results of the matched texts. The default implementation has no store.
+     * @param regex
+     * @return the store, or null
+     */
+    protected TextResults getTextResults(String regex) {
+        return null;
+    }
+
+    private boolean isSatisfiable(Node root, DataSet dataSet) {
+        TextFacts facts;
+        synchronized (textFacts) {
+            facts = textFacts.get(dataSet);
+        }
+        if (facts == null) {
+            facts = new TextFacts();
+            for (Example example : dataSet.getExamples()) {
+                facts.add(example.getText());
+            }
+            synchronized (textFacts) {
+                textFacts.put(dataSet, facts);
+            }
+        }
+        return RegexAnalyzer.analyze(root, facts).isSatisfiable();
+    }
+
+    /**
+     * @return the number of evaluations answered by the static pre-screening
+     */
+    public long getPrescreenedEvaluations() {
+        return prescreenedEvaluations.get();
+    }
+
     @Override
     public void setup(Map<String, String> parameters) {
+        if (parameters.containsKey("staticPrescreening")) {
+            this.staticPrescreening = Boolean.parseBoolean(parameters.get("staticPrescreening"));
+        }
+        if (parameters.containsKey("patternCacheCapacity")) {
+            PatternCache.getInstance().setCapacity(Integer.parseInt(parameters.get("patternCacheCapacity")));
+        }
     }
 }
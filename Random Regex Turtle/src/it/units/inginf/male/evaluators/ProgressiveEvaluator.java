@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.evaluators;
+
+import it.units.inginf.male.inputs.Context;
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.tree.Node;
+import java.util.List;
+
+/**
+ * An evaluator which can match the examples in a provided order and stop the evaluation early.
+ * @author MaleLabTs
+ */
+public interface ProgressiveEvaluator extends TreeEvaluator {
+
+    /**
+     * Evaluates the individual on the current dataset of the context, the examples are matched in the provided order
+     * and the observer is notified after each example. The results which are not computed by matching (i.e. cached or
+     * pre-screened results) are returned without notifications.
+     * @param root
+     * @param context
+     * @param order the indexes of the examples, in evaluation order; null for the dataset order
+     * @param observer
+     * @return the results, one list per example in dataset order, or null when the observer has stopped the evaluation
+     * @throws TreeEvaluationException
+     */
+    List<List<Bounds>> evaluate(Node root, Context context, int[] order, ExampleObserver observer) throws TreeEvaluationException;
+
+    public interface ExampleObserver {
+
+        /**
+         * @param index the index of the evaluated example
+         * @param results the extractions on the example
+         * @return false in order to stop the evaluation
+         */
+        boolean evaluated(int index, List<Bounds> results);
+    }
+}
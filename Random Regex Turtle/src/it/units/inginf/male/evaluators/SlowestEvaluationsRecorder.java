@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.evaluators;
+
+import it.units.inginf.male.inputs.Context;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps, per Job, the K most expensive tree evaluations in a bounded min-heap. The recorder is attached to the
+ * Job Context and fed by DefaultTreeEvaluator; cache hits are not evaluations and are never recorded.
+ * Offers cheaper than the current K-th slowest evaluation are discarded without locking.
+ * @author MaleLabTs
+ */
+public class SlowestEvaluationsRecorder {
+
+    /**
+     * A recorded evaluation.
+     */
+    public static class SlowEvaluation {
+
+        private int jobId;
+        private String regex;
+        private String phase;
+        private String datasetView;
+        private double millis;
+        private long charactersScanned;
+        private int slowestExampleIndex;
+        private double slowestExampleMillis;
+
+        public SlowEvaluation(int jobId, String regex, String phase, String datasetView, long nanos, long charactersScanned, int slowestExampleIndex, long slowestExampleNanos) {
+            this.jobId = jobId;
+            this.regex = regex;
+            this.phase = phase;
+            this.datasetView = datasetView;
+            this.millis = nanos / 1e6;
+            this.charactersScanned = charactersScanned;
+            this.slowestExampleIndex = slowestExampleIndex;
+            this.slowestExampleMillis = slowestExampleNanos / 1e6;
+        }
+
+        public int getJobId() {
+            return jobId;
+        }
+
+        public String getRegex() {
+            return regex;
+        }
+
+        /**
+         * The evaluation phase: training, validation or learning.
+         * @return
+         */
+        public String getPhase() {
+            return phase;
+        }
+
+        /**
+         * The dataset view of the evaluation, i.e. "normal" or "striped, separate and conquer".
+         * @return
+         */
+        public String getDatasetView() {
+            return datasetView;
+        }
+
+        public double getMillis() {
+            return millis;
+        }
+
+        public long getCharactersScanned() {
+            return charactersScanned;
+        }
+
+        /**
+         * The index, in the evaluated dataset view, of the example that took longer.
+         * @return
+         */
+        public int getSlowestExampleIndex() {
+            return slowestExampleIndex;
+        }
+
+        public double getSlowestExampleMillis() {
+            return slowestExampleMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.3f ms, job %d, %s %s view, %d chars, slowest example %d (%.3f ms): %s",
+                    millis, jobId, phase, datasetView, charactersScanned, slowestExampleIndex, slowestExampleMillis, regex);
+        }
+    }
+
+    /**
+     * Orders the evaluations from the slowest to the fastest.
+     */
+    public static final Comparator<SlowEvaluation> SLOWEST_FIRST = new Comparator<SlowEvaluation>() {
+        @Override
+        public int compare(SlowEvaluation o1, SlowEvaluation o2) {
+            return Double.compare(o2.millis, o1.millis);
+        }
+    };
+
+    private final int jobId;
+    private final int capacity;
+    private final PriorityQueue<SlowEvaluation> heap;
+    private volatile long threshold = 0;
+
+    /**
+     * @param jobId
+     * @param capacity the number K of evaluations to keep
+     */
+    public SlowestEvaluationsRecorder(int jobId, int capacity) {
+        this.jobId = jobId;
+        this.capacity = capacity;
+        this.heap = new PriorityQueue<>(Math.max(1, capacity), Collections.reverseOrder(SLOWEST_FIRST));
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns true when an evaluation of the provided duration would be recorded.
+     * @param nanos
+     * @return
+     */
+    public boolean accepts(long nanos) {
+        return nanos > this.threshold;
+    }
+
+    /**
+     * Records the evaluation when it is slower than the current K-th slowest one.
+     * @param regex
+     * @param context
+     * @param nanos
+     * @param charactersScanned
+     * @param slowestExampleIndex
+     * @param slowestExampleNanos
+     */
+    public void offer(String regex, Context context, long nanos, long charactersScanned, int slowestExampleIndex, long slowestExampleNanos) {
+        if (this.capacity <= 0 || !accepts(nanos)) {
+            return;
+        }
+        SlowEvaluation evaluation = new SlowEvaluation(this.jobId, regex, context.getPhase().name().toLowerCase(), describeView(context),
+                nanos, charactersScanned, slowestExampleIndex, slowestExampleNanos);
+        synchronized (this.heap) {
+            this.heap.add(evaluation);
+            if (this.heap.size() > this.capacity) {
+                this.heap.poll();
+            }
+            if (this.heap.size() >= this.capacity) {
+                this.threshold = (long) (this.heap.peek().millis * 1e6);
+            }
+        }
+    }
+
+    private static String describeView(Context context) {
+        StringBuilder builder = new StringBuilder(context.isStripedPhase() ? "striped" : "normal");
+        if (context.isDynamicSubsetPhase()) {
+            builder.append(", dynamic subset");
+        }
+        if (context.isSeparateAndConquerEnabled()) {
+            builder.append(", separate and conquer");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns the recorded evaluations, the slowest first.
+     * @return
+     */
+    public List<SlowEvaluation> getSlowestEvaluations() {
+        List<SlowEvaluation> evaluations;
+        synchronized (this.heap) {
+            evaluations = new ArrayList<>(this.heap);
+        }
+        Collections.sort(evaluations, SLOWEST_FIRST);
+        return evaluations;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.evaluators;
+
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.inputs.TextPool;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The match results of a regex on the unique example texts, keyed by the text ids (see TextPool.getTextId).
+ * The match results depend only on the text, thus they are shared by all the dataset views containing the text.
+ * The stored lists are unmodifiable, they are shared with the evaluation results. It is thread safe.
+ * @author MaleLabTs
+ */
+public class TextResults {
+
+    private final Map<Integer, List<Bounds>> results = new ConcurrentHashMap<>();
+    private final AtomicLong counter;
+    private volatile boolean discarded = false;
+
+    /**
+     * @param counter counts the results stored by a group of stores, it may be null
+     */
+    public TextResults(AtomicLong counter) {
+        this.counter = counter;
+    }
+
+    public List<Bounds> get(int textId) {
+        return results.get(textId);
+    }
+
+    public void put(int textId, List<Bounds> bounds) {
+        if (results.put(textId, bounds) == null && counter != null && !discarded) {
+            counter.incrementAndGet();
+        }
+    }
+
+    /**
+     * Assembles the results of a dataset view.
+     * @param textPool the text pool of the view
+     * @return the results of the view examples, or null when the results of some texts are not stored
+     */
+    public List<List<Bounds>> assemble(TextPool textPool) {
+        int numberTexts = textPool.getNumberTexts();
+        List<List<Bounds>> textResults = new ArrayList<>(numberTexts);
+        for (int i = 0; i < numberTexts; i++) {
+            List<Bounds> bounds = results.get(textPool.getTextId(i));
+            if (bounds == null) {
+                return null;
+            }
+            textResults.add(bounds);
+        }
+        int numberExamples = textPool.getNumberExamples();
+        List<List<Bounds>> assembled = new ArrayList<>(numberExamples);
+        for (int i = 0; i < numberExamples; i++) {
+            assembled.add(textResults.get(textPool.getTextIndex(i)));
+        }
+        return assembled;
+    }
+
+    /**
+     * @return the number of stored results
+     */
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * @return the overall number of stored bounds
+     */
+    public long countBounds() {
+        long count = 0;
+        for (List<Bounds> bounds : results.values()) {
+            count += bounds.size();
+        }
+        return count;
+    }
+
+    /**
+     * Marks the store as removed from its group: the results stored later are not counted.
+     * @return the number of results counted so far
+     */
+    int discard() {
+        discarded = true;
+        return results.size();
+    }
+}
@@ -20,6 +20,7 @@ package it.units.inginf.male.generations;
 import it.units.inginf.male.inputs.Context;
 import it.units.inginf.male.tree.Leaf;
 import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.variations.BacktrackingRiskPolicy;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -51,8 +52,11 @@ public class Full implements Generation {
         for (int i = 0; i < popSize;) {
             Node candidate = full(1);
             if (candidate.isValid()) {
-                population.add(candidate);
-                i++;
+                candidate = admit(candidate);
+                if (candidate != null) {
+                    population.add(candidate);
+                    i++;
+                }
             }
         }
 
@@ -79,6 +83,11 @@ public class Full implements Generation {
         return tree;
     }
 
+    private Node admit(Node candidate) {
+        BacktrackingRiskPolicy policy = context.getBacktrackingRiskPolicy();
+        return policy == null ? candidate : policy.admit(candidate);
+    }
+
     private Node randomFunction() {
 
         List<Node> functionSet = context.getConfiguration().getNodeFactory().getFunctionSet();
@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.inputs;
+
+import it.units.inginf.male.inputs.DataSet.Example;
+import it.units.inginf.male.utils.Utils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Tunes, at runtime, the striping margin size and the interval between the generations evaluated
+ * on the normal (full) training view.
+ * On normal generations the strategy evaluates the population on both the normal and the striped view
+ * and calls <code>observe</code>; when the rank correlation between the two fitness orderings is low the
+ * margin grows and normal generations become more frequent, when it is high the margin shrinks and the
+ * interval grows.
+ * The controller owns a per-Job striped view of the current training view (i.e. the last "Separate and conquer"
+ * level); when the margin or the source view changes, only the examples whose slices can change are striped again.
+ * The controller is owned by a single Job (see <code>Context</code>), it is not thread safe.
+ * @author MaleLabTs
+ */
+public class AdaptiveStripingController {
+
+    public static final double MIN_MARGIN_SIZE = 1;
+    public static final double MAX_MARGIN_SIZE = 128;
+    public static final int MIN_INTERVAL = 5;
+    public static final int MAX_INTERVAL = 400;
+
+    private final static Logger LOG = Logger.getLogger(AdaptiveStripingController.class.getName());
+
+    private double marginSize;
+    private int normalDatasetInterval;
+    private int nextNormalGeneration = 0;
+    private double lowCorrelation = 0.7;
+    private double highCorrelation = 0.9;
+
+    private DataSet sourceDataset;
+    private List<Example> sourceExamples = Collections.emptyList();
+    private List<List<Example>> exampleSlices = Collections.emptyList();
+    private DataSet stripedDataset;
+    private final List<Decision> decisions = new ArrayList<>();
+
+    /**
+     * A controller decision, taken on a normal generation.
+     */
+    public static class Decision {
+
+        private int generation;
+        private double correlation;
+        private double marginSize;
+        private int normalDatasetInterval;
+        private int restripedExamples;
+
+        public Decision(int generation, double correlation, double marginSize, int normalDatasetInterval, int restripedExamples) {
+            this.generation = generation;
+            this.correlation = correlation;
+            this.marginSize = marginSize;
+            this.normalDatasetInterval = normalDatasetInterval;
+            this.restripedExamples = restripedExamples;
+        }
+
+        public int getGeneration() {
+            return generation;
+        }
+
+        /**
+         * The Spearman correlation between the normal and striped fitness of the population.
+         * @return
+         */
+        public double getCorrelation() {
+            return correlation;
+        }
+
+        /**
+         * The margin size chosen by this decision.
+         * @return
+         */
+        public double getMarginSize() {
+            return marginSize;
+        }
+
+        /**
+         * The normal dataset interval chosen by this decision.
+         * @return
+         */
+        public int getNormalDatasetInterval() {
+            return normalDatasetInterval;
+        }
+
+        /**
+         * The number of source examples striped again after this decision.
+         * @return
+         */
+        public int getRestripedExamples() {
+            return restripedExamples;
+        }
+
+        @Override
+        public String toString() {
+            return "generation " + generation + ": correlation " + correlation + ", margin " + marginSize + ", interval " + normalDatasetInterval + ", restriped examples " + restripedExamples;
+        }
+    }
+
+    public AdaptiveStripingController(double marginSize, int normalDatasetInterval) {
+        this.marginSize = Math.max(MIN_MARGIN_SIZE, Math.min(MAX_MARGIN_SIZE, marginSize));
+        this.normalDatasetInterval = Math.max(MIN_INTERVAL, Math.min(MAX_INTERVAL, normalDatasetInterval));
+    }
+
+    /**
+     * Returns true when the generation has to be evaluated on the normal training view.
+     * The method has to be called once per generation, in generation order.
+     * @param generation
+     * @return
+     */
+    public boolean isNormalGeneration(int generation) {
+        if (generation >= this.nextNormalGeneration) {
+            this.nextNormalGeneration = generation + this.normalDatasetInterval;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the striped version of the provided (normal) training view. The striped view is updated
+     * when the source view changes, i.e. a new "Separate and conquer" level has been added.
+     * @param source
+     * @return
+     */
+    public DataSet getStripedDataset(DataSet source) {
+        if (source != this.sourceDataset) {
+            restripe(source, false);
+        }
+        return this.stripedDataset;
+    }
+
+    /**
+     * Updates margin and interval using the fitness of the same individuals on the normal and striped views.
+     * @param generation
+     * @param normalFitness
+     * @param stripedFitness
+     * @return the decision, null when the correlation is undefined (i.e. all the fitness values are equal)
+     */
+    public Decision observe(int generation, double[] normalFitness, double[] stripedFitness) {
+        double correlation = Utils.spearmanCorrelation(normalFitness, stripedFitness);
+        if (Double.isNaN(correlation)) {
+            return null;
+        }
+        double newMarginSize = this.marginSize;
+        if (correlation < this.lowCorrelation) {
+            newMarginSize = Math.min(MAX_MARGIN_SIZE, this.marginSize * 2);
+            this.normalDatasetInterval = Math.max(MIN_INTERVAL, this.normalDatasetInterval / 2);
+        } else if (correlation >= this.highCorrelation) {
+            newMarginSize = Math.max(MIN_MARGIN_SIZE, this.marginSize * 0.75);
+            this.normalDatasetInterval = Math.min(MAX_INTERVAL, this.normalDatasetInterval * 2);
+        }
+        //the next normal generation is rescheduled with the new interval
+        this.nextNormalGeneration = generation + this.normalDatasetInterval;
+        int restripedExamples = 0;
+        if (newMarginSize != this.marginSize) {
+            boolean grown = newMarginSize > this.marginSize;
+            this.marginSize = newMarginSize;
+            if (this.sourceDataset != null) {
+                restripedExamples = restripe(this.sourceDataset, grown);
+            }
+        }
+        Decision decision = new Decision(generation, correlation, this.marginSize, this.normalDatasetInterval, restripedExamples);
+        this.decisions.add(decision);
+        LOG.log(Level.FINE, "Adaptive striping, {0}", decision);
+        return decision;
+    }
+
+    /**
+     * Stripes the source examples, reusing the slices of the examples that cannot change.
+     * @param marginGrown true when the margin has grown since the last striping
+     * @return the number of examples striped again
+     */
+    private int restripe(DataSet source, boolean marginGrown) {
+        boolean sameSource = (source == this.sourceDataset);
+        List<Example> examples = source.getExamples();
+        List<List<Example>> newSlices = new ArrayList<>(examples.size());
+        int restriped = 0;
+        int index = 0;
+        for (Example example : examples) {
+            List<Example> slices = null;
+            if (index < this.sourceExamples.size()) {
+                Example oldExample = this.sourceExamples.get(index);
+                List<Example> oldSlices = this.exampleSlices.get(index);
+                boolean sameExample = (oldExample == example) || hasSameAnnotations(oldExample, example);
+                if (sameExample && sameSource) {
+                    //margin changed; examples without matches have no slices, fully covered examples stay covered when the margin grows
+                    if (example.getNumberMatches() == 0 || (marginGrown && isFullyCovered(example, oldSlices))) {
+                        slices = oldSlices;
+                    }
+                } else if (sameExample) {
+                    slices = oldSlices;
+                }
+            }
+            if (slices == null) {
+                slices = DataSet.stripeExample(example, this.marginSize);
+                restriped++;
+            }
+            newSlices.add(slices);
+            index++;
+        }
+        this.sourceDataset = source;
+        this.sourceExamples = new ArrayList<>(examples);
+        this.exampleSlices = newSlices;
+
+        this.stripedDataset = new DataSet(source.getName(), source.getDescription(), source.getRegexTarget(), source.initReg);
+        for (List<Example> slices : newSlices) {
+            this.stripedDataset.getExamples().addAll(slices);
+        }
+        this.stripedDataset.updateStats();
+        return restriped;
+    }
+
+    private static boolean hasSameAnnotations(Example oldExample, Example example) {
+        return oldExample.getNumberOfChars() == example.getNumberOfChars()
+                && oldExample.getMatch().equals(example.getMatch())
+                && oldExample.getUnmatch().equals(example.getUnmatch());
+    }
+
+    private static boolean isFullyCovered(Example example, List<Example> slices) {
+        return slices.size() == 1 && slices.get(0).getNumberOfChars() == example.getNumberOfChars();
+    }
+
+    public double getMarginSize() {
+        return marginSize;
+    }
+
+    public int getNormalDatasetInterval() {
+        return normalDatasetInterval;
+    }
+
+    public double getLowCorrelation() {
+        return lowCorrelation;
+    }
+
+    public void setLowCorrelation(double lowCorrelation) {
+        this.lowCorrelation = lowCorrelation;
+    }
+
+    public double getHighCorrelation() {
+        return highCorrelation;
+    }
+
+    public void setHighCorrelation(double highCorrelation) {
+        this.highCorrelation = highCorrelation;
+    }
+
+    /**
+     * The decisions taken during the evolution, in generation order.
+     * @return
+     */
+    public List<Decision> getDecisions() {
+        return decisions;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.inputs;
+
+/**
+ * Read-only CharSequence view over a portion of a shared char array.
+ * Sub-sequences share the same array, no characters are copied until
+ * <code>toString</code> is invoked.
+ * Two sequences are equal when they have the same content, like Strings.
+ * @author MaleLabTs
+ */
+public final class CharArraySequence implements CharSequence {
+
+    private final char[] chars;
+    private final int offset;
+    private final int length;
+    private int hash;
+
+    public CharArraySequence(char[] chars) {
+        this(chars, 0, chars.length);
+    }
+
+    public CharArraySequence(char[] chars, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > chars.length) {
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length + ", array length: " + chars.length);
+        }
+        this.chars = chars;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        return chars[offset + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new StringIndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + length);
+        }
+        return new CharArraySequence(chars, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, offset, length);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0 && length > 0) {
+            for (int i = 0; i < length; i++) {
+                h = 31 * h + chars[offset + i];
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CharArraySequence)) {
+            return false;
+        }
+        CharArraySequence other = (CharArraySequence) obj;
+        if (other.length != length || other.hashCode() != hashCode()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (chars[offset + i] != other.chars[other.offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
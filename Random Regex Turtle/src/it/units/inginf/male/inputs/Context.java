@@ -19,6 +19,10 @@ package it.units.inginf.male.inputs;
 
 import it.units.inginf.male.configuration.Configuration;
 import it.units.inginf.male.configuration.DatasetContainer;
+import it.units.inginf.male.evaluators.SlowestEvaluationsRecorder;
+import it.units.inginf.male.management.JobMonitor;
+import it.units.inginf.male.utils.PhaseTimers;
+import it.units.inginf.male.variations.BacktrackingRiskPolicy;
 import java.util.Random;
 
 /**
@@ -38,6 +42,13 @@ public class Context {
     private EvaluationPhases phase;
     private boolean stripedPhase = false;
     private boolean separateAndConquerEnabled = false; 
+    private boolean dynamicSubsetPhase = false;
+    private DynamicSubsetSelector dynamicSubsetSelector;
+    private AdaptiveStripingController stripingController;
+    private JobMonitor jobMonitor;
+    private PhaseTimers phaseTimers;
+    private SlowestEvaluationsRecorder slowestEvaluations;
+    private BacktrackingRiskPolicy backtrackingRiskPolicy;
     private Random random;
     private Configuration configuration;
     private long seed;
@@ -63,6 +74,89 @@ public class Context {
     public void setStripedPhase(boolean stripedPhase) {
         this.stripedPhase = stripedPhase;
     }
+
+    /**
+     * true when we are in a dynamic subset phase. During a dynamic subset phase the Context returns,
+     * for the training, the subset of examples selected by the DynamicSubsetSelector.
+     * @return
+     */
+    public boolean isDynamicSubsetPhase() {
+        return dynamicSubsetPhase;
+    }
+
+    public void setDynamicSubsetPhase(boolean dynamicSubsetPhase) {
+        this.dynamicSubsetPhase = dynamicSubsetPhase;
+    }
+
+    public DynamicSubsetSelector getDynamicSubsetSelector() {
+        return dynamicSubsetSelector;
+    }
+
+    public void setDynamicSubsetSelector(DynamicSubsetSelector dynamicSubsetSelector) {
+        this.dynamicSubsetSelector = dynamicSubsetSelector;
+    }
+
+    /**
+     * When not null, the striped training view is provided by the controller, per Job, instead
+     * of the shared striped view of the DatasetContainer.
+     * @return
+     */
+    public AdaptiveStripingController getStripingController() {
+        return stripingController;
+    }
+
+    public void setStripingController(AdaptiveStripingController stripingController) {
+        this.stripingController = stripingController;
+    }
+
+    /**
+     * When not null, the evaluators record the Job telemetry (evaluation latencies, cache hits, compile errors)
+     * into the monitor.
+     * @return
+     */
+    public JobMonitor getJobMonitor() {
+        return jobMonitor;
+    }
+
+    public void setJobMonitor(JobMonitor jobMonitor) {
+        this.jobMonitor = jobMonitor;
+    }
+
+    /**
+     * The evolution phase timers of the Job, null when the Context is not owned by a Job strategy.
+     * @return
+     */
+    public PhaseTimers getPhaseTimers() {
+        return phaseTimers;
+    }
+
+    public void setPhaseTimers(PhaseTimers phaseTimers) {
+        this.phaseTimers = phaseTimers;
+    }
+
+    /**
+     * When not null, DefaultTreeEvaluator records the most expensive evaluations of the Job.
+     * @return
+     */
+    public SlowestEvaluationsRecorder getSlowestEvaluations() {
+        return slowestEvaluations;
+    }
+
+    public void setSlowestEvaluations(SlowestEvaluationsRecorder slowestEvaluations) {
+        this.slowestEvaluations = slowestEvaluations;
+    }
+
+    /**
+     * When not null, generations, variations and the objective apply the policy to the risky individuals.
+     * @return
+     */
+    public BacktrackingRiskPolicy getBacktrackingRiskPolicy() {
+        return backtrackingRiskPolicy;
+    }
+
+    public void setBacktrackingRiskPolicy(BacktrackingRiskPolicy backtrackingRiskPolicy) {
+        this.backtrackingRiskPolicy = backtrackingRiskPolicy;
+    }
     
 
     public Random getRandom() {
@@ -97,6 +191,7 @@ public class Context {
      * Returns the dataset view for the current phase; the phases are TRAINING,VALIDATION
      * The returned dataset depends also by the isStripedPhase property.When true, the training set is
      * returned in a more compact version. Let's see the DataSet class for more info.
+     * When isDynamicSubsetPhase is true, the training set is further reduced to the selected subset of examples.
      * @return
      */
     public DataSet getCurrentDataSet(){
@@ -104,17 +199,29 @@ public class Context {
             //NOTE: only training dataset admits a striped dataset version
             case TRAINING: 
                     DataSet trainingDataset;
-                    if(!this.isStripedPhase()){
+                    if(this.isStripedPhase() && this.stripingController != null){
                        trainingDataset = this.getDataSetContainer().getTrainingDataset();
-                    }  else {
-                       trainingDataset = this.getDataSetContainer().getTrainingDataset().getStripedDataset();
-                    }
-                    if(separateAndConquerEnabled){
-                        //getSeed returns a number that in current implementation IS the JOBID
-                        return trainingDataset.getLastSeparateAndConquerDataSet((int) this.getSeed());
+                       if(separateAndConquerEnabled){
+                           trainingDataset = trainingDataset.getLastSeparateAndConquerDataSet((int) this.getSeed());
+                       }
+                       //the controller stripes the current normal view
+                       trainingDataset = this.stripingController.getStripedDataset(trainingDataset);
                     } else {
-                        return trainingDataset;
+                        if(!this.isStripedPhase()){
+                           trainingDataset = this.getDataSetContainer().getTrainingDataset();
+                        }  else {
+                           trainingDataset = this.getDataSetContainer().getTrainingDataset().getStripedDataset();
+                        }
+                        if(separateAndConquerEnabled){
+                            //getSeed returns a number that in current implementation IS the JOBID
+                            trainingDataset = trainingDataset.getLastSeparateAndConquerDataSet((int) this.getSeed());
+                        }
+                    }
+                    if(this.dynamicSubsetPhase && this.dynamicSubsetSelector != null){
+                        //the subset is returned only when it has been selected from this same view
+                        return this.dynamicSubsetSelector.getSubset(trainingDataset);
                     }
+                    return trainingDataset;
             case VALIDATION: return this.getDataSetContainer().getValidationDataset();
             case LEARNING: return this.getDataSetContainer().getLearningDataset();
             default : throw new UnsupportedOperationException("unhandled phase in getDataSet");
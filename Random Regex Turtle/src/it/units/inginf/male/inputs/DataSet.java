@@ -18,9 +18,11 @@
 package it.units.inginf.male.inputs;
 
 import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.utils.PatternCache;
 import it.units.inginf.male.utils.Range;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -29,7 +31,6 @@ import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * New dataset structure, this is intended to be serialized in Json format using Gson
@@ -75,30 +76,93 @@ public class DataSet {
     private transient int numberOfChars;
     
     private transient DataSet stripedDataset;
+    private transient volatile TextPool textPool;
     
     private transient Map<Long, List<DataSet>> separateAndConquerLevels = new ConcurrentHashMap<>();
     //private transient DataSet datasetFocus = null;
     private final static Logger LOG = Logger.getLogger(DataSet.class.getName());  
+    //examples with a String text of at least this length are striped into TextSlice views
+    static final int STRIPE_VIEW_MIN_LENGTH = 1 << 16;
     
     /**
      * Updates the dataset statistics, numberMatches, numberMatchesChars and so on
      */
     public void updateStats(){
+        this.invalidateTextPool();
+        this.resetStats();
+        for (Example ex : this.examples) {
+            this.accumulateStats(ex);
+        }
+    }
+
+    /**
+     * Zeroes the dataset statistics; used together with <code>accumulateStats</code>
+     * when the statistics are computed while the examples are added.
+     */
+    void resetStats(){
         this.numberMatches = 0;
         this.numberUnmatches = 0;
         this.numberMatchedChars = 0;
         this.numberUnmatchedChars = 0;
         this.numberUnAnnotatedChars = 0;
         this.numberOfChars = 0;
-    
-        for (Example ex : this.examples) {
-            this.numberMatches += ex.match.size();
-            this.numberUnmatches += ex.unmatch.size();
-            this.numberMatchedChars += ex.getNumberMatchedChars();
-            this.numberUnmatchedChars += ex.getNumberUnmatchedChars();
-            this.numberOfChars += ex.getNumberOfChars();
-        }
-        this.numberUnAnnotatedChars = this.numberOfChars - this.numberMatchedChars -this.numberUnmatchedChars;
+    }
+
+    /**
+     * Adds the example contribution to the dataset statistics, the example is
+     * not added to the examples list.
+     * @param ex
+     */
+    void accumulateStats(Example ex){
+        int exampleMatchedChars = ex.getNumberMatchedChars();
+        int exampleUnmatchedChars = ex.getNumberUnmatchedChars();
+        int exampleChars = ex.getNumberOfChars();
+        this.numberMatches += ex.match.size();
+        this.numberUnmatches += ex.unmatch.size();
+        this.numberMatchedChars += exampleMatchedChars;
+        this.numberUnmatchedChars += exampleUnmatchedChars;
+        this.numberOfChars += exampleChars;
+        this.numberUnAnnotatedChars += exampleChars - exampleMatchedChars - exampleUnmatchedChars;
+    }
+
+    /**
+     * Removes the example contribution from the dataset statistics, the example is
+     * not removed from the examples list.
+     * @param ex
+     */
+    void deductStats(Example ex){
+        int exampleMatchedChars = ex.getNumberMatchedChars();
+        int exampleUnmatchedChars = ex.getNumberUnmatchedChars();
+        int exampleChars = ex.getNumberOfChars();
+        this.numberMatches -= ex.match.size();
+        this.numberUnmatches -= ex.unmatch.size();
+        this.numberMatchedChars -= exampleMatchedChars;
+        this.numberUnmatchedChars -= exampleUnmatchedChars;
+        this.numberOfChars -= exampleChars;
+        this.numberUnAnnotatedChars -= exampleChars - exampleMatchedChars - exampleUnmatchedChars;
+    }
+
+    /**
+     * Returns the statistics in the order: matches, unmatches, matched chars,
+     * unmatched chars, unannotated chars, overall chars.
+     * @return
+     */
+    int[] exportStats(){
+        return new int[]{this.numberMatches, this.numberUnmatches, this.numberMatchedChars,
+            this.numberUnmatchedChars, this.numberUnAnnotatedChars, this.numberOfChars};
+    }
+
+    /**
+     * Sets previously computed statistics, in the <code>exportStats</code> order.
+     * @param stats
+     */
+    void importStats(int[] stats){
+        this.numberMatches = stats[0];
+        this.numberUnmatches = stats[1];
+        this.numberMatchedChars = stats[2];
+        this.numberUnmatchedChars = stats[3];
+        this.numberUnAnnotatedChars = stats[4];
+        this.numberOfChars = stats[5];
     }
 
     public int getNumberMatches() {
@@ -165,10 +229,44 @@ public class DataSet {
         .append("\nnumber unmatches: ").append(this.getNumberUnmatches())
         .append("\ncharacters in unmatches: ").append(this.getNumberUnmatchedChars())
         .append("\nunannotated chars: ").append(this.getNumberUnannotatedChars());
+        //the pool is not built just to print its stats
+        TextPool pool = this.textPool;
+        if(pool != null){
+            stats.append("\nunique texts: ").append(pool.getNumberTexts())
+            .append(String.format(" (dedup ratio: %.2f)", pool.getDedupRatio()));
+        }
         return stats.toString();
     }
+
+    /**
+     * Returns the pool of the unique example texts, the pool is built on first use and it is rebuilt
+     * after <code>invalidateTextPool</code> (i.e. when the stats are updated).
+     * @return
+     */
+    public TextPool getTextPool(){
+        TextPool pool = this.textPool;
+        if(pool == null){
+            synchronized(this){
+                pool = this.textPool;
+                if(pool == null){
+                    pool = TextPool.build(this.examples);
+                    this.textPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Drops the pool of the example texts, it has to be called when the examples are changed without
+     * updating the stats.
+     */
+    public void invalidateTextPool(){
+        this.textPool = null;
+    }
     
     public void randomize() {
+        this.invalidateTextPool();
         Random random = new Random();
         for (int i = 0; i < examples.size(); i++) {
             if((((i*100)/examples.size())%5)==0){
@@ -200,10 +298,27 @@ public class DataSet {
             }
     }
 
+    /**
+     * Returns the examples; when the list is modified, <code>updateStats</code> (or <code>invalidateTextPool</code>)
+     * has to be called before the dataset is used.
+     * @return
+     */
     public List<Example> getExamples() {
         return this.examples;
     }
     
+    /**
+     * Moves the examples into a compact, columnar, storage (see <code>ExampleArena</code>).
+     * The examples are replaced by read-only views: match and unmatch lists cannot be
+     * modified anymore, so this should be done when the annotations are final.
+     * Views (sub-datasets) created before the compaction still reference the old examples.
+     */
+    public void compactStorage(){
+        ExampleArena arena = ExampleArena.build(this.examples);
+        this.examples = arena.asExamples();
+        this.invalidateTextPool();
+    }
+    
     /**
      * Create a dataset which is a "view" of the current dataset.A subset of the dataset defined by ranges.
      * @param name
@@ -218,6 +333,7 @@ public class DataSet {
                     subDataset.getExamples().add(this.getExamples().get(index));
                 }           
             }
+            subDataset.invalidateTextPool();
             return subDataset;
     }
     
@@ -231,6 +347,7 @@ public class DataSet {
         for(Example example : this.examples){
             this.stripedDataset.getExamples().addAll(this.stripeExample(example, marginSize));
         }        
+        this.stripedDataset.invalidateTextPool();
         return this.stripedDataset;
     }
     
@@ -240,6 +357,9 @@ public class DataSet {
      * creates a list of examples created from examples by splitting example in littler pieces.
      * The pieces are created from a window surrounding the example matches. 
      * When two or more windows overlaps, the windows merge together and a single multi-match example is created.
+     * The slices of long (or not String) texts do not copy the example text, their text is a <code>TextSlice</code>
+     * view of it and the annotated strings are computed on demand. Short String texts are still copied, matching
+     * a String is faster than matching a view and the copy is cheap.
      * @param example
      * @param marginSize
      * @return
@@ -262,8 +382,13 @@ public class DataSet {
         
         //Create examples from slices
         for(Bounds slice : savedBounds){
-            Example sliceExample = new Example();
-            sliceExample.setString(example.getString().substring(slice.start, slice.end));
+            Example sliceExample;
+            if(example.string != null && example.string.length() < STRIPE_VIEW_MIN_LENGTH){
+                sliceExample = new Example();
+                sliceExample.setString(example.string.substring(slice.start, slice.end));
+            } else {
+                sliceExample = new Example(TextSlice.of(example.getText(), slice.start, slice.end), new LinkedList<Bounds>(), new LinkedList<Bounds>());
+            }
             
             //find owned matches
             for(Bounds match : example.getMatch()){
@@ -351,13 +476,27 @@ public class DataSet {
      * @return true, when the dataset has been modified by reduction
      */
     public boolean addSeparateAndConquerLevel(String individualRegex, int jobId, boolean convertToUnmatch, boolean isFlagging){
+        return this.addSeparateAndConquerLevel(individualRegex, jobId, convertToUnmatch, isFlagging, true);
+    }
+    
+    /**
+     * From the last generated "Separate and conquer" sub-dataset, creates a new sub-dataset (see the other
+     * <code>addSeparateAndConquerLevel</code> methods).
+     * @param individualRegex
+     * @param jobId
+     * @param convertToUnmatch
+     * @param isFlagging
+     * @param reduceStriped when false, the striped dataset is not reduced; i.e. the striped views are provided by an
+     * <code>AdaptiveStripingController</code>, which stripes the reduced dataset
+     * @return true, when the dataset has been modified by reduction
+     */
+    public boolean addSeparateAndConquerLevel(String individualRegex, int jobId, boolean convertToUnmatch, boolean isFlagging, boolean reduceStriped){
         boolean modified = false;
         DataSet oldDataset = this.getLastSeparateAndConquerDataSet(jobId);
         DataSet dataset = oldDataset.reduceSeparateAndConquerDataset(individualRegex, convertToUnmatch, isFlagging);
-        dataset.updateStats();
         modified = (dataset.getNumberMatches() != oldDataset.getNumberMatches());
         this.getSeparateAndConquerLevels(jobId).add(dataset);
-        if(this.getStripedDataset()!=null){
+        if(reduceStriped && this.getStripedDataset()!=null){
             modified = this.getStripedDataset().addSeparateAndConquerLevel(individualRegex,jobId, convertToUnmatch, isFlagging) || modified;       
         }
         return modified;
@@ -368,26 +507,44 @@ public class DataSet {
      * We evaluate the individualRegex on the dataset examples, matches that are 
      * correctly extracted are removed. A removed match is converted to unmatch or unannotated depending
      * on the convertToUnmatch value: True==unmatch
+     * The reduced dataset is an overlay of this one: examples which are not modified by
+     * the reduction are shared with this dataset, only the modified ones are new instances
+     * (sharing the text). Statistics and text pool are derived from this dataset, statistics
+     * are updated with the difference of the modified examples only.
      */
     private DataSet reduceSeparateAndConquerDataset(String individualRegex, boolean convertToUnmatch, boolean isFlagging ){
         //initialize pattern matcher
-        Pattern pattern = Pattern.compile(individualRegex);
-        Matcher individualRegexMatcher = pattern.matcher("");
+        Matcher individualRegexMatcher = PatternCache.getInstance().getMatcher(individualRegex);
     
         DataSet reducedDataset = new DataSet(this.name, "Reduction: "+individualRegex, this.regexTarget, this.initReg);
+        //stats never computed for a non empty dataset, fall back to the full computation
+        boolean incrementalStats = (this.numberOfChars > 0 || this.examples.isEmpty());
+        reducedDataset.importStats(this.exportStats());
         for(Example example : this.examples){
+            Example reducedExample;
             if(!isFlagging){
-                reducedDataset.getExamples().add(this.reduceSeparateAndConquerExample(example, individualRegexMatcher, convertToUnmatch));
+                reducedExample = this.reduceSeparateAndConquerExample(example, individualRegexMatcher, convertToUnmatch);
             } else {
-                reducedDataset.getExamples().add(this.reduceSeparateAndConquerFlaggingExample(example, individualRegexMatcher));
+                reducedExample = this.reduceSeparateAndConquerFlaggingExample(example, individualRegexMatcher);
             }
-        }        
+            if(reducedExample != example){
+                reducedDataset.deductStats(example);
+                reducedDataset.accumulateStats(reducedExample);
+            }
+            reducedDataset.getExamples().add(reducedExample);
+        }
+        if(incrementalStats){
+            //same texts in the same order: the reduced examples only change the annotations
+            reducedDataset.textPool = this.getTextPool();
+        } else {
+            reducedDataset.updateStats();
+        }
         return reducedDataset;
     }
     
     private boolean isTruePositiveFlaggingExample(Example example, Matcher individualRegexMatcher){
         try {
-            Matcher m = individualRegexMatcher.reset(example.getString());
+            Matcher m = individualRegexMatcher.reset(example.getText());
             return (m.find() && !example.match.isEmpty());
         } catch (StringIndexOutOfBoundsException ex) {
             return false;
@@ -402,12 +559,14 @@ public class DataSet {
     
     
     private Example reduceSeparateAndConquerFlaggingExample(Example example, Matcher individualRegexMatcher){
-        //Negative or unannotated are left unchanged
+        //Negative or unannotated are left unchanged, and shared with the parent dataset
         if(!isTruePositiveFlaggingExample(example, individualRegexMatcher)){
-            return new Example(example);
+            return example;
         }
         Example unannotatedExample = new Example();
-        unannotatedExample.setString(example.getString());
+        unannotatedExample.string = example.string;
+        unannotatedExample.text = example.text;
+        unannotatedExample.populateAnnotatedStrings();
         return unannotatedExample;
     }
     
@@ -419,11 +578,14 @@ public class DataSet {
     //ELIMINATED Feature: When doFocus is true, the method perform focus action instead of examples reduction (Focus action creates the complementary of the reduction in order to focus evolution).
     
     //When convertToUnmatch is true extracted matches are converted into unannotated. 
+    //When no match is removed and the unmatches are already merged, the example itself is returned.
     private Example manipulateSeparateAndConquerExample(Example example, Matcher individualRegexMatcher, boolean convertToUnmatch){
-        Example exampleClone = new Example(example);
+        if(example.match.isEmpty() && Bounds.isMerged(example.unmatch)){
+            return example;
+        }
         List<Bounds> extractions = new LinkedList<>();
         try {
-            Matcher m = individualRegexMatcher.reset(example.getString());
+            Matcher m = individualRegexMatcher.reset(example.getText());
             while (m.find()) {
                 Bounds bounds = new Bounds(m.start(0), m.end(0));
                 extractions.add(bounds);
@@ -437,13 +599,20 @@ public class DataSet {
              */
         }
         
+        if(extractions.isEmpty() && Bounds.isMerged(example.unmatch)){
+            return example;
+        }
+        Example exampleClone = new Example(example);
+        
         //remove extracted matches
+        boolean removed = false;
         for (Iterator<Bounds> it = exampleClone.getMatch().iterator(); it.hasNext();) {
             Bounds match = it.next();
             for(Bounds extraction : extractions){
                 //when doFocus is true, match is remove when equals
                 if(match.equals(extraction)){
                     it.remove();
+                    removed = true;
                     if(convertToUnmatch){
                         exampleClone.getUnmatch().add(match);
                     }
@@ -457,8 +626,11 @@ public class DataSet {
             }
         }
         
+        if(!removed && Bounds.isMerged(example.unmatch)){
+            return example;
+        }
         exampleClone.mergeUnmatchesBounds();
-        exampleClone.populateAnnotatedStrings();
+        exampleClone.populateAnnotatedStrings(example);
         return exampleClone;
     }
     
@@ -539,16 +711,28 @@ public class DataSet {
         public Example() {
         }
         
+        /**
+         * Creates a view example, used by the compact storage and by the striping: the text is not
+         * copied and annotated strings are computed on demand.
+         * @param text
+         * @param match
+         * @param unmatch
+         */
+        Example(CharSequence text, List<Bounds> match, List<Bounds> unmatch) {
+            this.text = text;
+            this.match = match;
+            this.unmatch = unmatch;
+            this.matchedStrings = null;
+            this.unmatchedStrings = null;
+        }
+        
         public Example(Example example) {
             this.string = example.string;
+            this.text = example.text;
             this.match= new LinkedList<>(example.match);
             this.unmatch = new LinkedList<>(example.unmatch);
-            if(example.matchedStrings!=null){
-                this.matchedStrings = new LinkedList<>(example.matchedStrings);
-            }
-            if(example.unmatchedStrings!=null){
-                this.unmatchedStrings = new LinkedList<>(example.unmatchedStrings);
-        }
+            this.matchedStrings = (example.matchedStrings != null) ? new LinkedList<>(example.matchedStrings) : null;
+            this.unmatchedStrings = (example.unmatchedStrings != null) ? new LinkedList<>(example.unmatchedStrings) : null;
         }
         
         public String string;
@@ -556,6 +740,8 @@ public class DataSet {
         public List<Bounds> unmatch = new LinkedList<>();
         transient protected List<String> matchedStrings = new LinkedList<>();
         transient protected List<String> unmatchedStrings = new LinkedList<>();
+        //the example text when it is stored outside this object, string is null in that case
+        transient private CharSequence text;
 
         public void addMatchBounds(int bs, int bf) {
             Bounds boundaries = new Bounds(bs, bf);
@@ -576,7 +762,7 @@ public class DataSet {
         }
         
         public int getNumberOfChars(){
-            return string.length();
+            return (string != null) ? string.length() : text.length();
         }
         
         private int getNumberCharsInsideIntervals(List<Bounds> textIntervals){
@@ -587,7 +773,21 @@ public class DataSet {
             return countChars;
         }
         
+        /**
+         * Populates the matched and unmatched strings lists. Examples whose text is stored
+         * outside the example (compact storage) do not keep the annotated strings, they
+         * are computed on demand.
+         */
         public void populateAnnotatedStrings(){
+            if(this.string == null){
+                this.matchedStrings = null;
+                this.unmatchedStrings = null;
+                return;
+            }
+            if(this.matchedStrings == null){
+                this.matchedStrings = new LinkedList<>();
+                this.unmatchedStrings = new LinkedList<>();
+            }
             this.matchedStrings.clear();
             for(Bounds bounds : this.match){
                 this.matchedStrings.add(this.string.substring(bounds.start,bounds.end));
@@ -599,16 +799,74 @@ public class DataSet {
         }
 
         
+        /**
+         * Populates the matched and unmatched strings lists, reusing the strings of
+         * the source example for the bounds that are in both examples.
+         * @param source an example with the same text
+         */
+        void populateAnnotatedStrings(Example source){
+            if(this.string == null || source.matchedStrings == null){
+                this.populateAnnotatedStrings();
+                return;
+            }
+            Map<Bounds, String> sourceStrings = new HashMap<>();
+            putAnnotatedStrings(sourceStrings, source.match, source.matchedStrings);
+            putAnnotatedStrings(sourceStrings, source.unmatch, source.unmatchedStrings);
+            this.matchedStrings = new LinkedList<>();
+            for(Bounds bounds : this.match){
+                String annotated = sourceStrings.get(bounds);
+                this.matchedStrings.add(annotated != null ? annotated : this.string.substring(bounds.start,bounds.end));
+            }
+            this.unmatchedStrings = new LinkedList<>();
+            for(Bounds bounds : this.unmatch){
+                String annotated = sourceStrings.get(bounds);
+                this.unmatchedStrings.add(annotated != null ? annotated : this.string.substring(bounds.start,bounds.end));
+            }
+        }
+        
+        private static void putAnnotatedStrings(Map<Bounds, String> annotatedStrings, List<Bounds> boundsList, List<String> strings){
+            if(strings == null || strings.size() != boundsList.size()){
+                return;
+            }
+            Iterator<String> stringsIterator = strings.iterator();
+            for(Bounds bounds : boundsList){
+                annotatedStrings.put(bounds, stringsIterator.next());
+            }
+        }
+        
         public List<String> getMatchedStrings() {
-            return matchedStrings;
+            return (matchedStrings != null) ? matchedStrings : this.getSubstrings(this.match);
         }
       
         public List<String> getUnmatchedStrings() {
-            return unmatchedStrings;
+            return (unmatchedStrings != null) ? unmatchedStrings : this.getSubstrings(this.unmatch);
+        }
+        
+        private List<String> getSubstrings(List<Bounds> boundsList){
+            CharSequence exampleText = this.getText();
+            List<String> substrings = new LinkedList<>();
+            for(Bounds bounds : boundsList){
+                substrings.add(exampleText.subSequence(bounds.start, bounds.end).toString());
+            }
+            return substrings;
         }
         
+        /**
+         * Returns the example text; when the example is a view on a compact storage
+         * a new String is created at each invocation, use <code>getText</code> when
+         * a CharSequence is enough.
+         * @return
+         */
         public String getString() {
-            return string;
+            return (string != null) ? string : text.toString();
+        }
+        
+        /**
+         * Returns the example text without copying it.
+         * @return
+         */
+        public CharSequence getText() {
+            return (string != null) ? string : text;
         }
 
         public List<Bounds> getMatch() {
@@ -621,6 +879,7 @@ public class DataSet {
 
         public void setString(String string) {
             this.string = string;
+            this.text = null;
         }
        
         
@@ -638,12 +897,12 @@ public class DataSet {
                     }
                     previousMatchFinalIndex = oneMatch.end;
                 }
-                if(previousMatchFinalIndex < string.length()){
+                if(previousMatchFinalIndex < this.getNumberOfChars()){
                     /*
                     the right value of the interval can be equal than the string.lenght
                     because the substrings are left-inclusive and right-exclusive
                     */
-                    this.addUnmatchBounds(previousMatchFinalIndex, string.length());
+                    this.addUnmatchBounds(previousMatchFinalIndex, this.getNumberOfChars());
                 }
         }
 
@@ -656,13 +915,8 @@ public class DataSet {
          * @return a list of all annotated strings
          */
         public List<String> getAnnotatedStrings(){
-            List<String> annotatedStrings = new LinkedList<>();
-            for(Bounds bounds : this.getMatch()){
-                annotatedStrings.add(this.getString().substring(bounds.start, bounds.end));
-            }
-            for(Bounds bounds : this.getUnmatch()){
-                annotatedStrings.add(this.getString().substring(bounds.start, bounds.end));
-            }
+            List<String> annotatedStrings = this.getSubstrings(this.getMatch());
+            annotatedStrings.addAll(this.getSubstrings(this.getUnmatch()));
             return annotatedStrings;
         }
         
@@ -676,11 +930,7 @@ public class DataSet {
             List<Bounds> boundsList = new LinkedList<>(this.getMatch());
             boundsList.addAll(this.getUnmatch());
             Collections.sort(boundsList);  
-            List<String> annotatedStrings = new LinkedList<>();
-            for(Bounds bounds : boundsList){
-                annotatedStrings.add(this.getString().substring(bounds.start, bounds.end));
-    }
-            return annotatedStrings;
+            return this.getSubstrings(boundsList);
         }
     
          
@@ -749,6 +999,23 @@ public class DataSet {
             return newBoundsList;
         }
         
+        /**
+         * Checks whether the list is already in the <code>mergeBounds</code> form: sorted and with
+         * no overlapping or adjacent intervals. The list is not modified.
+         * @param boundsList
+         * @return true when mergeBounds would return the same intervals
+         */
+        static public boolean isMerged(List<Bounds> boundsList){
+            Bounds prevBounds = null;
+            for(Bounds bounds : boundsList){
+                if(prevBounds != null && bounds.start <= prevBounds.end){
+                    return false;
+                }
+                prevBounds = bounds;
+            }
+            return true;
+        }
+        
         /**
          * Creates a new Bounds object representing this interval relative a rangeBounds
          * interval. --i.e: this [4,9] ; this.windowView([2,7]) == [2,7] 
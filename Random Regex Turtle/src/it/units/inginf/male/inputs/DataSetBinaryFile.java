@@ -0,0 +1,473 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.inputs;
+
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.inputs.DataSet.Example;
+import it.units.inginf.male.utils.Range;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Binary, indexed, dataset file format.
+ * The file stores the example texts, the annotations, the precomputed statistics
+ * of dataset, training and validation and the training/validation ranges. Once opened
+ * the file is memory mapped read-only and the examples are views on the mapped
+ * sections (see <code>ExampleArena</code>), the file content is not copied into the heap
+ * and the same file can be shared between processes.
+ * Layout (little endian):
+ * <pre>
+ * int magic, int version, int headerLength
+ * header: name, description, regexTarget (int length, -1 for null, UTF-8 bytes),
+ *         dataset, training and validation stats (6 ints each),
+ *         training and validation ranges (int count, count * (start, end)),
+ *         int examples, int matches, int unmatches, int chars
+ * sections, 8 bytes aligned: textOffsets (examples+1 ints), matchOffsets (examples+1 ints),
+ *         matchIntervals (2*matches ints), unmatchOffsets (examples+1 ints),
+ *         unmatchIntervals (2*unmatches ints), chars (UTF-16)
+ * </pre>
+ * Offsets are int values, a dataset file cannot contain more than 2^31-1 chars.
+ * @author MaleLabTs
+ */
+public final class DataSetBinaryFile {
+
+    private static final Logger LOG = Logger.getLogger(DataSetBinaryFile.class.getName());
+    private static final int MAGIC = 0x53444752; //"RGDS" in little endian
+    private static final int VERSION = 1;
+    private static final int PREAMBLE_SIZE = 12;
+    //a single mapping cannot exceed 2GB, chars are mapped in segments of 2^29 chars (1GB)
+    private static final int SEGMENT_SHIFT = 29;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final DataSet dataset;
+    private final DataSet trainingDataset;
+    private final DataSet validationDataset;
+    private final DataSet learningDataset;
+    private final List<Range> training;
+    private final List<Range> validation;
+
+    private DataSetBinaryFile(DataSet dataset, DataSet trainingDataset, DataSet validationDataset, DataSet learningDataset, List<Range> training, List<Range> validation) {
+        this.dataset = dataset;
+        this.trainingDataset = trainingDataset;
+        this.validationDataset = validationDataset;
+        this.learningDataset = learningDataset;
+        this.training = training;
+        this.validation = validation;
+    }
+
+    /**
+     * The dataset, examples are read-only views on the mapped file and stats are already populated.
+     * @return
+     */
+    public DataSet getDataset() {
+        return dataset;
+    }
+
+    /**
+     * The training sub-dataset for the stored training ranges, stats are already populated.
+     * @return
+     */
+    public DataSet getTrainingDataset() {
+        return trainingDataset;
+    }
+
+    /**
+     * The validation sub-dataset for the stored validation ranges, stats are already populated.
+     * @return
+     */
+    public DataSet getValidationDataset() {
+        return validationDataset;
+    }
+
+    /**
+     * The learning dataset (all the examples, see <code>DatasetContainer.updateSubDataset</code>), stats are already populated.
+     * @return
+     */
+    public DataSet getLearningDataset() {
+        return learningDataset;
+    }
+
+    public List<Range> getTraining() {
+        return training;
+    }
+
+    public List<Range> getValidation() {
+        return validation;
+    }
+
+    /**
+     * Returns true when the provided ranges are the same stored into the file, in this case the
+     * stored sub-datasets can be used instead of computing new ones.
+     * @param training
+     * @param validation
+     * @return
+     */
+    public boolean hasRanges(List<Range> training, List<Range> validation) {
+        return sameRanges(this.training, training) && sameRanges(this.validation, validation);
+    }
+
+    private static boolean sameRanges(List<Range> rangesA, List<Range> rangesB) {
+        if (rangesA.size() != rangesB.size()) {
+            return false;
+        }
+        for (int i = 0; i < rangesA.size(); i++) {
+            Range rangeA = rangesA.get(i);
+            Range rangeB = rangesB.get(i);
+            if (rangeA.getStartIndex() != rangeB.getStartIndex() || rangeA.getEndIndex() != rangeB.getEndIndex()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks the file magic number.
+     * @param file
+     * @return true when the file is a binary dataset file
+     * @throws IOException
+     */
+    public static boolean isBinaryDataSet(File file) throws IOException {
+        if (file.length() < PREAMBLE_SIZE) {
+            return false;
+        }
+        try (FileInputStream fis = new FileInputStream(file)) {
+            ByteBuffer preamble = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            fis.getChannel().read(preamble, 0);
+            return preamble.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Writes the dataset, its statistics and the provided ranges into a binary dataset file.
+     * The dataset stats are updated.
+     * @param dataset
+     * @param training
+     * @param validation
+     * @param file
+     * @throws IOException
+     */
+    public static void write(DataSet dataset, List<Range> training, List<Range> validation, File file) throws IOException {
+        dataset.updateStats();
+        DataSet trainingDataset = dataset.subDataset("training", training);
+        trainingDataset.updateStats();
+        DataSet validationDataset = dataset.subDataset("validation", validation);
+        validationDataset.updateStats();
+        List<Example> examples = dataset.getExamples();
+        if ((long) dataset.getNumberOfChars() != countChars(examples)) {
+            throw new IOException("Dataset is too large for the binary format");
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        header = putString(header, dataset.getName());
+        header = putString(header, dataset.getDescription());
+        header = putString(header, dataset.getRegexTarget());
+        header = ensureCapacity(header, 3 * 6 * 4 + 8 + (training.size() + validation.size()) * 8 + 16);
+        putInts(header, dataset.exportStats());
+        putInts(header, trainingDataset.exportStats());
+        putInts(header, validationDataset.exportStats());
+        putRanges(header, training);
+        putRanges(header, validation);
+        header.putInt(examples.size());
+        header.putInt(dataset.getNumberMatches());
+        header.putInt(dataset.getNumberUnmatches());
+        header.putInt(dataset.getNumberOfChars());
+        header.flip();
+
+        try (FileOutputStream fos = new FileOutputStream(file); FileChannel channel = fos.getChannel()) {
+            SectionWriter writer = new SectionWriter(channel);
+            writer.putInt(MAGIC);
+            writer.putInt(VERSION);
+            writer.putInt(header.remaining());
+            writer.put(header);
+            writer.align();
+            int charIndex = 0;
+            for (Example example : examples) {
+                writer.putInt(charIndex);
+                charIndex += example.getNumberOfChars();
+            }
+            writer.putInt(charIndex);
+            writer.align();
+            writeIntervals(writer, examples, true);
+            writeIntervals(writer, examples, false);
+            for (Example example : examples) {
+                CharSequence text = example.getText();
+                for (int i = 0; i < text.length(); i++) {
+                    writer.putChar(text.charAt(i));
+                }
+            }
+            writer.flush();
+        }
+    }
+
+    private static long countChars(List<Example> examples) {
+        long chars = 0;
+        for (Example example : examples) {
+            chars += example.getNumberOfChars();
+        }
+        return chars;
+    }
+
+    private static void writeIntervals(SectionWriter writer, List<Example> examples, boolean matches) throws IOException {
+        int intervalIndex = 0;
+        for (Example example : examples) {
+            writer.putInt(intervalIndex);
+            intervalIndex += (matches ? example.getMatch() : example.getUnmatch()).size();
+        }
+        writer.putInt(intervalIndex);
+        writer.align();
+        for (Example example : examples) {
+            for (Bounds bounds : (matches ? example.getMatch() : example.getUnmatch())) {
+                writer.putInt(bounds.start);
+                writer.putInt(bounds.end);
+            }
+        }
+        writer.align();
+    }
+
+    /**
+     * Opens and maps a binary dataset file.
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static DataSetBinaryFile open(File file) throws IOException {
+        long startTime = System.nanoTime();
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r"); FileChannel channel = randomAccessFile.getChannel()) {
+            ByteBuffer preamble = ByteBuffer.allocate(PREAMBLE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, preamble, 0);
+            if (preamble.getInt(0) != MAGIC) {
+                throw new IOException("Not a binary dataset file: " + file);
+            }
+            if (preamble.getInt(4) != VERSION) {
+                throw new IOException("Unsupported binary dataset version: " + preamble.getInt(4));
+            }
+            ByteBuffer header = ByteBuffer.allocate(preamble.getInt(8)).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, PREAMBLE_SIZE);
+            header.flip();
+
+            DataSet dataset = new DataSet(getString(header), getString(header), getString(header));
+            int[] datasetStats = getInts(header, 6);
+            int[] trainingStats = getInts(header, 6);
+            int[] validationStats = getInts(header, 6);
+            List<Range> training = getRanges(header);
+            List<Range> validation = getRanges(header);
+            int numberExamples = header.getInt();
+            int numberMatches = header.getInt();
+            int numberUnmatches = header.getInt();
+            int numberChars = header.getInt();
+
+            long position = align(PREAMBLE_SIZE + header.limit());
+            IntBuffer textOffsets = mapInts(channel, position, numberExamples + 1);
+            position = align(position + (numberExamples + 1) * 4L);
+            IntBuffer matchOffsets = mapInts(channel, position, numberExamples + 1);
+            position = align(position + (numberExamples + 1) * 4L);
+            IntBuffer matchIntervals = mapInts(channel, position, numberMatches * 2);
+            position = align(position + numberMatches * 8L);
+            IntBuffer unmatchOffsets = mapInts(channel, position, numberExamples + 1);
+            position = align(position + (numberExamples + 1) * 4L);
+            IntBuffer unmatchIntervals = mapInts(channel, position, numberUnmatches * 2);
+            position = align(position + numberUnmatches * 8L);
+            int numberSegments = (int) ((numberChars + (1L << SEGMENT_SHIFT) - 1) >>> SEGMENT_SHIFT);
+            CharBuffer[] segments = new CharBuffer[numberSegments];
+            for (int i = 0; i < numberSegments; i++) {
+                long segmentStart = ((long) i) << SEGMENT_SHIFT;
+                long segmentChars = Math.min(1L << SEGMENT_SHIFT, numberChars - segmentStart);
+                segments[i] = map(channel, position + segmentStart * 2, segmentChars * 2).asCharBuffer();
+            }
+
+            ExampleArena arena = new ExampleArena(new MappedCharSequence(segments, SEGMENT_SHIFT, numberChars),
+                    textOffsets, matchOffsets, matchIntervals, unmatchOffsets, unmatchIntervals);
+            //mapped examples are read-only, the stats cannot become stale
+            dataset.examples = Collections.unmodifiableList(arena.asExamples());
+            dataset.importStats(datasetStats);
+            DataSet trainingDataset = dataset.subDataset("training", training);
+            trainingDataset.importStats(trainingStats);
+            DataSet validationDataset = dataset.subDataset("validation", validation);
+            validationDataset.importStats(validationStats);
+            DataSet learningDataset = new DataSet("learning", dataset.initReg);
+            learningDataset.getExamples().addAll(dataset.getExamples());
+            learningDataset.importStats(datasetStats);
+            learningDataset.invalidateTextPool();
+            LOG.info(String.format("Opened binary dataset %s: %d examples, %d chars in %.3f s",
+                    file.getName(), numberExamples, numberChars, (System.nanoTime() - startTime) / 1e9));
+            return new DataSetBinaryFile(dataset, trainingDataset, validationDataset, learningDataset, training, validation);
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private static IntBuffer mapInts(FileChannel channel, long position, int numberInts) throws IOException {
+        if (numberInts == 0) {
+            return IntBuffer.allocate(0);
+        }
+        return map(channel, position, numberInts * 4L).asIntBuffer();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of binary dataset file");
+            }
+        }
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int needed) {
+        if (buffer.remaining() >= needed) {
+            return buffer;
+        }
+        ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+        newBuffer.put(buffer);
+        return newBuffer;
+    }
+
+    private static ByteBuffer putString(ByteBuffer buffer, String string) {
+        if (string == null) {
+            buffer = ensureCapacity(buffer, 4);
+            buffer.putInt(-1);
+            return buffer;
+        }
+        byte[] bytes = string.getBytes(UTF8);
+        buffer = ensureCapacity(buffer, 4 + bytes.length);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+        return buffer;
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private static void putInts(ByteBuffer buffer, int[] values) {
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+    }
+
+    private static int[] getInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = buffer.getInt();
+        }
+        return values;
+    }
+
+    private static void putRanges(ByteBuffer buffer, List<Range> ranges) {
+        buffer.putInt(ranges.size());
+        for (Range range : ranges) {
+            buffer.putInt(range.getStartIndex());
+            buffer.putInt(range.getEndIndex());
+        }
+    }
+
+    private static List<Range> getRanges(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        List<Range> ranges = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ranges.add(new Range(buffer.getInt(), buffer.getInt()));
+        }
+        return ranges;
+    }
+
+    /**
+     * Buffered little endian writer, keeps track of the written bytes for section alignment.
+     */
+    private static final class SectionWriter {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private long written = 0;
+
+        SectionWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            if (buffer.remaining() < 4) {
+                flush();
+            }
+            buffer.putInt(value);
+            written += 4;
+        }
+
+        void putChar(char value) throws IOException {
+            if (buffer.remaining() < 2) {
+                flush();
+            }
+            buffer.putChar(value);
+            written += 2;
+        }
+
+        void put(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                buffer.put(bytes.get());
+                written++;
+            }
+        }
+
+        void align() throws IOException {
+            while ((written & 7) != 0) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                buffer.put((byte) 0);
+                written++;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.inputs;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.inputs.DataSet.Example;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Streaming reader for the JSON dataset format.
+ * The dataset is parsed token by token, examples are built while they are read
+ * and the annotated strings and dataset statistics are computed on the fly; the
+ * whole JSON document is never held in memory.
+ * The produced DataSet is equivalent to the one deserialized by Gson, followed by
+ * <code>populateAnnotatedStrings</code> and <code>updateStats</code>.
+ * @author MaleLabTs
+ */
+public final class DataSetJsonReader {
+
+    private static final Logger LOG = Logger.getLogger(DataSetJsonReader.class.getName());
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private DataSetJsonReader() {
+    }
+
+    /**
+     * Reads the dataset from a UTF-8 encoded JSON file and logs the load throughput.
+     * @param file
+     * @return the loaded dataset, with populated annotated strings and updated stats
+     * @throws IOException
+     */
+    public static DataSet read(File file) throws IOException {
+        long startTime = System.nanoTime();
+        DataSet dataSet;
+        try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8), BUFFER_SIZE)) {
+            dataSet = read(reader);
+        }
+        long elapsedNanos = Math.max(System.nanoTime() - startTime, 1);
+        double elapsedSeconds = elapsedNanos / 1e9;
+        LOG.info(String.format("Loaded dataset %s: %d examples, %d chars in %.3f s (%.2f MB/s, %.0f examples/s)",
+                file.getName(), dataSet.getNumberExamples(), dataSet.getNumberOfChars(), elapsedSeconds,
+                (file.length() / (1024.0 * 1024.0)) / elapsedSeconds, dataSet.getNumberExamples() / elapsedSeconds));
+        return dataSet;
+    }
+
+    /**
+     * Reads the dataset from the provided reader; the reader is not closed.
+     * @param reader
+     * @return the loaded dataset, with populated annotated strings and updated stats
+     * @throws IOException
+     */
+    public static DataSet read(Reader reader) throws IOException {
+        JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.setLenient(true);
+        DataSet dataSet = new DataSet();
+        dataSet.examples = new ArrayList<>();
+        dataSet.resetStats();
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            String fieldName = jsonReader.nextName();
+            switch (fieldName) {
+                case "name":
+                    dataSet.name = nextStringOrNull(jsonReader);
+                    break;
+                case "description":
+                    dataSet.description = nextStringOrNull(jsonReader);
+                    break;
+                case "regexTarget":
+                    dataSet.regexTarget = nextStringOrNull(jsonReader);
+                    break;
+                case "examples":
+                    readExamples(jsonReader, dataSet);
+                    break;
+                case "initReg":
+                    if (jsonReader.peek() != JsonToken.NULL) {
+                        LOG.warning("initReg is not supported by the dataset JSON format, the field is ignored.");
+                    }
+                    jsonReader.skipValue();
+                    break;
+                default:
+                    jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        return dataSet;
+    }
+
+    private static void readExamples(JsonReader jsonReader, DataSet dataSet) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return;
+        }
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            Example example = readExample(jsonReader);
+            example.populateAnnotatedStrings();
+            dataSet.examples.add(example);
+            dataSet.accumulateStats(example);
+        }
+        jsonReader.endArray();
+        dataSet.invalidateTextPool();
+    }
+
+    /**
+     * Reads a single example object, the annotated strings are not populated.
+     * @param jsonReader
+     * @return
+     * @throws IOException
+     */
+    public static Example readExample(JsonReader jsonReader) throws IOException {
+        Example example = new Example();
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            String fieldName = jsonReader.nextName();
+            switch (fieldName) {
+                case "string":
+                    example.string = nextStringOrNull(jsonReader);
+                    break;
+                case "match":
+                    readBoundsList(jsonReader, example.match);
+                    break;
+                case "unmatch":
+                    readBoundsList(jsonReader, example.unmatch);
+                    break;
+                default:
+                    jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        if (example.string == null) {
+            throw new IOException("Malformed dataset: example without string at " + jsonReader.toString());
+        }
+        return example;
+    }
+
+    private static void readBoundsList(JsonReader jsonReader, List<Bounds> boundsList) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return;
+        }
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            int start = 0;
+            int end = 0;
+            jsonReader.beginObject();
+            while (jsonReader.hasNext()) {
+                String fieldName = jsonReader.nextName();
+                switch (fieldName) {
+                    case "start":
+                        start = jsonReader.nextInt();
+                        break;
+                    case "end":
+                        end = jsonReader.nextInt();
+                        break;
+                    default:
+                        jsonReader.skipValue();
+                }
+            }
+            jsonReader.endObject();
+            boundsList.add(new Bounds(start, end));
+        }
+        jsonReader.endArray();
+    }
+
+    private static String nextStringOrNull(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+        return jsonReader.nextString();
+    }
+}
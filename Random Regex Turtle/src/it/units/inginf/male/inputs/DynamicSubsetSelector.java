@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.inputs;
+
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.inputs.DataSet.Example;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Dynamic subset selection of the training examples.
+ * Each generation a subset of the examples of a base dataset view is selected; the
+ * selection probability of an example grows with its difficulty (the errors made by the
+ * best individual the last time the example has been evaluated) and with its age (the number
+ * of generations since the example has been selected the last time).
+ * The selector is owned by a single Job (see <code>Context</code>), it is not thread safe.
+ * @author MaleLabTs
+ */
+public class DynamicSubsetSelector {
+
+    private final double subsetRatio;
+    private final double difficultyExponent;
+    private final double ageExponent;
+
+    private DataSet baseDataset;
+    private DataSet subset;
+    private int[] subsetIndexes;
+    private double[] difficulty;
+    private int[] age;
+
+    /**
+     * @param subsetRatio the size of the subset, as a fraction of the base dataset size
+     * @param difficultyExponent the weight of the difficulty in the selection
+     * @param ageExponent the weight of the age in the selection
+     */
+    public DynamicSubsetSelector(double subsetRatio, double difficultyExponent, double ageExponent) {
+        this.subsetRatio = subsetRatio;
+        this.difficultyExponent = difficultyExponent;
+        this.ageExponent = ageExponent;
+    }
+
+    /**
+     * Selects a new subset from the base dataset and updates the example ages.
+     * When the base dataset changes size, difficulties and ages are reset; examples of
+     * "Separate and conquer" levels keep the same order so their history is preserved.
+     * @param base the dataset view the subset is drawn from
+     * @param random
+     * @return the new subset view
+     */
+    public DataSet select(DataSet base, Random random) {
+        int size = base.getNumberExamples();
+        if (this.difficulty == null || this.difficulty.length != size) {
+            this.difficulty = new double[size];
+            this.age = new int[size];
+            Arrays.fill(this.difficulty, 1.0);
+        }
+        this.baseDataset = base;
+        int subsetSize = Math.max(1, Math.min(size, (int) Math.ceil(size * subsetRatio)));
+
+        //weighted sampling without replacement: the examples with the highest u^(1/w) keys are selected
+        PriorityQueue<double[]> selected = new PriorityQueue<>(subsetSize, new java.util.Comparator<double[]>() {
+            @Override
+            public int compare(double[] o1, double[] o2) {
+                return Double.compare(o1[0], o2[0]);
+            }
+        });
+        for (int i = 0; i < size; i++) {
+            double weight = Math.pow(difficulty[i], difficultyExponent) + Math.pow(age[i], ageExponent);
+            double key = Math.pow(random.nextDouble(), 1.0 / weight);
+            if (selected.size() < subsetSize) {
+                selected.add(new double[]{key, i});
+            } else if (key > selected.peek()[0]) {
+                selected.poll();
+                selected.add(new double[]{key, i});
+            }
+        }
+        this.subsetIndexes = new int[selected.size()];
+        int j = 0;
+        for (double[] entry : selected) {
+            this.subsetIndexes[j++] = (int) entry[1];
+        }
+        //keeps the base dataset order
+        Arrays.sort(this.subsetIndexes);
+
+        for (int i = 0; i < size; i++) {
+            age[i]++;
+        }
+        this.subset = new DataSet(base.getName(), "Dynamic subset", base.getRegexTarget(), base.initReg);
+        //the examples are a LinkedList, indexed access would be quadratic
+        List<Example> baseExamples = new ArrayList<>(base.getExamples());
+        for (int index : this.subsetIndexes) {
+            this.subset.getExamples().add(baseExamples.get(index));
+            age[index] = 0;
+        }
+        this.subset.updateStats();
+        return this.subset;
+    }
+
+    /**
+     * Returns the current subset when it has been selected from the provided base dataset,
+     * otherwise the base dataset itself.
+     * @param base
+     * @return
+     */
+    public DataSet getSubset(DataSet base) {
+        if (this.subset != null && base == this.baseDataset) {
+            return this.subset;
+        }
+        return base;
+    }
+
+    /**
+     * Updates the example difficulties using the extractions of an individual (usually the best one)
+     * on the provided dataset; the dataset is either the current subset or its base dataset.
+     * @param evaluatedDataset
+     * @param extractions the extractions, one list per example of <code>evaluatedDataset</code>
+     */
+    public void updateDifficulty(DataSet evaluatedDataset, List<List<Bounds>> extractions) {
+        boolean isSubset = (evaluatedDataset == this.subset);
+        if (!isSubset && evaluatedDataset != this.baseDataset) {
+            return;
+        }
+        int i = 0;
+        Iterator<Example> examples = evaluatedDataset.getExamples().iterator();
+        for (List<Bounds> exampleExtractions : extractions) {
+            int baseIndex = isSubset ? this.subsetIndexes[i] : i;
+            this.difficulty[baseIndex] = 1.0 + countErrors(examples.next(), exampleExtractions);
+            i++;
+        }
+    }
+
+    //false negatives (not extracted matches) plus false positives (wrong extractions in annotated areas)
+    private static int countErrors(Example example, List<Bounds> extractions) {
+        int truePositives = 0;
+        for (Bounds extraction : extractions) {
+            if (example.getMatch().contains(extraction)) {
+                truePositives++;
+            }
+        }
+        int falseNegatives = example.getNumberMatches() - truePositives;
+        int falsePositives = 0;
+        for (Bounds extraction : extractions) {
+            for (Bounds unmatch : example.getUnmatch()) {
+                if (extraction.overlaps(unmatch)) {
+                    falsePositives++;
+                    break;
+                }
+            }
+        }
+        return falseNegatives + falsePositives;
+    }
+
+    public double getSubsetRatio() {
+        return subsetRatio;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.inputs;
+
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.inputs.DataSet.Example;
+import java.nio.IntBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Columnar storage for dataset examples.
+ * The example texts are concatenated into a single char arena, and the example
+ * boundaries and annotations are kept in int arrays:
+ * <ul>
+ * <li><code>textOffsets</code>, n+1 entries, example i text is [textOffsets[i], textOffsets[i+1])</li>
+ * <li><code>matchOffsets</code>, n+1 entries, example i matches are the intervals [matchOffsets[i], matchOffsets[i+1])</li>
+ * <li><code>matchIntervals</code>, two packed ints (start, end) for each interval</li>
+ * <li>the same two arrays for the unmatches</li>
+ * </ul>
+ * Examples returned by <code>asExamples</code> are thin views: texts are CharSequence views on the arena,
+ * match and unmatch lists are read-only views on the packed intervals and annotated strings are computed on demand.
+ * @author MaleLabTs
+ */
+public final class ExampleArena {
+
+    private final CharSequence chars;
+    private final IntBuffer textOffsets;
+    private final IntBuffer matchOffsets;
+    private final IntBuffer matchIntervals;
+    private final IntBuffer unmatchOffsets;
+    private final IntBuffer unmatchIntervals;
+
+    /**
+     * Creates an arena over already packed data, buffers are absolute indexed and are not modified.
+     * @param chars the concatenation of all the example texts
+     * @param textOffsets
+     * @param matchOffsets
+     * @param matchIntervals
+     * @param unmatchOffsets
+     * @param unmatchIntervals
+     */
+    public ExampleArena(CharSequence chars, IntBuffer textOffsets, IntBuffer matchOffsets, IntBuffer matchIntervals, IntBuffer unmatchOffsets, IntBuffer unmatchIntervals) {
+        this.chars = chars;
+        this.textOffsets = textOffsets;
+        this.matchOffsets = matchOffsets;
+        this.matchIntervals = matchIntervals;
+        this.unmatchOffsets = unmatchOffsets;
+        this.unmatchIntervals = unmatchIntervals;
+    }
+
+    /**
+     * Packs the provided examples into a new arena. The examples are not modified.
+     * @param examples
+     * @return
+     */
+    public static ExampleArena build(List<Example> examples) {
+        int numberExamples = examples.size();
+        long overallChars = 0;
+        int overallMatches = 0;
+        int overallUnmatches = 0;
+        for (Example example : examples) {
+            overallChars += example.getNumberOfChars();
+            overallMatches += example.getMatch().size();
+            overallUnmatches += example.getUnmatch().size();
+        }
+        if (overallChars > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Examples are too large for a single arena: " + overallChars + " chars");
+        }
+        char[] arena = new char[(int) overallChars];
+        int[] textOffsetArray = new int[numberExamples + 1];
+        int[] matchOffsetArray = new int[numberExamples + 1];
+        int[] matchIntervalArray = new int[overallMatches * 2];
+        int[] unmatchOffsetArray = new int[numberExamples + 1];
+        int[] unmatchIntervalArray = new int[overallUnmatches * 2];
+
+        int charIndex = 0;
+        int matchIndex = 0;
+        int unmatchIndex = 0;
+        int i = 0;
+        for (Example example : examples) {
+            textOffsetArray[i] = charIndex;
+            matchOffsetArray[i] = matchIndex;
+            unmatchOffsetArray[i] = unmatchIndex;
+            CharSequence text = example.getText();
+            int length = text.length();
+            if (text instanceof String) {
+                ((String) text).getChars(0, length, arena, charIndex);
+            } else {
+                for (int c = 0; c < length; c++) {
+                    arena[charIndex + c] = text.charAt(c);
+                }
+            }
+            charIndex += length;
+            matchIndex = pack(example.getMatch(), matchIntervalArray, matchIndex);
+            unmatchIndex = pack(example.getUnmatch(), unmatchIntervalArray, unmatchIndex);
+            i++;
+        }
+        textOffsetArray[numberExamples] = charIndex;
+        matchOffsetArray[numberExamples] = matchIndex;
+        unmatchOffsetArray[numberExamples] = unmatchIndex;
+        return new ExampleArena(new CharArraySequence(arena), IntBuffer.wrap(textOffsetArray), IntBuffer.wrap(matchOffsetArray),
+                IntBuffer.wrap(matchIntervalArray), IntBuffer.wrap(unmatchOffsetArray), IntBuffer.wrap(unmatchIntervalArray));
+    }
+
+    private static int pack(List<Bounds> boundsList, int[] intervals, int intervalIndex) {
+        for (Bounds bounds : boundsList) {
+            intervals[intervalIndex * 2] = bounds.start;
+            intervals[intervalIndex * 2 + 1] = bounds.end;
+            intervalIndex++;
+        }
+        return intervalIndex;
+    }
+
+    public int size() {
+        return textOffsets.limit() - 1;
+    }
+
+    /**
+     * The example text, as a view on the arena.
+     * @param index
+     * @return
+     */
+    public CharSequence getText(int index) {
+        return chars.subSequence(textOffsets.get(index), textOffsets.get(index + 1));
+    }
+
+    public List<Bounds> getMatch(int index) {
+        return new PackedBoundsList(matchIntervals, matchOffsets.get(index), matchOffsets.get(index + 1));
+    }
+
+    public List<Bounds> getUnmatch(int index) {
+        return new PackedBoundsList(unmatchIntervals, unmatchOffsets.get(index), unmatchOffsets.get(index + 1));
+    }
+
+    /**
+     * Creates the example views of the arena content, in the original order.
+     * @return
+     */
+    public List<Example> asExamples() {
+        int numberExamples = this.size();
+        List<Example> examples = new ArrayList<>(numberExamples);
+        for (int i = 0; i < numberExamples; i++) {
+            examples.add(new Example(this.getText(i), this.getMatch(i), this.getUnmatch(i)));
+        }
+        return examples;
+    }
+
+    /**
+     * Read only list of Bounds backed by a packed interval buffer; Bounds instances are created on access.
+     */
+    private static final class PackedBoundsList extends AbstractList<Bounds> implements RandomAccess {
+
+        private final IntBuffer intervals;
+        private final int from;
+        private final int size;
+
+        PackedBoundsList(IntBuffer intervals, int from, int to) {
+            this.intervals = intervals;
+            this.from = from;
+            this.size = to - from;
+        }
+
+        @Override
+        public Bounds get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            int position = (from + index) * 2;
+            return new Bounds(intervals.get(position), intervals.get(position + 1));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
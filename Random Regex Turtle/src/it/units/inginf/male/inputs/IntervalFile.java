@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.inputs;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * File of sorted, long, intervals: the annotations (or the extractions) of a <code>MappedTextFile</code>.
+ * The intervals are sorted by start and, once opened, the file is memory mapped read-only.
+ * Layout (little endian):
+ * <pre>
+ * int magic, int version, long intervals
+ * intervals * (long start, long end)
+ * </pre>
+ * Like <code>Bounds</code>, start is inclusive and end is exclusive.
+ * @author MaleLabTs
+ */
+public final class IntervalFile {
+
+    private static final int MAGIC = 0x56494752; //"RGIV" in little endian
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    //a single mapping cannot exceed 2GB, intervals are mapped in segments of 2^26 intervals (1GB)
+    private static final int SEGMENT_SHIFT = 26;
+
+    private final LongBuffer[] segments;
+    private final long numberIntervals;
+
+    private IntervalFile(LongBuffer[] segments, long numberIntervals) {
+        this.segments = segments;
+        this.numberIntervals = numberIntervals;
+    }
+
+    /**
+     * Opens and maps an interval file.
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static IntervalFile open(File file) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r"); FileChannel channel = randomAccessFile.getChannel()) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("Unexpected end of interval file");
+                }
+            }
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not an interval file: " + file);
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported interval file version: " + header.getInt(4));
+            }
+            long numberIntervals = header.getLong(8);
+            if (channel.size() < HEADER_SIZE + numberIntervals * 16) {
+                throw new IOException("Truncated interval file: " + file);
+            }
+            int numberSegments = (int) ((numberIntervals + (1L << SEGMENT_SHIFT) - 1) >>> SEGMENT_SHIFT);
+            LongBuffer[] segments = new LongBuffer[numberSegments];
+            for (int i = 0; i < numberSegments; i++) {
+                long segmentStart = ((long) i) << SEGMENT_SHIFT;
+                long segmentIntervals = Math.min(1L << SEGMENT_SHIFT, numberIntervals - segmentStart);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + segmentStart * 16, segmentIntervals * 16)
+                        .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            }
+            return new IntervalFile(segments, numberIntervals);
+        }
+    }
+
+    /**
+     * Creates a writer, the intervals have to be appended in start order.
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static Writer create(File file) throws IOException {
+        return new Writer(file);
+    }
+
+    public long size() {
+        return numberIntervals;
+    }
+
+    public long getStart(long index) {
+        return get(index, 0);
+    }
+
+    public long getEnd(long index) {
+        return get(index, 1);
+    }
+
+    private long get(long index, int field) {
+        if (index < 0 || index >= numberIntervals) {
+            throw new IndexOutOfBoundsException("Interval: " + index + ", intervals: " + numberIntervals);
+        }
+        return segments[(int) (index >>> SEGMENT_SHIFT)].get((int) ((index & ((1L << SEGMENT_SHIFT) - 1)) * 2 + field));
+    }
+
+    /**
+     * Returns the index of the first interval whose start is not lower than position, size() when there
+     * is no such interval. Used to find the intervals of a window of the text.
+     * @param position
+     * @return
+     */
+    public long indexOfStart(long position) {
+        long low = 0;
+        long high = numberIntervals;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (getStart(middle) < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Buffered interval file writer; the number of intervals is written on close.
+     */
+    public static final class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private long numberIntervals = 0;
+        private long lastStart = Long.MIN_VALUE;
+
+        private Writer(File file) throws IOException {
+            this.channel = new FileOutputStream(file).getChannel();
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putLong(0);
+        }
+
+        /**
+         * Appends an interval.
+         * @param start
+         * @param end
+         * @throws IOException
+         */
+        public void add(long start, long end) throws IOException {
+            if (start < lastStart || end < start) {
+                throw new IllegalArgumentException("Intervals must be valid and sorted by start: [" + start + ", " + end + ") after start " + lastStart);
+            }
+            if (buffer.remaining() < 16) {
+                flush();
+            }
+            buffer.putLong(start);
+            buffer.putLong(end);
+            lastStart = start;
+            numberIntervals++;
+        }
+
+        public long size() {
+            return numberIntervals;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                ByteBuffer count = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+                count.putLong(0, numberIntervals);
+                while (count.hasRemaining()) {
+                    channel.write(count, 8 + count.position());
+                }
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.inputs;
+
+import java.nio.CharBuffer;
+
+/**
+ * CharSequence over a sequence of equally sized CharBuffer segments (i.e. the
+ * segments of a memory mapped file, a single mapping cannot exceed 2GB).
+ * Sub-sequences contained in a single segment are zero-copy views on that segment,
+ * sub-sequences crossing a segment boundary are copied.
+ * Two sequences are equal when they have the same content, like Strings.
+ * @author MaleLabTs
+ */
+public final class MappedCharSequence implements CharSequence {
+
+    private final CharBuffer[] segments;
+    private final int segmentShift;
+    private final int segmentMask;
+    private final int length;
+    private int hash;
+
+    /**
+     * @param segments the segments, all the segments but the last one have to contain exactly 2^segmentShift chars
+     * @param segmentShift
+     * @param length overall number of chars
+     */
+    public MappedCharSequence(CharBuffer[] segments, int segmentShift, int length) {
+        this.segments = segments;
+        this.segmentShift = segmentShift;
+        this.segmentMask = (1 << segmentShift) - 1;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        return segments[index >>> segmentShift].get(index & segmentMask);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new StringIndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + length);
+        }
+        if (start == end) {
+            return new CharArraySequence(new char[0]);
+        }
+        int segmentIndex = start >>> segmentShift;
+        if (((end - 1) >>> segmentShift) == segmentIndex) {
+            int segmentStart = segmentIndex << segmentShift;
+            return segments[segmentIndex].subSequence(start - segmentStart, end - segmentStart);
+        }
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            chars[i - start] = this.charAt(i);
+        }
+        return new CharArraySequence(chars);
+    }
+
+    @Override
+    public String toString() {
+        return this.subSequence(0, length).toString();
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0 && length > 0) {
+            for (int i = 0; i < length; i++) {
+                h = 31 * h + charAt(i);
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MappedCharSequence)) {
+            return false;
+        }
+        MappedCharSequence other = (MappedCharSequence) obj;
+        if (other.length != length || other.hashCode() != hashCode()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (charAt(i) != other.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
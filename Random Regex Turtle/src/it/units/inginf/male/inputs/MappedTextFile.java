@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.inputs;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * A text file, i.e. a single log file of several GB, memory mapped read-only and decoded on the fly.
+ * The file is never loaded into the heap: the text is read sequentially in windows of a fixed number of
+ * chars (see <code>ChunkReader</code>), consecutive windows overlap so that a match crossing the end of a
+ * window is entirely contained by the next one. Char positions are long values, the text can be longer
+ * than 2^31-1 chars.
+ * Malformed input is replaced with the charset replacement char, so the positions are the positions in the
+ * decoded text.
+ * @author MaleLabTs
+ */
+public final class MappedTextFile {
+
+    //a single mapping cannot exceed 2GB, the file is mapped in segments of 2^30 bytes
+    private static final int SEGMENT_SHIFT = 30;
+    //longer than any char encoding, used to decode a char split between two segments
+    private static final int MAX_CHAR_BYTES = 16;
+
+    private final File file;
+    private final Charset charset;
+    private final MappedByteBuffer[] segments;
+    private final long numberBytes;
+
+    private MappedTextFile(File file, Charset charset, MappedByteBuffer[] segments, long numberBytes) {
+        this.file = file;
+        this.charset = charset;
+        this.segments = segments;
+        this.numberBytes = numberBytes;
+    }
+
+    /**
+     * Maps the text file.
+     * @param file
+     * @param charset the text encoding
+     * @return
+     * @throws IOException
+     */
+    public static MappedTextFile open(File file, Charset charset) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r"); FileChannel channel = randomAccessFile.getChannel()) {
+            long numberBytes = channel.size();
+            int numberSegments = (int) ((numberBytes + (1L << SEGMENT_SHIFT) - 1) >>> SEGMENT_SHIFT);
+            MappedByteBuffer[] segments = new MappedByteBuffer[numberSegments];
+            for (int i = 0; i < numberSegments; i++) {
+                long segmentStart = ((long) i) << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart, Math.min(1L << SEGMENT_SHIFT, numberBytes - segmentStart));
+            }
+            return new MappedTextFile(file, charset, segments, numberBytes);
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public long getNumberBytes() {
+        return numberBytes;
+    }
+
+    /**
+     * Creates a reader of the text, from the beginning of the file.
+     * @param windowChars the window size in chars
+     * @param overlapChars the number of chars at the end of a window which are also at the start of the next one;
+     * has to be lower than windowChars - 1, so that each window has room for a new surrogate pair
+     * @return
+     */
+    public ChunkReader newChunkReader(int windowChars, int overlapChars) {
+        if (overlapChars < 0 || overlapChars > windowChars - 2) {
+            throw new IllegalArgumentException("Overlap must be non negative and lower than the window size minus one: " + overlapChars + ", " + windowChars);
+        }
+        return new ChunkReader(windowChars, overlapChars);
+    }
+
+    /**
+     * Sequential reader of the text windows. Readers are not thread safe, but many readers can read
+     * the same file concurrently.
+     */
+    public final class ChunkReader {
+
+        private final CharsetDecoder decoder;
+        private final CharBuffer window;
+        private final int overlapChars;
+        private final ByteBuffer carry = ByteBuffer.allocate(MAX_CHAR_BYTES);
+        private long bytePosition = 0;
+        private long windowStart = 0;
+        private boolean first = true;
+        private boolean flushed = false;
+        private boolean last = false;
+
+        private ChunkReader(int windowChars, int overlapChars) {
+            this.decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            this.window = CharBuffer.allocate(windowChars);
+            this.overlapChars = overlapChars;
+        }
+
+        /**
+         * Moves to the next window. The first window starts at the beginning of the text, the following
+         * ones start <code>overlapChars</code> before the end of the previous window.
+         * @return false when the text is over
+         * @throws IOException
+         */
+        public boolean next() throws IOException {
+            if (last) {
+                return false;
+            }
+            if (!first) {
+                int windowLength = window.position();
+                int kept = Math.min(overlapChars, windowLength);
+                windowStart += windowLength - kept;
+                window.flip();
+                window.position(windowLength - kept);
+                window.compact();
+            }
+            first = false;
+            decode();
+            last = (bytePosition >= numberBytes) && flushed;
+            return true;
+        }
+
+        /**
+         * @return the current window text; the returned buffer is overwritten by <code>next</code>
+         */
+        public CharSequence getText() {
+            CharBuffer text = window.duplicate();
+            text.flip();
+            return text;
+        }
+
+        /**
+         * @return the position of the first window char in the text
+         */
+        public long getStart() {
+            return windowStart;
+        }
+
+        /**
+         * @return true when the current window ends with the text
+         */
+        public boolean isLast() {
+            return last;
+        }
+
+        private void decode() throws IOException {
+            while (window.hasRemaining() && bytePosition < numberBytes) {
+                int segmentIndex = (int) (bytePosition >>> SEGMENT_SHIFT);
+                long segmentStart = ((long) segmentIndex) << SEGMENT_SHIFT;
+                boolean lastSegment = (segmentIndex == segments.length - 1);
+                ByteBuffer in = segments[segmentIndex].duplicate();
+                in.position((int) (bytePosition - segmentStart));
+                CoderResult result = decoder.decode(in, window, lastSegment);
+                bytePosition = segmentStart + in.position();
+                if (result.isError()) {
+                    result.throwException();
+                }
+                if (result.isOverflow()) {
+                    //the window is full, or the next char (i.e. a surrogate pair) does not fit
+                    break;
+                }
+                if (!lastSegment && in.hasRemaining() && !decodeCarry()) {
+                    break;
+                }
+            }
+            if (bytePosition >= numberBytes && !flushed) {
+                CoderResult result = decoder.flush(window);
+                if (result.isError()) {
+                    result.throwException();
+                }
+                flushed = result.isUnderflow();
+            }
+        }
+
+        //decodes a char split between two segments, from a copy of its bytes; false when the window is full
+        private boolean decodeCarry() throws IOException {
+            carry.clear();
+            long carryPosition = bytePosition;
+            while (carry.hasRemaining() && carryPosition < numberBytes) {
+                int segmentIndex = (int) (carryPosition >>> SEGMENT_SHIFT);
+                carry.put(segments[segmentIndex].get((int) (carryPosition - (((long) segmentIndex) << SEGMENT_SHIFT))));
+                carryPosition++;
+            }
+            carry.flip();
+            CoderResult result = decoder.decode(carry, window, carryPosition >= numberBytes);
+            if (result.isError()) {
+                result.throwException();
+            }
+            bytePosition += carry.position();
+            if (result.isOverflow()) {
+                return false;
+            }
+            if (carry.position() == 0) {
+                throw new IOException("Cannot decode " + file + " at byte " + bytePosition);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.inputs;
+
+import it.units.inginf.male.inputs.DataSet.Example;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Content addressed pool of the example texts of a dataset.
+ * Byte identical texts (i.e. repeated log lines, slices created by the striping or examples left unchanged by
+ * the separate and conquer reductions) are stored once, with their multiplicity; <code>getTextIndex</code>
+ * maps each example to its unique text, so that a regex can be matched once per unique text.
+ * The pool keeps the canonical instance of each unique text (<code>getText</code>), the examples are not modified.
+ * Each unique text has also a text id, which is the same in all the pools (i.e. dataset views) containing
+ * the text while the text instance of the latest pool containing it is referenced; the text ids are never reused.
+ * @author MaleLabTs
+ */
+public final class TextPool {
+
+    //text ids by content, the keys are the latest pooled texts (see contentKey) and live as long as the pools or examples referencing them
+    private static final Map<CharSequence, Integer> TEXT_IDS = new WeakHashMap<>();
+    private static int nextTextId = 0;
+
+    private final List<CharSequence> texts;
+    private final int[] textIds;
+    private final int[] textIndexes;
+    private final int[] multiplicities;
+
+    private TextPool(List<CharSequence> texts, int[] textIds, int[] textIndexes, int[] multiplicities) {
+        this.texts = texts;
+        this.textIds = textIds;
+        this.textIndexes = textIndexes;
+        this.multiplicities = multiplicities;
+    }
+
+    /**
+     * Builds the pool of the provided examples.
+     * @param examples
+     * @return
+     */
+    public static TextPool build(List<Example> examples) {
+        Map<CharSequence, Integer> indexes = new HashMap<>();
+        List<CharSequence> texts = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        int[] textIndexes = new int[examples.size()];
+        int i = 0;
+        for (Example example : examples) {
+            CharSequence key = contentKey(example.getText());
+            Integer index = indexes.get(key);
+            if (index == null) {
+                index = texts.size();
+                indexes.put(key, index);
+                texts.add(key);
+                counts.add(1);
+            } else {
+                counts.set(index, counts.get(index) + 1);
+            }
+            textIndexes[i++] = index;
+        }
+        int[] multiplicities = new int[counts.size()];
+        int[] textIds = new int[counts.size()];
+        synchronized (TEXT_IDS) {
+            for (int j = 0; j < multiplicities.length; j++) {
+                multiplicities[j] = counts.get(j);
+                CharSequence key = texts.get(j);
+                //the id is re-keyed by the latest pooled instance: an equal key of datasets which are no longer
+                //referenced would drop the id while this text is still in use
+                Integer textId = TEXT_IDS.remove(key);
+                if (textId == null) {
+                    textId = nextTextId++;
+                }
+                TEXT_IDS.put(key, textId);
+                textIds[j] = textId;
+            }
+        }
+        return new TextPool(texts, textIds, textIndexes, multiplicities);
+    }
+
+    /**
+     * Returns a key with content based equality for the text, the key is also the pooled text: Strings and
+     * the immutable views with content based equality (TextSlices, the CharArraySequences of the compact storage
+     * and the MappedCharSequences of the binary datasets) are used as they are, so that the texts are not copied
+     * and their text ids are kept while the examples reference them. Other texts are copied into a String,
+     * i.e. a CharBuffer is mutable and its hashCode depends on its position.
+     * Note that texts of different classes with the same content are different keys.
+     */
+    private static CharSequence contentKey(CharSequence text) {
+        return (text instanceof String || text instanceof TextSlice || text instanceof CharArraySequence
+                || text instanceof MappedCharSequence) ? text : text.toString();
+    }
+
+    /**
+     * @return the number of unique texts
+     */
+    public int getNumberTexts() {
+        return texts.size();
+    }
+
+    public int getNumberExamples() {
+        return textIndexes.length;
+    }
+
+    /**
+     * @param textIndex
+     * @return the canonical instance of the unique text
+     */
+    public CharSequence getText(int textIndex) {
+        return texts.get(textIndex);
+    }
+
+    /**
+     * @param textIndex
+     * @return the id of the unique text, the same text has the same id in the other pools
+     */
+    public int getTextId(int textIndex) {
+        return textIds[textIndex];
+    }
+
+    /**
+     * @param exampleIndex
+     * @return the index of the unique text of the example
+     */
+    public int getTextIndex(int exampleIndex) {
+        return textIndexes[exampleIndex];
+    }
+
+    /**
+     * @param textIndex
+     * @return the number of examples sharing the unique text
+     */
+    public int getMultiplicity(int textIndex) {
+        return multiplicities[textIndex];
+    }
+
+    /**
+     * @return true when at least two examples share the same text
+     */
+    public boolean hasDuplicates() {
+        return texts.size() < textIndexes.length;
+    }
+
+    /**
+     * @return the number of examples per unique text, 1 when there are no duplicates
+     */
+    public double getDedupRatio() {
+        return texts.isEmpty() ? 1 : textIndexes.length / (double) texts.size();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.inputs;
+
+/**
+ * Read-only CharSequence view over a portion of another text (i.e. the text of the example
+ * a striped example has been cut from). No characters are copied until <code>toString</code>
+ * is invoked; slices of a slice refer directly to the original text.
+ * Two slices are equal when they have the same content, like Strings.
+ * @author MaleLabTs
+ */
+public final class TextSlice implements CharSequence {
+
+    private final CharSequence source;
+    //the source when it is a String, the common case, read without the CharSequence indirection
+    private final String sourceString;
+    private final int offset;
+    private final int length;
+    private int hash;
+
+    /**
+     * Creates a slice of the text, from start (inclusive) to end (exclusive).
+     * @param text
+     * @param start
+     * @param end
+     * @return
+     */
+    public static TextSlice of(CharSequence text, int start, int end) {
+        if (start < 0 || end > text.length() || start > end) {
+            throw new StringIndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + text.length());
+        }
+        if (text instanceof TextSlice) {
+            TextSlice slice = (TextSlice) text;
+            return new TextSlice(slice.source, slice.offset + start, end - start);
+        }
+        return new TextSlice(text, start, end - start);
+    }
+
+    private TextSlice(CharSequence source, int offset, int length) {
+        this.source = source;
+        this.sourceString = (source instanceof String) ? (String) source : null;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * @return the text this slice refers to
+     */
+    public CharSequence getSource() {
+        return source;
+    }
+
+    /**
+     * @return the position of the first slice char in the source text; a position in the slice
+     * is <code>position + getOffset()</code> in the source text
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        return (sourceString != null) ? sourceString.charAt(offset + index) : source.charAt(offset + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return TextSlice.of(this, start, end);
+    }
+
+    @Override
+    public String toString() {
+        return source.subSequence(offset, offset + length).toString();
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0 && length > 0) {
+            for (int i = 0; i < length; i++) {
+                h = 31 * h + source.charAt(offset + i);
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof TextSlice)) {
+            return false;
+        }
+        TextSlice other = (TextSlice) obj;
+        if (other.length != length || other.hashCode() != hashCode()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (source.charAt(offset + i) != other.source.charAt(other.offset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
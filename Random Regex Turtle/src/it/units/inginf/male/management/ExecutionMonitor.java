@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.management;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import it.units.inginf.male.evaluators.CachedEvaluator;
+import it.units.inginf.male.evaluators.DefaultTreeEvaluator;
+import it.units.inginf.male.evaluators.TreeEvaluator;
+import it.units.inginf.male.utils.LatencyHistogram;
+import it.units.inginf.male.utils.PatternCache;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Aggregates the JobMonitors of an ExecutionStrategy run. Cache statistics are read from the evaluator
+ * when it is a CachedEvaluator, the evaluator is shared by all the Jobs.
+ * @author MaleLabTs
+ */
+public class ExecutionMonitor implements ExecutionMonitorMXBean {
+
+    private static final Logger LOG = Logger.getLogger(ExecutionMonitor.class.getName());
+
+    private final String strategyName;
+    private final long startTime = System.nanoTime();
+    private final Map<Integer, JobMonitor> jobMonitors = new ConcurrentSkipListMap<>();
+    private volatile int jobs;
+    private volatile TreeEvaluator evaluator;
+    private volatile boolean stopRequested = false;
+
+    public ExecutionMonitor(String strategyName) {
+        this.strategyName = strategyName;
+    }
+
+    /**
+     * Sets the run parameters, known when the first Job starts.
+     * @param jobs the configured number of Jobs
+     * @param evaluator the shared evaluator
+     */
+    public void setup(int jobs, TreeEvaluator evaluator) {
+        this.jobs = jobs;
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Creates and returns the monitor of a starting Job.
+     * @param jobId
+     * @return
+     */
+    public JobMonitor addJob(int jobId) {
+        JobMonitor jobMonitor = new JobMonitor(jobId);
+        if (this.stopRequested) {
+            jobMonitor.requestStop();
+        }
+        this.jobMonitors.put(jobId, jobMonitor);
+        return jobMonitor;
+    }
+
+    public JobMonitor getJobMonitor(int jobId) {
+        return this.jobMonitors.get(jobId);
+    }
+
+    public Collection<JobMonitor> getJobMonitors() {
+        return this.jobMonitors.values();
+    }
+
+    @Override
+    public String getStrategyName() {
+        return strategyName;
+    }
+
+    @Override
+    public int getJobs() {
+        return jobs;
+    }
+
+    @Override
+    public int getRunningJobs() {
+        int running = 0;
+        for (JobMonitor jobMonitor : jobMonitors.values()) {
+            if (jobMonitor.isRunning()) {
+                running++;
+            }
+        }
+        return running;
+    }
+
+    @Override
+    public int getCompletedJobs() {
+        return jobMonitors.size() - getRunningJobs();
+    }
+
+    private double getElapsedSeconds() {
+        return Math.max(1, System.nanoTime() - this.startTime) / 1e9;
+    }
+
+    @Override
+    public double getGenerationsPerSecond() {
+        long generations = 0;
+        for (JobMonitor jobMonitor : jobMonitors.values()) {
+            generations += jobMonitor.getCurrentGeneration();
+        }
+        return generations / getElapsedSeconds();
+    }
+
+    @Override
+    public long getEvaluatorCalls() {
+        long calls = 0;
+        for (JobMonitor jobMonitor : jobMonitors.values()) {
+            calls += jobMonitor.getEvaluatorCalls();
+        }
+        return calls;
+    }
+
+    @Override
+    public double getEvaluatorCallsPerSecond() {
+        return getEvaluatorCalls() / getElapsedSeconds();
+    }
+
+    @Override
+    public long getCacheHits() {
+        if (evaluator instanceof CachedEvaluator) {
+            return ((CachedEvaluator) evaluator).getHits();
+        }
+        return 0;
+    }
+
+    @Override
+    public long getCacheMisses() {
+        if (evaluator instanceof CachedEvaluator) {
+            return ((CachedEvaluator) evaluator).getMisses();
+        }
+        long misses = 0;
+        for (JobMonitor jobMonitor : jobMonitors.values()) {
+            misses += jobMonitor.getCacheMisses();
+        }
+        return misses;
+    }
+
+    @Override
+    public double getCacheHitRatio() {
+        long hits = getCacheHits();
+        long calls = hits + getCacheMisses();
+        return calls == 0 ? 0 : (double) hits / calls;
+    }
+
+    @Override
+    public long getCacheSizeBytes() {
+        if (evaluator instanceof CachedEvaluator) {
+            return ((CachedEvaluator) evaluator).getCacheSizeBytes();
+        }
+        return 0;
+    }
+
+    private LatencyHistogram getEvaluationLatency() {
+        LatencyHistogram latency = new LatencyHistogram();
+        for (JobMonitor jobMonitor : jobMonitors.values()) {
+            latency.add(jobMonitor.getEvaluationLatency());
+        }
+        return latency;
+    }
+
+    @Override
+    public double getAverageEvaluationMicros() {
+        return getEvaluationLatency().getMean() / 1000.0;
+    }
+
+    @Override
+    public double getP99EvaluationMicros() {
+        return getEvaluationLatency().getPercentile(99) / 1000.0;
+    }
+
+    @Override
+    public long getCompileErrors() {
+        long compileErrors = 0;
+        for (JobMonitor jobMonitor : jobMonitors.values()) {
+            compileErrors += jobMonitor.getCompileErrors();
+        }
+        return compileErrors;
+    }
+
+    @Override
+    public long getPrescreenedEvaluations() {
+        if (evaluator instanceof DefaultTreeEvaluator) {
+            return ((DefaultTreeEvaluator) evaluator).getPrescreenedEvaluations();
+        }
+        return 0;
+    }
+
+    @Override
+    public long getPatternCacheHits() {
+        return PatternCache.getInstance().getHits();
+    }
+
+    @Override
+    public long getPatternCacheMisses() {
+        return PatternCache.getInstance().getMisses();
+    }
+
+    @Override
+    public int getPatternCacheSize() {
+        return PatternCache.getInstance().getSize();
+    }
+
+    @Override
+    public long getPatternCacheEvictions() {
+        return PatternCache.getInstance().getEvictions();
+    }
+
+    @Override
+    public double getAveragePatternCompileMicros() {
+        return PatternCache.getInstance().getCompileLatency().getMean() / 1000.0;
+    }
+
+    @Override
+    public double getP99PatternCompileMicros() {
+        return PatternCache.getInstance().getCompileLatency().getPercentile(99) / 1000.0;
+    }
+
+    @Override
+    public boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    @Override
+    public void requestStop() {
+        this.stopRequested = true;
+        for (JobMonitor jobMonitor : jobMonitors.values()) {
+            jobMonitor.requestStop();
+        }
+        LOG.info("Stop requested for " + strategyName);
+    }
+
+    @Override
+    public String checkpoint(String pathOfFile) {
+        List<Map<String, Object>> jobSnapshots = new ArrayList<>();
+        for (JobMonitor jobMonitor : jobMonitors.values()) {
+            Map<String, Object> jobSnapshot = new LinkedHashMap<>();
+            jobSnapshot.put("jobId", jobMonitor.getJobId());
+            jobSnapshot.put("running", jobMonitor.isRunning());
+            jobSnapshot.put("generation", jobMonitor.getCurrentGeneration());
+            jobSnapshot.put("bestRegex", jobMonitor.getBestRegex());
+            jobSnapshot.put("bestFitness", jobMonitor.getBestFitness());
+            jobSnapshots.add(jobSnapshot);
+        }
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("strategy", strategyName);
+        snapshot.put("timestamp", System.currentTimeMillis());
+        snapshot.put("jobs", jobSnapshots);
+        File file = new File(pathOfFile);
+        Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().serializeSpecialFloatingPointValues().create();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+            gson.toJson(snapshot, writer);
+        } catch (IOException ex) {
+            LOG.log(Level.SEVERE, "Cannot save the checkpoint", ex);
+            throw new IllegalStateException("Cannot save the checkpoint: " + ex.getMessage());
+        }
+        return file.getAbsolutePath();
+    }
+}
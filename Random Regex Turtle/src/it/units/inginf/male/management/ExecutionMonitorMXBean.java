@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.management;
+
+/**
+ * Live telemetry of an ExecutionStrategy run, aggregated over its Jobs.
+ * @author MaleLabTs
+ */
+public interface ExecutionMonitorMXBean {
+
+    String getStrategyName();
+
+    int getJobs();
+
+    int getRunningJobs();
+
+    int getCompletedJobs();
+
+    double getGenerationsPerSecond();
+
+    long getEvaluatorCalls();
+
+    double getEvaluatorCallsPerSecond();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    double getCacheHitRatio();
+
+    long getCacheSizeBytes();
+
+    double getAverageEvaluationMicros();
+
+    double getP99EvaluationMicros();
+
+    long getCompileErrors();
+
+    /**
+     * Evaluations of individuals which provably match nothing, answered without matching.
+     * @return
+     */
+    long getPrescreenedEvaluations();
+
+    long getPatternCacheHits();
+
+    long getPatternCacheMisses();
+
+    int getPatternCacheSize();
+
+    long getPatternCacheEvictions();
+
+    double getAveragePatternCompileMicros();
+
+    double getP99PatternCompileMicros();
+
+    boolean isStopRequested();
+
+    /**
+     * Asks all the Jobs, the running and the pending ones, to stop after their current generation.
+     * The Jobs complete normally and the results are post processed as usual.
+     */
+    void requestStop();
+
+    /**
+     * Saves a JSON snapshot of the Jobs (generation, best regex and fitness) into the provided file.
+     * @param pathOfFile
+     * @return the absolute path of the written file
+     */
+    String checkpoint(String pathOfFile);
+}
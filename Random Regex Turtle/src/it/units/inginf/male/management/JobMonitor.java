@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.management;
+
+import it.units.inginf.male.evaluators.SlowestEvaluationsRecorder;
+import it.units.inginf.male.evaluators.SlowestEvaluationsRecorder.SlowEvaluation;
+import it.units.inginf.male.utils.LatencyHistogram;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the telemetry of a Job. The monitor is attached to the Job Context: the evaluators record
+ * evaluation latencies, cache hits and regex compile errors, the listener records the generations.
+ * @author MaleLabTs
+ */
+public class JobMonitor implements JobMonitorMXBean {
+
+    private final int jobId;
+    private final long startTime = System.nanoTime();
+    private volatile long endTime = -1;
+    private volatile int currentGeneration = 0;
+    private volatile String bestRegex;
+    private volatile double[] bestFitness;
+    private volatile boolean stopRequested = false;
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong compileErrors = new AtomicLong();
+    private final LatencyHistogram evaluationLatency = new LatencyHistogram();
+    private volatile SlowestEvaluationsRecorder slowestEvaluations;
+
+    public JobMonitor(int jobId) {
+        this.jobId = jobId;
+    }
+
+    /**
+     * Records an evaluation not served by a cache.
+     * @param nanos the evaluation time
+     */
+    public void recordEvaluation(long nanos) {
+        evaluationLatency.record(nanos);
+    }
+
+    public void recordCacheHit() {
+        cacheHits.incrementAndGet();
+    }
+
+    public void recordCompileError() {
+        compileErrors.incrementAndGet();
+    }
+
+    public void updateGeneration(int generation, String bestRegex, double[] bestFitness) {
+        this.currentGeneration = generation;
+        this.bestRegex = bestRegex;
+        this.bestFitness = bestFitness;
+    }
+
+    public void complete() {
+        this.endTime = System.nanoTime();
+    }
+
+    public void setSlowestEvaluationsRecorder(SlowestEvaluationsRecorder slowestEvaluations) {
+        this.slowestEvaluations = slowestEvaluations;
+    }
+
+    public LatencyHistogram getEvaluationLatency() {
+        return evaluationLatency;
+    }
+
+    public double[] getBestFitness() {
+        return bestFitness;
+    }
+
+    double getElapsedSeconds() {
+        long end = (this.endTime < 0) ? System.nanoTime() : this.endTime;
+        return Math.max(1, end - this.startTime) / 1e9;
+    }
+
+    @Override
+    public int getJobId() {
+        return jobId;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return endTime < 0;
+    }
+
+    @Override
+    public int getCurrentGeneration() {
+        return currentGeneration;
+    }
+
+    @Override
+    public double getGenerationsPerSecond() {
+        return currentGeneration / getElapsedSeconds();
+    }
+
+    @Override
+    public long getEvaluatorCalls() {
+        return evaluationLatency.getCount() + cacheHits.get();
+    }
+
+    @Override
+    public double getEvaluatorCallsPerSecond() {
+        return getEvaluatorCalls() / getElapsedSeconds();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return evaluationLatency.getCount();
+    }
+
+    @Override
+    public double getAverageEvaluationMicros() {
+        return evaluationLatency.getMean() / 1000.0;
+    }
+
+    @Override
+    public double getP99EvaluationMicros() {
+        return evaluationLatency.getPercentile(99) / 1000.0;
+    }
+
+    @Override
+    public long getCompileErrors() {
+        return compileErrors.get();
+    }
+
+    @Override
+    public String getBestRegex() {
+        return bestRegex;
+    }
+
+    @Override
+    public String[] getSlowestEvaluations() {
+        SlowestEvaluationsRecorder recorder = this.slowestEvaluations;
+        if (recorder == null) {
+            return new String[0];
+        }
+        List<SlowEvaluation> evaluations = recorder.getSlowestEvaluations();
+        String[] descriptions = new String[evaluations.size()];
+        for (int i = 0; i < descriptions.length; i++) {
+            descriptions[i] = evaluations.get(i).toString();
+        }
+        return descriptions;
+    }
+
+    @Override
+    public boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    @Override
+    public void requestStop() {
+        this.stopRequested = true;
+    }
+}
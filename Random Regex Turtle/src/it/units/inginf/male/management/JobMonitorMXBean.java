@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.management;
+
+/**
+ * Live telemetry of a single evolution Job.
+ * @author MaleLabTs
+ */
+public interface JobMonitorMXBean {
+
+    int getJobId();
+
+    boolean isRunning();
+
+    int getCurrentGeneration();
+
+    double getGenerationsPerSecond();
+
+    long getEvaluatorCalls();
+
+    double getEvaluatorCallsPerSecond();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    double getAverageEvaluationMicros();
+
+    double getP99EvaluationMicros();
+
+    long getCompileErrors();
+
+    String getBestRegex();
+
+    /**
+     * The slowest evaluations recorded so far, the slowest first; empty when the recording is disabled.
+     * @return
+     */
+    String[] getSlowestEvaluations();
+
+    boolean isStopRequested();
+
+    /**
+     * Asks the Job to stop after the current generation; the Job completes normally with its current population.
+     */
+    void requestStop();
+}
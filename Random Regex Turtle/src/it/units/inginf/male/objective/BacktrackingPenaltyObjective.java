@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.objective;
+
+import it.units.inginf.male.evaluators.TreeEvaluator;
+import it.units.inginf.male.inputs.Context;
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.variations.BacktrackingRiskPolicy;
+import java.util.Arrays;
+
+/**
+ * Wraps an objective and appends the backtracking risk penalty of the individual (see BacktrackingRiskPolicy)
+ * to its fitnesses, as one more objective to minimize.
+ * Exponential individuals are not evaluated: once the number of objectives of the wrapped objective is known,
+ * they get infinite fitnesses like the individuals which cannot be evaluated.
+ * @author MaleLabTs
+ */
+public class BacktrackingPenaltyObjective implements Objective {
+
+    private final Objective objective;
+    private Context context;
+    private int objectivesCount = -1;
+
+    public BacktrackingPenaltyObjective(Objective objective) {
+        this.objective = objective;
+    }
+
+    @Override
+    public void setup(Context context) {
+        this.context = context;
+        this.objective.setup(context);
+    }
+
+    @Override
+    public double[] fitness(Node individual) {
+        BacktrackingRiskPolicy policy = context.getBacktrackingRiskPolicy();
+        double penalty = policy == null ? 0 : policy.penalty(individual);
+        if (penalty >= BacktrackingRiskPolicy.EXPONENTIAL_PENALTY && objectivesCount >= 0) {
+            double[] fitness = new double[objectivesCount + 1];
+            Arrays.fill(fitness, Double.POSITIVE_INFINITY);
+            fitness[objectivesCount] = penalty;
+            return fitness;
+        }
+        double[] objectiveFitness = objective.fitness(individual);
+        objectivesCount = objectiveFitness.length;
+        double[] fitness = Arrays.copyOf(objectiveFitness, objectivesCount + 1);
+        fitness[objectivesCount] = penalty;
+        return fitness;
+    }
+
+    @Override
+    public TreeEvaluator getTreeEvaluator() {
+        return objective.getTreeEvaluator();
+    }
+
+    @Override
+    public Objective cloneObjective() {
+        return new BacktrackingPenaltyObjective(objective.cloneObjective());
+    }
+}
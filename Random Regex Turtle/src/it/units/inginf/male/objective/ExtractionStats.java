@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.objective;
+
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.inputs.DataSet.Example;
+import it.units.inginf.male.utils.BasicStats;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The match stats and the char stats of the extractions of an example, shared by the objectives and by
+ * their raced evaluations (see RacedEvaluation).
+ * @author MaleLabTs
+ */
+final class ExtractionStats {
+
+    private ExtractionStats() {
+    }
+
+    /**
+     * Adds the true positive and the false positive matches and chars of the extractions of an example.
+     * @param example
+     * @param result the extractions
+     * @param statsOverall the match stats
+     * @param statsCharsOverall the char stats
+     */
+    static void add(Example example, List<Bounds> result, BasicStats statsOverall, BasicStats statsCharsOverall) {
+        BasicStats stats = new BasicStats();
+        BasicStats statsChars = new BasicStats();
+        //Characted extracted in the right place (match)
+        List<Bounds> expectedMatchMask = example.getMatch();
+        List<Bounds> expectedUnmatchMask = example.getUnmatch();
+        List<Bounds> annotatedMask = new ArrayList<>(expectedMatchMask);
+        annotatedMask.addAll(expectedUnmatchMask);
+
+        stats.tp = countIdenticalRanges(result, expectedMatchMask);
+        stats.fp = Bounds.countRangesThatCollideZone(result, annotatedMask) - stats.tp;
+        statsChars.tp = intersection(result, expectedMatchMask);
+        statsChars.fp = intersection(result, expectedUnmatchMask);
+
+        statsOverall.add(stats);
+        statsCharsOverall.add(statsChars);
+    }
+
+    //number of chars of this extracted rages which falls into expected ranges
+    static int intersection(List<Bounds> extractedRanges, List<Bounds> expectedRanges) {
+        int overallNumChars = 0;
+
+        for (Bounds extractedBounds : extractedRanges) {
+            for (Bounds expectedBounds : expectedRanges) {
+                int numChars = Math.min(extractedBounds.end, expectedBounds.end) - Math.max(extractedBounds.start, expectedBounds.start);
+                overallNumChars += Math.max(0, numChars);
+            }
+        }
+        return overallNumChars;
+    }
+
+    //number of idential intervals
+    static int countIdenticalRanges(List<Bounds> rangesA, List<Bounds> rangesB) {
+        int identicalRanges = 0;
+
+        for (Bounds boundsA : rangesA) {
+            for (Bounds boundsB : rangesB) {
+                if (boundsA.equals(boundsB)) {
+                    identicalRanges++;
+                    break;
+                }
+            }
+        }
+        return identicalRanges;
+    }
+}
@@ -0,0 +1,411 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.objective;
+
+import it.units.inginf.male.inputs.DataSet;
+import it.units.inginf.male.terminalsets.TokenizedContextTerminalSetBuilder;
+import it.units.inginf.male.tree.Anchor;
+import it.units.inginf.male.tree.Constant;
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.tree.RegexRange;
+import it.units.inginf.male.tree.operator.Backreference;
+import it.units.inginf.male.tree.operator.Concatenator;
+import it.units.inginf.male.tree.operator.Group;
+import it.units.inginf.male.tree.operator.ListMatch;
+import it.units.inginf.male.tree.operator.ListNotMatch;
+import it.units.inginf.male.tree.operator.Lookaround;
+import it.units.inginf.male.tree.operator.MatchMinMax;
+import it.units.inginf.male.tree.operator.MatchMinMaxGreedy;
+import it.units.inginf.male.tree.operator.NonCapturingGroup;
+import it.units.inginf.male.tree.operator.Or;
+import it.units.inginf.male.tree.operator.Quantifier;
+import it.units.inginf.male.utils.Utils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Online surrogate of the fitness, used to pre-screen the offspring before their real evaluation.
+ * The fitness vector is predicted by k nearest neighbours regression (inverse distance weighted, standardized
+ * features) over the last real evaluations of the Job. The features are cheap to compute: length, size and depth of
+ * the tree, operator counts, an histogram of the structural hashes of the nodes, the overlap of the constants with
+ * the winner match and unmatch tokens (see TokenizedContextTerminalSetBuilder) and the fitness of the parents.
+ * The offspring are ranked by the number of current individuals which Pareto dominate their predicted fitness and
+ * only the best fraction is really evaluated; the fraction is adapted to the rank accuracy of the surrogate, that is
+ * the Spearman correlation between the predicted and the real number of dominating individuals.
+ * The surrogate is per Job and it is not thread safe.
+ * @author MaleLabTs
+ */
+public class FitnessSurrogate {
+
+    //non finite fitness values (i.e. NaN precision or the cut off individuals of the racing) are learned as this value
+    private static final double WORST = 1e6;
+    private static final int MEMORY = 512;
+    private static final int HASH_BUCKETS = 16;
+    private static final double ACCURACY_SMOOTHING = 0.5;
+    private static final Class<?>[] CATEGORIES = new Class<?>[]{Concatenator.class, Or.class, Quantifier.class, MatchMinMax.class,
+        MatchMinMaxGreedy.class, ListMatch.class, ListNotMatch.class, Group.class, NonCapturingGroup.class, Lookaround.class,
+        Backreference.class, Constant.class, RegexRange.class, Anchor.class};
+    private static final int FEATURES = 3 + CATEGORIES.length + HASH_BUCKETS + 2 + 2;
+
+    private final int neighbours;
+    private final double minFraction;
+    private final Set<String> matchTokens = new HashSet<>();
+    private final Set<String> unmatchTokens = new HashSet<>();
+    private final List<double[]> memoryFeatures = new ArrayList<>(MEMORY);
+    private final List<double[]> memoryFitness = new ArrayList<>(MEMORY);
+    private int next = 0;
+    private double accuracy = 0;
+    private List<double[]> reference;
+    private final List<Node> pendingTrees = new ArrayList<>();
+    private final List<double[]> pendingFeatures = new ArrayList<>();
+    private final List<Double> pendingPredictions = new ArrayList<>();
+    private long screened;
+    private long skipped;
+    private long accuracyUpdates;
+
+    /**
+     * @param trainingDataset the dataset used to compute the winner tokens
+     * @param neighbours the number of neighbours of the regression
+     * @param minFraction the fraction of offspring which is evaluated when the surrogate is perfectly accurate
+     */
+    public FitnessSurrogate(DataSet trainingDataset, int neighbours, double minFraction) {
+        this.neighbours = neighbours;
+        this.minFraction = minFraction;
+        if (trainingDataset.getStripedDataset() != null) {
+            trainingDataset = trainingDataset.getStripedDataset();
+        }
+        for (String token : TokenizedContextTerminalSetBuilder.calculateWinnerMatchTokens(trainingDataset, 80.0, true).keySet()) {
+            matchTokens.add(Utils.escape(token));
+        }
+        for (String token : TokenizedContextTerminalSetBuilder.calculateWinnerUnmatchTokens(trainingDataset, 80.0, true).keySet()) {
+            unmatchTokens.add(Utils.escape(token));
+        }
+    }
+
+    /**
+     * @return true when the surrogate has learned enough evaluations to screen the offspring
+     */
+    public boolean isReady() {
+        return memoryFeatures.size() >= 4 * neighbours;
+    }
+
+    /**
+     * The fraction of the offspring which is really evaluated.
+     * @return
+     */
+    public double getFraction() {
+        return 1 - (1 - minFraction) * Math.max(0, accuracy);
+    }
+
+    public double getAccuracy() {
+        return accuracy;
+    }
+
+    /**
+     * Computes the features of an individual.
+     * @param tree
+     * @param parentsFitness the mean fitness of the parents
+     * @return
+     */
+    public double[] features(Node tree, double[] parentsFitness) {
+        double[] features = new double[FEATURES];
+        StringBuilder builder = new StringBuilder();
+        tree.describe(builder);
+        features[0] = builder.length();
+        features[2] = visit(tree, features, 1);
+        int index = 3 + CATEGORIES.length + HASH_BUCKETS;
+        features[index] = overlap(tree, matchTokens);
+        features[index + 1] = overlap(tree, unmatchTokens);
+        features[index + 2] = sanitize(parentsFitness[0]);
+        features[index + 3] = sanitize(parentsFitness[1]);
+        return features;
+    }
+
+    //counts nodes, categories and structural hashes; returns the depth
+    private static int visit(Node node, double[] features, int depth) {
+        features[1]++;
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            if (CATEGORIES[i].isInstance(node)) {
+                features[3 + i]++;
+                break;
+            }
+        }
+        int hash = node.getClass().getName().hashCode();
+        int maxDepth = depth;
+        for (Node child : node.getChildrens()) {
+            hash = 31 * hash + child.getClass().getName().hashCode();
+            maxDepth = Math.max(maxDepth, visit(child, features, depth + 1));
+        }
+        features[3 + CATEGORIES.length + ((hash & Integer.MAX_VALUE) % HASH_BUCKETS)]++;
+        return maxDepth;
+    }
+
+    private static int overlap(Node node, Set<String> tokens) {
+        int count = (node instanceof Constant && tokens.contains(node.toString())) ? 1 : 0;
+        for (Node child : node.getChildrens()) {
+            count += overlap(child, tokens);
+        }
+        return count;
+    }
+
+    private static double sanitize(double value) {
+        return (Double.isNaN(value) || Double.isInfinite(value)) ? WORST : value;
+    }
+
+    /**
+     * Predicts the fitness of an individual.
+     * @param features
+     * @return
+     */
+    public double[] predict(double[] features) {
+        return predict(features, standardize());
+    }
+
+    /**
+     * Standardizes the features in memory, the last row contains the inverse standard deviations of the features.
+     * @return
+     */
+    private double[][] standardize() {
+        int size = memoryFeatures.size();
+        double[] mean = new double[FEATURES];
+        double[] scale = new double[FEATURES];
+        for (double[] sample : memoryFeatures) {
+            for (int j = 0; j < FEATURES; j++) {
+                mean[j] += sample[j] / size;
+            }
+        }
+        for (double[] sample : memoryFeatures) {
+            for (int j = 0; j < FEATURES; j++) {
+                scale[j] += (sample[j] - mean[j]) * (sample[j] - mean[j]) / size;
+            }
+        }
+        for (int j = 0; j < FEATURES; j++) {
+            scale[j] = (scale[j] > 0) ? 1 / Math.sqrt(scale[j]) : 1;
+        }
+        double[][] standardized = new double[size + 1][];
+        for (int i = 0; i < size; i++) {
+            double[] sample = memoryFeatures.get(i);
+            standardized[i] = new double[FEATURES];
+            for (int j = 0; j < FEATURES; j++) {
+                standardized[i][j] = sample[j] * scale[j];
+            }
+        }
+        standardized[size] = scale;
+        return standardized;
+    }
+
+    private double[] predict(double[] features, double[][] standardized) {
+        int size = standardized.length - 1;
+        double[] scale = standardized[size];
+        double[] query = new double[FEATURES];
+        for (int j = 0; j < FEATURES; j++) {
+            query[j] = features[j] * scale[j];
+        }
+        int k = Math.min(neighbours, size);
+        //the k nearest samples, sorted by squared distance
+        int[] nearest = new int[k];
+        double[] nearestDistances = new double[k];
+        Arrays.fill(nearestDistances, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < size; i++) {
+            double[] sample = standardized[i];
+            double bound = nearestDistances[k - 1];
+            double distance = 0;
+            for (int j = 0; j < FEATURES && distance < bound; j++) {
+                double delta = sample[j] - query[j];
+                distance += delta * delta;
+            }
+            if (distance < bound) {
+                int position = k - 1;
+                while (position > 0 && nearestDistances[position - 1] > distance) {
+                    nearestDistances[position] = nearestDistances[position - 1];
+                    nearest[position] = nearest[position - 1];
+                    position--;
+                }
+                nearestDistances[position] = distance;
+                nearest[position] = i;
+            }
+        }
+        int dimensions = memoryFitness.get(0).length;
+        double[] prediction = new double[dimensions];
+        double totalWeight = 0;
+        for (int n = 0; n < k; n++) {
+            double weight = 1 / (Math.sqrt(nearestDistances[n]) + 1e-6);
+            totalWeight += weight;
+            double[] fitness = memoryFitness.get(nearest[n]);
+            for (int d = 0; d < dimensions; d++) {
+                prediction[d] += weight * fitness[d];
+            }
+        }
+        for (int d = 0; d < dimensions; d++) {
+            prediction[d] /= totalWeight;
+        }
+        return prediction;
+    }
+
+    /**
+     * Learns a real evaluation.
+     * @param features
+     * @param fitness
+     */
+    public void learn(double[] features, double[] fitness) {
+        double[] target = new double[fitness.length];
+        for (int d = 0; d < fitness.length; d++) {
+            target[d] = sanitize(fitness[d]);
+        }
+        if (memoryFeatures.size() < MEMORY) {
+            memoryFeatures.add(features);
+            memoryFitness.add(target);
+        } else {
+            memoryFeatures.set(next, features);
+            memoryFitness.set(next, target);
+            next = (next + 1) % MEMORY;
+        }
+    }
+
+    /**
+     * Screens the offspring of a generation: the offspring are ranked by the number of current individuals which
+     * dominate their predicted fitness and the best fraction is kept. Until the surrogate is ready all the offspring
+     * are kept. The kept offspring are pending: their real fitness must be provided by the <code>learn(List)</code> method.
+     * @param offspring
+     * @param features the features of the offspring, in the same order
+     * @param current the rankings of the current population
+     * @param minimum the minimum number of kept offspring
+     * @return the offspring which have to be really evaluated, in the same order
+     */
+    public List<Node> screen(List<Node> offspring, List<double[]> features, List<Ranking> current, int minimum) {
+        reference = new ArrayList<>(current.size());
+        for (Ranking ranking : current) {
+            reference.add(ranking.getFitness());
+        }
+        pendingTrees.clear();
+        pendingFeatures.clear();
+        pendingPredictions.clear();
+        if (!isReady()) {
+            pendingTrees.addAll(offspring);
+            pendingFeatures.addAll(features);
+            return offspring;
+        }
+        final double[] dominators = new double[offspring.size()];
+        final double[] firstObjective = new double[offspring.size()];
+        double[][] standardized = standardize();
+        List<Integer> indexes = new ArrayList<>(offspring.size());
+        for (int i = 0; i < offspring.size(); i++) {
+            double[] prediction = predict(features.get(i), standardized);
+            dominators[i] = countDominators(prediction);
+            firstObjective[i] = prediction[0];
+            indexes.add(i);
+        }
+        Collections.sort(indexes, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                int result = Double.compare(dominators[o1], dominators[o2]);
+                return (result != 0) ? result : Double.compare(firstObjective[o1], firstObjective[o2]);
+            }
+        });
+        int kept = Math.min(offspring.size(), Math.max(minimum, (int) Math.ceil(getFraction() * offspring.size())));
+        boolean[] keep = new boolean[offspring.size()];
+        for (int n = 0; n < kept; n++) {
+            keep[indexes.get(n)] = true;
+        }
+        List<Node> result = new ArrayList<>(kept);
+        for (int i = 0; i < offspring.size(); i++) {
+            if (keep[i]) {
+                result.add(offspring.get(i));
+                pendingTrees.add(offspring.get(i));
+                pendingFeatures.add(features.get(i));
+                pendingPredictions.add(dominators[i]);
+            }
+        }
+        screened += offspring.size();
+        skipped += offspring.size() - kept;
+        return result;
+    }
+
+    private int countDominators(double[] fitness) {
+        int count = 0;
+        for (double[] other : reference) {
+            if (Utils.isAParetoDominateByB(fitness, other)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Learns the real fitness of the pending offspring and updates the rank accuracy.
+     * @param rankings the rankings of the new population, containing the pending offspring
+     */
+    public void learn(List<Ranking> rankings) {
+        Map<Node, double[]> fitnessByTree = new IdentityHashMap<>();
+        for (Ranking ranking : rankings) {
+            fitnessByTree.put(ranking.getTree(), ranking.getFitness());
+        }
+        List<Double> predicted = new ArrayList<>();
+        List<Double> real = new ArrayList<>();
+        for (int i = 0; i < pendingTrees.size(); i++) {
+            double[] fitness = fitnessByTree.get(pendingTrees.get(i));
+            if (fitness == null) {
+                continue;
+            }
+            learn(pendingFeatures.get(i), fitness);
+            if (!pendingPredictions.isEmpty()) {
+                predicted.add(pendingPredictions.get(i));
+                real.add((double) countDominators(fitness));
+            }
+        }
+        if (predicted.size() > 2) {
+            double correlation = Utils.spearmanCorrelation(toArray(predicted), toArray(real));
+            if (!Double.isNaN(correlation)) {
+                accuracy = (accuracyUpdates == 0) ? correlation : ACCURACY_SMOOTHING * accuracy + (1 - ACCURACY_SMOOTHING) * correlation;
+                accuracyUpdates++;
+            }
+        }
+        pendingTrees.clear();
+        pendingFeatures.clear();
+        pendingPredictions.clear();
+    }
+
+    private static double[] toArray(List<Double> values) {
+        double[] array = new double[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    public long getScreened() {
+        return screened;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    @Override
+    public String toString() {
+        return "FitnessSurrogate{" + "screened=" + screened + ", skipped=" + skipped + ", accuracy=" + accuracy
+                + ", fraction=" + getFraction() + ", memory=" + memoryFeatures.size() + '}';
+    }
+}
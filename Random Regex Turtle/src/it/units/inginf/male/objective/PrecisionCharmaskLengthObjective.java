@@ -18,14 +18,13 @@
 package it.units.inginf.male.objective;
 
 import it.units.inginf.male.utils.BasicStats;
+import it.units.inginf.male.evaluators.ProgressiveEvaluator;
 import it.units.inginf.male.evaluators.TreeEvaluationException;
 import it.units.inginf.male.evaluators.TreeEvaluator;
 import it.units.inginf.male.inputs.Context;
 import it.units.inginf.male.inputs.DataSet;
 import it.units.inginf.male.inputs.DataSet.Bounds;
-import it.units.inginf.male.inputs.DataSet.Example;
 import it.units.inginf.male.tree.Node;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Level;
@@ -35,10 +34,12 @@ import java.util.logging.Logger;
  * MultiObjective fitness, char fpr + fnr, ABS(Number_Extractions -
  * Number_Matches)), and regex length: three fitnesses, three objectives {FPR +
  * FNR, ABS(Number_Extractions - Number_Matches)), regexLength}
+ * When raced (see Racing), the lower bounds of the first two objectives grow with the false positives
+ * and the false negatives found in the evaluated examples.
  *
  * @author MaleLabTs
  */
-public class PrecisionCharmaskLengthObjective implements Objective {
+public class PrecisionCharmaskLengthObjective implements RacingObjective {
 
     private Context context;
     
@@ -70,6 +71,61 @@ public class PrecisionCharmaskLengthObjective implements Objective {
             return fitness;
         }
 
+        return fitness(evaluate, dataSetView, fitnessLenght);
+    }
+
+    @Override
+    public double[] fitness(Node individual, Racing racing) {
+        TreeEvaluator evaluator = context.getConfiguration().getEvaluator();
+        if (!(evaluator instanceof ProgressiveEvaluator)) {
+            return fitness(individual);
+        }
+        final DataSet dataSetView = this.context.getCurrentDataSet();
+        StringBuilder builder = new StringBuilder();
+        individual.describe(builder);
+        final double fitnessLenght = builder.length();
+        RacedEvaluation racedEvaluation = new RacedEvaluation(dataSetView, racing, new double[]{0, 0, fitnessLenght}) {
+
+            @Override
+            protected void updateLowerBounds(double[] lowerBounds) {
+                //the examples which are not evaluated yet can only add true positive matches
+                BasicStats bound = new BasicStats();
+                bound.tp = statsOverall.tp + (dataSetView.getNumberMatches() - evaluatedMatches);
+                bound.fp = statsOverall.fp;
+                lowerBounds[0] = 1 - bound.precision();
+                lowerBounds[1] = charErrorsLowerBound();
+            }
+
+            @Override
+            protected double[] conservativeFitness() {
+                return new double[]{Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, fitnessLenght};
+            }
+        };
+        List<List<Bounds>> evaluate;
+        try {
+            evaluate = racedEvaluation.evaluate(individual, context, (ProgressiveEvaluator) evaluator);
+        } catch (TreeEvaluationException ex) {
+            Logger.getLogger(PrecisionCharmaskLengthObjective.class.getName()).log(Level.SEVERE, null, ex);
+            double[] fitness = new double[3];
+            Arrays.fill(fitness, Double.POSITIVE_INFINITY);
+            return fitness;
+        }
+        if (evaluate == null) {
+            return racedEvaluation.conservativeFitness();
+        }
+        double[] fitness;
+        if (racedEvaluation.isComplete()) {
+            //the stats of all the examples have already been accumulated
+            fitness = fitness(racedEvaluation.statsOverall, racedEvaluation.statsCharsOverall, dataSetView, fitnessLenght);
+        } else {
+            fitness = fitness(evaluate, dataSetView, fitnessLenght);
+        }
+        racing.addExact(fitness);
+        return fitness;
+    }
+
+    private double[] fitness(List<List<Bounds>> evaluate, DataSet dataSetView, double fitnessLenght) {
+
         //true positive and false positive matches
 
         //match stats makes sense only for tp e fp values... we cannot use instance statistic formulas other than precision
@@ -80,25 +136,16 @@ public class PrecisionCharmaskLengthObjective implements Objective {
 
         int i = 0;
         for (List<Bounds> result : evaluate) {
-            BasicStats stats = new BasicStats();
-            BasicStats statsChars = new BasicStats();
-            //Characted extracted in the right place (match)
-            Example example = dataSetView.getExample(i);
-            List<Bounds> expectedMatchMask = example.getMatch();
-            List<Bounds> expectedUnmatchMask = example.getUnmatch();
-            List<Bounds> annotatedMask = new ArrayList<>(expectedMatchMask);
-            annotatedMask.addAll(expectedUnmatchMask);
-
-            stats.tp = countIdenticalRanges(result, expectedMatchMask);
-            stats.fp = Bounds.countRangesThatCollideZone(result, annotatedMask) -  stats.tp;
-            statsChars.tp = intersection(result, expectedMatchMask);
-            statsChars.fp = intersection(result, expectedUnmatchMask);
-
-            statsOverall.add(stats);
-            statsCharsOverall.add(statsChars);
+            ExtractionStats.add(dataSetView.getExample(i), result, statsOverall, statsCharsOverall);
             i++;
         }
 
+        return fitness(statsOverall, statsCharsOverall, dataSetView, fitnessLenght);
+    }
+
+    private double[] fitness(BasicStats statsOverall, BasicStats statsCharsOverall, DataSet dataSetView, double fitnessLenght) {
+        double[] fitness = new double[3];
+
         statsCharsOverall.tn = dataSetView.getNumberUnmatchedChars() - statsCharsOverall.fp;
         statsCharsOverall.fn = dataSetView.getNumberMatchedChars() - statsCharsOverall.tp;
 
@@ -109,34 +156,6 @@ public class PrecisionCharmaskLengthObjective implements Objective {
         return fitness;
     }
 
-    //number of chars of this extracted rages which falls into expected ranges
-    private int intersection(List<Bounds> extractedRanges, List<Bounds> expectedRanges) {
-        int overallNumChars = 0;
-         
-        for (Bounds extractedBounds : extractedRanges) {
-            for (Bounds expectedBounds : expectedRanges) {
-                int numChars = Math.min(extractedBounds.end, expectedBounds.end) - Math.max(extractedBounds.start, expectedBounds.start);
-                overallNumChars += Math.max(0, numChars);
-            }
-        }
-        return overallNumChars;
-    }
-
-    //number of idential intervals
-    private int countIdenticalRanges(List<Bounds> rangesA, List<Bounds> rangesB) {
-        int identicalRanges = 0;
-         
-        for (Bounds boundsA : rangesA) {
-            for (Bounds boundsB : rangesB) {
-                if (boundsA.equals(boundsB)) {
-                    identicalRanges++;
-                    break;
-                }
-            }
-        }
-        return identicalRanges;
-    }
-
     @Override
     public TreeEvaluator getTreeEvaluator() {
         return context.getConfiguration().getEvaluator();
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.objective;
+
+import it.units.inginf.male.evaluators.ProgressiveEvaluator;
+import it.units.inginf.male.evaluators.ProgressiveEvaluator.ExampleObserver;
+import it.units.inginf.male.evaluators.TreeEvaluationException;
+import it.units.inginf.male.inputs.Context;
+import it.units.inginf.male.inputs.DataSet;
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.inputs.DataSet.Example;
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.utils.BasicStats;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The progressive evaluation of a raced individual, for the objectives based on the match and the char stats.
+ * The stats of the evaluated examples are accumulated as in the objectives; the examples which are not
+ * evaluated yet can only add true positives and false negatives of their own.
+ * @author MaleLabTs
+ */
+abstract class RacedEvaluation implements ExampleObserver {
+
+    protected final DataSet dataSetView;
+    private final List<Example> examples;
+    protected final Racing racing;
+    //match stats and char stats of the evaluated examples
+    protected final BasicStats statsOverall = new BasicStats();
+    protected final BasicStats statsCharsOverall = new BasicStats();
+    protected long evaluatedMatches = 0;
+    protected long evaluatedMatchedChars = 0;
+    protected int evaluatedExamples = 0;
+    private final double[] lowerBounds;
+
+    /**
+     * @param dataSetView
+     * @param racing
+     * @param fitness the initial lower bounds, the known objectives have their exact values
+     */
+    RacedEvaluation(DataSet dataSetView, Racing racing, double[] fitness) {
+        this.dataSetView = dataSetView;
+        //the examples are accessed by index
+        this.examples = (dataSetView.getExamples() instanceof RandomAccess) ? dataSetView.getExamples() : new ArrayList<>(dataSetView.getExamples());
+        this.racing = racing;
+        this.lowerBounds = fitness;
+    }
+
+    /**
+     * Updates the lower bounds of the objectives from the stats of the evaluated examples.
+     * @param lowerBounds
+     */
+    protected abstract void updateLowerBounds(double[] lowerBounds);
+
+    /**
+     * @return the fitness of a cut off individual: POSITIVE_INFINITY for the bounded objectives
+     */
+    protected abstract double[] conservativeFitness();
+
+    /**
+     * @return a lower bound of (FPR + FNR) * 100 on the chars
+     */
+    protected double charErrorsLowerBound() {
+        BasicStats bound = new BasicStats();
+        bound.fp = statsCharsOverall.fp;
+        bound.tn = dataSetView.getNumberUnmatchedChars() - statsCharsOverall.fp;
+        bound.fn = evaluatedMatchedChars - statsCharsOverall.tp;
+        bound.tp = dataSetView.getNumberMatchedChars() - bound.fn;
+        return (bound.fpr() + bound.fnr()) * 100.0;
+    }
+
+    /**
+     * @return true when all the examples have been evaluated by matching
+     */
+    boolean isComplete() {
+        return evaluatedExamples == dataSetView.getNumberExamples();
+    }
+
+    /**
+     * Evaluates the individual in the order of the racing.
+     * @param individual
+     * @param context
+     * @param evaluator
+     * @return the results of all the examples, or null when the individual has been cut off
+     * @throws TreeEvaluationException
+     */
+    List<List<Bounds>> evaluate(Node individual, Context context, ProgressiveEvaluator evaluator) throws TreeEvaluationException {
+        List<List<Bounds>> results = evaluator.evaluate(individual, context, racing.getOrder(), this);
+        //the cached and the pre-screened results are not raced
+        if (results == null || evaluatedExamples > 0) {
+            racing.recordEvaluation(evaluatedExamples, dataSetView.getNumberExamples(), results == null);
+        }
+        return results;
+    }
+
+    @Override
+    public boolean evaluated(int index, List<Bounds> results) {
+        Example example = examples.get(index);
+        long charsTp = statsCharsOverall.tp;
+        long charsFp = statsCharsOverall.fp;
+        ExtractionStats.add(example, results, statsOverall, statsCharsOverall);
+        evaluatedMatches += example.getNumberMatches();
+        evaluatedMatchedChars += example.getNumberMatchedChars();
+        evaluatedExamples++;
+        racing.recordErrors(index, (statsCharsOverall.fp - charsFp) + (example.getNumberMatchedChars() - (statsCharsOverall.tp - charsTp)));
+        if (!racing.isCheckpoint(evaluatedExamples, dataSetView.getNumberExamples())) {
+            return true;
+        }
+        updateLowerBounds(lowerBounds);
+        return !racing.isDominated(lowerBounds);
+    }
+}
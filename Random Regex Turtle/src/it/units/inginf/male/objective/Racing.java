@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.objective;
+
+import it.units.inginf.male.inputs.DataSet;
+import it.units.inginf.male.utils.Utils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Races the offspring of a generation against the individuals whose fitness is exactly known.
+ * The examples are evaluated hardest first (the hardness of an example is the decayed sum of the char errors
+ * made on it by the raced individuals) and a RacingObjective maintains lower bounds of the fitness; the
+ * evaluation of an individual stops as soon as its lower bounds are Pareto dominated by at least
+ * <code>survivors</code> exact individuals. Those individuals are ranked in earlier fronts, thus an
+ * individual which is cut off cannot survive the truncation of the population to <code>survivors</code> individuals.
+ * The racing is per Job and it is not thread safe.
+ * @author MaleLabTs
+ */
+public class Racing {
+
+    private static final double HARDNESS_DECAY = 0.5;
+    //the dominance of the lower bounds is checked at most CHECKPOINTS times per individual
+    private static final int CHECKPOINTS = 16;
+
+    private final Map<DataSet, double[]> hardness = new WeakHashMap<>();
+    private final List<double[]> exact = new ArrayList<>();
+    private final List<Double> savedFractions = new ArrayList<>();
+    private double[] currentHardness;
+    private int[] order;
+    private int survivors;
+    private long generationScanned;
+    private long generationTotal;
+    private long scanned;
+    private long total;
+    private long raced;
+    private long cut;
+
+    /**
+     * Starts the racing of a new generation on the provided dataset view.
+     * @param view the current dataset view
+     * @param survivors the number of individuals which survive the truncation
+     */
+    public void startGeneration(DataSet view, int survivors) {
+        this.survivors = survivors;
+        this.exact.clear();
+        this.generationScanned = 0;
+        this.generationTotal = 0;
+        int size = view.getNumberExamples();
+        currentHardness = hardness.get(view);
+        if (currentHardness == null || currentHardness.length != size) {
+            currentHardness = new double[size];
+            hardness.put(view, currentHardness);
+        }
+        List<Integer> indexes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            indexes.add(i);
+        }
+        final double[] sortHardness = currentHardness.clone();
+        Collections.sort(indexes, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Double.compare(sortHardness[o2], sortHardness[o1]);
+            }
+        });
+        order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = indexes.get(i);
+            currentHardness[i] *= HARDNESS_DECAY;
+        }
+    }
+
+    /**
+     * Ends the generation and records its fraction of saved example scans.
+     */
+    public void endGeneration() {
+        if (generationTotal > 0) {
+            savedFractions.add(1 - (double) generationScanned / generationTotal);
+        }
+    }
+
+    /**
+     * @return the indexes of the examples, hardest first
+     */
+    public int[] getOrder() {
+        return order;
+    }
+
+    /**
+     * Adds the exact fitness of an individual of the generation, the individual can dominate the raced ones.
+     * @param fitness
+     */
+    public void addExact(double[] fitness) {
+        exact.add(fitness);
+    }
+
+    /**
+     * @param evaluatedExamples
+     * @param totalExamples
+     * @return true when the lower bounds of an individual which has evaluated evaluatedExamples examples are worth a check
+     */
+    public boolean isCheckpoint(int evaluatedExamples, int totalExamples) {
+        return evaluatedExamples < totalExamples && evaluatedExamples % Math.max(1, totalExamples / CHECKPOINTS) == 0;
+    }
+
+    /**
+     * @param lowerBounds the lower bounds of the fitness of a raced individual
+     * @return true when the lower bounds are dominated by at least <code>survivors</code> exact individuals
+     */
+    public boolean isDominated(double[] lowerBounds) {
+        if (exact.size() < survivors) {
+            return false;
+        }
+        int dominators = 0;
+        int remaining = exact.size();
+        for (double[] fitness : exact) {
+            if (Utils.isAParetoDominateByB(lowerBounds, fitness) && ++dominators >= survivors) {
+                return true;
+            }
+            remaining--;
+            if (dominators + remaining < survivors) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param index the index of an example of the current view
+     * @param errors the char errors of a raced individual on the example
+     */
+    public void recordErrors(int index, long errors) {
+        currentHardness[index] += errors;
+    }
+
+    /**
+     * @param scannedExamples the number of examples evaluated by a raced individual
+     * @param totalExamples the number of examples of the view
+     * @param cutOff true when the individual has been cut off
+     */
+    public void recordEvaluation(int scannedExamples, int totalExamples, boolean cutOff) {
+        generationScanned += scannedExamples;
+        generationTotal += totalExamples;
+        scanned += scannedExamples;
+        total += totalExamples;
+        raced++;
+        if (cutOff) {
+            cut++;
+        }
+    }
+
+    /**
+     * @return the fraction of the example scans saved in each generation
+     */
+    public List<Double> getSavedFractions() {
+        return Collections.unmodifiableList(savedFractions);
+    }
+
+    /**
+     * @return the fraction of the example scans saved since the beginning of the Job
+     */
+    public double getSavedFraction() {
+        return total == 0 ? 0 : 1 - (double) scanned / total;
+    }
+
+    public long getRaced() {
+        return raced;
+    }
+
+    public long getCut() {
+        return cut;
+    }
+
+    @Override
+    public String toString() {
+        double min = Double.NaN;
+        double max = Double.NaN;
+        for (double fraction : savedFractions) {
+            min = Double.isNaN(min) ? fraction : Math.min(min, fraction);
+            max = Double.isNaN(max) ? fraction : Math.max(max, fraction);
+        }
+        return "Racing{" + "raced=" + raced + ", cut=" + cut + ", scanned=" + scanned + "/" + total
+                + ", saved=" + Math.round(100 * getSavedFraction()) + "%"
+                + ", savedPerGeneration=" + (savedFractions.isEmpty() ? "n/a" : Math.round(100 * min) + "%.." + Math.round(100 * max) + "%")
+                + " (" + savedFractions.size() + " generations)" + '}';
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.objective;
+
+import it.units.inginf.male.tree.Node;
+
+/**
+ * An objective which can race an individual against the population: the examples are evaluated
+ * progressively (see ProgressiveEvaluator) and the evaluation stops as soon as the lower bounds of the
+ * fitness are dominated, see Racing.
+ * @author MaleLabTs
+ */
+public interface RacingObjective extends Objective {
+
+    /**
+     * Evaluates the individual in the order of the racing, and stops the evaluation when the racing
+     * cuts the individual off. The fitness of a cut off individual is conservative: the objectives
+     * which are still bounded are POSITIVE_INFINITY. The exact fitness of an individual which is not cut off
+     * is added to the racing.
+     * @param individual
+     * @param racing
+     * @return the fitness
+     */
+    double[] fitness(Node individual, Racing racing);
+}
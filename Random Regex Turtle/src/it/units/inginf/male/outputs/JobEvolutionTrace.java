@@ -17,8 +17,12 @@
  */
 package it.units.inginf.male.outputs;
 
+import it.units.inginf.male.evaluators.SlowestEvaluationsRecorder.SlowEvaluation;
+import it.units.inginf.male.inputs.AdaptiveStripingController;
+import it.units.inginf.male.utils.PhaseTimers;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -31,6 +35,12 @@ public class JobEvolutionTrace {
 
     private long executionTimeMillis; 
 
+    private List<AdaptiveStripingController.Decision> stripingDecisions = new LinkedList<>();
+
+    private Map<String, PhaseTimers.PhaseStats> phaseLatencies;
+
+    private List<SlowEvaluation> slowestEvaluations = new LinkedList<>();
+
     
 
     
@@ -51,4 +61,40 @@ public class JobEvolutionTrace {
         this.executionTimeMillis = executionTime;
     }
 
+    /**
+     * The adaptive striping decisions, when the adaptive striping is enabled.
+     * @return
+     */
+    public List<AdaptiveStripingController.Decision> getStripingDecisions() {
+        return stripingDecisions;
+    }
+
+    public void setStripingDecisions(List<AdaptiveStripingController.Decision> stripingDecisions) {
+        this.stripingDecisions = stripingDecisions;
+    }
+
+    /**
+     * The latency percentiles of the Job evolution phases.
+     * @return
+     */
+    public Map<String, PhaseTimers.PhaseStats> getPhaseLatencies() {
+        return phaseLatencies;
+    }
+
+    public void setPhaseLatencies(Map<String, PhaseTimers.PhaseStats> phaseLatencies) {
+        this.phaseLatencies = phaseLatencies;
+    }
+
+    /**
+     * The most expensive evaluations of the Job, the slowest first; empty when the recording is disabled.
+     * @return
+     */
+    public List<SlowEvaluation> getSlowestEvaluations() {
+        return slowestEvaluations;
+    }
+
+    public void setSlowestEvaluations(List<SlowEvaluation> slowestEvaluations) {
+        this.slowestEvaluations = slowestEvaluations;
+    }
+
 }
@@ -19,17 +19,23 @@ package it.units.inginf.male.outputs;
 
 import com.google.gson.Gson;
 import it.units.inginf.male.configuration.Configuration;
+import it.units.inginf.male.evaluators.SlowestEvaluationsRecorder;
+import it.units.inginf.male.evaluators.SlowestEvaluationsRecorder.SlowEvaluation;
+import it.units.inginf.male.inputs.AdaptiveStripingController;
+import it.units.inginf.male.inputs.Context;
 import it.units.inginf.male.inputs.DataSet;
 import it.units.inginf.male.inputs.DataSet.Example;
 import it.units.inginf.male.utils.BasicStats;
-import java.io.BufferedReader;
+import it.units.inginf.male.utils.PhaseTimers;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  *
@@ -64,6 +70,8 @@ public class Results {
     //original dataset examples, these are optional properties
     private List<Example> examples;
     private List<BasicStats> bestExtractionsStats; //bestExtractionsStats stores for all examples tp and fp stats.
+    //names of the sidecar files storing the large arrays, see ResultsJsonWriter
+    private Map<String, String> sidecarFiles;
     
     private long overallExecutionTimeMillis;
     //Learning set stats, useful for Knoledge avaiable computation
@@ -80,6 +88,13 @@ public class Results {
     private int numberTrainingUnmatches;  
     
     private long characterEvaluations = 0;
+    private Map<String, PhaseTimers.PhaseStats> phaseLatencies;
+    transient private PhaseTimers phaseTimers;
+    //phase latencies by Job id
+    private Map<Integer, Map<String, PhaseTimers.PhaseStats>> jobPhaseLatencies;
+    //adaptive striping decisions by Job id
+    private Map<Integer, List<AdaptiveStripingController.Decision>> stripingDecisions;
+    private List<SlowEvaluation> slowestEvaluations;
     transient private Configuration configuration;
     
     //This is set transient only in this developement code in order to not persist Jobs details in serialization.
@@ -265,21 +280,170 @@ public class Results {
     }
     
     
+    /**
+     * The latency percentiles of the evolution phases, aggregated over all the Jobs.
+     * @return
+     */
+    public Map<String, PhaseTimers.PhaseStats> getPhaseLatencies() {
+        return phaseLatencies;
+    }
+
+    public void setPhaseLatencies(Map<String, PhaseTimers.PhaseStats> phaseLatencies) {
+        this.phaseLatencies = phaseLatencies;
+    }
+
+    /**
+     * Adds the phase timers of a completed Job to the aggregated phase latencies.
+     * @param jobPhaseTimers
+     */
+    public synchronized void addPhaseTimers(PhaseTimers jobPhaseTimers) {
+        if (this.phaseTimers == null) {
+            this.phaseTimers = new PhaseTimers();
+        }
+        this.phaseTimers.add(jobPhaseTimers);
+        this.phaseLatencies = this.phaseTimers.summarize();
+    }
+
+    private synchronized void addPhaseTimers(int jobId, PhaseTimers jobPhaseTimers, Map<String, PhaseTimers.PhaseStats> jobLatencies) {
+        this.addPhaseTimers(jobPhaseTimers);
+        if (this.jobPhaseLatencies == null) {
+            this.jobPhaseLatencies = new TreeMap<>();
+        }
+        this.jobPhaseLatencies.put(jobId, jobLatencies);
+    }
+
+    /**
+     * Stores the execution time and the telemetry of a completed Job (adaptive striping decisions, phase latencies
+     * and slowest evaluations) into the Job trace and into the persisted, aggregated, results.
+     * @param jobId
+     * @param executionTime
+     * @param context the Job context
+     */
+    public void addJobTelemetry(int jobId, long executionTime, Context context) {
+        JobEvolutionTrace jobTrace = this.getJobTrace(jobId);
+        jobTrace.setExecutionTime(executionTime);
+        if (context.getStripingController() != null) {
+            jobTrace.getStripingDecisions().addAll(context.getStripingController().getDecisions());
+            this.addStripingDecisions(jobId, jobTrace.getStripingDecisions());
+        }
+        if (context.getPhaseTimers() != null) {
+            jobTrace.setPhaseLatencies(context.getPhaseTimers().summarize());
+            this.addPhaseTimers(jobId, context.getPhaseTimers(), jobTrace.getPhaseLatencies());
+        }
+        SlowestEvaluationsRecorder slowestEvaluations = context.getSlowestEvaluations();
+        if (slowestEvaluations != null) {
+            jobTrace.setSlowestEvaluations(slowestEvaluations.getSlowestEvaluations());
+            this.addSlowestEvaluations(jobTrace.getSlowestEvaluations(), slowestEvaluations.getCapacity());
+        }
+    }
+
+    /**
+     * The latency percentiles of the evolution phases, by Job id.
+     * @return
+     */
+    public Map<Integer, Map<String, PhaseTimers.PhaseStats>> getJobPhaseLatencies() {
+        return jobPhaseLatencies;
+    }
+
+    public void setJobPhaseLatencies(Map<Integer, Map<String, PhaseTimers.PhaseStats>> jobPhaseLatencies) {
+        this.jobPhaseLatencies = jobPhaseLatencies;
+    }
+
+    /**
+     * The adaptive striping decisions of the Jobs, by Job id; null when the adaptive striping is disabled.
+     * @return
+     */
+    public Map<Integer, List<AdaptiveStripingController.Decision>> getStripingDecisions() {
+        return stripingDecisions;
+    }
+
+    public void setStripingDecisions(Map<Integer, List<AdaptiveStripingController.Decision>> stripingDecisions) {
+        this.stripingDecisions = stripingDecisions;
+    }
+
+    /**
+     * Stores the adaptive striping decisions of a completed Job.
+     * @param jobId
+     * @param jobStripingDecisions
+     */
+    public synchronized void addStripingDecisions(int jobId, List<AdaptiveStripingController.Decision> jobStripingDecisions) {
+        if (this.stripingDecisions == null) {
+            this.stripingDecisions = new TreeMap<>();
+        }
+        this.stripingDecisions.put(jobId, new ArrayList<>(jobStripingDecisions));
+    }
+
+    /**
+     * The most expensive evaluations among all the Jobs, the slowest first.
+     * @return
+     */
+    public List<SlowEvaluation> getSlowestEvaluations() {
+        return slowestEvaluations;
+    }
+
+    public void setSlowestEvaluations(List<SlowEvaluation> slowestEvaluations) {
+        this.slowestEvaluations = slowestEvaluations;
+    }
+
+    /**
+     * Merges the slowest evaluations of a completed Job, only the slowest <code>capacity</code> ones are kept.
+     * @param jobSlowestEvaluations
+     * @param capacity
+     */
+    public synchronized void addSlowestEvaluations(List<SlowEvaluation> jobSlowestEvaluations, int capacity) {
+        List<SlowEvaluation> merged = new ArrayList<>(jobSlowestEvaluations);
+        if (this.slowestEvaluations != null) {
+            merged.addAll(this.slowestEvaluations);
+        }
+        Collections.sort(merged, SlowestEvaluationsRecorder.SLOWEST_FIRST);
+        this.slowestEvaluations = new ArrayList<>(merged.subList(0, Math.min(capacity, merged.size())));
+    }
+
+    public Map<String, String> getSidecarFiles() {
+        return sidecarFiles;
+    }
+
+    public void setSidecarFiles(Map<String, String> sidecarFiles) {
+        this.sidecarFiles = sidecarFiles;
+    }
+
+    /**
+     * Loads results written by ResultsJsonWriter (or plain Gson); gzip compressed files and
+     * sidecar files are handled transparently.
+     * @param fileName
+     * @return
+     * @throws IOException
+     */
     public static Results load(String fileName) throws IOException{
-        FileInputStream fis = new FileInputStream(new File(fileName));
-        InputStreamReader isr = new InputStreamReader(fis);
-        StringBuilder sb;
-        try (BufferedReader bufferedReader = new BufferedReader(isr)) {
-            sb = new StringBuilder();
-            String line;
-            while ((line = bufferedReader.readLine()) != null) {
-                sb.append(line);
+        File file = new File(fileName);
+        Gson gson = ResultsJsonWriter.createGson(false);
+        Results results;
+        try (Reader reader = ResultsJsonWriter.openReader(file)) {
+            results = gson.fromJson(reader, Results.class);
+        }
+        if (results != null && results.sidecarFiles != null) {
+            File folder = file.getAbsoluteFile().getParentFile();
+            for (Map.Entry<String, String> sidecar : results.sidecarFiles.entrySet()) {
+                File sidecarFile = new File(folder, sidecar.getValue());
+                switch (sidecar.getKey()) {
+                    case ResultsJsonWriter.EXAMPLES:
+                        results.examples = ResultsJsonWriter.readSidecar(sidecarFile, Example.class, gson);
+                        break;
+                    case ResultsJsonWriter.BEST_EXTRACTIONS:
+                        results.bestExtractions = ResultsJsonWriter.readSidecar(sidecarFile, ResultsJsonWriter.EXTRACTIONS_TYPE, gson);
+                        break;
+                    case ResultsJsonWriter.BEST_EXTRACTIONS_STRINGS:
+                        results.bestExtractionsStrings = ResultsJsonWriter.readSidecar(sidecarFile, ResultsJsonWriter.EXTRACTIONS_STRINGS_TYPE, gson);
+                        break;
+                    case ResultsJsonWriter.BEST_EXTRACTIONS_STATS:
+                        results.bestExtractionsStats = ResultsJsonWriter.readSidecar(sidecarFile, BasicStats.class, gson);
+                        break;
+                    default:
+                        throw new IOException("Unknown sidecar array: " + sidecar.getKey());
+                }
             }
         }
-        String json = sb.toString();
-        Gson gson = new Gson();
-        Results result = gson.fromJson(json, Results.class);
-        return result;
+        return results;
     }
     
 }
@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.outputs;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.inputs.DataSet.Example;
+import it.units.inginf.male.outputs.gson.DoubleTypeAdapter;
+import it.units.inginf.male.outputs.gson.ExampleTypeAdapter;
+import it.units.inginf.male.utils.BasicStats;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes Results objects to JSON files incrementally; the JSON is never built in memory as a whole.
+ * The output can be gzip compressed. The large arrays (examples and best extractions, one element per
+ * learning example) can be written to sidecar files; the names of the sidecar files are stored into the
+ * <code>sidecarFiles</code> Results property and <code>Results.load</code> reads them back.
+ * @author MaleLabTs
+ */
+public class ResultsJsonWriter {
+
+    public static final String GZIP_EXTENSION = ".gz";
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    static final String EXAMPLES = "examples";
+    static final String BEST_EXTRACTIONS = "bestExtractions";
+    static final String BEST_EXTRACTIONS_STRINGS = "bestExtractionsStrings";
+    static final String BEST_EXTRACTIONS_STATS = "bestExtractionsStats";
+    static final Type EXTRACTIONS_TYPE = new TypeToken<List<Bounds>>() {}.getType();
+    static final Type EXTRACTIONS_STRINGS_TYPE = new TypeToken<List<String>>() {}.getType();
+    private static final Set<String> SIDECAR_FIELDS = new HashSet<>(Arrays.asList(EXAMPLES, BEST_EXTRACTIONS, BEST_EXTRACTIONS_STRINGS, BEST_EXTRACTIONS_STATS));
+
+    private final boolean compressed;
+    private final boolean sidecarArrays;
+    private boolean prettyPrinting = true;
+
+    /**
+     * @param compressed when true, the files are gzip compressed and the ".gz" extension is appended to their names
+     * @param sidecarArrays when true, the large arrays are written to sidecar files
+     */
+    public ResultsJsonWriter(boolean compressed, boolean sidecarArrays) {
+        this.compressed = compressed;
+        this.sidecarArrays = sidecarArrays;
+    }
+
+    public boolean isPrettyPrinting() {
+        return prettyPrinting;
+    }
+
+    public void setPrettyPrinting(boolean prettyPrinting) {
+        this.prettyPrinting = prettyPrinting;
+    }
+
+    /**
+     * Writes the results.
+     * @param results
+     * @param pathOfFile the JSON file path, without the compression extension
+     * @return the written main file
+     * @throws IOException
+     */
+    public File write(Results results, String pathOfFile) throws IOException {
+        File mainFile = new File(this.compressed ? pathOfFile + GZIP_EXTENSION : pathOfFile);
+        if (!this.sidecarArrays) {
+            results.setSidecarFiles(null);
+            writeJson(results, createGson(false), mainFile);
+            return mainFile;
+        }
+        String basePath = pathOfFile.endsWith(".json") ? pathOfFile.substring(0, pathOfFile.length() - ".json".length()) : pathOfFile;
+        Gson gson = createGson(false);
+        Map<String, String> sidecarFiles = new LinkedHashMap<>();
+        writeSidecar(EXAMPLES, results.getExamples(), Example.class, basePath, gson, sidecarFiles);
+        writeSidecar(BEST_EXTRACTIONS, results.getBestExtractions(), EXTRACTIONS_TYPE, basePath, gson, sidecarFiles);
+        writeSidecar(BEST_EXTRACTIONS_STRINGS, results.getBestExtractionsStrings(), EXTRACTIONS_STRINGS_TYPE, basePath, gson, sidecarFiles);
+        writeSidecar(BEST_EXTRACTIONS_STATS, results.getBestExtractionsStats(), BasicStats.class, basePath, gson, sidecarFiles);
+        results.setSidecarFiles(sidecarFiles);
+        writeJson(results, createGson(true), mainFile);
+        return mainFile;
+    }
+
+    private void writeJson(Results results, Gson gson, File file) throws IOException {
+        try (JsonWriter jsonWriter = openWriter(file)) {
+            gson.toJson(results, Results.class, jsonWriter);
+        }
+    }
+
+    private void writeSidecar(String name, List<?> list, Type elementType, String basePath, Gson gson, Map<String, String> sidecarFiles) throws IOException {
+        if (list == null) {
+            return;
+        }
+        File file = new File(basePath + "." + name + ".json" + (this.compressed ? GZIP_EXTENSION : ""));
+        try (JsonWriter jsonWriter = openWriter(file)) {
+            jsonWriter.beginArray();
+            for (Object element : list) {
+                gson.toJson(element, elementType, jsonWriter);
+            }
+            jsonWriter.endArray();
+        }
+        //sidecar files are referenced by name, they live in the main file folder
+        sidecarFiles.put(name, file.getName());
+    }
+
+    private JsonWriter openWriter(File file) throws IOException {
+        OutputStream outputStream = new BufferedOutputStream(Channels.newOutputStream(FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)), BUFFER_SIZE);
+        if (this.compressed) {
+            outputStream = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+        }
+        JsonWriter jsonWriter = new JsonWriter(new OutputStreamWriter(outputStream, UTF8));
+        jsonWriter.setHtmlSafe(false);
+        if (this.prettyPrinting) {
+            jsonWriter.setIndent("  ");
+        }
+        return jsonWriter;
+    }
+
+    /**
+     * Creates the Gson instance used for Results serialization.
+     * @param excludeSidecarFields when true, the fields stored into sidecar files are not serialized
+     * @return
+     */
+    static Gson createGson(boolean excludeSidecarFields) {
+        GsonBuilder builder = new GsonBuilder().disableHtmlEscaping().registerTypeAdapter(Double.class, new DoubleTypeAdapter())
+                .registerTypeAdapter(Example.class, new ExampleTypeAdapter());
+        if (excludeSidecarFields) {
+            builder.setExclusionStrategies(new ExclusionStrategy() {
+                @Override
+                public boolean shouldSkipField(FieldAttributes f) {
+                    return f.getDeclaringClass() == Results.class && SIDECAR_FIELDS.contains(f.getName());
+                }
+
+                @Override
+                public boolean shouldSkipClass(Class<?> clazz) {
+                    return false;
+                }
+            });
+        }
+        return builder.create();
+    }
+
+    /**
+     * Opens a results file for reading, gzip compressed files are detected by their header.
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    static Reader openReader(File file) throws IOException {
+        InputStream inputStream = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+        inputStream.mark(2);
+        int magic = inputStream.read() | (inputStream.read() << 8);
+        inputStream.reset();
+        if (magic == GZIPInputStream.GZIP_MAGIC) {
+            inputStream = new GZIPInputStream(inputStream, BUFFER_SIZE);
+        }
+        return new InputStreamReader(inputStream, UTF8);
+    }
+
+    /**
+     * Reads a sidecar array, element by element.
+     * @param file
+     * @param elementType
+     * @param gson
+     * @return
+     * @throws IOException
+     */
+    static <T> List<T> readSidecar(File file, Type elementType, Gson gson) throws IOException {
+        List<T> list = new ArrayList<>();
+        try (JsonReader jsonReader = new JsonReader(openReader(file))) {
+            jsonReader.beginArray();
+            while (jsonReader.hasNext()) {
+                T element = gson.fromJson(jsonReader, elementType);
+                list.add(element);
+            }
+            jsonReader.endArray();
+        }
+        return list;
+    }
+}
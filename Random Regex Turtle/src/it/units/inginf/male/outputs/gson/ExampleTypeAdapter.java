@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste, 
+ * Italy (http://machinelearning.inginf.units.it/)  
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.outputs.gson;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.inputs.DataSet.Example;
+import it.units.inginf.male.inputs.DataSetJsonReader;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * ExampleTypeAdapter is a GSON adapter; it serializes examples through their accessors,
+ * so that examples backed by a compact storage are written like the plain ones.
+ * @author MaleLabTs
+ */
+public class ExampleTypeAdapter extends TypeAdapter<Example> {
+
+    @Override
+    public void write(JsonWriter out, Example value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("string").value(value.getString());
+        out.name("match");
+        writeBounds(out, value.getMatch());
+        out.name("unmatch");
+        writeBounds(out, value.getUnmatch());
+        out.endObject();
+    }
+
+    private void writeBounds(JsonWriter out, List<Bounds> boundsList) throws IOException {
+        out.beginArray();
+        for (Bounds bounds : boundsList) {
+            out.beginObject();
+            out.name("start").value(bounds.start);
+            out.name("end").value(bounds.end);
+            out.endObject();
+        }
+        out.endArray();
+    }
+
+    @Override
+    public Example read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return DataSetJsonReader.readExample(in);
+    }
+
+}
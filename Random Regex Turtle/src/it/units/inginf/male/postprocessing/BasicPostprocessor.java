@@ -117,7 +117,7 @@ public class BasicPostprocessor implements Postprocessor {
             Example example = it.next();
             List<String> extractionsOfExampleStrings = new LinkedList<>();
             for (Bounds bounds : extractionsOfExample) {
-                extractionsOfExampleStrings.add(example.getString().substring(bounds.start,bounds.end));
+                extractionsOfExampleStrings.add(example.getText().subSequence(bounds.start,bounds.end).toString());
             }
             evaluationsStrings.add(extractionsOfExampleStrings);
         }
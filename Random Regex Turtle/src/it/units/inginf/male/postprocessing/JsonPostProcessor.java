@@ -17,16 +17,11 @@
  */
 package it.units.inginf.male.postprocessing;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import it.units.inginf.male.configuration.Configuration;
 import it.units.inginf.male.outputs.Results;
-import it.units.inginf.male.outputs.gson.DoubleTypeAdapter;
+import it.units.inginf.male.outputs.ResultsJsonWriter;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Map;
@@ -36,10 +31,16 @@ import java.util.logging.Logger;
 
 /**
  * extends the BasicPostProcessor but saves the result.json file. 
+ * The file is written incrementally, optional accepted parameters:
+ * "compressResults", Boolean, when true the results file is gzip compressed (results-*.json.gz). Default value: false
+ * "sidecarArrays", Boolean, when true the examples and best extractions arrays are saved into separate files. Default value: false
  * @author MaleLabTs
  */
 public class JsonPostProcessor extends BasicPostprocessor {
 
+    static public final String PARAMETER_NAME_COMPRESS_RESULTS = "compressResults";
+    static public final String PARAMETER_NAME_SIDECAR_ARRAYS = "sidecarArrays";
+
     @Override
     public void setup(Map<String, String> parameters) {
     }
@@ -52,7 +53,18 @@ public class JsonPostProcessor extends BasicPostprocessor {
         SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMddhhmmss");
 	String dateFormatted = sdf.format(new Date());
         String pathOfFile = config.getOutputFolder().getAbsolutePath() + File.separator + "results-"+dateFormatted+".json";
-        saveToJson(results, pathOfFile);
+        Map<String, String> parameters = config.getPostprocessorParameters();
+        boolean compressResults = false;
+        boolean sidecarArrays = false;
+        if (parameters != null) {
+            if (parameters.containsKey(PARAMETER_NAME_COMPRESS_RESULTS)) {
+                compressResults = Boolean.valueOf(parameters.get(PARAMETER_NAME_COMPRESS_RESULTS));
+            }
+            if (parameters.containsKey(PARAMETER_NAME_SIDECAR_ARRAYS)) {
+                sidecarArrays = Boolean.valueOf(parameters.get(PARAMETER_NAME_SIDECAR_ARRAYS));
+            }
+        }
+        saveToJson(results, pathOfFile, compressResults, sidecarArrays);
         
         String time = String.format("%d h, %d m, %d s",
                 TimeUnit.MILLISECONDS.toHours(timeTaken),
@@ -62,23 +74,12 @@ public class JsonPostProcessor extends BasicPostprocessor {
         
     }
 
-    private void saveToJson(Results results, String pathOfFile) {
-        Gson gson = new GsonBuilder().disableHtmlEscaping().setPrettyPrinting().registerTypeAdapter(Double.class, new DoubleTypeAdapter()).create();
-        String json = gson.toJson(results);
-        saveFile(json, pathOfFile);
-
-    }
-
-    private void saveFile(String text, String pathOfFile) {
-        Writer writer;
+    private void saveToJson(Results results, String pathOfFile, boolean compressResults, boolean sidecarArrays) {
         try {
-            writer = new OutputStreamWriter(new FileOutputStream(pathOfFile), "utf-8");
-            writer.write(text);
-            writer.close();
+            new ResultsJsonWriter(compressResults, sidecarArrays).write(results, pathOfFile);
         } catch (IOException ex) {
             Logger.getLogger(JsonPostProcessor.class.getName()).log(Level.SEVERE, "Cannot save:", ex);
         }
-
     }
    
 }
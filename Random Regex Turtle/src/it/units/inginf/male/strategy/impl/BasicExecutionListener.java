@@ -148,7 +148,7 @@ public class BasicExecutionListener implements ExecutionListener, ExecutionListe
         this.status.jobDone++;
 
         JobEvolutionTrace jobTrace = this.results.getJobTrace(jobId);
-        jobTrace.setExecutionTime(executionTime);
+        this.results.addJobTelemetry(jobId, executionTime, strategy.getContext());
         
         /*
          Populate Job final population with FinalSolution(s). The final population has the same order as fitness ranking but contains fitness and performance info
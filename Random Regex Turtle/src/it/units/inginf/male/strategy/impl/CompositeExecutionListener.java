@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.strategy.impl;
+
+import it.units.inginf.male.evaluators.TreeEvaluationException;
+import it.units.inginf.male.objective.Ranking;
+import it.units.inginf.male.strategy.ExecutionListener;
+import it.units.inginf.male.strategy.ExecutionListenerFactory;
+import it.units.inginf.male.strategy.ExecutionStrategy;
+import it.units.inginf.male.strategy.RunStrategy;
+import it.units.inginf.male.tree.Node;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Forwards the execution events to a list of listeners, in the provided order.
+ * As a factory, registers all the factories and returns a composite of their new listeners.
+ * @author MaleLabTs
+ */
+public class CompositeExecutionListener implements ExecutionListener, ExecutionListenerFactory {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<ExecutionListener> listeners;
+    private final List<ExecutionListenerFactory> factories;
+
+    public CompositeExecutionListener(ExecutionListenerFactory... factories) {
+        this.factories = Arrays.asList(factories);
+        this.listeners = new ArrayList<>(factories.length);
+        for (ExecutionListenerFactory factory : factories) {
+            if (factory instanceof ExecutionListener) {
+                this.listeners.add((ExecutionListener) factory);
+            }
+        }
+    }
+
+    private CompositeExecutionListener(List<ExecutionListener> listeners) {
+        this.factories = new ArrayList<>();
+        this.listeners = listeners;
+    }
+
+    @Override
+    public void evolutionStarted(RunStrategy strategy) {
+        for (ExecutionListener listener : listeners) {
+            listener.evolutionStarted(strategy);
+        }
+    }
+
+    @Override
+    public void logGeneration(RunStrategy strategy, int generation, Node best, double[] fitness, List<Ranking> population) {
+        for (ExecutionListener listener : listeners) {
+            listener.logGeneration(strategy, generation, best, fitness, population);
+        }
+    }
+
+    @Override
+    public void evolutionComplete(RunStrategy strategy, int generation, List<Ranking> population) {
+        for (ExecutionListener listener : listeners) {
+            listener.evolutionComplete(strategy, generation, population);
+        }
+    }
+
+    @Override
+    public void evolutionFailed(RunStrategy strategy, TreeEvaluationException cause) {
+        for (ExecutionListener listener : listeners) {
+            listener.evolutionFailed(strategy, cause);
+        }
+    }
+
+    @Override
+    public void evolutionStopped() {
+        for (ExecutionListener listener : listeners) {
+            listener.evolutionStopped();
+        }
+    }
+
+    @Override
+    public void register(ExecutionStrategy strategy) {
+        for (ExecutionListenerFactory factory : factories) {
+            factory.register(strategy);
+        }
+    }
+
+    @Override
+    public ExecutionListener getNewListener() {
+        List<ExecutionListener> newListeners = new ArrayList<>(factories.size());
+        for (ExecutionListenerFactory factory : factories) {
+            ExecutionListener listener = factory.getNewListener();
+            if (listener != null) {
+                newListeners.add(listener);
+            }
+        }
+        return new CompositeExecutionListener(newListeners);
+    }
+}
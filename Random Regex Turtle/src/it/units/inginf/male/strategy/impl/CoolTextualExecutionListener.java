@@ -193,7 +193,7 @@ public class CoolTextualExecutionListener implements ExecutionListener, Executio
             print();
         }
         JobEvolutionTrace jobTrace = this.results.getJobTrace(jobId);
-        jobTrace.setExecutionTime(executionTime);
+        this.results.addJobTelemetry(jobId, executionTime, strategy.getContext());
         /*
          Populate Job final population with FinalSolution(s). The final population has the same order as fitness ranking but can contain fitness and performance info
          The performance are propulated here:
@@ -18,12 +18,18 @@
 package it.units.inginf.male.strategy.impl;
 
 import it.units.inginf.male.configuration.Configuration;
+import it.units.inginf.male.configuration.DatasetContainer;
 import it.units.inginf.male.configuration.EvolutionParameters;
+import it.units.inginf.male.evaluators.SlowestEvaluationsRecorder;
 import it.units.inginf.male.evaluators.TreeEvaluationException;
 import it.units.inginf.male.generations.Generation;
 import it.units.inginf.male.generations.InitialPopulationBuilder;
 import it.units.inginf.male.generations.Ramped;
+import it.units.inginf.male.inputs.AdaptiveStripingController;
 import it.units.inginf.male.inputs.Context;
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.inputs.DynamicSubsetSelector;
+import it.units.inginf.male.objective.BacktrackingPenaltyObjective;
 import it.units.inginf.male.objective.Objective;
 import it.units.inginf.male.objective.Ranking;
 import it.units.inginf.male.selections.Selection;
@@ -32,20 +38,37 @@ import it.units.inginf.male.strategy.ExecutionListener;
 import it.units.inginf.male.strategy.RunStrategy;
 import it.units.inginf.male.tree.Node;
 import it.units.inginf.male.utils.Pair;
+import it.units.inginf.male.utils.PhaseTimers;
+import it.units.inginf.male.utils.PhaseTimers.Phase;
 import it.units.inginf.male.utils.Utils;
+import it.units.inginf.male.variations.BacktrackingRiskPolicy;
+import it.units.inginf.male.variations.BloatControl;
+import it.units.inginf.male.variations.TreeSimplification;
 import it.units.inginf.male.variations.Variation;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Implements the default evolution strategy, termination criteria can be enabled thru parameters.  
  * Optional accepted parameters:
  * "terminationCriteria", Boolean, then True the termination criteria is enabled when false is disabled, Default value: false
  * "terminationCriteriaGenerations", Integer, number of generations for the termination criteria.Default value: 200   
+ * "slowestEvaluations", Integer, number of the slowest evaluations recorded per Job, Default value: 0 (disabled)
+ * "backtrackingRiskPolicy", String, what to do with the individuals whose estimated backtracking is too high: none, reject
+ * (at generation time), possessive (rewrite the backtracking repetitions at generation time), penalty (add an objective). Default value: none
+ * "backtrackingRiskMaxDegree", Integer, maximum polynomial degree of the estimated backtracking, exponential individuals are always risky. Default value: 3
+ * "simplifyOffspring", Boolean, when true the offspring of crossover and mutation are simplified before evaluation. Default value: false
+ * "simplifyElitesInterval", Integer, the elites are simplified (and evaluated again) every simplifyElitesInterval generations. Default value: 0 (disabled)
+ * "bloatControl", String, rejects the offspring which are too large before their evaluation: none, limit (dynamic size limit which grows
+ * only when the best fitness improves), equalisation (operator equalisation of the sizes under the dynamic limit). Default value: none
+ * "bloatControlBinWidth", Integer, width in nodes of the size bins of the operator equalisation. Default value: 5
  * @author MaleLabTs
  */
 public class DefaultStrategy implements RunStrategy {
@@ -62,6 +85,16 @@ public class DefaultStrategy implements RunStrategy {
     protected boolean terminationCriteria = false; //Termination criteria enables/disables the premature termination of thread when best regex/individual doens't change for
                                                    //a speciefied amount of generations (terminationCriteriaGenerations)
     protected int terminationCriteriaGenerations = 200;
+    protected PhaseTimers phaseTimers;
+    protected int slowestEvaluations = 0;
+    protected BacktrackingRiskPolicy.Action backtrackingRiskAction = BacktrackingRiskPolicy.Action.NONE;
+    protected int backtrackingRiskMaxDegree = 3;
+    protected boolean simplifyOffspring = false;
+    protected int simplifyElitesInterval = 0;
+    protected TreeSimplification simplification;
+    protected BloatControl.Mode bloatControlMode = BloatControl.Mode.NONE;
+    protected int bloatControlBinWidth = 5;
+    protected BloatControl bloatControl;
 
     
     
@@ -72,9 +105,35 @@ public class DefaultStrategy implements RunStrategy {
         this.readParameters(configuration);
         
         this.context = new Context(Context.EvaluationPhases.TRAINING, configuration);
+        this.phaseTimers = new PhaseTimers();
+        this.context.setPhaseTimers(this.phaseTimers);
+        if (this.slowestEvaluations > 0) {
+            this.context.setSlowestEvaluations(new SlowestEvaluationsRecorder(configuration.getJobId(), this.slowestEvaluations));
+        }
+        DatasetContainer datasetContainer = configuration.getDatasetContainer();
+        if (datasetContainer.isDynamicSubsetSelection()) {
+            this.context.setDynamicSubsetSelector(new DynamicSubsetSelector(datasetContainer.getDynamicSubsetRatio(),
+                    datasetContainer.getDynamicSubsetDifficultyExponent(), datasetContainer.getDynamicSubsetAgeExponent()));
+        }
+        if (datasetContainer.isAdaptiveStriping() && datasetContainer.isDataSetStriped() && datasetContainer.getProposedNormalDatasetInterval() > 0) {
+            this.context.setStripingController(new AdaptiveStripingController(datasetContainer.getDatasetStripeMarginSize(),
+                    datasetContainer.getProposedNormalDatasetInterval()));
+        }
         this.maxDepth = param.getCreationMaxDepth();
         //cloning the objective 
         this.objective = configuration.getObjective();
+        if (this.backtrackingRiskAction != BacktrackingRiskPolicy.Action.NONE) {
+            this.context.setBacktrackingRiskPolicy(new BacktrackingRiskPolicy(this.backtrackingRiskAction, this.backtrackingRiskMaxDegree));
+            if (this.backtrackingRiskAction == BacktrackingRiskPolicy.Action.PENALTY) {
+                this.objective = new BacktrackingPenaltyObjective(this.objective);
+            }
+        }
+        if (this.simplifyOffspring || this.simplifyElitesInterval > 0) {
+            this.simplification = new TreeSimplification(this.context);
+        }
+        if (this.bloatControlMode != BloatControl.Mode.NONE) {
+            this.bloatControl = new BloatControl(this.bloatControlMode, this.bloatControlBinWidth);
+        }
         this.selection = new Tournament(this.context);
         this.variation = new Variation(this.context);
         this.listener = listener;
@@ -92,6 +151,27 @@ public class DefaultStrategy implements RunStrategy {
             if (parameters.containsKey("terminationCriteria")) {
                 terminationCriteria = Boolean.valueOf(parameters.get("terminationCriteria"));
             }
+            if (parameters.containsKey("slowestEvaluations")) {
+                slowestEvaluations = Integer.valueOf(parameters.get("slowestEvaluations"));
+            }
+            if (parameters.containsKey("backtrackingRiskPolicy")) {
+                backtrackingRiskAction = BacktrackingRiskPolicy.Action.valueOf(parameters.get("backtrackingRiskPolicy").toUpperCase(Locale.ROOT));
+            }
+            if (parameters.containsKey("backtrackingRiskMaxDegree")) {
+                backtrackingRiskMaxDegree = Integer.valueOf(parameters.get("backtrackingRiskMaxDegree"));
+            }
+            if (parameters.containsKey("simplifyOffspring")) {
+                simplifyOffspring = Boolean.valueOf(parameters.get("simplifyOffspring"));
+            }
+            if (parameters.containsKey("simplifyElitesInterval")) {
+                simplifyElitesInterval = Integer.valueOf(parameters.get("simplifyElitesInterval"));
+            }
+            if (parameters.containsKey("bloatControl")) {
+                bloatControlMode = BloatControl.Mode.valueOf(parameters.get("bloatControl").toUpperCase(Locale.ROOT));
+            }
+            if (parameters.containsKey("bloatControlBinWidth")) {
+                bloatControlBinWidth = Integer.valueOf(parameters.get("bloatControlBinWidth"));
+            }
         }
     }
 
@@ -99,30 +179,35 @@ public class DefaultStrategy implements RunStrategy {
     public Void call() throws TreeEvaluationException {
         try {
             int generation;
+            long startTime = System.nanoTime();
             listener.evolutionStarted(this);
+            phaseTimers.record(Phase.LISTENER, startTime);
             InitialPopulationBuilder populationBuilder = context.getConfiguration().getPopulationBuilder();
+            startTime = System.nanoTime();
             this.population = populationBuilder.init();
-            Generation ramped = new Ramped(this.maxDepth, this.context);
-            this.population.addAll(ramped.generate(param.getPopulationSize() - population.size()));
+            phaseTimers.record(Phase.INITIAL_POPULATION, startTime);
+            this.population.addAll(generateRamped(param.getPopulationSize() - population.size()));
             List<Ranking> tmp = buildRankings(population, objective);
-            while (tmp.size() > 0) {
-                List<Ranking> t = Utils.getFirstParetoFront(tmp);
-                tmp.removeAll(t);
-                sortByFirst(t);
-                this.rankings.addAll(t);
-            }
+            sortByParetoFronts(tmp, this.rankings);
+            restartBloatControl();
             //Variables for termination criteria
             String oldGenerationBestValue = null;
             int terminationCriteriaGenerationsCounter = 0;
             int doneGenerations = 0;
             for (generation = 0; generation < param.getGenerations(); generation++) {
-                context.setStripedPhase(context.getDataSetContainer().isDataSetStriped() && ((generation % context.getDataSetContainer().getProposedNormalDatasetInterval()) != 0));
+                updateDatasetPhases(generation);
 
                 evolve();
+                simplifyElites(generation);
+                updateBloatControl();
                 Ranking best = rankings.get(0);
+                updateDynamicSubset(best.getTree());
+                updateStripingController(generation);
                 doneGenerations = generation + 1;
                 if (listener != null) {
+                    startTime = System.nanoTime();
                     listener.logGeneration(this, doneGenerations, best.getTree(), best.getFitness(), this.rankings);
+                    phaseTimers.record(Phase.LISTENER, startTime);
                 }
                 boolean allPerfect = true;
                 for (double fitness : this.rankings.get(0).getFitness()) {
@@ -148,11 +233,13 @@ public class DefaultStrategy implements RunStrategy {
                     oldGenerationBestValue = newBestValue;
                 }
                 
-                if (Thread.interrupted()) {
+                if (Thread.interrupted() || isStopRequested()) {
                     break;
                 }
 
             }
+            closeDynamicSubsetPhase();
+            logJobSummary();
 
             //now generation value is already last generation + 1, no reason to add +1
             if (listener != null) {
@@ -164,6 +251,210 @@ public class DefaultStrategy implements RunStrategy {
         }
     }
 
+    /**
+     * Informs the context about the training dataset views to use in the provided generation.
+     * The striped view and the dynamic subset of examples are replaced by the normal view
+     * every <code>getProposedNormalDatasetInterval</code> generations; when the adaptive striping
+     * is enabled the controller decides the normal generations.
+     * @param generation
+     */
+    protected void updateDatasetPhases(int generation) {
+        DatasetContainer datasetContainer = context.getDataSetContainer();
+        AdaptiveStripingController stripingController = context.getStripingController();
+        boolean normalGeneration;
+        if (stripingController != null) {
+            normalGeneration = stripingController.isNormalGeneration(generation);
+            context.setStripedPhase(!normalGeneration);
+        } else {
+            context.setStripedPhase(datasetContainer.isDataSetStriped() && ((generation % datasetContainer.getProposedNormalDatasetInterval()) != 0));
+            int interval = datasetContainer.getProposedNormalDatasetInterval();
+            normalGeneration = interval <= 0 || (generation % interval) == 0;
+        }
+        DynamicSubsetSelector subsetSelector = context.getDynamicSubsetSelector();
+        if (subsetSelector != null) {
+            boolean subsetPhase = !normalGeneration;
+            //the subset is selected from the current (striped, separate and conquer) training view
+            context.setDynamicSubsetPhase(false);
+            if (subsetPhase) {
+                subsetSelector.select(context.getCurrentDataSet(), context.getRandom());
+            }
+            context.setDynamicSubsetPhase(subsetPhase);
+        }
+    }
+
+    /**
+     * Updates the example difficulties of the dynamic subset selector, using the extractions of the
+     * provided individual on the current training view. The individual has already been evaluated on
+     * this view, the evaluation is usually served by the evaluator cache.
+     * @param best
+     * @throws TreeEvaluationException
+     */
+    protected void updateDynamicSubset(Node best) throws TreeEvaluationException {
+        DynamicSubsetSelector subsetSelector = context.getDynamicSubsetSelector();
+        if (subsetSelector == null) {
+            return;
+        }
+        List<List<Bounds>> extractions = context.getConfiguration().getEvaluator().evaluate(best, context);
+        subsetSelector.updateDifficulty(context.getCurrentDataSet(), extractions);
+    }
+
+    /**
+     * On normal generations, evaluates the current population on the striped view too and lets the
+     * adaptive striping controller compare the two rankings.
+     * @param generation
+     */
+    protected void updateStripingController(int generation) {
+        AdaptiveStripingController stripingController = context.getStripingController();
+        if (stripingController == null || context.isStripedPhase() || context.isDynamicSubsetPhase()) {
+            return;
+        }
+        double[] normalFitness = new double[rankings.size()];
+        double[] stripedFitness = new double[rankings.size()];
+        context.setStripedPhase(true);
+        int i = 0;
+        for (Ranking ranking : rankings) {
+            normalFitness[i] = ranking.getFitness()[0];
+            stripedFitness[i] = objective.fitness(ranking.getTree())[0];
+            i++;
+        }
+        context.setStripedPhase(false);
+        stripingController.observe(generation, normalFitness, stripedFitness);
+    }
+
+    /**
+     * Ends the dynamic subset phase, if any, and ranks the population on the normal training view;
+     * the final rankings are not biased by the last selected subset.
+     */
+    protected void closeDynamicSubsetPhase() {
+        if (!context.isDynamicSubsetPhase()) {
+            return;
+        }
+        context.setDynamicSubsetPhase(false);
+        List<Ranking> tmp = buildRankings(population, objective);
+        rankings.clear();
+        sortByParetoFronts(tmp, rankings);
+    }
+
+    /**
+     * Logs the summaries of the optional per Job features, at the end of the Job.
+     */
+    protected void logJobSummary() {
+        logBacktrackingRiskDecisions();
+        logSimplification();
+        logBloatControl();
+    }
+
+    /**
+     * Logs the decisions of the backtracking risk policy of the Job, if any.
+     */
+    protected void logBacktrackingRiskDecisions() {
+        BacktrackingRiskPolicy policy = context.getBacktrackingRiskPolicy();
+        if (policy == null) {
+            return;
+        }
+        Logger.getLogger(DefaultStrategy.class.getName()).log(Level.INFO, "Job {0}: {1}",
+                new Object[]{context.getConfiguration().getJobId(), policy});
+    }
+
+    /**
+     * Logs the size reduction and the sampled speedup of the simplification of the Job, if any.
+     */
+    protected void logSimplification() {
+        if (simplification == null) {
+            return;
+        }
+        Logger.getLogger(DefaultStrategy.class.getName()).log(Level.INFO, "Job {0}: {1}",
+                new Object[]{context.getConfiguration().getJobId(), simplification});
+    }
+
+    /**
+     * Every simplifyElitesInterval generations, simplifies the elites of the current rankings; the simplified
+     * elites replace the original ones in the population and are evaluated again, their length changes.
+     * @param generation
+     */
+    protected void simplifyElites(int generation) {
+        if (simplification == null || simplifyElitesInterval <= 0 || (generation + 1) % simplifyElitesInterval != 0) {
+            return;
+        }
+        long startTime = System.nanoTime();
+        boolean changed = false;
+        int elites = Math.min(param.getElitarism(), rankings.size());
+        for (int i = 0; i < elites; i++) {
+            Ranking elite = rankings.get(i);
+            Node simplified = simplification.simplify(elite.getTree().cloneTree());
+            Ranking ranking = new Ranking(simplified, objective.fitness(simplified));
+            if (ranking.getDescription().equals(elite.getDescription())) {
+                continue;
+            }
+            for (int index = 0; index < population.size(); index++) {
+                if (population.get(index) == elite.getTree()) {
+                    population.set(index, simplified);
+                    break;
+                }
+            }
+            rankings.set(i, ranking);
+            changed = true;
+        }
+        if (changed) {
+            List<Ranking> tmp = new ArrayList<>(rankings);
+            rankings.clear();
+            sortByParetoFronts(tmp, rankings);
+        }
+        phaseTimers.record(Phase.SIMPLIFICATION, startTime);
+    }
+
+    /**
+     * Logs the decisions and the final size limit of the bloat control of the Job, if any.
+     */
+    protected void logBloatControl() {
+        if (bloatControl == null) {
+            return;
+        }
+        Logger.getLogger(DefaultStrategy.class.getName()).log(Level.INFO, "Job {0}: {1}",
+                new Object[]{context.getConfiguration().getJobId(), bloatControl});
+    }
+
+    /**
+     * Starts the bloat control, if any, from the current rankings of a new population.
+     */
+    protected void restartBloatControl() {
+        if (bloatControl != null) {
+            bloatControl.restart(rankings);
+        }
+    }
+
+    /**
+     * Updates the size limit and the bin capacities of the bloat control, if any, from the current rankings.
+     */
+    protected void updateBloatControl() {
+        if (bloatControl != null) {
+            bloatControl.update(rankings);
+        }
+    }
+
+    /**
+     * @param offspring
+     * @return true when the bloat control, if any, admits the offspring in the new population
+     */
+    protected boolean admit(Node offspring) {
+        return bloatControl == null || bloatControl.admit(offspring);
+    }
+
+    /**
+     * Simplifies an offspring when simplifyOffspring is enabled.
+     * @param offspring
+     * @return
+     */
+    protected Node simplifyOffspring(Node offspring) {
+        if (!simplifyOffspring) {
+            return offspring;
+        }
+        long startTime = System.nanoTime();
+        Node simplified = simplification.simplify(offspring);
+        phaseTimers.record(Phase.SIMPLIFICATION, startTime);
+        return simplified;
+    }
+
     protected void evolve() {
 
         List<Node> newPopulation = new ArrayList<>(population.size());
@@ -191,46 +482,114 @@ public class DefaultStrategy implements RunStrategy {
             double random = context.getRandom().nextDouble();
 
             if (random <= param.getCrossoverProbability() && oldPopSize - newPopulation.size() >= 2) {
-                Node selectedA = selection.select(rankings);
-                Node selectedB = selection.select(rankings);
+                Node selectedA = select();
+                Node selectedB = select();
 
-                Pair<Node, Node> newIndividuals = variation.crossover(selectedA, selectedB);
+                Pair<Node, Node> newIndividuals = crossover(selectedA, selectedB);
                 if (newIndividuals != null) {
-                    newPopulation.add(newIndividuals.getFirst());
-                    newPopulation.add(newIndividuals.getSecond());
+                    if (admit(newIndividuals.getFirst())) {
+                        newPopulation.add(newIndividuals.getFirst());
+                    }
+                    if (admit(newIndividuals.getSecond())) {
+                        newPopulation.add(newIndividuals.getSecond());
+                    }
                 }
             } else if (random <= param.getCrossoverProbability() + param.getMutationPobability()) {
-                Node mutant = selection.select(this.rankings);
-                mutant = variation.mutate(mutant);
-                newPopulation.add(mutant);
+                Node mutant = select();
+                mutant = mutate(mutant);
+                if (admit(mutant)) {
+                    newPopulation.add(mutant);
+                }
 
             } else {
-                Node duplicated = selection.select(rankings);
+                Node duplicated = select();
                 newPopulation.add(duplicated);
             }
         }
 
-        Generation ramped = new Ramped(maxDepth, context);
-        List<Node> generated = ramped.generate(popSize - oldPopSize);
+        List<Node> generated = generateRamped(popSize - oldPopSize);
         newPopulation.addAll(generated);
 
         population = newPopulation;
         List<Ranking> tmp = buildRankings(population, objective);
         rankings.clear();
+        sortByParetoFronts(tmp, rankings);
+    }
+
+    /**
+     * Selects an individual from the current rankings.
+     * @return
+     */
+    protected Node select() {
+        long startTime = System.nanoTime();
+        Node selected = selection.select(rankings);
+        phaseTimers.record(Phase.SELECTION, startTime);
+        return selected;
+    }
+
+    protected Pair<Node, Node> crossover(Node selectedA, Node selectedB) {
+        long startTime = System.nanoTime();
+        Pair<Node, Node> newIndividuals = variation.crossover(selectedA, selectedB);
+        phaseTimers.record(Phase.CROSSOVER, startTime);
+        if (newIndividuals != null && simplifyOffspring) {
+            newIndividuals = new Pair<>(simplifyOffspring(newIndividuals.getFirst()), simplifyOffspring(newIndividuals.getSecond()));
+        }
+        return newIndividuals;
+    }
+
+    protected Node mutate(Node selected) {
+        long startTime = System.nanoTime();
+        Node mutant = variation.mutate(selected);
+        phaseTimers.record(Phase.MUTATION, startTime);
+        return simplifyOffspring(mutant);
+    }
+
+    /**
+     * Generates new random individuals with the Ramped half and half method.
+     * @param size
+     * @return
+     */
+    protected List<Node> generateRamped(int size) {
+        long startTime = System.nanoTime();
+        Generation ramped = new Ramped(maxDepth, context);
+        List<Node> generated = ramped.generate(size);
+        phaseTimers.record(Phase.RAMPED, startTime);
+        return generated;
+    }
+
+    /**
+     * Moves the rankings into the target list, ordered by Pareto front; the individuals of the same front are
+     * ordered by sortByFirst. The rankings list is emptied.
+     * @param tmp
+     * @param target
+     */
+    protected void sortByParetoFronts(List<Ranking> tmp, List<Ranking> target) {
+        long startTime = System.nanoTime();
         while (tmp.size() > 0) {
             List<Ranking> t = Utils.getFirstParetoFront(tmp);
             tmp.removeAll(t);
             sortByFirst(t);
-            rankings.addAll(t);
+            target.addAll(t);
         }
+        phaseTimers.record(Phase.PARETO_SORTING, startTime);
+    }
+
+    /**
+     * Returns true when a graceful stop of the Job has been requested thru its monitor.
+     * @return
+     */
+    protected boolean isStopRequested() {
+        return context.getJobMonitor() != null && context.getJobMonitor().isStopRequested();
     }
 
     protected List<Ranking> buildRankings(List<Node> population, Objective objective) {
+        long startTime = System.nanoTime();
         List<Ranking> result = new ArrayList<>(population.size());
         for (Node tree : population) {
             double fitness[] = objective.fitness(tree);
             result.add(new Ranking(tree, fitness));
         }
+        phaseTimers.record(Phase.BUILD_RANKINGS, startTime);
         return result;
     }
 
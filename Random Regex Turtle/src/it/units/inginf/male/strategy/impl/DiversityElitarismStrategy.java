@@ -18,16 +18,25 @@
 package it.units.inginf.male.strategy.impl;
 
 import it.units.inginf.male.configuration.Configuration;
-import it.units.inginf.male.generations.Generation;
-import it.units.inginf.male.generations.Ramped;
+import it.units.inginf.male.evaluators.TreeEvaluationException;
+import it.units.inginf.male.objective.FitnessSurrogate;
+import it.units.inginf.male.objective.Racing;
+import it.units.inginf.male.objective.RacingObjective;
 import it.units.inginf.male.objective.Ranking;
+import it.units.inginf.male.strategy.ExecutionListener;
 import it.units.inginf.male.tree.Node;
 import it.units.inginf.male.utils.Pair;
+import it.units.inginf.male.utils.PhaseTimers.Phase;
 import it.units.inginf.male.utils.UniqueList;
-import it.units.inginf.male.utils.Utils;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Optional accepted parameters:
@@ -35,11 +44,39 @@ import java.util.Map;
  * "terminationCriteriaGenerations", Integer, number of generations for the termination criteria.Default value: 200  
  * "deepDiversity", Boolean, when false the diversity is imposed only on new generated individuals (then those individuals are merged to the older ones)
  * when true, a new individual is accepted when it is unique thru the current populations and the new generated individuals (more strict condition) 
+ * "racing", Boolean, when true the new individuals are raced against the current population (see Racing): their evaluation stops as soon as
+ * they provably cannot survive the truncation of the population. It requires a RacingObjective. Default value: false
+ * "surrogate", Boolean, when true the offspring are pre-screened by a FitnessSurrogate trained on the real evaluations of the job:
+ * only the best predicted fraction of the offspring is evaluated, the fraction depends on the rank accuracy of the surrogate. Default value: false
+ * "surrogateMinFraction", Double, the fraction of evaluated offspring when the surrogate is perfectly accurate. Default value: 0.6
+ * "surrogateNeighbours", Integer, the number of neighbours used by the surrogate regression. Default value: 5
  * @author MaleLabTs
  */
 public class DiversityElitarismStrategy extends DefaultStrategy{
     
     boolean deepDiversity = false;
+    boolean racingEnabled = false;
+    protected Racing racing;
+    boolean surrogateEnabled = false;
+    double surrogateMinFraction = 0.6;
+    int surrogateNeighbours = 5;
+    protected FitnessSurrogate surrogate;
+
+    @Override
+    public void setup(Configuration configuration, ExecutionListener listener) throws TreeEvaluationException {
+        super.setup(configuration, listener);
+        if (racingEnabled) {
+            if (objective instanceof RacingObjective) {
+                racing = new Racing();
+            } else {
+                Logger.getLogger(DiversityElitarismStrategy.class.getName()).log(Level.WARNING, "Racing disabled, {0} is not a RacingObjective",
+                        objective.getClass().getSimpleName());
+            }
+        }
+        if (surrogateEnabled) {
+            surrogate = new FitnessSurrogate(configuration.getDatasetContainer().getTrainingDataset(), surrogateNeighbours, surrogateMinFraction);
+        }
+    }
     
     @Override
     protected void readParameters(Configuration configuration) {
@@ -50,6 +87,18 @@ public class DiversityElitarismStrategy extends DefaultStrategy{
             if (parameters.containsKey("deepDiversity")) {
                 deepDiversity = Boolean.valueOf(parameters.get("deepDiversity"));
             }
+            if (parameters.containsKey("racing")) {
+                racingEnabled = Boolean.valueOf(parameters.get("racing"));
+            }
+            if (parameters.containsKey("surrogate")) {
+                surrogateEnabled = Boolean.valueOf(parameters.get("surrogate"));
+            }
+            if (parameters.containsKey("surrogateMinFraction")) {
+                surrogateMinFraction = Double.valueOf(parameters.get("surrogateMinFraction"));
+            }
+            if (parameters.containsKey("surrogateNeighbours")) {
+                surrogateNeighbours = Integer.valueOf(parameters.get("surrogateNeighbours"));
+            }
         }
     }
     
@@ -77,45 +126,69 @@ public class DiversityElitarismStrategy extends DefaultStrategy{
 
         
         int stepPopSize = deepDiversity? popSize+oldPopSize : oldPopSize;
+        //the mean fitness of the parents of each offspring, used by the surrogate
+        Map<Node, double[]> parentsFitness = null;
+        Map<Node, double[]> currentFitness = null;
+        if (surrogate != null) {
+            parentsFitness = new IdentityHashMap<>();
+            currentFitness = new IdentityHashMap<>();
+            for (Ranking ranking : rankings) {
+                currentFitness.put(ranking.getTree(), ranking.getFitness());
+            }
+        }
         
         while (newPopulation.size() < stepPopSize) {
 
             double random = context.getRandom().nextDouble();
 
             if (random <= param.getCrossoverProbability() && oldPopSize - newPopulation.size() >= 2) {
-                Node selectedA = selection.select(rankings);
-                Node selectedB = selection.select(rankings);
+                Node selectedA = select();
+                Node selectedB = select();
 
-                Pair<Node, Node> newIndividuals = variation.crossover(selectedA, selectedB);
+                Pair<Node, Node> newIndividuals = crossover(selectedA, selectedB);
                 if (newIndividuals != null) {
-                    newPopulation.add(newIndividuals.getFirst());
-                    newPopulation.add(newIndividuals.getSecond());
+                    if (parentsFitness != null) {
+                        double[] fitness = meanFitness(currentFitness.get(selectedA), currentFitness.get(selectedB));
+                        parentsFitness.put(newIndividuals.getFirst(), fitness);
+                        parentsFitness.put(newIndividuals.getSecond(), fitness);
+                    }
+                    if (admit(newIndividuals.getFirst())) {
+                        newPopulation.add(newIndividuals.getFirst());
+                    }
+                    if (admit(newIndividuals.getSecond())) {
+                        newPopulation.add(newIndividuals.getSecond());
+                    }
                 }
             } else if (random <= param.getCrossoverProbability() + param.getMutationPobability()) {
-                Node mutant = selection.select(this.rankings);
-                mutant = variation.mutate(mutant);
-                newPopulation.add(mutant);
+                Node selected = select();
+                Node mutant = mutate(selected);
+                if (parentsFitness != null) {
+                    parentsFitness.put(mutant, currentFitness.get(selected));
+                }
+                if (admit(mutant)) {
+                    newPopulation.add(mutant);
+                }
             } else {
-                Node duplicated = selection.select(rankings);
+                Node duplicated = select();
                 newPopulation.add(duplicated);
             }
         }
 
-        Generation ramped = new Ramped(maxDepth, context);
-        List<Node> generated = ramped.generate(popSize - oldPopSize);
+        List<Node> generated = generateRamped(popSize - oldPopSize);
         newPopulation.addAll(generated);
         
         if(!deepDiversity){
             newPopulation.addAll(population);
         }
-        List<Ranking> tmp = buildRankings(newPopulation, objective);
-        rankings.clear();
-        while (tmp.size() > 0) {
-            List<Ranking> t = Utils.getFirstParetoFront(tmp);
-            tmp.removeAll(t);
-            sortByFirst(t);
-            rankings.addAll(t);
+        if (surrogate != null) {
+            newPopulation = screenOffspring(newPopulation, parentsFitness, popSize);
+        }
+        List<Ranking> tmp = (racing != null) ? buildRacedRankings(newPopulation, popSize) : buildRankings(newPopulation, objective);
+        if (surrogate != null) {
+            surrogate.learn(tmp);
         }
+        rankings.clear();
+        sortByParetoFronts(tmp, rankings);
         rankings = new ArrayList<>(rankings.subList(0, popSize));
         population.clear();
         //Obtain an ordinated (as Rankings are) population
@@ -124,5 +197,90 @@ public class DiversityElitarismStrategy extends DefaultStrategy{
         }
     }   
 
+    /**
+     * Removes from the new population the offspring which are discarded by the surrogate.
+     * @param newPopulation
+     * @param parentsFitness the mean fitness of the parents of the offspring, the individuals without parents are always kept
+     * @param popSize the screened population must contain at least popSize individuals
+     * @return
+     */
+    protected List<Node> screenOffspring(List<Node> newPopulation, Map<Node, double[]> parentsFitness, int popSize) {
+        List<Node> offspring = new ArrayList<>();
+        List<double[]> features = new ArrayList<>();
+        for (Node tree : newPopulation) {
+            double[] fitness = parentsFitness.get(tree);
+            if (fitness != null) {
+                offspring.add(tree);
+                features.add(surrogate.features(tree, fitness));
+            }
+        }
+        Set<Node> kept = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+        kept.addAll(surrogate.screen(offspring, features, rankings, popSize - (newPopulation.size() - offspring.size())));
+        List<Node> screened = new ArrayList<>(newPopulation.size());
+        for (Node tree : newPopulation) {
+            if (parentsFitness.get(tree) == null || kept.contains(tree)) {
+                screened.add(tree);
+            }
+        }
+        return screened;
+    }
+
+    private static double[] meanFitness(double[] fitnessA, double[] fitnessB) {
+        if (fitnessA == null || fitnessB == null) {
+            return null;
+        }
+        double[] mean = new double[fitnessA.length];
+        for (int i = 0; i < mean.length; i++) {
+            mean[i] = (fitnessA[i] + fitnessB[i]) / 2;
+        }
+        return mean;
+    }
+
+    /**
+     * Builds the rankings of the new population: the individuals of the current population are evaluated
+     * first, then the new individuals are raced against all the exactly evaluated ones. The rankings keep
+     * the order of the new population.
+     * @param newPopulation
+     * @param survivors the number of individuals which survive the truncation
+     * @return
+     */
+    protected List<Ranking> buildRacedRankings(List<Node> newPopulation, int survivors) {
+        long startTime = System.nanoTime();
+        racing.startGeneration(context.getCurrentDataSet(), survivors);
+        Set<Node> current = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+        current.addAll(population);
+        Ranking[] result = new Ranking[newPopulation.size()];
+        for (int i = 0; i < result.length; i++) {
+            Node tree = newPopulation.get(i);
+            if (current.contains(tree)) {
+                result[i] = new Ranking(tree, objective.fitness(tree));
+                racing.addExact(result[i].getFitness());
+            }
+        }
+        RacingObjective racingObjective = (RacingObjective) objective;
+        for (int i = 0; i < result.length; i++) {
+            if (result[i] == null) {
+                Node tree = newPopulation.get(i);
+                result[i] = new Ranking(tree, racingObjective.fitness(tree, racing));
+            }
+        }
+        racing.endGeneration();
+        phaseTimers.record(Phase.BUILD_RANKINGS, startTime);
+        return new ArrayList<>(Arrays.asList(result));
+    }
+
+    @Override
+    protected void logJobSummary() {
+        super.logJobSummary();
+        if (racing != null) {
+            Logger.getLogger(DiversityElitarismStrategy.class.getName()).log(Level.INFO, "Job {0}: {1}",
+                    new Object[]{context.getConfiguration().getJobId(), racing});
+        }
+        if (surrogate != null) {
+            Logger.getLogger(DiversityElitarismStrategy.class.getName()).log(Level.INFO, "Job {0}: {1}",
+                    new Object[]{context.getConfiguration().getJobId(), surrogate});
+        }
+    }
+
      
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.strategy.impl;
+
+import it.units.inginf.male.evaluators.TreeEvaluationException;
+import it.units.inginf.male.management.ExecutionMonitor;
+import it.units.inginf.male.management.JobMonitor;
+import it.units.inginf.male.objective.Ranking;
+import it.units.inginf.male.strategy.ExecutionListener;
+import it.units.inginf.male.strategy.ExecutionListenerFactory;
+import it.units.inginf.male.strategy.ExecutionStrategy;
+import it.units.inginf.male.strategy.RunStrategy;
+import it.units.inginf.male.tree.Node;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Publishes the live telemetry of an execution into the platform MBean server:
+ * one ExecutionMonitor per ExecutionStrategy ("it.units.inginf.male:type=ExecutionStrategy,name=...") and one
+ * JobMonitor per Job ("it.units.inginf.male:type=Job,strategy=...,job=..."). The Job monitors are attached to the
+ * Job Context. The MBeans are unregistered when all the Jobs have finished or the execution is stopped.
+ * @author MaleLabTs
+ */
+public class JmxExecutionListener implements ExecutionListener, ExecutionListenerFactory {
+
+    private static final long serialVersionUID = 1L;
+    public static final String DOMAIN = "it.units.inginf.male";
+    private static final Logger LOG = Logger.getLogger(JmxExecutionListener.class.getName());
+    private static final AtomicInteger EXECUTION_COUNTER = new AtomicInteger();
+
+    private final transient MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    private transient ExecutionMonitor monitor;
+    private String name;
+    private final AtomicInteger finishedJobs = new AtomicInteger();
+
+    @Override
+    public void register(ExecutionStrategy strategy) {
+        this.name = strategy.getClass().getSimpleName() + "-" + EXECUTION_COUNTER.incrementAndGet();
+        this.monitor = new ExecutionMonitor(this.name);
+        registerBean(this.monitor, strategyObjectName());
+    }
+
+    @Override
+    public ExecutionListener getNewListener() {
+        return this;
+    }
+
+    public ExecutionMonitor getMonitor() {
+        return monitor;
+    }
+
+    @Override
+    public void evolutionStarted(RunStrategy strategy) {
+        if (this.monitor == null) {
+            return;
+        }
+        int jobId = strategy.getConfiguration().getJobId();
+        synchronized (this) {
+            if (this.monitor.getJobs() == 0) {
+                this.monitor.setup(strategy.getConfiguration().getJobs(), strategy.getConfiguration().getEvaluator());
+            }
+        }
+        JobMonitor jobMonitor = this.monitor.addJob(jobId);
+        jobMonitor.setSlowestEvaluationsRecorder(strategy.getContext().getSlowestEvaluations());
+        strategy.getContext().setJobMonitor(jobMonitor);
+        registerBean(jobMonitor, jobObjectName(jobId));
+    }
+
+    @Override
+    public void logGeneration(RunStrategy strategy, int generation, Node best, double[] fitness, List<Ranking> population) {
+        JobMonitor jobMonitor = strategy.getContext().getJobMonitor();
+        if (jobMonitor == null) {
+            return;
+        }
+        StringBuilder builder = new StringBuilder();
+        best.describe(builder);
+        jobMonitor.updateGeneration(generation, builder.toString(), fitness);
+    }
+
+    @Override
+    public void evolutionComplete(RunStrategy strategy, int generation, List<Ranking> population) {
+        jobFinished(strategy);
+    }
+
+    @Override
+    public void evolutionFailed(RunStrategy strategy, TreeEvaluationException cause) {
+        jobFinished(strategy);
+    }
+
+    @Override
+    public void evolutionStopped() {
+        unregisterAll();
+    }
+
+    private void jobFinished(RunStrategy strategy) {
+        JobMonitor jobMonitor = strategy.getContext().getJobMonitor();
+        if (jobMonitor != null) {
+            jobMonitor.complete();
+        }
+        if (this.monitor != null && this.finishedJobs.incrementAndGet() >= strategy.getConfiguration().getJobs()) {
+            unregisterAll();
+        }
+    }
+
+    private synchronized void unregisterAll() {
+        if (this.monitor == null) {
+            return;
+        }
+        for (JobMonitor jobMonitor : this.monitor.getJobMonitors()) {
+            unregisterBean(jobObjectName(jobMonitor.getJobId()));
+        }
+        unregisterBean(strategyObjectName());
+    }
+
+    private ObjectName strategyObjectName() {
+        try {
+            return new ObjectName(DOMAIN + ":type=ExecutionStrategy,name=" + ObjectName.quote(this.name));
+        } catch (JMException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private ObjectName jobObjectName(int jobId) {
+        try {
+            return new ObjectName(DOMAIN + ":type=Job,strategy=" + ObjectName.quote(this.name) + ",job=" + jobId);
+        } catch (JMException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private void registerBean(Object bean, ObjectName objectName) {
+        try {
+            this.server.registerMBean(bean, objectName);
+        } catch (JMException ex) {
+            LOG.log(Level.WARNING, "Cannot register MBean " + objectName, ex);
+        }
+    }
+
+    private void unregisterBean(ObjectName objectName) {
+        try {
+            if (this.server.isRegistered(objectName)) {
+                this.server.unregisterMBean(objectName);
+            }
+        } catch (JMException ex) {
+            LOG.log(Level.WARNING, "Cannot unregister MBean " + objectName, ex);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.strategy.impl;
+
+import com.google.gson.stream.JsonWriter;
+import it.units.inginf.male.evaluators.CachedEvaluator;
+import it.units.inginf.male.evaluators.TreeEvaluationException;
+import it.units.inginf.male.evaluators.TreeEvaluator;
+import it.units.inginf.male.objective.Ranking;
+import it.units.inginf.male.strategy.ExecutionListener;
+import it.units.inginf.male.strategy.ExecutionListenerFactory;
+import it.units.inginf.male.strategy.ExecutionStrategy;
+import it.units.inginf.male.strategy.RunStrategy;
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.utils.Utils;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes a per-generation metrics time series, one record per Job generation, in JSONL or CSV format.
+ * Records are pushed by the evolution threads into a bounded lock-free queue and written by a single
+ * background thread; when the queue is full the record is dropped (and counted), the evolution threads
+ * never wait for the writer.
+ * Each record contains: job id, generation, best fitness, population size, diversity (<code>Utils.diversity</code>),
+ * evaluator calls and cache hit ratio (when the evaluator is a CachedEvaluator, the counters are shared by all the Jobs),
+ * wall and CPU time of the generation and the Job elapsed wall time.
+ * The listener closes itself when all the Jobs are complete or the evolution is stopped.
+ * @author MaleLabTs
+ */
+public class MetricsExecutionListener implements ExecutionListener, ExecutionListenerFactory {
+
+    public enum Format {
+
+        JSONL, CSV;
+    }
+
+    private static final long serialVersionUID = 1L;
+    public static final int DEFAULT_QUEUE_CAPACITY = 1 << 16;
+    private static final long WRITER_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final String CSV_HEADER = "jobId,generation,bestFitness,populationSize,diversity,evaluatorCalls,cacheRatio,generationWallMillis,generationCpuMillis,elapsedWallMillis";
+    private final static Logger LOG = Logger.getLogger(MetricsExecutionListener.class.getName());
+
+    private final Format format;
+    private final int queueCapacity;
+    private final transient Queue<GenerationMetrics> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueSize = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicInteger finishedJobs = new AtomicInteger();
+    private final Map<Integer, long[]> jobTimes = new ConcurrentHashMap<>();
+    private final transient ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private final transient Writer writer;
+    private final transient Thread writerThread;
+    private volatile boolean closed = false;
+
+    private static class GenerationMetrics {
+
+        int jobId;
+        int generation;
+        double[] bestFitness;
+        int populationSize;
+        double diversity;
+        long evaluatorCalls;
+        double cacheRatio;
+        double generationWallMillis;
+        double generationCpuMillis;
+        double elapsedWallMillis;
+    }
+
+    public MetricsExecutionListener(File file, Format format) throws IOException {
+        this(file, format, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public MetricsExecutionListener(File file, Format format, int queueCapacity) throws IOException {
+        this.format = format;
+        this.queueCapacity = queueCapacity;
+        this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        if (format == Format.CSV) {
+            this.writer.write(CSV_HEADER);
+            this.writer.write('\n');
+        }
+        this.writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "metrics-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Chooses the format from the file extension: ".csv" files are written in CSV format, the others in JSONL.
+     * @param file
+     * @return
+     */
+    public static Format formatOf(File file) {
+        return file.getName().toLowerCase().endsWith(".csv") ? Format.CSV : Format.JSONL;
+    }
+
+    @Override
+    public void evolutionStarted(RunStrategy strategy) {
+        long now = System.nanoTime();
+        this.jobTimes.put(strategy.getConfiguration().getJobId(), new long[]{now, now, currentThreadCpuTime()});
+    }
+
+    @Override
+    public void logGeneration(RunStrategy strategy, int generation, Node best, double[] fitness, List<Ranking> population) {
+        if (this.closed) {
+            return;
+        }
+        if (this.queueSize.incrementAndGet() > this.queueCapacity) {
+            this.queueSize.decrementAndGet();
+            this.dropped.incrementAndGet();
+            return;
+        }
+        int jobId = strategy.getConfiguration().getJobId();
+        long now = System.nanoTime();
+        long cpuTime = currentThreadCpuTime();
+        long[] times = this.jobTimes.get(jobId);
+        if (times == null) {
+            times = new long[]{now, now, cpuTime};
+            this.jobTimes.put(jobId, times);
+        }
+        GenerationMetrics metrics = new GenerationMetrics();
+        metrics.jobId = jobId;
+        metrics.generation = generation;
+        metrics.bestFitness = fitness.clone();
+        metrics.populationSize = population.size();
+        metrics.diversity = Utils.diversity(population);
+        TreeEvaluator evaluator = strategy.getConfiguration().getEvaluator();
+        if (evaluator instanceof CachedEvaluator) {
+            CachedEvaluator cachedEvaluator = (CachedEvaluator) evaluator;
+            metrics.evaluatorCalls = cachedEvaluator.getHits() + cachedEvaluator.getMisses();
+            metrics.cacheRatio = cachedEvaluator.getRatio();
+        } else {
+            metrics.evaluatorCalls = -1;
+            metrics.cacheRatio = Double.NaN;
+        }
+        metrics.generationWallMillis = (now - times[1]) / 1e6;
+        metrics.generationCpuMillis = (cpuTime < 0 || times[2] < 0) ? Double.NaN : (cpuTime - times[2]) / 1e6;
+        metrics.elapsedWallMillis = (now - times[0]) / 1e6;
+        times[1] = now;
+        times[2] = cpuTime;
+        this.queue.offer(metrics);
+    }
+
+    @Override
+    public void evolutionComplete(RunStrategy strategy, int generation, List<Ranking> population) {
+        jobFinished(strategy);
+    }
+
+    @Override
+    public void evolutionFailed(RunStrategy strategy, TreeEvaluationException cause) {
+        jobFinished(strategy);
+    }
+
+    @Override
+    public void evolutionStopped() {
+        close();
+    }
+
+    @Override
+    public void register(ExecutionStrategy strategy) {
+        //NO OP
+    }
+
+    @Override
+    public ExecutionListener getNewListener() {
+        return this;
+    }
+
+    private void jobFinished(RunStrategy strategy) {
+        this.jobTimes.remove(strategy.getConfiguration().getJobId());
+        if (this.finishedJobs.incrementAndGet() >= strategy.getConfiguration().getJobs()) {
+            close();
+        }
+    }
+
+    /**
+     * Writes the queued records and closes the output file. Records logged after close are ignored.
+     */
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        LockSupport.unpark(this.writerThread);
+        try {
+            this.writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the number of records dropped because the queue was full
+     */
+    public long getDropped() {
+        return this.dropped.get();
+    }
+
+    /**
+     * @return the number of records written
+     */
+    public long getWritten() {
+        return this.written.get();
+    }
+
+    private long currentThreadCpuTime() {
+        return this.threadMXBean.isCurrentThreadCpuTimeSupported() ? this.threadMXBean.getCurrentThreadCpuTime() : -1;
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                GenerationMetrics metrics = this.queue.poll();
+                if (metrics == null) {
+                    if (this.closed) {
+                        break;
+                    }
+                    this.writer.flush();
+                    LockSupport.parkNanos(this, WRITER_IDLE_NANOS);
+                    continue;
+                }
+                this.queueSize.decrementAndGet();
+                if (this.format == Format.CSV) {
+                    writeCsv(metrics);
+                } else {
+                    writeJson(metrics);
+                }
+                this.written.incrementAndGet();
+            }
+        } catch (IOException ex) {
+            LOG.log(Level.SEVERE, "Cannot write metrics", ex);
+        } finally {
+            try {
+                this.writer.close();
+            } catch (IOException ex) {
+                LOG.log(Level.SEVERE, "Cannot close metrics file", ex);
+            }
+            LOG.log(Level.INFO, "Metrics: {0} records written, {1} dropped", new Object[]{this.written.get(), this.dropped.get()});
+        }
+    }
+
+    private void writeJson(GenerationMetrics metrics) throws IOException {
+        JsonWriter jsonWriter = new JsonWriter(this.writer);
+        jsonWriter.beginObject();
+        jsonWriter.name("jobId").value(metrics.jobId);
+        jsonWriter.name("generation").value(metrics.generation);
+        jsonWriter.name("bestFitness").beginArray();
+        for (double fitness : metrics.bestFitness) {
+            jsonValue(jsonWriter, fitness);
+        }
+        jsonWriter.endArray();
+        jsonWriter.name("populationSize").value(metrics.populationSize);
+        jsonWriter.name("diversity");
+        jsonValue(jsonWriter, metrics.diversity);
+        jsonWriter.name("evaluatorCalls").value(metrics.evaluatorCalls);
+        jsonWriter.name("cacheRatio");
+        jsonValue(jsonWriter, metrics.cacheRatio);
+        jsonWriter.name("generationWallMillis");
+        jsonValue(jsonWriter, metrics.generationWallMillis);
+        jsonWriter.name("generationCpuMillis");
+        jsonValue(jsonWriter, metrics.generationCpuMillis);
+        jsonWriter.name("elapsedWallMillis");
+        jsonValue(jsonWriter, metrics.elapsedWallMillis);
+        jsonWriter.endObject();
+        //the JsonWriter is not closed, it would close the shared writer
+        jsonWriter.flush();
+        this.writer.write('\n');
+    }
+
+    //NaN and infinite values are written as strings, like the DoubleTypeAdapter does
+    private static void jsonValue(JsonWriter jsonWriter, double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            jsonWriter.value(Double.toString(value));
+        } else {
+            jsonWriter.value(value);
+        }
+    }
+
+    private void writeCsv(GenerationMetrics metrics) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        builder.append(metrics.jobId).append(',').append(metrics.generation).append(',');
+        //fitness components are separated by ';' in order to keep a fixed number of columns
+        for (int i = 0; i < metrics.bestFitness.length; i++) {
+            if (i > 0) {
+                builder.append(';');
+            }
+            builder.append(metrics.bestFitness[i]);
+        }
+        builder.append(',').append(metrics.populationSize)
+                .append(',').append(metrics.diversity)
+                .append(',').append(metrics.evaluatorCalls)
+                .append(',').append(metrics.cacheRatio)
+                .append(',').append(metrics.generationWallMillis)
+                .append(',').append(metrics.generationCpuMillis)
+                .append(',').append(metrics.elapsedWallMillis)
+                .append('\n');
+        this.writer.write(builder.toString());
+    }
+}
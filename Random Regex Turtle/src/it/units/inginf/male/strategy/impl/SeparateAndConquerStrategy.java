@@ -18,16 +18,20 @@
 package it.units.inginf.male.strategy.impl;
 
 import it.units.inginf.male.configuration.Configuration;
+import it.units.inginf.male.evaluators.AlternationMerger;
+import it.units.inginf.male.evaluators.CachedTreeEvaluator;
+import it.units.inginf.male.evaluators.DefaultTreeEvaluator;
 import it.units.inginf.male.evaluators.TreeEvaluationException;
-import it.units.inginf.male.generations.Generation;
+import it.units.inginf.male.evaluators.TreeEvaluator;
 import it.units.inginf.male.generations.InitialPopulationBuilder;
-import it.units.inginf.male.generations.Ramped;
+import it.units.inginf.male.inputs.DataSet;
+import it.units.inginf.male.inputs.DataSet.Bounds;
 import it.units.inginf.male.objective.Objective;
 import it.units.inginf.male.objective.Ranking;
 import it.units.inginf.male.objective.performance.PerformacesObjective;
 import it.units.inginf.male.tree.Node;
 import it.units.inginf.male.tree.operator.Or;
-import it.units.inginf.male.utils.Utils;
+import it.units.inginf.male.utils.PhaseTimers.Phase;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -36,6 +40,8 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Optional accepted parameters: "terminationCriteria", Boolean, then True the
@@ -46,6 +52,11 @@ import java.util.Map;
  * "isFlagging", boolean, when true the evolution is a flagging problem; default is false (text extraction) 
  * when dividing the dataset. When false the extracted matches are converted to
  * unannotated ranges when dividing the dataset.
+ * "incrementalJoinedFitness", boolean, when true the extractions of the joined solutions (the Or of the bests) are merged
+ * from the cached extractions of the bests and of the current individual (see AlternationMerger), the joined solutions are
+ * really evaluated only on conflicts. It requires a CachedTreeEvaluator. Default value: true
+ * "joinedFitnessVerification", boolean, when true the merged extractions are compared with the extractions of the real
+ * joined solutions and the mismatches are logged. Default value: false
  * @author MaleLabTs
  */
 public class SeparateAndConquerStrategy extends DiversityElitarismStrategy{
@@ -53,6 +64,15 @@ public class SeparateAndConquerStrategy extends DiversityElitarismStrategy{
     private boolean convertToUnmatch = true;
     private boolean isFlagging = false;
     private double dividePrecisionThreashold =1.0;
+    private boolean incrementalJoinedFitness = true;
+    private boolean joinedFitnessVerification = false;
+    //merged extractions of the frozen bests, on frozenView
+    private final List<Node> frozenBests = new ArrayList<>();
+    private DataSet frozenView;
+    private List<List<Bounds>> frozenResults;
+    private long mergedJoins;
+    private long evaluatedJoins;
+    private long verificationMismatches;
     
     @Override
     protected void readParameters(Configuration configuration) {
@@ -68,6 +88,12 @@ public class SeparateAndConquerStrategy extends DiversityElitarismStrategy{
             if (parameters.containsKey("dividePrecisionThreashold")) {
                 dividePrecisionThreashold = Double.valueOf(parameters.get("dividePrecisionThreashold"));
             }
+            if (parameters.containsKey("incrementalJoinedFitness")) {
+                incrementalJoinedFitness = Boolean.valueOf(parameters.get("incrementalJoinedFitness"));
+            }
+            if (parameters.containsKey("joinedFitnessVerification")) {
+                joinedFitnessVerification = Boolean.valueOf(parameters.get("joinedFitnessVerification"));
+            }
 
         }
     }
@@ -78,24 +104,23 @@ public class SeparateAndConquerStrategy extends DiversityElitarismStrategy{
         this.rankings.clear();
 
         InitialPopulationBuilder populationBuilder = context.getConfiguration().getPopulationBuilder();
+        long startTime = System.nanoTime();
         this.population = populationBuilder.init(this.context);
         this.context.getConfiguration().getTerminalSetBuilder().setup(this.context);
-        Generation ramped = new Ramped(this.maxDepth, this.context);
-        this.population.addAll(ramped.generate(targetPopSize - population.size()));
+        phaseTimers.record(Phase.INITIAL_POPULATION, startTime);
+        this.population.addAll(generateRamped(targetPopSize - population.size()));
         List<Ranking> tmp = buildRankings(population, objective);
-        while (tmp.size() > 0) {
-            List<Ranking> t = Utils.getFirstParetoFront(tmp);
-            tmp.removeAll(t);
-            sortByFirst(t);
-            this.rankings.addAll(t);
-        }     
+        sortByParetoFronts(tmp, this.rankings);
+        restartBloatControl();
     }
 
     @Override
     public Void call() throws TreeEvaluationException {
         try {
             int generation;
+            long startTime = System.nanoTime();
             listener.evolutionStarted(this);
+            phaseTimers.record(Phase.LISTENER, startTime);
             initialize();
             List<Node> bests = new LinkedList<>();
             //Variables for termination criteria
@@ -104,10 +129,14 @@ public class SeparateAndConquerStrategy extends DiversityElitarismStrategy{
             context.setSeparateAndConquerEnabled(true);
             
             for (generation = 0; generation < param.getGenerations(); generation++) {
-                context.setStripedPhase(context.getDataSetContainer().isDataSetStriped() && ((generation % context.getDataSetContainer().getProposedNormalDatasetInterval()) != 0));
+                updateDatasetPhases(generation);
 
                 evolve();
+                simplifyElites(generation);
+                updateBloatControl();
                 Ranking best = rankings.get(0);
+                updateDynamicSubset(best.getTree());
+                updateStripingController(generation);
 
                 //computes joined solution and fitenss on ALL training
                 List<Node> tmpBests = new LinkedList<>(bests);
@@ -117,6 +146,7 @@ public class SeparateAndConquerStrategy extends DiversityElitarismStrategy{
                 
                 Node joinedBest = joinSolutions(tmpBests);
                 context.setSeparateAndConquerEnabled(false);
+                mergeJoinedResults(bests, best.getTree(), joinedBest);
                 double[] fitnessOfJoined = objective.fitness(joinedBest);
                 context.setSeparateAndConquerEnabled(true);
                 
@@ -125,7 +155,9 @@ public class SeparateAndConquerStrategy extends DiversityElitarismStrategy{
                     //note: the rankings contains the individuals of the current sub-evolution (on divided training)
                     //logGeneration usually takes into account best and fitness fields for stats and persistence,
                     //rankings is used for size and other minor stats.
+                    startTime = System.nanoTime();
                     listener.logGeneration(this, generation + 1, joinedBest, fitnessOfJoined, this.rankings);
+                    phaseTimers.record(Phase.LISTENER, startTime);
                 }
                 boolean allPerfect = true;
                 for (double fitness : this.rankings.get(0).getFitness()) {
@@ -160,7 +192,9 @@ public class SeparateAndConquerStrategy extends DiversityElitarismStrategy{
                     // remove matched matches
                     StringBuilder builder = new StringBuilder();
                     rankings.get(0).getTree().describe(builder);
-                    context.getTrainingDataset().addSeparateAndConquerLevel(builder.toString(), (int) context.getSeed(), convertToUnmatch, isFlagging);
+                    //the striping controller stripes the reduced dataset itself
+                    context.getTrainingDataset().addSeparateAndConquerLevel(builder.toString(), (int) context.getSeed(), convertToUnmatch, isFlagging,
+                            context.getStripingController() == null);
 
                     // check if matches still exists, when matches are zero, the new level is removed and the evolution exits.
                     if (context.getCurrentDataSet().getNumberMatches() == 0) {
@@ -168,15 +202,18 @@ public class SeparateAndConquerStrategy extends DiversityElitarismStrategy{
                         break;
                     }
                     // re-initialize population
+                    startTime = System.nanoTime();
                     initialize();
+                    phaseTimers.record(Phase.SEPARATE_AND_CONQUER_REINIT, startTime);
                     // continue evolvution
                 }
 
-                if (Thread.interrupted()) {
+                if (Thread.interrupted() || isStopRequested()) {
                     break;
                 }
 
             }
+            closeDynamicSubsetPhase();
 
             if (!bests.contains(rankings.get(0).getTree())) {
                 bests.add(rankings.get(0).getTree());
@@ -184,16 +221,20 @@ public class SeparateAndConquerStrategy extends DiversityElitarismStrategy{
              
              
             //THe bests list insertion code should be refined.
+            logJobSummary();
             if (listener != null) {
                 List<Node> dividedPopulation = new ArrayList<>(population.size());
                 List<Node> tmpBests = new LinkedList<>(bests);
+                List<Node> frozen = new ArrayList<>(bests.subList(0, bests.size() - 1));
+                //We have to evaluate the new solutions on the testing dataset
+                context.setSeparateAndConquerEnabled(false);
                 for (Ranking r : rankings) {
                     tmpBests.set(tmpBests.size() - 1, r.getTree());
-                    dividedPopulation.add(joinSolutions(tmpBests));
+                    Node joined = joinSolutions(tmpBests);
+                    mergeJoinedResults(frozen, r.getTree(), joined);
+                    dividedPopulation.add(joined);
                 }
 
-                //We have to evaluate the new solutions on the testing dataset
-                context.setSeparateAndConquerEnabled(false);
                 List<Ranking> tmp = buildRankings(dividedPopulation, objective);
                 
 
@@ -228,6 +269,95 @@ public class SeparateAndConquerStrategy extends DiversityElitarismStrategy{
         });
     }
 
+    /**
+     * Merges the extractions of a joined solution from the extractions of the frozen bests and of the individual, on
+     * the current dataset view, and stores them into the evaluator cache: the evaluation of the joined solution is then
+     * a cache hit. Nothing is stored when the extractions cannot be merged.
+     * @param frozen the bests of the previous separate and conquer levels
+     * @param individual
+     * @param joined the joined solution of frozen and individual
+     */
+    private void mergeJoinedResults(List<Node> frozen, Node individual, Node joined) {
+        TreeEvaluator evaluator = context.getConfiguration().getEvaluator();
+        if (!incrementalJoinedFitness || frozen.isEmpty() || !(evaluator instanceof CachedTreeEvaluator)) {
+            return;
+        }
+        List<List<Bounds>> merged = null;
+        try {
+            List<List<Bounds>> frozenMerged = getFrozenResults(frozen, evaluator);
+            if (frozenMerged != null && AlternationMerger.isMergeable(individual)) {
+                merged = AlternationMerger.merge(frozenMerged, evaluator.evaluate(individual, context));
+            }
+        } catch (TreeEvaluationException ex) {
+            merged = null;
+        }
+        if (merged == null) {
+            evaluatedJoins++;
+            return;
+        }
+        mergedJoins++;
+        StringBuilder builder = new StringBuilder();
+        joined.describe(builder);
+        if (joinedFitnessVerification) {
+            verifyJoinedResults(builder.toString(), joined, merged);
+        }
+        ((CachedTreeEvaluator) evaluator).putResults(builder.toString(), context.getCurrentDataSet(), merged);
+    }
+
+    /**
+     * @return the merged extractions of the frozen bests on the current dataset view, null when they cannot be merged
+     */
+    private List<List<Bounds>> getFrozenResults(List<Node> frozen, TreeEvaluator evaluator) throws TreeEvaluationException {
+        boolean same = (frozenView == context.getCurrentDataSet()) && frozenBests.size() == frozen.size();
+        for (int i = 0; same && i < frozen.size(); i++) {
+            same = frozenBests.get(i) == frozen.get(i);
+        }
+        if (same) {
+            return frozenResults;
+        }
+        frozenView = context.getCurrentDataSet();
+        frozenBests.clear();
+        frozenBests.addAll(frozen);
+        frozenResults = null;
+        List<List<Bounds>> merged = null;
+        for (Node frozenBest : frozen) {
+            if (!AlternationMerger.isMergeable(frozenBest)) {
+                return null;
+            }
+            List<List<Bounds>> results = evaluator.evaluate(frozenBest, context);
+            merged = (merged == null) ? results : AlternationMerger.merge(merged, results);
+            if (merged == null) {
+                return null;
+            }
+        }
+        frozenResults = merged;
+        return frozenResults;
+    }
+
+    private void verifyJoinedResults(String regex, Node joined, List<List<Bounds>> merged) {
+        try {
+            List<List<Bounds>> real = new DefaultTreeEvaluator().evaluate(joined, context);
+            if (!real.equals(merged)) {
+                verificationMismatches++;
+                Logger.getLogger(SeparateAndConquerStrategy.class.getName()).log(Level.WARNING,
+                        "Merged extractions differ from the extractions of {0}", regex);
+            }
+        } catch (TreeEvaluationException ex) {
+            Logger.getLogger(SeparateAndConquerStrategy.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    @Override
+    protected void logJobSummary() {
+        super.logJobSummary();
+        if (incrementalJoinedFitness && (mergedJoins + evaluatedJoins) > 0) {
+            Logger.getLogger(SeparateAndConquerStrategy.class.getName()).log(Level.INFO,
+                    "Job {0}: joined solutions merged {1}, evaluated {2}, verification mismatches {3}",
+                    new Object[]{context.getConfiguration().getJobId(), mergedJoins, evaluatedJoins,
+                        joinedFitnessVerification ? String.valueOf(verificationMismatches) : "n/a"});
+        }
+    }
+
     private Node joinSolutions(List<Node> bests) {
         Deque<Node> nodes = new LinkedList<>(bests);
         Deque<Node> tmp = new LinkedList<>();
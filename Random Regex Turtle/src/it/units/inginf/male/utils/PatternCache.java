@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Bounded, concurrent cache of compiled Patterns keyed by the regex string. The same regex is evaluated
+ * in several phases (training, striped training, validation, learning) and by the post processor, the
+ * "separate and conquer" reductions and the performance objectives; it is compiled only once.
+ * Regexes which do not compile are cached too, the PatternSyntaxException is thrown again on each request.
+ * <p>
+ * The cache is split in segments, each one is an LRU map with its own lock. Each thread also keeps a few
+ * reusable Matchers for the most recently used Patterns.
+ * @author MaleLabTs
+ */
+public class PatternCache {
+
+    public static final int DEFAULT_CAPACITY = 16384;
+    private static final int SEGMENTS = 16;
+    private static final int MATCHERS_PER_THREAD = 16;
+
+    private static final PatternCache INSTANCE = new PatternCache(DEFAULT_CAPACITY);
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong compileErrors = new AtomicLong();
+    private final LatencyHistogram compileLatency = new LatencyHistogram();
+    private final ThreadLocal<Map<String, Matcher>> matchers = new ThreadLocal<Map<String, Matcher>>() {
+        @Override
+        protected Map<String, Matcher> initialValue() {
+            return new LinkedHashMap<String, Matcher>(MATCHERS_PER_THREAD * 2, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Matcher> eldest) {
+                    return size() > MATCHERS_PER_THREAD;
+                }
+            };
+        }
+    };
+
+    /**
+     * The cache shared by the evaluators, the datasets and the post processors.
+     * @return
+     */
+    public static PatternCache getInstance() {
+        return INSTANCE;
+    }
+
+    public PatternCache(int capacity) {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+        setCapacity(capacity);
+    }
+
+    /**
+     * Changes the maximum number of cached Patterns, the exceeding ones are evicted on the next insertion.
+     * @param capacity
+     */
+    public final void setCapacity(int capacity) {
+        int segmentCapacity = Math.max(1, (capacity + SEGMENTS - 1) / SEGMENTS);
+        for (Segment segment : segments) {
+            segment.capacity = segmentCapacity;
+        }
+    }
+
+    public int getCapacity() {
+        return segments[0].capacity * SEGMENTS;
+    }
+
+    /**
+     * Returns the compiled Pattern, compiling it on a miss.
+     * @param regex
+     * @return
+     * @throws PatternSyntaxException when the regex does not compile
+     */
+    public Pattern getPattern(String regex) {
+        Segment segment = segments[(regex.hashCode() & Integer.MAX_VALUE) % SEGMENTS];
+        Object cached;
+        synchronized (segment) {
+            cached = segment.get(regex);
+        }
+        if (cached == null) {
+            misses.incrementAndGet();
+            //compiled out of the lock, two threads can compile the same regex concurrently
+            long startTime = System.nanoTime();
+            try {
+                cached = Pattern.compile(regex);
+            } catch (PatternSyntaxException ex) {
+                compileErrors.incrementAndGet();
+                cached = new CompileError(ex);
+            }
+            compileLatency.record(System.nanoTime() - startTime);
+            synchronized (segment) {
+                segment.put(regex, cached);
+            }
+        } else {
+            hits.incrementAndGet();
+        }
+        if (cached instanceof CompileError) {
+            CompileError error = (CompileError) cached;
+            throw new PatternSyntaxException(error.description, regex, error.index);
+        }
+        return (Pattern) cached;
+    }
+
+    /**
+     * Returns a Matcher for the regex, owned by the current thread and reset to the empty string.
+     * The Matcher is reused by the next request for the same regex on the same thread: callers must not
+     * keep it after they are done with the current texts.
+     * @param regex
+     * @return
+     * @throws PatternSyntaxException when the regex does not compile
+     */
+    public Matcher getMatcher(String regex) {
+        Map<String, Matcher> threadMatchers = matchers.get();
+        Matcher matcher = threadMatchers.get(regex);
+        if (matcher == null) {
+            matcher = getPattern(regex).matcher("");
+            threadMatchers.put(regex, matcher);
+        } else {
+            hits.incrementAndGet();
+            matcher.reset("");
+        }
+        return matcher;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.get();
+        return (double) hitCount / Math.max(1, hitCount + misses.get());
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getCompileErrors() {
+        return compileErrors.get();
+    }
+
+    /**
+     * The compilation times in nanoseconds, one value per miss.
+     * @return
+     */
+    public LatencyHistogram getCompileLatency() {
+        return compileLatency;
+    }
+
+    public int getSize() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Removes all the cached Patterns, the statistics are kept. The Matchers owned by the threads are
+     * released when they are evicted or their threads end.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    private class Segment extends LinkedHashMap<String, Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        private int capacity;
+
+        Segment() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+            if (size() > capacity) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static class CompileError {
+
+        private final String description;
+        private final int index;
+
+        CompileError(PatternSyntaxException ex) {
+            this.description = ex.getDescription();
+            this.index = ex.getIndex();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.utils;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latency histograms of the evolution phases of a Job. Phases can nest: i.e. the "Separate and conquer"
+ * re-initialization includes the population building, ramped generation and rankings of the new population.
+ * @author MaleLabTs
+ */
+public class PhaseTimers {
+
+    public enum Phase {
+
+        INITIAL_POPULATION, SELECTION, CROSSOVER, MUTATION, RAMPED, BUILD_RANKINGS, PARETO_SORTING, LISTENER, SEPARATE_AND_CONQUER_REINIT, SIMPLIFICATION;
+    }
+
+    /**
+     * Serialized summary of a phase histogram, times are in microseconds.
+     */
+    public static class PhaseStats {
+
+        private long count;
+        private double totalMillis;
+        private double meanMicros;
+        private double p50Micros;
+        private double p90Micros;
+        private double p99Micros;
+        private double maxMicros;
+
+        public PhaseStats(LatencyHistogram histogram) {
+            this.count = histogram.getCount();
+            this.totalMillis = histogram.getSum() / 1e6;
+            this.meanMicros = histogram.getMean() / 1e3;
+            this.p50Micros = histogram.getPercentile(50) / 1e3;
+            this.p90Micros = histogram.getPercentile(90) / 1e3;
+            this.p99Micros = histogram.getPercentile(99) / 1e3;
+            this.maxMicros = histogram.getMax() / 1e3;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getTotalMillis() {
+            return totalMillis;
+        }
+
+        public double getMeanMicros() {
+            return meanMicros;
+        }
+
+        public double getP50Micros() {
+            return p50Micros;
+        }
+
+        public double getP90Micros() {
+            return p90Micros;
+        }
+
+        public double getP99Micros() {
+            return p99Micros;
+        }
+
+        public double getMaxMicros() {
+            return maxMicros;
+        }
+    }
+
+    private final Map<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+
+    public PhaseTimers() {
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Records the time elapsed from startTime.
+     * @param phase
+     * @param startTime the phase start, from System.nanoTime()
+     */
+    public void record(Phase phase, long startTime) {
+        histograms.get(phase).record(System.nanoTime() - startTime);
+    }
+
+    public LatencyHistogram get(Phase phase) {
+        return histograms.get(phase);
+    }
+
+    /**
+     * Adds all the values recorded by the other timers.
+     * @param other
+     */
+    public void add(PhaseTimers other) {
+        for (Phase phase : Phase.values()) {
+            histograms.get(phase).add(other.histograms.get(phase));
+        }
+    }
+
+    /**
+     * Returns the summaries of the recorded phases, phases without records are skipped.
+     * @return phase name to summary map
+     */
+    public Map<String, PhaseStats> summarize() {
+        Map<String, PhaseStats> summary = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = histograms.get(phase);
+            if (histogram.getCount() > 0) {
+                summary.put(phase.name().toLowerCase(), new PhaseStats(histogram));
+            }
+        }
+        return summary;
+    }
+}
@@ -119,6 +119,56 @@ public class Utils {
         return 100 * tmp.size() / (double) population.size();
     }
 
+    /**
+     * Spearman rank correlation between two samples, tied values get the average rank.
+     * @param a
+     * @param b
+     * @return the correlation, NaN when one sample has all equal values
+     */
+    public static double spearmanCorrelation(double[] a, double[] b) {
+        double[] ranksA = ranks(a);
+        double[] ranksB = ranks(b);
+        double meanRank = (a.length + 1) / 2.0;
+        double covariance = 0;
+        double varianceA = 0;
+        double varianceB = 0;
+        for (int i = 0; i < a.length; i++) {
+            double deltaA = ranksA[i] - meanRank;
+            double deltaB = ranksB[i] - meanRank;
+            covariance += deltaA * deltaB;
+            varianceA += deltaA * deltaA;
+            varianceB += deltaB * deltaB;
+        }
+        return covariance / Math.sqrt(varianceA * varianceB);
+    }
+
+    private static double[] ranks(final double[] values) {
+        Integer[] order = new Integer[values.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new java.util.Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Double.compare(values[o1], values[o2]);
+            }
+        });
+        double[] ranks = new double[values.length];
+        int i = 0;
+        while (i < order.length) {
+            int j = i;
+            while (j + 1 < order.length && values[order[j + 1]] == values[order[i]]) {
+                j++;
+            }
+            double rank = (i + j) / 2.0 + 1;
+            for (int k = i; k <= j; k++) {
+                ranks[order[k]] = rank;
+            }
+            i = j + 1;
+        }
+        return ranks;
+    }
+
     //remove empty extractions 
     public static void removeEmptyExtractions(List<DataSet.Bounds> extractions) {
         for (Iterator<Bounds> it = extractions.iterator(); it.hasNext();) {
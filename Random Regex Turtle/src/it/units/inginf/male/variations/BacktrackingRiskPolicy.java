@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.variations;
+
+import it.units.inginf.male.tree.Constant;
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.tree.analysis.BacktrackingRisk;
+import it.units.inginf.male.tree.analysis.BacktrackingRiskAnalyzer;
+import it.units.inginf.male.tree.analysis.RegexAnalyzer;
+import it.units.inginf.male.tree.operator.Concatenator;
+import it.units.inginf.male.tree.operator.Group;
+import it.units.inginf.male.tree.operator.ListMatch;
+import it.units.inginf.male.tree.operator.ListNotMatch;
+import it.units.inginf.male.tree.operator.MatchMinMax;
+import it.units.inginf.male.tree.operator.MatchMinMaxGreedy;
+import it.units.inginf.male.tree.operator.MatchOneOrMore;
+import it.units.inginf.male.tree.operator.MatchOneOrMoreGreedy;
+import it.units.inginf.male.tree.operator.MatchZeroOrMore;
+import it.units.inginf.male.tree.operator.MatchZeroOrMoreGreedy;
+import it.units.inginf.male.tree.operator.MatchZeroOrOne;
+import it.units.inginf.male.tree.operator.MatchZeroOrOneGreedy;
+import it.units.inginf.male.tree.operator.NonCapturingGroup;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides what to do with the individuals whose estimated backtracking (see BacktrackingRiskAnalyzer) is
+ * exponential or exceeds the maximum degree. The policy is per Job and counts its decisions.
+ * <ul>
+ * <li>REJECT: Growth, Full and Variation discard the risky individuals, as they do with the invalid ones</li>
+ * <li>POSSESSIVE: Growth, Full and Variation rewrite the backtracking repetitions of the risky individuals into
+ * their possessive forms</li>
+ * <li>PENALTY: the BacktrackingPenaltyObjective adds the excess degree as an objective to minimize</li>
+ * </ul>
+ * @author MaleLabTs
+ */
+public class BacktrackingRiskPolicy {
+
+    public enum Action {
+
+        NONE,
+        REJECT,
+        POSSESSIVE,
+        PENALTY
+    }
+
+    /**
+     * The penalty of exponential individuals, higher than any excess degree.
+     */
+    public static final double EXPONENTIAL_PENALTY = BacktrackingRisk.MAX_DEGREE + 1;
+
+    private final Action action;
+    private final int maxDegree;
+    private final AtomicLong assessed = new AtomicLong();
+    private final AtomicLong risky = new AtomicLong();
+    private final AtomicLong exponential = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong rewritten = new AtomicLong();
+    private final AtomicLong penalized = new AtomicLong();
+
+    public BacktrackingRiskPolicy(Action action, int maxDegree) {
+        this.action = action;
+        this.maxDegree = maxDegree;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public int getMaxDegree() {
+        return maxDegree;
+    }
+
+    private BacktrackingRisk assess(Node individual) {
+        BacktrackingRisk risk = BacktrackingRiskAnalyzer.analyze(individual);
+        assessed.incrementAndGet();
+        if (risk.isRisky(maxDegree)) {
+            risky.incrementAndGet();
+            if (risk.isExponential()) {
+                exponential.incrementAndGet();
+            }
+        }
+        return risk;
+    }
+
+    /**
+     * Applies the generation time actions to a valid individual; the individual may be rewritten in place.
+     * @param individual
+     * @return the individual to use, or null when the individual is rejected
+     */
+    public Node admit(Node individual) {
+        if (action != Action.REJECT && action != Action.POSSESSIVE) {
+            return individual;
+        }
+        if (!assess(individual).isRisky(maxDegree)) {
+            return individual;
+        }
+        if (action == Action.REJECT) {
+            rejected.incrementAndGet();
+            return null;
+        }
+        rewritten.incrementAndGet();
+        return toPossessive(individual);
+    }
+
+    /**
+     * @param individual
+     * @return the penalty of the individual: 0 when it is not risky, the excess degree or EXPONENTIAL_PENALTY otherwise
+     */
+    public double penalty(Node individual) {
+        BacktrackingRisk risk = assess(individual);
+        if (!risk.isRisky(maxDegree)) {
+            return 0;
+        }
+        penalized.incrementAndGet();
+        return risk.isExponential() ? EXPONENTIAL_PENALTY : risk.getDegree() - maxDegree;
+    }
+
+    /**
+     * Replaces the backtracking repetitions of the subtree with the possessive ones.
+     * The greedy repetitions bind to the last atom of their child (ab+) while the possessive ones group it
+     * ((?:ab)++): a literal child is split into a plain prefix followed by the possessive repetition of its
+     * last atom, the repetitions of other compound children are left greedy.
+     * @param node
+     * @return the rewritten subtree, which replaces node in its parent
+     */
+    private static Node toPossessive(Node node) {
+        List<Node> childrens = node.getChildrens();
+        for (int i = 0; i < childrens.size(); i++) {
+            Node child = childrens.get(i);
+            Node rewrittenChild = toPossessive(child);
+            if (rewrittenChild != child) {
+                rewrittenChild.setParent(node);
+                childrens.set(i, rewrittenChild);
+            }
+        }
+        Node possessive;
+        if (node instanceof MatchOneOrMoreGreedy) {
+            possessive = new MatchOneOrMore();
+        } else if (node instanceof MatchZeroOrMoreGreedy) {
+            possessive = new MatchZeroOrMore();
+        } else if (node instanceof MatchZeroOrOneGreedy) {
+            possessive = new MatchZeroOrOne();
+        } else if (node instanceof MatchMinMaxGreedy) {
+            possessive = new MatchMinMax();
+        } else {
+            return node;
+        }
+        Node repeated = childrens.get(0);
+        Node prefix = null;
+        if (repeated instanceof Constant) {
+            StringBuilder builder = new StringBuilder();
+            repeated.describe(builder);
+            String literal = builder.toString();
+            int lastAtom = RegexAnalyzer.lastAtomStart(literal);
+            if (lastAtom < 0) {
+                return node;
+            }
+            if (lastAtom > 0) {
+                prefix = new Constant(literal.substring(0, lastAtom));
+                repeated = new Constant(literal.substring(lastAtom));
+            }
+        } else if (!(repeated instanceof Group || repeated instanceof NonCapturingGroup
+                || repeated instanceof ListMatch || repeated instanceof ListNotMatch)) {
+            return node;
+        }
+        possessive.getChildrens().add(repeated);
+        repeated.setParent(possessive);
+        for (Node child : childrens.subList(1, childrens.size())) {
+            child.setParent(possessive);
+            possessive.getChildrens().add(child);
+        }
+        if (prefix == null) {
+            possessive.setParent(node.getParent());
+            return possessive;
+        }
+        Node concatenator = new Concatenator();
+        concatenator.getChildrens().add(prefix);
+        prefix.setParent(concatenator);
+        concatenator.getChildrens().add(possessive);
+        possessive.setParent(concatenator);
+        concatenator.setParent(node.getParent());
+        return concatenator;
+    }
+
+    public long getAssessed() {
+        return assessed.get();
+    }
+
+    public long getRisky() {
+        return risky.get();
+    }
+
+    public long getExponential() {
+        return exponential.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getRewritten() {
+        return rewritten.get();
+    }
+
+    public long getPenalized() {
+        return penalized.get();
+    }
+
+    @Override
+    public String toString() {
+        return "BacktrackingRiskPolicy{" + "action=" + action + ", maxDegree=" + maxDegree + ", assessed=" + assessed
+                + ", risky=" + risky + ", exponential=" + exponential + ", rejected=" + rejected
+                + ", rewritten=" + rewritten + ", penalized=" + penalized + '}';
+    }
+}
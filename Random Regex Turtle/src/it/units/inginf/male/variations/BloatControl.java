@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.variations;
+
+import it.units.inginf.male.objective.Ranking;
+import it.units.inginf.male.tree.Node;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds the growth of the individuals of a Job; the offspring are admitted or rejected before their evaluation.
+ * The size of an individual is its number of nodes.
+ * <ul>
+ * <li>LIMIT: dynamic size limit, the offspring larger than the limit are rejected. The limit starts from the largest
+ * individual of the initial population and only grows when the best fitness improves, up to the size of the new best</li>
+ * <li>EQUALISATION: operator equalisation over the dynamic limit. The sizes are grouped in bins of binWidth nodes,
+ * the capacity of each bin is proportional to the mean quality of its individuals in the last population;
+ * the offspring of a full bin are rejected. The quality of an individual depends on its position in the rankings,
+ * the fitness values of the objectives do not share a scale</li>
+ * </ul>
+ * The generation steps keep rejecting until an offspring is admitted; in order to always complete a generation
+ * the offspring are admitted anyway after MAX_CONSECUTIVE_REJECTIONS rejections. The bins reject at most as many
+ * offspring as the population size in a generation, the variations cannot always reach the sizes of the full
+ * capacities.
+ * The control is per Job and it is not thread safe.
+ * @author MaleLabTs
+ */
+public class BloatControl {
+
+    public enum Mode {
+
+        NONE,
+        LIMIT,
+        EQUALISATION
+    }
+
+    public static final int MAX_CONSECUTIVE_REJECTIONS = 20;
+
+    private final Mode mode;
+    private final int binWidth;
+    private int limit;
+    private double bestFitness;
+    private int[] capacities = new int[0];
+    private int[] counts = new int[0];
+    private int consecutiveRejections = 0;
+    private int binRejections = 0;
+    private int maxBinRejections = 0;
+    private double initialMeanSize = Double.NaN;
+    private double meanSize = Double.NaN;
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong forced = new AtomicLong();
+    private final AtomicLong limitIncreases = new AtomicLong();
+
+    public BloatControl(Mode mode, int binWidth) {
+        this.mode = mode;
+        this.binWidth = Math.max(1, binWidth);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Starts the control from a new population (i.e. the initial one, or the population of a new separate and
+     * conquer level): the limit is set to the largest individual and the best fitness is forgotten.
+     * @param rankings the population, sorted
+     */
+    public void restart(List<Ranking> rankings) {
+        limit = 1;
+        for (Ranking ranking : rankings) {
+            limit = Math.max(limit, size(ranking.getTree()));
+        }
+        bestFitness = rankings.isEmpty() ? Double.POSITIVE_INFINITY : rankings.get(0).getFitness()[0];
+        if (Double.isNaN(initialMeanSize)) {
+            initialMeanSize = meanSize(rankings);
+        }
+        update(rankings);
+    }
+
+    /**
+     * Updates the limit and the bin capacities after the evaluation of a generation.
+     * @param rankings the population, sorted
+     */
+    public void update(List<Ranking> rankings) {
+        meanSize = meanSize(rankings);
+        consecutiveRejections = 0;
+        binRejections = 0;
+        maxBinRejections = rankings.size();
+        if (rankings.isEmpty()) {
+            return;
+        }
+        Ranking best = rankings.get(0);
+        if (best.getFitness()[0] < bestFitness) {
+            bestFitness = best.getFitness()[0];
+            int bestSize = size(best.getTree());
+            if (bestSize > limit) {
+                limit = bestSize;
+                limitIncreases.incrementAndGet();
+            }
+        }
+        if (mode != Mode.EQUALISATION) {
+            return;
+        }
+        int bins = bin(limit) + 1;
+        double[] qualities = new double[bins];
+        int[] individuals = new int[bins];
+        int position = 0;
+        for (Ranking ranking : rankings) {
+            int size = size(ranking.getTree());
+            if (size <= limit) {
+                qualities[bin(size)] += (double) (rankings.size() - position) / rankings.size();
+                individuals[bin(size)]++;
+            }
+            position++;
+        }
+        double totalQuality = 0;
+        for (int i = 0; i < bins; i++) {
+            if (individuals[i] > 0) {
+                qualities[i] /= individuals[i];
+                totalQuality += qualities[i];
+            }
+        }
+        capacities = new int[bins];
+        counts = new int[bins];
+        for (int i = 0; i < bins; i++) {
+            //the empty bins keep a minimum capacity, the distribution can move
+            int capacity = totalQuality == 0 ? 0 : (int) Math.round(rankings.size() * qualities[i] / totalQuality);
+            capacities[i] = Math.max(1, capacity);
+        }
+    }
+
+    /**
+     * @param offspring
+     * @return true when the offspring can be evaluated and added to the new population
+     */
+    public boolean admit(Node offspring) {
+        if (mode == Mode.NONE) {
+            return true;
+        }
+        int size = size(offspring);
+        boolean admit = size <= limit;
+        if (admit && mode == Mode.EQUALISATION && binRejections < maxBinRejections && counts[bin(size)] >= capacities[bin(size)]) {
+            binRejections++;
+            admit = false;
+        }
+        if (!admit && ++consecutiveRejections <= MAX_CONSECUTIVE_REJECTIONS) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        if (!admit) {
+            forced.incrementAndGet();
+        }
+        consecutiveRejections = 0;
+        if (mode == Mode.EQUALISATION && size <= limit) {
+            counts[bin(size)]++;
+        }
+        admitted.incrementAndGet();
+        return true;
+    }
+
+    private int bin(int size) {
+        return (size - 1) / binWidth;
+    }
+
+    private static double meanSize(List<Ranking> rankings) {
+        if (rankings.isEmpty()) {
+            return Double.NaN;
+        }
+        long total = 0;
+        for (Ranking ranking : rankings) {
+            total += size(ranking.getTree());
+        }
+        return (double) total / rankings.size();
+    }
+
+    private static int size(Node node) {
+        int size = 1;
+        for (Node child : node.getChildrens()) {
+            size += size(child);
+        }
+        return size;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public long getAdmitted() {
+        return admitted.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getForced() {
+        return forced.get();
+    }
+
+    @Override
+    public String toString() {
+        return "BloatControl{" + "mode=" + mode + ", limit=" + limit + ", limitIncreases=" + limitIncreases
+                + ", admitted=" + admitted + ", rejected=" + rejected + ", forced=" + forced
+                + ", meanSize=" + Math.round(initialMeanSize) + "->" + Math.round(meanSize)
+                + (mode == Mode.EQUALISATION ? ", capacities=" + Arrays.toString(capacities) : "") + '}';
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.variations;
+
+import it.units.inginf.male.inputs.Context;
+import it.units.inginf.male.inputs.DataSet;
+import it.units.inginf.male.inputs.DataSet.Example;
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.tree.simplification.TreeSimplifier;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Simplifies the individuals of a Job with a TreeSimplifier and reports the size reduction.
+ * The speedup is measured on a sample of the simplified individuals: the original and the simplified
+ * regexes are compiled and matched against the current dataset view, and their times are compared.
+ * @author MaleLabTs
+ */
+public class TreeSimplification {
+
+    private static final int SPEEDUP_SAMPLING_INTERVAL = 32;
+
+    private final Context context;
+    private final TreeSimplifier simplifier = new TreeSimplifier();
+    private final AtomicLong charsBefore = new AtomicLong();
+    private final AtomicLong charsAfter = new AtomicLong();
+    private final AtomicLong changed = new AtomicLong();
+    private final AtomicLong samples = new AtomicLong();
+    private final AtomicLong originalNanos = new AtomicLong();
+    private final AtomicLong simplifiedNanos = new AtomicLong();
+
+    public TreeSimplification(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Simplifies the individual, in place.
+     * @param individual
+     * @return the simplified individual
+     */
+    public Node simplify(Node individual) {
+        String original = describe(individual);
+        Node simplified = simplifier.simplify(individual);
+        String description = describe(simplified);
+        charsBefore.addAndGet(original.length());
+        charsAfter.addAndGet(description.length());
+        if (!original.equals(description) && changed.incrementAndGet() % SPEEDUP_SAMPLING_INTERVAL == 0) {
+            sampleSpeedup(original, description);
+        }
+        return simplified;
+    }
+
+    private void sampleSpeedup(String original, String simplified) {
+        DataSet dataSet = context.getCurrentDataSet();
+        try {
+            //the order alternates, the first regex of a sample would pay for the cold caches
+            long originalTime;
+            long simplifiedTime;
+            if (samples.get() % 2 == 0) {
+                originalTime = matchTime(original, dataSet);
+                simplifiedTime = matchTime(simplified, dataSet);
+            } else {
+                simplifiedTime = matchTime(simplified, dataSet);
+                originalTime = matchTime(original, dataSet);
+            }
+            originalNanos.addAndGet(originalTime);
+            simplifiedNanos.addAndGet(simplifiedTime);
+            samples.incrementAndGet();
+        } catch (PatternSyntaxException | StackOverflowError ex) {
+            //not sampled, the evaluator reports the errors
+        }
+    }
+
+    private static long matchTime(String regex, DataSet dataSet) {
+        long startTime = System.nanoTime();
+        Matcher matcher = Pattern.compile(regex).matcher("");
+        for (Example example : dataSet.getExamples()) {
+            matcher.reset(example.getText());
+            while (matcher.find()) {
+            }
+        }
+        return System.nanoTime() - startTime;
+    }
+
+    private static String describe(Node node) {
+        StringBuilder builder = new StringBuilder();
+        node.describe(builder);
+        return builder.toString();
+    }
+
+    public TreeSimplifier getSimplifier() {
+        return simplifier;
+    }
+
+    /**
+     * @return the ratio between the original and the simplified compile and match times, on the sampled individuals
+     */
+    public double getSampledSpeedup() {
+        long simplified = simplifiedNanos.get();
+        return simplified == 0 ? Double.NaN : (double) originalNanos.get() / simplified;
+    }
+
+    @Override
+    public String toString() {
+        long nodesBefore = simplifier.getNodesBefore();
+        long before = charsBefore.get();
+        return "TreeSimplification{" + "trees=" + simplifier.getTrees() + ", changed=" + changed
+                + ", nodes=" + nodesBefore + "->" + simplifier.getNodesAfter()
+                + " (-" + (nodesBefore == 0 ? 0 : Math.round(100.0 * (nodesBefore - simplifier.getNodesAfter()) / nodesBefore)) + "%)"
+                + ", chars=" + before + "->" + charsAfter + " (-" + (before == 0 ? 0 : Math.round(100.0 * (before - charsAfter.get()) / before)) + "%)"
+                + ", sampledSpeedup=" + String.format(Locale.ROOT, "%.2f", getSampledSpeedup()) + " (" + samples + " samples)"
+                + ", applications=" + simplifier.getApplications() + '}';
+    }
+}
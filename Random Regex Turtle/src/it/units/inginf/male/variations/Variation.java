@@ -84,8 +84,12 @@ public class Variation {
                         && newIndividualB.isValid()) {
                     /*newIndividualA=normalizeGroup(newIndividualA);
                     newIndividualB=normalizeGroup(newIndividualB);*/
-                    isGood = true;
-                    break;
+                    newIndividualA = admit(newIndividualA);
+                    newIndividualB = newIndividualA != null ? admit(newIndividualB) : null;
+                    if (newIndividualA != null && newIndividualB != null) {
+                        isGood = true;
+                        break;
+                    }
                 }
 
             }
@@ -119,7 +123,11 @@ public class Variation {
             if (randomNode != null) {
                 replaceNode(mutant, randomNode, newNode);
                 if (checkMaxDepth(mutant, 1) && mutant.isValid()) {
-                    break;
+                    Node admitted = admit(mutant);
+                    if (admitted != null) {
+                        mutant = admitted;
+                        break;
+                    }
                 }
             }
             mutant = individual.cloneTree();
@@ -129,6 +137,15 @@ public class Variation {
         return mutant;
     }
 
+    /**
+     * Applies the backtracking risk policy of the context, if any.
+     * @return the individual to use, or null when it is rejected
+     */
+    private Node admit(Node individual) {
+        BacktrackingRiskPolicy policy = context.getBacktrackingRiskPolicy();
+        return policy == null ? individual : policy.admit(individual);
+    }
+
     private Node pickRandomNode(Node individual) {
         EvolutionParameters param = context.getConfiguration().getEvolutionParameters();
         List<Node> nodeList = new ArrayList<Node>();
@@ -0,0 +1,58 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package it.units.inginf.male.evaluators;
+
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class AlternationMergerTest {
+
+    private static List<Bounds> extract(String regex, String text) {
+        List<Bounds> extractions = new ArrayList<>();
+        Matcher matcher = Pattern.compile(regex).matcher(text);
+        while (matcher.find()) {
+            extractions.add(new Bounds(matcher.start(), matcher.end()));
+        }
+        return extractions;
+    }
+
+    /**
+     * Test of mergeExample method, of class AlternationMerger: when the merge succeeds, it is the extraction of the alternation.
+     */
+    @Test
+    public void testMergeExample() {
+        String[] alternatives = {"\\d++", "\\d", "a\\d", "\\w\\d++", "x*+", "ab", "b\\d\\d", "(?<=a)\\d", "\\d(?= )", "a|b"};
+        String[] texts = {"ab12 x34 b56 a7", "xxab 123", "", "a1b22ab333 xa9"};
+        int merged = 0;
+        for (String first : alternatives) {
+            for (String second : alternatives) {
+                for (String text : texts) {
+                    List<Bounds> result = AlternationMerger.mergeExample(extract(first, text), extract(second, text));
+                    if (result != null) {
+                        merged++;
+                        assertEquals(first + "|" + second + " on " + text, extract(first + "|" + second, text), result);
+                    }
+                }
+            }
+        }
+        assertTrue(merged > alternatives.length * texts.length);
+        //the first alternative wins at the same start
+        assertEquals(Arrays.asList(new Bounds(0, 2)), AlternationMerger.mergeExample(extract("ab", "ab"), extract("a", "ab")));
+        //the second alternative may match inside its skipped extraction
+        assertNull(AlternationMerger.mergeExample(extract("a", "ab"), extract("ab", "ab")));
+        assertNull(AlternationMerger.mergeExample(extract("ab", "abc"), extract("bc", "abc")));
+    }
+}
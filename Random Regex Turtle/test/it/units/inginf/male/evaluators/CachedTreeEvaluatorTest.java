@@ -0,0 +1,159 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package it.units.inginf.male.evaluators;
+
+import it.units.inginf.male.configuration.Configuration;
+import it.units.inginf.male.configuration.DatasetContainer;
+import it.units.inginf.male.inputs.Context;
+import it.units.inginf.male.inputs.Context.EvaluationPhases;
+import it.units.inginf.male.inputs.DataSet;
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.inputs.DataSet.Example;
+import it.units.inginf.male.tree.Constant;
+import it.units.inginf.male.tree.Node;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class CachedTreeEvaluatorTest {
+
+    private static DataSet dataSet() {
+        DataSet dataSet = new DataSet("test", "cache test", "");
+        for (int i = 0; i < 24; i++) {
+            Example example = new Example();
+            //repeated lines share their text
+            String number = String.valueOf(100 + (i % 6) * 37);
+            example.setString("line " + (i % 3) + " id " + number + " status ok, ref x" + (i % 6) + " done");
+            int start = example.getString().indexOf(" id ") + 4;
+            example.getMatch().add(new Bounds(start, start + number.length()));
+            example.getUnmatch().add(new Bounds(0, start));
+            dataSet.getExamples().add(example);
+        }
+        return dataSet;
+    }
+
+    private static Configuration configuration(boolean compactStorage) {
+        DatasetContainer datasetContainer = new DatasetContainer(dataSet(), true, 0);
+        datasetContainer.setDataSetsStriped(true);
+        datasetContainer.setDatasetStripeMarginSize(1);
+        datasetContainer.setCompactStorage(compactStorage);
+        datasetContainer.updateSubDataset();
+        datasetContainer.getTrainingDataset().addSeparateAndConquerLevel("1\\d\\d", 0);
+        Configuration configuration = new Configuration();
+        configuration.setDatasetContainer(datasetContainer);
+        return configuration;
+    }
+
+    private static Context view(Configuration configuration, EvaluationPhases phase, boolean striped, boolean separateAndConquer) {
+        Context context = new Context(phase, configuration);
+        context.setStripedPhase(striped);
+        context.setSeparateAndConquerEnabled(separateAndConquer);
+        return context;
+    }
+
+    private static List<Context> views(Configuration configuration) {
+        return Arrays.asList(view(configuration, EvaluationPhases.TRAINING, false, false),
+                view(configuration, EvaluationPhases.VALIDATION, false, false),
+                view(configuration, EvaluationPhases.LEARNING, false, false),
+                view(configuration, EvaluationPhases.TRAINING, true, false),
+                view(configuration, EvaluationPhases.TRAINING, false, true),
+                view(configuration, EvaluationPhases.TRAINING, true, true));
+    }
+
+    /**
+     * Test of evaluate method, of class CachedTreeEvaluator: the results assembled from the cached texts are the
+     * results of the uncached evaluation, in all the dataset views.
+     */
+    @Test
+    public void testEvaluate() throws Exception {
+        String[] regexes = {"\\d++", "\\w\\w", "(?<=id )\\d+", "ok, ref x\\d", "^line \\d", "\\d done$"};
+        for (boolean compactStorage : new boolean[]{false, true}) {
+            List<Context> views = views(configuration(compactStorage));
+            DefaultTreeEvaluator defaultEvaluator = new DefaultTreeEvaluator();
+            defaultEvaluator.setup(Collections.<String, String>emptyMap());
+            CachedTreeEvaluator cachedEvaluator = new CachedTreeEvaluator();
+            cachedEvaluator.setup(Collections.<String, String>emptyMap());
+            for (String regex : regexes) {
+                Node tree = new Constant(regex);
+                for (Context context : views) {
+                    List<List<Bounds>> expected = defaultEvaluator.evaluate(tree, context);
+                    assertEquals(regex + " on " + context.getCurrentDataSet().getName(), expected, cachedEvaluator.evaluate(tree, context));
+                    //served from the cache
+                    assertEquals(expected, cachedEvaluator.evaluate(tree, context));
+                }
+            }
+            assertTrue(cachedEvaluator.getHits() >= regexes.length * views.size());
+        }
+    }
+
+    /**
+     * Test of evaluate method, of class CachedTreeEvaluator: a view whose texts have been matched in other views
+     * is served from the cache.
+     */
+    @Test
+    public void testCrossViewHits() throws Exception {
+        for (boolean compactStorage : new boolean[]{false, true}) {
+            Configuration configuration = configuration(compactStorage);
+            CachedTreeEvaluator cachedEvaluator = new CachedTreeEvaluator();
+            cachedEvaluator.setup(Collections.<String, String>emptyMap());
+            Node tree = new Constant("\\d++");
+            cachedEvaluator.evaluate(tree, view(configuration, EvaluationPhases.TRAINING, false, false));
+            cachedEvaluator.evaluate(tree, view(configuration, EvaluationPhases.VALIDATION, false, false));
+            cachedEvaluator.evaluate(tree, view(configuration, EvaluationPhases.TRAINING, true, false));
+            long hits = cachedEvaluator.getHits();
+            long misses = cachedEvaluator.getMisses();
+            assertTrue(misses > 0);
+            //the text ids are kept while the examples reference the texts
+            System.gc();
+            //the learning view contains the training and the validation texts, the separate and conquer
+            //levels share the texts of their parents
+            cachedEvaluator.evaluate(tree, view(configuration, EvaluationPhases.LEARNING, false, false));
+            cachedEvaluator.evaluate(tree, view(configuration, EvaluationPhases.TRAINING, false, true));
+            cachedEvaluator.evaluate(tree, view(configuration, EvaluationPhases.TRAINING, true, true));
+            assertEquals(hits + 3, cachedEvaluator.getHits());
+            assertEquals(misses, cachedEvaluator.getMisses());
+        }
+    }
+
+    /**
+     * Test of evaluate method, of class CachedTreeEvaluator: the returned results, computed or served from the
+     * cache, cannot be modified, so that the cached results are unaffected.
+     */
+    @Test
+    public void testResultsAreUnmodifiable() throws Exception {
+        Configuration configuration = configuration(false);
+        CachedTreeEvaluator cachedEvaluator = new CachedTreeEvaluator();
+        cachedEvaluator.setup(Collections.<String, String>emptyMap());
+        Node tree = new Constant("\\d++");
+        Context context = view(configuration, EvaluationPhases.TRAINING, false, false);
+        List<List<Bounds>> expected = new DefaultTreeEvaluator().evaluate(tree, context);
+        for (int evaluation = 0; evaluation < 2; evaluation++) {
+            List<List<Bounds>> results = cachedEvaluator.evaluate(tree, context);
+            for (List<Bounds> exampleResults : results) {
+                try {
+                    exampleResults.add(new Bounds(0, 1));
+                    fail("the results are modifiable");
+                } catch (UnsupportedOperationException ex) {
+                }
+                if (!exampleResults.isEmpty()) {
+                    try {
+                        exampleResults.remove(0);
+                        fail("the results are modifiable");
+                    } catch (UnsupportedOperationException ex) {
+                    }
+                }
+            }
+        }
+        assertEquals(1, cachedEvaluator.getHits());
+        assertEquals(expected, cachedEvaluator.evaluate(tree, context));
+    }
+}
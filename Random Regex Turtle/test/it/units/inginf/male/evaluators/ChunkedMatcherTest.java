@@ -0,0 +1,108 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package it.units.inginf.male.evaluators;
+
+import it.units.inginf.male.inputs.IntervalFile;
+import it.units.inginf.male.inputs.MappedTextFile;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class ChunkedMatcherTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Test of match method, of class ChunkedMatcher: the chunked extractions are the same of
+     * a match on the whole text, for any window size.
+     */
+    @Test
+    public void testMatch() throws IOException {
+        Random random = new Random(3);
+        String[] tokens = {"order", "12", "2015-03-04", "€ 99,50", "caffè", "😀", " ", " ", "\n", "id:7"};
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 400; i++) {
+            builder.append(tokens[random.nextInt(tokens.length)]);
+        }
+        String text = builder.toString();
+        File textFile = File.createTempFile("text", ".log");
+        File extractionsFile = File.createTempFile("extractions", ".rgiv");
+        textFile.deleteOnExit();
+        extractionsFile.deleteOnExit();
+        try (FileOutputStream fos = new FileOutputStream(textFile)) {
+            fos.write(text.getBytes(UTF8));
+        }
+        MappedTextFile mappedText = MappedTextFile.open(textFile, UTF8);
+        String[] regexes = {"\\d++", "(?<=\\s)\\w++\\b", "\\d{4}-\\d\\d-\\d\\d", "^\\w", "x*+", "\\S{0,6}?[è€]"};
+        int[] windows = {24, 25, 31, 50, 4096};
+        for (String regex : regexes) {
+            Pattern pattern = Pattern.compile(regex, Pattern.MULTILINE);
+            List<Long> expected = new ArrayList<>();
+            Matcher matcher = pattern.matcher(text);
+            while (matcher.find()) {
+                expected.add((long) matcher.start());
+                expected.add((long) matcher.end());
+            }
+            for (int window : windows) {
+                ChunkedMatcher chunkedMatcher = new ChunkedMatcher(window, 11);
+                try (IntervalFile.Writer writer = IntervalFile.create(extractionsFile)) {
+                    assertEquals(expected.size() / 2, chunkedMatcher.match(pattern, mappedText, writer));
+                }
+                IntervalFile extractions = IntervalFile.open(extractionsFile);
+                List<Long> actual = new ArrayList<>();
+                for (long i = 0; i < extractions.size(); i++) {
+                    actual.add(extractions.getStart(i));
+                    actual.add(extractions.getEnd(i));
+                }
+                assertEquals(regex + ", window " + window, expected, actual);
+            }
+        }
+    }
+
+    /**
+     * Test of countCorrectExtractions method, of class ChunkedMatcher.
+     */
+    @Test
+    public void testCountCorrectExtractions() throws IOException {
+        File extractionsFile = File.createTempFile("extractions", ".rgiv");
+        File annotationsFile = File.createTempFile("annotations", ".rgiv");
+        extractionsFile.deleteOnExit();
+        annotationsFile.deleteOnExit();
+        try (IntervalFile.Writer writer = IntervalFile.create(extractionsFile)) {
+            writer.add(0, 4);
+            writer.add(10, 12);
+            writer.add(5000000000L, 5000000010L);
+        }
+        try (IntervalFile.Writer writer = IntervalFile.create(annotationsFile)) {
+            writer.add(0, 4);
+            writer.add(10, 11);
+            writer.add(10, 12);
+            writer.add(5000000000L, 5000000011L);
+            try {
+                writer.add(9, 12);
+                fail("unsorted intervals");
+            } catch (IllegalArgumentException ex) {
+            }
+        }
+        IntervalFile annotations = IntervalFile.open(annotationsFile);
+        assertEquals(4, annotations.size());
+        assertEquals(1, annotations.indexOfStart(5));
+        assertEquals(3, annotations.indexOfStart(11));
+        assertEquals(2, ChunkedMatcher.countCorrectExtractions(IntervalFile.open(extractionsFile), annotations));
+    }
+}
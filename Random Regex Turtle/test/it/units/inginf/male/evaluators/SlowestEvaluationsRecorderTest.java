@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.evaluators;
+
+import it.units.inginf.male.configuration.Configuration;
+import it.units.inginf.male.configuration.DatasetContainer;
+import it.units.inginf.male.evaluators.SlowestEvaluationsRecorder.SlowEvaluation;
+import it.units.inginf.male.inputs.Context;
+import it.units.inginf.male.inputs.Context.EvaluationPhases;
+import it.units.inginf.male.inputs.DataSet;
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.inputs.DataSet.Example;
+import it.units.inginf.male.tree.Constant;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class SlowestEvaluationsRecorderTest {
+
+    private static final long MILLIS = 1000000L;
+
+    private static Context context() {
+        DataSet dataSet = new DataSet("test", "slowest test", "");
+        for (int i = 0; i < 6; i++) {
+            Example example = new Example();
+            example.setString("value " + (100 + i) + " ok");
+            example.getMatch().add(new Bounds(6, 9));
+            example.getUnmatch().add(new Bounds(0, 6));
+            dataSet.getExamples().add(example);
+        }
+        DatasetContainer datasetContainer = new DatasetContainer(dataSet, true, 0);
+        datasetContainer.updateSubDataset();
+        Configuration configuration = new Configuration();
+        configuration.setDatasetContainer(datasetContainer);
+        return new Context(EvaluationPhases.TRAINING, configuration);
+    }
+
+    /**
+     * Test of offer method, of class SlowestEvaluationsRecorder: only the K slowest evaluations are kept, the slowest
+     * first.
+     */
+    @Test
+    public void testOffer() {
+        Context context = context();
+        SlowestEvaluationsRecorder recorder = new SlowestEvaluationsRecorder(2, 3);
+        long[] times = {5, 1, 4, 2, 3};
+        for (long time : times) {
+            recorder.offer("r" + time, context, time * MILLIS, 10 * time, 0, time * MILLIS);
+        }
+        List<SlowEvaluation> evaluations = recorder.getSlowestEvaluations();
+        assertEquals(3, evaluations.size());
+        assertEquals("r5", evaluations.get(0).getRegex());
+        assertEquals("r4", evaluations.get(1).getRegex());
+        assertEquals("r3", evaluations.get(2).getRegex());
+        assertEquals(5.0, evaluations.get(0).getMillis(), 0);
+        assertEquals(50, evaluations.get(0).getCharactersScanned());
+        assertEquals(2, evaluations.get(0).getJobId());
+        assertEquals("training", evaluations.get(0).getPhase());
+        assertEquals("normal", evaluations.get(0).getDatasetView());
+        //the threshold is the K-th slowest evaluation
+        assertFalse(recorder.accepts(2 * MILLIS));
+        assertTrue(recorder.accepts(4 * MILLIS));
+
+        context.setStripedPhase(true);
+        context.setSeparateAndConquerEnabled(true);
+        recorder.offer("r6", context, 6 * MILLIS, 60, 1, MILLIS);
+        evaluations = recorder.getSlowestEvaluations();
+        assertEquals("r6", evaluations.get(0).getRegex());
+        assertEquals("striped, separate and conquer", evaluations.get(0).getDatasetView());
+        assertEquals("r4", evaluations.get(2).getRegex());
+
+        SlowestEvaluationsRecorder disabled = new SlowestEvaluationsRecorder(0, 0);
+        disabled.offer("r1", context, MILLIS, 10, 0, MILLIS);
+        assertTrue(disabled.getSlowestEvaluations().isEmpty());
+    }
+
+    /**
+     * Test of the DefaultTreeEvaluator feed: an evaluation is recorded with the scanned characters and its slowest
+     * example, the cache hits of the CachedTreeEvaluator are not recorded.
+     */
+    @Test
+    public void testEvaluatorFeed() throws TreeEvaluationException {
+        Context context = context();
+        SlowestEvaluationsRecorder recorder = new SlowestEvaluationsRecorder(0, 10);
+        context.setSlowestEvaluations(recorder);
+        CachedTreeEvaluator evaluator = new CachedTreeEvaluator();
+        evaluator.setup(Collections.<String, String>emptyMap());
+        evaluator.evaluate(new Constant("\\d++"), context);
+        evaluator.evaluate(new Constant("\\d++"), context);
+        List<SlowEvaluation> evaluations = recorder.getSlowestEvaluations();
+        assertEquals(1, evaluations.size());
+        SlowEvaluation evaluation = evaluations.get(0);
+        assertEquals("\\d++", evaluation.getRegex());
+        assertEquals(context.getCurrentDataSet().getNumberOfChars(), evaluation.getCharactersScanned());
+        assertTrue(evaluation.getSlowestExampleIndex() >= 0);
+        assertTrue(evaluation.getSlowestExampleIndex() < context.getCurrentDataSetLength());
+        assertTrue(evaluation.getSlowestExampleMillis() <= evaluation.getMillis());
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.inputs;
+
+import it.units.inginf.male.inputs.AdaptiveStripingController.Decision;
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.inputs.DataSet.Example;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class AdaptiveStripingControllerTest {
+
+    private static DataSet dataSet() {
+        DataSet dataSet = new DataSet("test", "striping test", "");
+        for (int i = 0; i < 6; i++) {
+            Example example = new Example();
+            String padding = "..........................................".substring(i * 5);
+            example.setString("start " + padding + "id " + (100 + i) + padding + " end");
+            if (i < 4) {
+                int start = example.getString().indexOf("id ") + 3;
+                example.getMatch().add(new Bounds(start, start + 3));
+            }
+            dataSet.getExamples().add(example);
+        }
+        dataSet.populateUnmatchesFromMatches();
+        dataSet.updateStats();
+        return dataSet;
+    }
+
+    private static List<String> strings(DataSet dataSet) {
+        List<String> strings = new ArrayList<>();
+        for (Example example : dataSet.getExamples()) {
+            strings.add(example.getString());
+        }
+        return strings;
+    }
+
+    private static List<String> stripedStrings(DataSet dataSet, double marginSize) {
+        List<String> strings = new ArrayList<>();
+        for (Example example : dataSet.getExamples()) {
+            for (Example slice : DataSet.stripeExample(example, marginSize)) {
+                strings.add(slice.getString());
+            }
+        }
+        return strings;
+    }
+
+    /**
+     * Test of isNormalGeneration method, of class AdaptiveStripingController.
+     */
+    @Test
+    public void testIsNormalGeneration() {
+        AdaptiveStripingController controller = new AdaptiveStripingController(5, 10);
+        assertTrue(controller.isNormalGeneration(0));
+        for (int generation = 1; generation < 10; generation++) {
+            assertFalse(controller.isNormalGeneration(generation));
+        }
+        assertTrue(controller.isNormalGeneration(10));
+        //the interval is bounded
+        assertEquals(AdaptiveStripingController.MIN_INTERVAL, new AdaptiveStripingController(5, 1).getNormalDatasetInterval());
+        assertEquals(AdaptiveStripingController.MAX_MARGIN_SIZE, new AdaptiveStripingController(1000, 10).getMarginSize(), 0);
+    }
+
+    /**
+     * Test of observe method, of class AdaptiveStripingController: a low correlation grows the margin and shortens
+     * the interval, a high correlation does the opposite; the striped view follows the margin.
+     */
+    @Test
+    public void testObserve() {
+        DataSet source = dataSet();
+        AdaptiveStripingController controller = new AdaptiveStripingController(2, 20);
+        DataSet striped = controller.getStripedDataset(source);
+        assertSame(striped, controller.getStripedDataset(source));
+        assertEquals(stripedStrings(source, 2), strings(striped));
+
+        double[] normalFitness = {0.1, 0.2, 0.3, 0.4, 0.5};
+        Decision decision = controller.observe(0, normalFitness, new double[]{0.5, 0.4, 0.3, 0.2, 0.1});
+        assertEquals(-1.0, decision.getCorrelation(), 1e-9);
+        assertEquals(4, controller.getMarginSize(), 0);
+        assertEquals(10, controller.getNormalDatasetInterval());
+        //only the examples with matches are striped again
+        assertEquals(4, decision.getRestripedExamples());
+        assertEquals(stripedStrings(source, 4), strings(controller.getStripedDataset(source)));
+        assertFalse(controller.isNormalGeneration(9));
+        assertTrue(controller.isNormalGeneration(10));
+
+        decision = controller.observe(10, normalFitness, new double[]{0.0, 0.2, 0.3, 0.4, 0.6});
+        assertEquals(1.0, decision.getCorrelation(), 1e-9);
+        assertEquals(3, controller.getMarginSize(), 0);
+        assertEquals(20, controller.getNormalDatasetInterval());
+        assertEquals(stripedStrings(source, 3), strings(controller.getStripedDataset(source)));
+
+        //correlation between the thresholds, nothing changes
+        controller.setHighCorrelation(0.95);
+        decision = controller.observe(30, normalFitness, new double[]{0.2, 0.1, 0.3, 0.4, 0.5});
+        assertEquals(0.9, decision.getCorrelation(), 1e-9);
+        assertEquals(3, decision.getMarginSize(), 0);
+        assertEquals(20, decision.getNormalDatasetInterval());
+        assertEquals(0, decision.getRestripedExamples());
+
+        //undefined correlation
+        assertNull(controller.observe(50, normalFitness, new double[]{0.3, 0.3, 0.3, 0.3, 0.3}));
+        assertEquals(3, controller.getDecisions().size());
+    }
+
+    /**
+     * Test of getStripedDataset method, of class AdaptiveStripingController: a new source view reuses the slices
+     * of the examples with the same annotations.
+     */
+    @Test
+    public void testGetStripedDataset() {
+        DataSet source = dataSet();
+        AdaptiveStripingController controller = new AdaptiveStripingController(2, 20);
+        List<Example> slices = controller.getStripedDataset(source).getExamples();
+        DataSet level = new DataSet("level", "", "");
+        level.getExamples().addAll(source.getExamples());
+        level.updateStats();
+        DataSet striped = controller.getStripedDataset(level);
+        assertEquals(slices.size(), striped.getNumberExamples());
+        for (int i = 0; i < slices.size(); i++) {
+            assertSame(slices.get(i), striped.getExamples().get(i));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package it.units.inginf.male.inputs;
+
+import it.units.inginf.male.inputs.DataSet.Example;
+import it.units.inginf.male.utils.Range;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class DataSetBinaryFileTest {
+
+    /**
+     * Test of write and open methods, of class DataSetBinaryFile.
+     */
+    @Test
+    public void testWriteOpen() throws IOException {
+        DataSet dataSet = new DataSet("binary", "binary format test", null);
+        String[] strings = {"id: 42, code: 7", "", "àèìòù 123"};
+        for (String string : strings) {
+            Example example = new Example();
+            example.setString(string);
+            int digit = -1;
+            for (int i = 0; i < string.length(); i++) {
+                if (Character.isDigit(string.charAt(i))) {
+                    digit = i;
+                    break;
+                }
+            }
+            if (digit >= 0) {
+                example.addMatchBounds(digit, digit + 1);
+            }
+            example.populateUnmatchesFromMatches();
+            dataSet.getExamples().add(example);
+        }
+        dataSet.populateAnnotatedStrings();
+        List<Range> training = Arrays.asList(new Range(0, 1));
+        List<Range> validation = Arrays.asList(new Range(2, 2));
+
+        File file = File.createTempFile("dataset", ".rgds");
+        file.deleteOnExit();
+        DataSetBinaryFile.write(dataSet, training, validation, file);
+        assertTrue(DataSetBinaryFile.isBinaryDataSet(file));
+
+        DataSetBinaryFile binaryFile = DataSetBinaryFile.open(file);
+        DataSet loaded = binaryFile.getDataset();
+        assertEquals(dataSet.getName(), loaded.getName());
+        assertNull(loaded.getRegexTarget());
+        assertEquals(dataSet.getStatsString(), loaded.getStatsString());
+        for (int i = 0; i < strings.length; i++) {
+            assertEquals(dataSet.getExample(i).getString(), loaded.getExample(i).getString());
+            assertEquals(dataSet.getExample(i).getMatch(), loaded.getExample(i).getMatch());
+            assertEquals(dataSet.getExample(i).getUnmatch(), loaded.getExample(i).getUnmatch());
+            assertEquals(dataSet.getExample(i).getMatchedStrings(), loaded.getExample(i).getMatchedStrings());
+        }
+        assertTrue(binaryFile.hasRanges(training, validation));
+        DataSet trainingDataset = dataSet.subDataset("training", training);
+        trainingDataset.updateStats();
+        assertEquals(trainingDataset.getStatsString(), binaryFile.getTrainingDataset().getStatsString());
+        assertEquals(1, binaryFile.getValidationDataset().getNumberMatches());
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.inputs;
+
+import com.google.gson.Gson;
+import it.units.inginf.male.inputs.DataSet.Example;
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class DataSetJsonReaderTest {
+
+    private static final String JSON_DATASET = "{\n"
+            + "  \"name\": \"test\",\n"
+            + "  \"description\": \"multi\\nline\",\n"
+            + "  \"examples\": [\n"
+            + "    {\"string\": \"abc 123\\nxyz 45\", \"match\": [{\"start\": 4, \"end\": 7}, {\"start\": 12, \"end\": 14}],\n"
+            + "     \"unmatch\": [{\"start\": 0, \"end\": 4}]},\n"
+            + "    {\"unknown\": [1, 2], \"string\": \"no numbers\", \"match\": [], \"unmatch\": [{\"start\": 0, \"end\": 10}]}\n"
+            + "  ]\n"
+            + "}";
+
+    /**
+     * Test of read method, of class DataSetJsonReader.
+     * The streaming reader has to produce the same examples and stats as the Gson deserialization.
+     */
+    @Test
+    public void testRead() throws IOException {
+        DataSet streamed = DataSetJsonReader.read(new StringReader(JSON_DATASET));
+        DataSet expected = new Gson().fromJson(JSON_DATASET, DataSet.class);
+        expected.populateAnnotatedStrings();
+        expected.updateStats();
+
+        assertEquals(expected.getName(), streamed.getName());
+        assertEquals(expected.getDescription(), streamed.getDescription());
+        assertEquals(expected.getNumberExamples(), streamed.getNumberExamples());
+        for (int i = 0; i < expected.getNumberExamples(); i++) {
+            Example expectedExample = expected.getExample(i);
+            Example streamedExample = streamed.getExample(i);
+            assertEquals(expectedExample.getString(), streamedExample.getString());
+            assertEquals(expectedExample.getMatch(), streamedExample.getMatch());
+            assertEquals(expectedExample.getUnmatch(), streamedExample.getUnmatch());
+            assertEquals(expectedExample.getMatchedStrings(), streamedExample.getMatchedStrings());
+        }
+        assertEquals(expected.getStatsString(), streamed.getStatsString());
+        assertEquals("45", streamed.getExample(0).getMatchedStrings().get(1));
+    }
+}
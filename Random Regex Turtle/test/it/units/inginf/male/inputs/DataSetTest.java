@@ -8,6 +8,10 @@ package it.units.inginf.male.inputs;
 
 import it.units.inginf.male.inputs.DataSet.Bounds;
 import it.units.inginf.male.inputs.DataSet.Example;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -84,5 +88,237 @@ public class DataSetTest {
         }
     }
 
-      
+    /**
+     * Test of initStripedDatasetView method, of class DataSet, on a long example: the
+     * slices are views of the example text.
+     */
+    @Test
+    public void testStripedDatasetViewSlices() {
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() < DataSet.STRIPE_VIEW_MIN_LENGTH) {
+            builder.append("lorem ipsum ");
+        }
+        int provaIndex = builder.length();
+        builder.append("PROVA lorem ipsum");
+        DataSet dataSet = new DataSet("test", "striping test", "");
+        Example example = new Example();
+        example.setString(builder.toString());
+        example.getMatch().add(new Bounds(provaIndex, provaIndex + "PROVA".length()));
+        example.populateUnmatchesFromMatches();
+        dataSet.getExamples().add(example);
+        dataSet.updateStats();
+        DataSet stripedDataset = dataSet.initStripedDatasetView(2);
+        assertEquals(1, stripedDataset.getNumberExamples());
+        Example stripedExample = stripedDataset.getExample(0);
+        assertTrue(stripedExample.getText() instanceof TextSlice);
+        TextSlice slice = (TextSlice) stripedExample.getText();
+        assertSame(example.getString(), slice.getSource());
+        assertEquals(provaIndex - 5, slice.getOffset());
+        assertEquals("psum PROVA lore", stripedExample.getString());
+        assertEquals(Arrays.asList("PROVA"), stripedExample.getMatchedStrings());
+        assertEquals(Arrays.asList("psum ", " lore"), stripedExample.getUnmatchedStrings());
+    }
+
+    /**
+     * Test of compactStorage method, of class DataSet.
+     */
+    @Test
+    public void testCompactStorage() {
+        DataSet dataSet = new DataSet("test", "compact storage test", "");
+        String[] strings = {"abc 123 def 45", "", "no numbers here", "6"};
+        for (String string : strings) {
+            Example example = new Example();
+            example.setString(string);
+            for (int i = 0; i < string.length(); i++) {
+                if (Character.isDigit(string.charAt(i))) {
+                    int end = i;
+                    while (end < string.length() && Character.isDigit(string.charAt(end))) {
+                        end++;
+                    }
+                    example.addMatchBounds(i, end);
+                    i = end;
+                }
+            }
+            example.populateUnmatchesFromMatches();
+            dataSet.getExamples().add(example);
+        }
+        dataSet.populateAnnotatedStrings();
+        dataSet.updateStats();
+        String expectedStats = dataSet.getStatsString();
+        List<Example> originalExamples = new ArrayList<>(dataSet.getExamples());
+
+        dataSet.compactStorage();
+        dataSet.populateAnnotatedStrings();
+        dataSet.updateStats();
+        assertEquals(expectedStats, dataSet.getStatsString());
+        for (int i = 0; i < strings.length; i++) {
+            Example original = originalExamples.get(i);
+            Example compacted = dataSet.getExample(i);
+            assertEquals(original.getString(), compacted.getText().toString());
+            assertEquals(original.getMatch(), compacted.getMatch());
+            assertEquals(original.getUnmatch(), compacted.getUnmatch());
+            assertEquals(original.getMatchedStrings(), compacted.getMatchedStrings());
+            assertEquals(original.getOrderedAnnotatedStrings(), compacted.getOrderedAnnotatedStrings());
+        }
+
+        dataSet.addSeparateAndConquerLevel("\\d++", 0);
+        DataSet reduced = dataSet.getLastSeparateAndConquerDataSet(0);
+        assertEquals(0, reduced.getNumberMatches());
+        assertEquals(dataSet.getNumberOfChars(), reduced.getNumberUnmatchedChars());
+    }
+
+    /**
+     * Test of getTextPool method, of class DataSet.
+     */
+    @Test
+    public void testTextPool() {
+        DataSet dataSet = new DataSet("test", "text pool test", "");
+        String[] strings = {"a 1", "b 2", "a 1", "a 1"};
+        for (String string : strings) {
+            Example example = new Example();
+            example.setString(new String(string));
+            dataSet.getExamples().add(example);
+        }
+        dataSet.updateStats();
+        TextPool pool = dataSet.getTextPool();
+        assertEquals(2, pool.getNumberTexts());
+        assertEquals(2.0, pool.getDedupRatio(), 1e-9);
+        assertEquals(pool.getTextIndex(0), pool.getTextIndex(3));
+        assertEquals(3, pool.getMultiplicity(pool.getTextIndex(0)));
+        //the pool keeps the canonical text, the examples are not modified
+        assertSame(dataSet.getExample(0).getString(), pool.getText(pool.getTextIndex(2)));
+        assertNotSame(dataSet.getExample(0).getString(), dataSet.getExample(2).getString());
+        assertTrue(dataSet.getStatsString().contains("unique texts: 2"));
+
+        Example example = new Example();
+        example.setString("c 3");
+        dataSet.getExamples().add(example);
+        dataSet.invalidateTextPool();
+        assertFalse(dataSet.getStatsString().contains("unique texts"));
+        pool = dataSet.getTextPool();
+        assertEquals(3, pool.getNumberTexts());
+        assertEquals(5, pool.getNumberExamples());
+    }
+
+    /**
+     * Test of getTextPool method, of class DataSet: texts which are not Strings or immutable views
+     * are copied, so that changing them does not change the pool.
+     */
+    @Test
+    public void testTextPoolCopiesMutableTexts() {
+        DataSet dataSet = new DataSet("test", "text pool test", "");
+        CharBuffer buffer = CharBuffer.wrap("a 1".toCharArray());
+        Example example = new Example(buffer, new ArrayList<Bounds>(), new ArrayList<Bounds>());
+        dataSet.getExamples().add(example);
+        example = new Example();
+        example.setString("a 1");
+        dataSet.getExamples().add(example);
+        dataSet.updateStats();
+        TextPool pool = dataSet.getTextPool();
+        assertEquals(1, pool.getNumberTexts());
+        buffer.put(0, 'b');
+        assertEquals("a 1", pool.getText(0).toString());
+    }
+
+    /**
+     * Test of addSeparateAndConquerLevel method, of class DataSet: unchanged examples
+     * are shared and the statistics are the same of a full computation.
+     */
+    @Test
+    public void testSeparateAndConquerLevel() {
+        DataSet dataSet = new DataSet("test", "separate and conquer test", "");
+        String[] strings = {"ab 12 cd 345", "no numbers", "x 6 y 78"};
+        for (String string : strings) {
+            Example example = new Example();
+            example.setString(string);
+            for (int i = 0; i < string.length(); i++) {
+                if (Character.isDigit(string.charAt(i))) {
+                    int end = i;
+                    while (end < string.length() && Character.isDigit(string.charAt(end))) {
+                        end++;
+                    }
+                    example.addMatchBounds(i, end);
+                    i = end;
+                }
+            }
+            example.populateUnmatchesFromMatches();
+            dataSet.getExamples().add(example);
+        }
+        dataSet.populateAnnotatedStrings();
+        dataSet.updateStats();
+
+        assertTrue(dataSet.addSeparateAndConquerLevel("\\d\\d", 0));
+        DataSet reduced = dataSet.getLastSeparateAndConquerDataSet(0);
+        assertSame(dataSet.getExample(1), reduced.getExample(1));
+        assertNotSame(dataSet.getExample(0), reduced.getExample(0));
+        assertSame(dataSet.getExample(0).getString(), reduced.getExample(0).getString());
+        assertEquals(1, reduced.getExample(0).getMatch().size());
+        assertEquals(Arrays.asList("345"), reduced.getExample(0).getMatchedStrings());
+        assertEquals(Arrays.asList("ab 12 cd "), reduced.getExample(0).getUnmatchedStrings());
+        String incrementalStats = reduced.getStatsString();
+        assertTrue(incrementalStats.contains("unique texts: 3"));
+        reduced.updateStats();
+        reduced.getTextPool();
+        assertEquals(reduced.getStatsString(), incrementalStats);
+
+        //the remaining matches are not extracted, the level is unchanged
+        assertFalse(dataSet.addSeparateAndConquerLevel("[a-z]", 0));
+        DataSet unchanged = dataSet.getLastSeparateAndConquerDataSet(0);
+        for (int i = 0; i < strings.length; i++) {
+            assertSame(reduced.getExample(i), unchanged.getExample(i));
+        }
+    }
+
+    /**
+     * Test of addSeparateAndConquerLevel method, of class DataSet, in flagging mode: the true positive
+     * examples become unannotated, the others are shared by all the levels.
+     */
+    @Test
+    public void testSeparateAndConquerFlaggingLevels() {
+        DataSet dataSet = new DataSet("test", "separate and conquer flagging test", "");
+        String[] strings = {"ERROR disk full", "ERROR net down", "INFO disk ok"};
+        for (String string : strings) {
+            Example example = new Example();
+            example.setString(string);
+            if (string.startsWith("ERROR")) {
+                example.addMatchBounds(0, string.length());
+            } else {
+                example.addUnmatchBounds(0, string.length());
+            }
+            dataSet.getExamples().add(example);
+        }
+        dataSet.populateAnnotatedStrings();
+        dataSet.updateStats();
+
+        assertTrue(dataSet.addSeparateAndConquerLevel("disk", 0, true, true));
+        DataSet first = dataSet.getLastSeparateAndConquerDataSet(0);
+        assertNotSame(dataSet.getExample(0), first.getExample(0));
+        assertSame(dataSet.getExample(0).getString(), first.getExample(0).getString());
+        assertTrue(first.getExample(0).getMatch().isEmpty());
+        assertTrue(first.getExample(0).getUnmatch().isEmpty());
+        //not flagged and negative examples are shared
+        assertSame(dataSet.getExample(1), first.getExample(1));
+        assertSame(dataSet.getExample(2), first.getExample(2));
+        assertEquals(1, first.getNumberMatches());
+        assertEquals(1, first.getNumberUnmatches());
+
+        assertTrue(dataSet.addSeparateAndConquerLevel("ERROR", 0, true, true));
+        DataSet second = dataSet.getLastSeparateAndConquerDataSet(0);
+        assertEquals(2, dataSet.getNumberOfSeparateAndConquerLevels(0));
+        assertSame(first.getExample(0), second.getExample(0));
+        assertNotSame(first.getExample(1), second.getExample(1));
+        assertSame(dataSet.getExample(2), second.getExample(2));
+        assertEquals(0, second.getNumberMatches());
+        assertEquals(strings[2].length(), second.getNumberUnmatchedChars());
+        assertEquals(strings[0].length() + strings[1].length(), second.getNumberUnannotatedChars());
+        String incrementalStats = second.getStatsString();
+        second.updateStats();
+        second.getTextPool();
+        assertEquals(second.getStatsString(), incrementalStats);
+
+        dataSet.removeSeparateAndConquerLevel(0);
+        assertSame(first, dataSet.getLastSeparateAndConquerDataSet(0));
+        assertSame(first, dataSet.getSeparateAndConquerDataSet(1, 0));
+        assertSame(dataSet, dataSet.getSeparateAndConquerDataSet(0, 0));
+    }
 }
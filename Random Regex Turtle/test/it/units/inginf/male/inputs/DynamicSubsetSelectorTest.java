@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.inputs;
+
+import it.units.inginf.male.configuration.Configuration;
+import it.units.inginf.male.configuration.DatasetContainer;
+import it.units.inginf.male.inputs.Context.EvaluationPhases;
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.inputs.DataSet.Example;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class DynamicSubsetSelectorTest {
+
+    private static DataSet dataSet(int size) {
+        DataSet dataSet = new DataSet("test", "subset test", "");
+        for (int i = 0; i < size; i++) {
+            Example example = new Example();
+            example.setString("id " + (100 + i) + " and " + (200 + i) + " end");
+            example.getMatch().add(new Bounds(3, 6));
+            example.getMatch().add(new Bounds(11, 14));
+            example.getUnmatch().add(new Bounds(0, 3));
+            dataSet.getExamples().add(example);
+        }
+        dataSet.updateStats();
+        return dataSet;
+    }
+
+    //the correct extractions for the examples in [from, to), no extractions for the others
+    private static List<List<Bounds>> extractions(DataSet dataSet, int from, int to) {
+        List<List<Bounds>> extractions = new ArrayList<>();
+        int i = 0;
+        for (Example example : dataSet.getExamples()) {
+            extractions.add(i >= from && i < to ? new ArrayList<>(example.getMatch()) : Collections.<Bounds>emptyList());
+            i++;
+        }
+        return extractions;
+    }
+
+    /**
+     * Test of select method, of class DynamicSubsetSelector: the subset size follows the ratio and the subset keeps the
+     * base dataset order.
+     */
+    @Test
+    public void testSelect() {
+        DataSet base = dataSet(20);
+        DynamicSubsetSelector selector = new DynamicSubsetSelector(0.25, 1.0, 1.0);
+        assertSame(base, selector.getSubset(base));
+        DataSet subset = selector.select(base, new Random(1));
+        assertEquals(5, subset.getNumberExamples());
+        assertEquals(10, subset.getNumberMatches());
+        int previous = -1;
+        for (Example example : subset.getExamples()) {
+            int index = base.getExamples().indexOf(example);
+            assertTrue(index > previous);
+            previous = index;
+        }
+        assertSame(subset, selector.getSubset(base));
+        DataSet other = dataSet(20);
+        assertSame(other, selector.getSubset(other));
+        //at least one example
+        assertEquals(1, new DynamicSubsetSelector(0.01, 1.0, 1.0).select(base, new Random(1)).getNumberExamples());
+    }
+
+    /**
+     * Test of updateDifficulty method, of class DynamicSubsetSelector: the examples with errors are selected more
+     * often than the correctly extracted ones, the errors on the subset are mapped to the base examples.
+     */
+    @Test
+    public void testUpdateDifficulty() {
+        DataSet base = dataSet(20);
+        //ages have the same weight for all the examples
+        DynamicSubsetSelector selector = new DynamicSubsetSelector(0.2, 8.0, 0.0);
+        selector.select(base, new Random(1));
+        //only the first 4 examples are wrong, 2 errors each
+        selector.updateDifficulty(base, extractions(base, 4, 20));
+        Random random = new Random(2);
+        int[] counts = new int[20];
+        for (int trial = 0; trial < 100; trial++) {
+            for (Example example : selector.select(base, random).getExamples()) {
+                counts[base.getExamples().indexOf(example)]++;
+            }
+        }
+        for (int i = 0; i < 4; i++) {
+            assertTrue(counts[i] > 90);
+        }
+
+        //the difficulty of the examples in the subset is updated, the others keep their difficulty
+        selector.updateDifficulty(base, extractions(base, 0, 20));
+        DataSet subset = selector.select(base, random);
+        List<Example> hard = new ArrayList<>(subset.getExamples());
+        selector.updateDifficulty(subset, extractions(subset, 0, 0));
+        int selected = 0;
+        for (int trial = 0; trial < 100; trial++) {
+            for (Example example : selector.select(base, random).getExamples()) {
+                if (hard.contains(example)) {
+                    selected++;
+                }
+            }
+        }
+        assertTrue(selected > 90 * hard.size());
+
+        //extractions on other datasets are ignored
+        selector.updateDifficulty(base, extractions(base, 0, 20));
+        selector.updateDifficulty(dataSet(20), extractions(base, 0, 0));
+        Arrays.fill(counts, 0);
+        for (int trial = 0; trial < 100; trial++) {
+            for (Example example : selector.select(base, random).getExamples()) {
+                counts[base.getExamples().indexOf(example)]++;
+            }
+        }
+        for (int count : counts) {
+            assertTrue(count < 50);
+        }
+    }
+
+    /**
+     * Test of getCurrentDataSet method, of class Context: the subset replaces the training view only during a dynamic
+     * subset phase, and only when it has been selected from the current view.
+     */
+    @Test
+    public void testDynamicSubsetPhase() {
+        DatasetContainer datasetContainer = new DatasetContainer(dataSet(40), true, 0);
+        datasetContainer.setDataSetsStriped(true);
+        datasetContainer.setDatasetStripeMarginSize(1);
+        datasetContainer.updateSubDataset();
+        Configuration configuration = new Configuration();
+        configuration.setDatasetContainer(datasetContainer);
+        Context context = new Context(EvaluationPhases.TRAINING, configuration);
+        DynamicSubsetSelector selector = new DynamicSubsetSelector(0.25, 1.0, 1.0);
+        context.setDynamicSubsetSelector(selector);
+        DataSet training = context.getCurrentDataSet();
+        assertSame(datasetContainer.getTrainingDataset(), training);
+
+        DataSet subset = selector.select(training, new Random(1));
+        assertSame(training, context.getCurrentDataSet());
+        context.setDynamicSubsetPhase(true);
+        assertSame(subset, context.getCurrentDataSet());
+        assertEquals(subset.getNumberExamples(), context.getCurrentDataSetLength());
+        //the subset has not been selected from the striped view
+        context.setStripedPhase(true);
+        assertSame(datasetContainer.getTrainingDataset().getStripedDataset(), context.getCurrentDataSet());
+        context.setStripedPhase(false);
+        //the other phases are not reduced
+        context.setPhase(EvaluationPhases.VALIDATION);
+        assertSame(datasetContainer.getValidationDataset(), context.getCurrentDataSet());
+        context.setPhase(EvaluationPhases.TRAINING);
+        context.setDynamicSubsetPhase(false);
+        assertSame(training, context.getCurrentDataSet());
+    }
+}
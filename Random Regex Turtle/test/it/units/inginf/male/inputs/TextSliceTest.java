@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.inputs;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class TextSliceTest {
+
+    /**
+     * Test of of and subSequence methods, of class TextSlice: the slices of a slice refer to the original text.
+     */
+    @Test
+    public void testOf() {
+        String text = "the quick brown fox";
+        TextSlice slice = TextSlice.of(text, 4, 15);
+        assertEquals("quick brown", slice.toString());
+        assertEquals(11, slice.length());
+        assertEquals('q', slice.charAt(0));
+        TextSlice nested = (TextSlice) slice.subSequence(6, 11);
+        assertEquals("brown", nested.toString());
+        assertSame(text, nested.getSource());
+        assertEquals(10, nested.getOffset());
+        assertEquals(text.indexOf("brown"), nested.getOffset());
+
+        //the source does not need to be a String
+        StringBuilder builder = new StringBuilder(text);
+        TextSlice builderSlice = TextSlice.of(builder, 16, 19);
+        assertEquals("fox", builderSlice.toString());
+        assertSame(builder, builderSlice.getSource());
+        assertEquals(0, TextSlice.of(text, 3, 3).length());
+    }
+
+    /**
+     * Test of of and charAt methods, of class TextSlice: out of range positions are rejected.
+     */
+    @Test
+    public void testBounds() {
+        String text = "abcdef";
+        TextSlice slice = TextSlice.of(text, 1, 4);
+        try {
+            slice.charAt(3);
+            fail("out of the slice");
+        } catch (StringIndexOutOfBoundsException ex) {
+        }
+        try {
+            slice.charAt(-1);
+            fail("out of the slice");
+        } catch (StringIndexOutOfBoundsException ex) {
+        }
+        try {
+            TextSlice.of(text, 4, 7);
+            fail("out of the text");
+        } catch (StringIndexOutOfBoundsException ex) {
+        }
+        try {
+            slice.subSequence(2, 4);
+            fail("out of the slice");
+        } catch (StringIndexOutOfBoundsException ex) {
+        }
+        try {
+            TextSlice.of(text, 3, 2);
+            fail("start after end");
+        } catch (StringIndexOutOfBoundsException ex) {
+        }
+    }
+
+    /**
+     * Test of equals and hashCode methods, of class TextSlice: slices are equal by content, whatever their source,
+     * and the hash is the String hash.
+     */
+    @Test
+    public void testEquals() {
+        TextSlice first = TextSlice.of("xx abc yy", 3, 6);
+        TextSlice second = TextSlice.of(new StringBuilder("abc"), 0, 3);
+        TextSlice other = TextSlice.of("xx abd yy", 3, 6);
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertEquals("abc".hashCode(), first.hashCode());
+        assertFalse(first.equals(other));
+        assertFalse(first.equals(TextSlice.of("xx abc yy", 3, 5)));
+        //like a String, a slice is not equal to other CharSequences with the same content
+        assertFalse(first.equals("abc"));
+        assertEquals(TextSlice.of("a", 0, 0), TextSlice.of("b", 1, 1));
+    }
+
+    /**
+     * Test of TextSlice as a matcher input: the match positions in the slice map to the source text.
+     */
+    @Test
+    public void testMatching() {
+        String text = "id 12, id 345, id 6";
+        TextSlice slice = TextSlice.of(text, 7, 19);
+        Matcher matcher = Pattern.compile("\\d+").matcher(slice);
+        assertTrue(matcher.find());
+        assertEquals("345", matcher.group());
+        assertEquals("345", text.substring(matcher.start() + slice.getOffset(), matcher.end() + slice.getOffset()));
+        assertTrue(matcher.find());
+        assertEquals("6", matcher.group());
+        assertFalse(matcher.find());
+        //the anchors refer to the slice bounds
+        assertTrue(Pattern.compile("^id 345").matcher(slice).find());
+        assertTrue(Pattern.compile("id 6$").matcher(slice).find());
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package it.units.inginf.male.objective;
+
+import it.units.inginf.male.inputs.DataSet;
+import it.units.inginf.male.tree.Constant;
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.tree.operator.Concatenator;
+import it.units.inginf.male.tree.operator.MatchOneOrMore;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class FitnessSurrogateTest {
+
+    private static Node node(Node node, Node... childrens) {
+        for (Node child : childrens) {
+            node.getChildrens().add(child);
+            child.setParent(node);
+        }
+        return node;
+    }
+
+    /**
+     * Test of screen method, of class FitnessSurrogate.
+     */
+    @Test
+    public void testScreen() {
+        FitnessSurrogate surrogate = new FitnessSurrogate(new DataSet("empty"), 3, 0.5);
+        double[] parents = new double[]{0.5, 10, 5};
+        Node good = node(new MatchOneOrMore(), new Constant("\\d"));
+        Node bad = node(new Concatenator(), new Constant("a"), node(new Concatenator(), new Constant("b"), new Constant("c")));
+        for (int i = 0; i < 20; i++) {
+            surrogate.learn(surrogate.features(good, parents), new double[]{0.1, 1, 4});
+            surrogate.learn(surrogate.features(bad, parents), new double[]{Double.NaN, 50, 5});
+        }
+        assertTrue(surrogate.isReady());
+        assertEquals(0.1, surrogate.predict(surrogate.features(good, parents))[0], 1e-6);
+        List<Ranking> current = Arrays.asList(new Ranking(new Constant("x"), new double[]{0.3, 5, 1}));
+        List<Node> offspring = Arrays.asList(bad, good);
+        List<double[]> features = Arrays.asList(surrogate.features(bad, parents), surrogate.features(good, parents));
+        //nothing is known about the accuracy, all the offspring are kept
+        assertEquals(2, surrogate.screen(offspring, features, current, 0).size());
+        surrogate.learn(Arrays.asList(new Ranking(bad, new double[]{Double.NaN, 50, 5}), new Ranking(good, new double[]{0.1, 1, 4})));
+        assertEquals(1, surrogate.getFraction(), 1e-6);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package it.units.inginf.male.outputs;
+
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.inputs.DataSet.Example;
+import it.units.inginf.male.utils.BasicStats;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class ResultsJsonWriterTest {
+
+    /**
+     * Test of write method, of class ResultsJsonWriter, and of the Results.load method.
+     */
+    @Test
+    public void testWriteLoad() throws IOException {
+        Results results = new Results(1);
+        results.setDatasetName("writer test");
+        results.setOverallExecutionTimeMillis(1234);
+        Example example = new Example();
+        example.setString("abc 123 def");
+        example.addMatchBounds(4, 7);
+        example.populateUnmatchesFromMatches();
+        results.setExamples(Arrays.asList(example));
+        results.setBestExtractions(Arrays.asList(Arrays.asList(new Bounds(4, 7))));
+        results.setBestExtractionsStrings(Arrays.asList(Collections.singletonList("123")));
+        BasicStats stats = new BasicStats();
+        stats.tp = 1;
+        results.setBestExtractionsStats(Arrays.asList(stats));
+
+        File folder = Files.createTempDirectory("results").toFile();
+        folder.deleteOnExit();
+        boolean[][] options = {{false, false}, {true, false}, {true, true}};
+        for (boolean[] option : options) {
+            String path = new File(folder, "results-" + option[0] + option[1] + ".json").getAbsolutePath();
+            File file = new ResultsJsonWriter(option[0], option[1]).write(results, path);
+            assertEquals(option[0], file.getName().endsWith(ResultsJsonWriter.GZIP_EXTENSION));
+
+            Results loaded = Results.load(file.getAbsolutePath());
+            assertEquals("writer test", loaded.getDatasetName());
+            assertEquals(1234, loaded.getOverallExecutionTimeMillis());
+            assertEquals("abc 123 def", loaded.getExamples().get(0).getString());
+            assertEquals(example.getMatch(), loaded.getExamples().get(0).getMatch());
+            List<Bounds> extractions = loaded.getBestExtractions().get(0);
+            assertEquals(new Bounds(4, 7), extractions.get(0));
+            assertEquals("123", loaded.getBestExtractionsStrings().get(0).get(0));
+            assertEquals(1, loaded.getBestExtractionsStats().get(0).tp);
+            assertEquals(option[1], loaded.getSidecarFiles() != null);
+        }
+        for (File file : folder.listFiles()) {
+            file.delete();
+        }
+    }
+}
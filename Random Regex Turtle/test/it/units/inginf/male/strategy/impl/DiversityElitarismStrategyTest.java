@@ -0,0 +1,95 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package it.units.inginf.male.strategy.impl;
+
+import it.units.inginf.male.configuration.Configuration;
+import it.units.inginf.male.configuration.DatasetContainer;
+import it.units.inginf.male.evaluators.DefaultTreeEvaluator;
+import it.units.inginf.male.inputs.DataSet;
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.inputs.DataSet.Example;
+import it.units.inginf.male.objective.Ranking;
+import it.units.inginf.male.tree.Constant;
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.tree.operator.Concatenator;
+import it.units.inginf.male.tree.operator.MatchOneOrMore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class DiversityElitarismStrategyTest {
+
+    private static Node node(Node node, Node... childrens) {
+        for (Node child : childrens) {
+            node.getChildrens().add(child);
+            child.setParent(node);
+        }
+        return node;
+    }
+
+    private static DataSet dataSet() {
+        DataSet dataSet = new DataSet("test", "racing test", "");
+        for (int i = 0; i < 40; i++) {
+            Example example = new Example();
+            String number = String.valueOf(1000 + i * 37);
+            example.setString("id " + number + " tag x" + (i % 7) + " ref ab-" + i);
+            example.getMatch().add(new Bounds(3, 3 + number.length()));
+            example.getUnmatch().add(new Bounds(0, 3));
+            example.getUnmatch().add(new Bounds(3 + number.length(), example.getString().length()));
+            dataSet.getExamples().add(example);
+        }
+        return dataSet;
+    }
+
+    private static List<Ranking> truncate(DiversityElitarismStrategy strategy, List<Ranking> rankings, int popSize) {
+        List<Ranking> sorted = new ArrayList<>();
+        strategy.sortByParetoFronts(rankings, sorted);
+        return sorted.subList(0, popSize);
+    }
+
+    /**
+     * Test of buildRacedRankings method, of class DiversityElitarismStrategy: the raced individuals which are
+     * cut off cannot survive the truncation of the population.
+     */
+    @Test
+    public void testBuildRacedRankings() throws Exception {
+        Configuration configuration = new Configuration();
+        configuration.setDatasetContainer(new DatasetContainer(dataSet(), true, 0));
+        DefaultTreeEvaluator evaluator = new DefaultTreeEvaluator();
+        evaluator.setup(Collections.<String, String>emptyMap());
+        configuration.setEvaluator(evaluator);
+        configuration.getStrategyParameters().put("racing", "true");
+        DiversityElitarismStrategy strategy = new DiversityElitarismStrategy();
+        strategy.setup(configuration, null);
+        assertNotNull(strategy.racing);
+
+        List<Node> current = Arrays.asList(new Constant("\\d\\d\\d\\d"), node(new MatchOneOrMore(), new Constant("\\d")),
+                new Constant("\\d\\d\\d\\d\\b"), new Constant("\\b\\d\\d\\d\\d"), new Constant("\\d\\d\\d\\d(?= )"), new Constant("\\d\\d\\d\\d+"));
+        List<Node> offspring = Arrays.asList(new Constant("1"), new Constant("x"), new Constant("\\d\\d"), new Constant("\\d\\d\\d"),
+                node(new Concatenator(), new Constant("id "), node(new MatchOneOrMore(), new Constant("\\d"))), new Constant("\\d\\d\\d\\d tag"),
+                new Constant("tag x\\d ref ab\\-\\d"), new Constant(" ref ab\\-\\d\\d"), new Constant("\\w\\w\\w \\w\\w\\d ref"),
+                new Constant("ab\\-\\d\\d|x\\d ref"));
+        int popSize = current.size();
+        strategy.population = new ArrayList<>(current);
+        List<Node> newPopulation = new ArrayList<>(offspring);
+        newPopulation.addAll(current);
+
+        List<Ranking> exact = truncate(strategy, strategy.buildRankings(newPopulation, strategy.objective), popSize);
+        List<Ranking> raced = truncate(strategy, strategy.buildRacedRankings(newPopulation, popSize), popSize);
+        assertTrue(strategy.racing.getCut() > 0);
+        for (int i = 0; i < popSize; i++) {
+            assertEquals(exact.get(i).getDescription(), raced.get(i).getDescription());
+            assertTrue(Arrays.equals(exact.get(i).getFitness(), raced.get(i).getFitness()));
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.strategy.impl;
+
+import it.units.inginf.male.configuration.Configuration;
+import it.units.inginf.male.configuration.DatasetContainer;
+import it.units.inginf.male.evaluators.DefaultTreeEvaluator;
+import it.units.inginf.male.inputs.Context;
+import it.units.inginf.male.inputs.Context.EvaluationPhases;
+import it.units.inginf.male.inputs.DataSet;
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.inputs.DataSet.Example;
+import it.units.inginf.male.objective.Ranking;
+import it.units.inginf.male.strategy.ExecutionListener;
+import it.units.inginf.male.strategy.ExecutionListenerFactory;
+import it.units.inginf.male.strategy.ExecutionStrategy;
+import it.units.inginf.male.strategy.RunStrategy;
+import it.units.inginf.male.tree.Constant;
+import it.units.inginf.male.tree.Node;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.List;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class JmxExecutionListenerTest {
+
+    private static class TestStrategy implements ExecutionStrategy {
+
+        @Override
+        public void execute(Configuration configuration, ExecutionListenerFactory listenerFactory) {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+
+    private static class JobStrategy implements RunStrategy {
+
+        private final Configuration configuration;
+        private final Context context;
+
+        JobStrategy(DatasetContainer datasetContainer, int jobId, int jobs) {
+            this.configuration = new Configuration();
+            this.configuration.setDatasetContainer(datasetContainer);
+            this.configuration.setJobId(jobId);
+            this.configuration.setJobs(jobs);
+            this.configuration.setEvaluator(new DefaultTreeEvaluator());
+            this.context = new Context(EvaluationPhases.TRAINING, this.configuration);
+        }
+
+        @Override
+        public void setup(Configuration configuration, ExecutionListener executionListener) {
+        }
+
+        @Override
+        public Configuration getConfiguration() {
+            return configuration;
+        }
+
+        @Override
+        public ExecutionListener getExecutionListener() {
+            return null;
+        }
+
+        @Override
+        public Context getContext() {
+            return context;
+        }
+
+        @Override
+        public Void call() {
+            return null;
+        }
+    }
+
+    private static DatasetContainer datasetContainer() {
+        DataSet dataSet = new DataSet("test", "jmx test", "");
+        for (int i = 0; i < 4; i++) {
+            Example example = new Example();
+            example.setString("id " + (100 + i) + " end");
+            example.getMatch().add(new Bounds(3, 6));
+            example.getUnmatch().add(new Bounds(0, 3));
+            dataSet.getExamples().add(example);
+        }
+        DatasetContainer datasetContainer = new DatasetContainer(dataSet, true, 0);
+        datasetContainer.updateSubDataset();
+        return datasetContainer;
+    }
+
+    /**
+     * Test of the JmxExecutionListener events: the strategy and Job MBeans are published while the Jobs run, expose
+     * the Job progress and the evaluator calls, forward the stop requests to the Jobs and are removed when all the
+     * Jobs are complete.
+     */
+    @Test
+    public void testMBeans() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        JmxExecutionListener listener = new JmxExecutionListener();
+        listener.register(new TestStrategy());
+        String name = listener.getMonitor().getStrategyName();
+        assertTrue(name.startsWith("TestStrategy-"));
+        ObjectName strategyName = new ObjectName(JmxExecutionListener.DOMAIN + ":type=ExecutionStrategy,name=" + ObjectName.quote(name));
+        assertTrue(server.isRegistered(strategyName));
+
+        DatasetContainer datasetContainer = datasetContainer();
+        JobStrategy first = new JobStrategy(datasetContainer, 0, 2);
+        JobStrategy second = new JobStrategy(datasetContainer, 1, 2);
+        ExecutionListener jobListener = listener.getNewListener();
+        jobListener.evolutionStarted(first);
+        jobListener.evolutionStarted(second);
+        assertSame(listener.getMonitor().getJobMonitor(0), first.getContext().getJobMonitor());
+        ObjectName firstJobName = new ObjectName(JmxExecutionListener.DOMAIN + ":type=Job,strategy=" + ObjectName.quote(name) + ",job=0");
+        assertTrue(server.isRegistered(firstJobName));
+        assertEquals(2, server.getAttribute(strategyName, "Jobs"));
+        assertEquals(2, server.getAttribute(strategyName, "RunningJobs"));
+
+        Node best = new Constant("\\d++");
+        first.getConfiguration().getEvaluator().evaluate(best, first.getContext());
+        first.getConfiguration().getEvaluator().evaluate(best, first.getContext());
+        List<Ranking> population = Collections.singletonList(new Ranking(best, new double[]{1.0, 5}));
+        jobListener.logGeneration(first, 3, best, new double[]{1.0, 5}, population);
+        assertEquals("\\d++", server.getAttribute(firstJobName, "BestRegex"));
+        assertEquals(3, server.getAttribute(firstJobName, "CurrentGeneration"));
+        assertEquals(2L, server.getAttribute(firstJobName, "EvaluatorCalls"));
+        assertEquals(2L, server.getAttribute(strategyName, "EvaluatorCalls"));
+
+        server.invoke(strategyName, "requestStop", null, null);
+        assertTrue(first.getContext().getJobMonitor().isStopRequested());
+        assertTrue(second.getContext().getJobMonitor().isStopRequested());
+
+        jobListener.evolutionComplete(first, 3, population);
+        assertEquals(1, server.getAttribute(strategyName, "CompletedJobs"));
+        assertTrue(server.isRegistered(strategyName));
+        jobListener.evolutionComplete(second, 0, population);
+        assertFalse(server.isRegistered(strategyName));
+        assertFalse(server.isRegistered(firstJobName));
+        assertTrue(server.queryNames(new ObjectName(JmxExecutionListener.DOMAIN + ":type=Job,strategy=" + ObjectName.quote(name) + ",*"), null).isEmpty());
+    }
+}
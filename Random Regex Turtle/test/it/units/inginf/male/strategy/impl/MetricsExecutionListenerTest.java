@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.strategy.impl;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import it.units.inginf.male.configuration.Configuration;
+import it.units.inginf.male.evaluators.CachedTreeEvaluator;
+import it.units.inginf.male.evaluators.DefaultTreeEvaluator;
+import it.units.inginf.male.inputs.Context;
+import it.units.inginf.male.objective.Ranking;
+import it.units.inginf.male.strategy.ExecutionListener;
+import it.units.inginf.male.strategy.RunStrategy;
+import it.units.inginf.male.tree.Constant;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class MetricsExecutionListenerTest {
+
+    private static class JobStrategy implements RunStrategy {
+
+        private final Configuration configuration;
+
+        JobStrategy(int jobId, int jobs, boolean cachedEvaluator) {
+            this.configuration = new Configuration();
+            this.configuration.setJobId(jobId);
+            this.configuration.setJobs(jobs);
+            this.configuration.setEvaluator(cachedEvaluator ? new CachedTreeEvaluator() : new DefaultTreeEvaluator());
+        }
+
+        @Override
+        public void setup(Configuration configuration, ExecutionListener executionListener) {
+        }
+
+        @Override
+        public Configuration getConfiguration() {
+            return configuration;
+        }
+
+        @Override
+        public ExecutionListener getExecutionListener() {
+            return null;
+        }
+
+        @Override
+        public Context getContext() {
+            return null;
+        }
+
+        @Override
+        public Void call() {
+            return null;
+        }
+    }
+
+    private static List<Ranking> population() {
+        return Arrays.asList(new Ranking(new Constant("a"), new double[]{0.5, 10}),
+                new Ranking(new Constant("b"), new double[]{0.25, 20}),
+                new Ranking(new Constant("a"), new double[]{0.5, 10}));
+    }
+
+    /**
+     * Test of logGeneration method, of class MetricsExecutionListener: one JSONL record per Job generation, the file
+     * is closed when all the Jobs are complete.
+     */
+    @Test
+    public void testJsonl() throws IOException {
+        File file = File.createTempFile("metrics", ".jsonl");
+        file.deleteOnExit();
+        assertEquals(MetricsExecutionListener.Format.JSONL, MetricsExecutionListener.formatOf(file));
+        MetricsExecutionListener listener = new MetricsExecutionListener(file, MetricsExecutionListener.formatOf(file));
+        JobStrategy first = new JobStrategy(0, 2, true);
+        JobStrategy second = new JobStrategy(1, 2, true);
+        listener.evolutionStarted(first);
+        listener.evolutionStarted(second);
+        List<Ranking> population = population();
+        listener.logGeneration(first, 0, population.get(0).getTree(), new double[]{0.5, 10}, population);
+        listener.logGeneration(second, 0, population.get(1).getTree(), new double[]{0.25, 20}, population);
+        listener.logGeneration(first, 1, population.get(0).getTree(), new double[]{0.5, 10}, population);
+        listener.evolutionComplete(first, 1, population);
+        assertEquals(0, listener.getDropped());
+        listener.evolutionComplete(second, 0, population);
+        //closed, ignored
+        listener.logGeneration(second, 1, population.get(1).getTree(), new double[]{0.25, 20}, population);
+
+        assertEquals(3, listener.getWritten());
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        int[][] jobGenerations = {{0, 0}, {1, 0}, {0, 1}};
+        for (int i = 0; i < lines.size(); i++) {
+            JsonObject record = new JsonParser().parse(lines.get(i)).getAsJsonObject();
+            assertEquals(jobGenerations[i][0], record.get("jobId").getAsInt());
+            assertEquals(jobGenerations[i][1], record.get("generation").getAsInt());
+            assertEquals(2, record.get("bestFitness").getAsJsonArray().size());
+            assertEquals(3, record.get("populationSize").getAsInt());
+            assertEquals(0, record.get("evaluatorCalls").getAsLong());
+            assertTrue(record.get("elapsedWallMillis").getAsDouble() >= 0);
+        }
+        assertEquals(0.25, new JsonParser().parse(lines.get(1)).getAsJsonObject().get("bestFitness").getAsJsonArray().get(0).getAsDouble(), 0);
+    }
+
+    /**
+     * Test of logGeneration method, of class MetricsExecutionListener: CSV records have a fixed number of columns, the
+     * cache columns are not available without a CachedEvaluator.
+     */
+    @Test
+    public void testCsv() throws IOException {
+        File file = File.createTempFile("metrics", ".csv");
+        file.deleteOnExit();
+        MetricsExecutionListener listener = new MetricsExecutionListener(file, MetricsExecutionListener.formatOf(file));
+        JobStrategy job = new JobStrategy(3, 4, false);
+        listener.logGeneration(job, 7, new Constant("a"), new double[]{0.5, 10}, population());
+        listener.logGeneration(job, 8, new Constant("a"), new double[]{0.5, 10}, Collections.<Ranking>emptyList());
+        listener.evolutionStopped();
+
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        int columns = lines.get(0).split(",").length;
+        assertEquals(10, columns);
+        String[] record = lines.get(1).split(",");
+        assertEquals(columns, record.length);
+        assertEquals("3", record[0]);
+        assertEquals("7", record[1]);
+        assertEquals("0.5;10.0", record[2]);
+        assertEquals("3", record[3]);
+        assertEquals("-1", record[5]);
+        assertEquals("NaN", record[6]);
+        assertEquals("8", lines.get(2).split(",")[1]);
+    }
+}
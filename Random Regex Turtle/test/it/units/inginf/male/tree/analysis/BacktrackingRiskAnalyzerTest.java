@@ -0,0 +1,120 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package it.units.inginf.male.tree.analysis;
+
+import it.units.inginf.male.tree.Constant;
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.tree.operator.Concatenator;
+import it.units.inginf.male.tree.operator.Group;
+import it.units.inginf.male.tree.operator.MatchMinMaxGreedy;
+import it.units.inginf.male.tree.operator.MatchOneOrMore;
+import it.units.inginf.male.tree.operator.MatchOneOrMoreGreedy;
+import it.units.inginf.male.tree.operator.MatchZeroOrMoreGreedy;
+import it.units.inginf.male.tree.operator.Or;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class BacktrackingRiskAnalyzerTest {
+
+    private static Node node(Node node, Node... childrens) {
+        for (Node child : childrens) {
+            node.getChildrens().add(child);
+            child.setParent(node);
+        }
+        return node;
+    }
+
+    /**
+     * Test of analyze method, of class BacktrackingRiskAnalyzer, on polynomial regexes.
+     */
+    @Test
+    public void testPolynomial() {
+        //\w++\d++ possessive repetitions do not give back
+        Node tree = node(new Concatenator(), node(new MatchOneOrMore(), new Constant("\\w")), node(new MatchOneOrMore(), new Constant("\\d")));
+        BacktrackingRisk risk = BacktrackingRiskAnalyzer.analyze(tree);
+        assertFalse(risk.isExponential());
+        assertEquals(1, risk.getDegree());
+        assertEquals(0, risk.getAmbiguousAdjacencies());
+
+        //\w+\d+ the split between the repetitions is ambiguous
+        tree = node(new Concatenator(), node(new MatchOneOrMoreGreedy(), new Constant("\\w")), node(new MatchOneOrMoreGreedy(), new Constant("\\d")));
+        risk = BacktrackingRiskAnalyzer.analyze(tree);
+        assertEquals(2, risk.getDegree());
+        assertEquals(1, risk.getAmbiguousAdjacencies());
+
+        //\s+\d+ disjoint chars
+        tree = node(new Concatenator(), node(new MatchOneOrMoreGreedy(), new Constant("\\s")), node(new MatchOneOrMoreGreedy(), new Constant("\\d")));
+        assertEquals(1, BacktrackingRiskAnalyzer.analyze(tree).getDegree());
+    }
+
+    /**
+     * Test of analyze method, of class BacktrackingRiskAnalyzer, on explosive regexes.
+     */
+    @Test
+    public void testExplosive() {
+        //(?:\w+)* nested backtracking repetitions
+        Node tree = node(new MatchZeroOrMoreGreedy(), node(new MatchOneOrMoreGreedy(), new Constant("\\w")));
+        BacktrackingRisk risk = BacktrackingRiskAnalyzer.analyze(tree);
+        assertTrue(risk.isExponential());
+        assertEquals(2, risk.getStarHeight());
+        assertEquals(1, risk.getNestedQuantifiers());
+
+        //(?:a|ab)+ alternatives starting with the same char
+        tree = node(new MatchOneOrMoreGreedy(), node(new Or(), new Constant("a"), new Constant("ab")));
+        risk = BacktrackingRiskAnalyzer.analyze(tree);
+        assertTrue(risk.isExponential());
+        assertEquals(1, risk.getAmbiguousAlternations());
+
+        //(?:a|b)+ is not ambiguous
+        tree = node(new MatchOneOrMoreGreedy(), node(new Or(), new Constant("a"), new Constant("b")));
+        assertFalse(BacktrackingRiskAnalyzer.analyze(tree).isRisky(3));
+
+        //(?:\d+){1,10} one degree per optional repetition
+        tree = node(new MatchMinMaxGreedy(), node(new MatchOneOrMoreGreedy(), new Constant("\\d")), new Constant("1"), new Constant("10"));
+        risk = BacktrackingRiskAnalyzer.analyze(tree);
+        assertFalse(risk.isExponential());
+        assertEquals(10, risk.getDegree());
+        assertTrue(risk.isRisky(3));
+    }
+
+    /**
+     * Test of analyze method, of class BacktrackingRiskAnalyzer: an Or under a MatchMinMaxGreedy is not grouped, the
+     * risk is computed on the alternatives of the described regex.
+     */
+    @Test
+    public void testGreedyUngroupedOr() {
+        //Za|b{1,2}
+        Node tree = node(new Concatenator(), new Constant("Z"),
+                node(new MatchMinMaxGreedy(), node(new Or(), new Constant("a"), new Constant("b")), new Constant("1"), new Constant("2")));
+        BacktrackingRisk risk = BacktrackingRiskAnalyzer.analyze(tree);
+        assertFalse(risk.isExponential());
+        assertEquals(0, risk.getDegree());
+
+        //\w+x|\d{1,5} the repetitions are in different alternatives, they are not adjacent
+        tree = node(new Concatenator(), node(new MatchOneOrMoreGreedy(), new Constant("\\w")),
+                node(new MatchMinMaxGreedy(), node(new Or(), new Constant("x"), new Constant("\\d")), new Constant("1"), new Constant("5")));
+        StringBuilder builder = new StringBuilder();
+        tree.describe(builder);
+        assertEquals("\\w+x|\\d{1,5}", builder.toString());
+        risk = BacktrackingRiskAnalyzer.analyze(tree);
+        assertEquals(0, risk.getAmbiguousAdjacencies());
+        assertEquals(1, risk.getDegree());
+
+        //(ab|a{1,2})+ both the alternatives start with a, the ungrouped repetition is the group child
+        tree = node(new MatchOneOrMoreGreedy(), node(new Group(),
+                node(new MatchMinMaxGreedy(), node(new Or(), new Constant("ab"), new Constant("a")), new Constant("1"), new Constant("2"))));
+        builder = new StringBuilder();
+        tree.describe(builder);
+        assertEquals("(ab|a{1,2})+", builder.toString());
+        risk = BacktrackingRiskAnalyzer.analyze(tree);
+        assertTrue(risk.isExponential());
+        assertEquals(1, risk.getAmbiguousAlternations());
+    }
+}
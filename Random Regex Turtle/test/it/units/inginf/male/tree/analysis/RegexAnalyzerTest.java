@@ -0,0 +1,182 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package it.units.inginf.male.tree.analysis;
+
+import it.units.inginf.male.tree.Constant;
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.tree.RegexRange;
+import it.units.inginf.male.tree.operator.Concatenator;
+import it.units.inginf.male.tree.operator.ListMatch;
+import it.units.inginf.male.tree.operator.MatchMinMaxGreedy;
+import it.units.inginf.male.tree.operator.MatchOneOrMoreGreedy;
+import it.units.inginf.male.tree.operator.MatchOneOrMore;
+import it.units.inginf.male.tree.operator.MatchZeroOrMore;
+import it.units.inginf.male.tree.operator.Or;
+import it.units.inginf.male.tree.operator.PositiveLookahead;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class RegexAnalyzerTest {
+
+    private static Node node(Node node, Node... childrens) {
+        for (Node child : childrens) {
+            node.getChildrens().add(child);
+            child.setParent(node);
+        }
+        return node;
+    }
+
+    /**
+     * Test of analyze method, of class RegexAnalyzer, without text facts.
+     */
+    @Test
+    public void testFacts() {
+        //\d++abc
+        Node tree = node(new Concatenator(), node(new MatchOneOrMore(), new Constant("\\d")), new Constant("abc"));
+        RegexFacts facts = RegexAnalyzer.analyze(tree, null);
+        assertTrue(facts.isComplete());
+        assertFalse(facts.isNullable());
+        assertEquals(4, facts.getMinLength());
+        assertEquals(RegexFacts.UNBOUNDED, facts.getMaxLength());
+        assertEquals(CharacterSet.DIGIT, facts.getFirstChars());
+        assertTrue(facts.getRequiredLiterals().contains("abc"));
+
+        //(?:(?=y))*+ can only match the empty string
+        facts = RegexAnalyzer.analyze(node(new MatchZeroOrMore(), node(new PositiveLookahead(), new Constant("y"))), null);
+        assertTrue(facts.isEmptyOnly());
+        assertTrue(facts.hasZeroWidthAssertions());
+    }
+
+    /**
+     * Test of analyze method, of class RegexAnalyzer: an Or which is not grouped splits the concatenation.
+     */
+    @Test
+    public void testUngroupedOr() {
+        //xa|b
+        Node tree = node(new Concatenator(), new Constant("x"), node(new Or(), new Constant("a"), new Constant("b")));
+        StringBuilder builder = new StringBuilder();
+        tree.describe(builder);
+        assertEquals("xa|b", builder.toString());
+        RegexFacts facts = RegexAnalyzer.analyze(tree, null);
+        assertEquals(1, facts.getMinLength());
+        assertEquals(2, facts.getMaxLength());
+        assertEquals(CharacterSet.of('x').union(CharacterSet.of('b')), facts.getFirstChars());
+    }
+
+    /**
+     * Test of analyze method, of class RegexAnalyzer: the greedy quantifiers bind to the last atom of their child.
+     */
+    @Test
+    public void testGreedyQuantifiers() {
+        //ab{2,3}
+        Node tree = node(new MatchMinMaxGreedy(), new Constant("ab"), new Constant("2"), new Constant("3"));
+        StringBuilder builder = new StringBuilder();
+        tree.describe(builder);
+        assertEquals("ab{2,3}", builder.toString());
+        RegexFacts facts = RegexAnalyzer.analyze(tree, null);
+        assertEquals(3, facts.getMinLength());
+        assertEquals(4, facts.getMaxLength());
+        assertEquals(CharacterSet.of('a'), facts.getFirstChars());
+        TextFacts text = new TextFacts();
+        text.add("abb");
+        assertTrue(RegexAnalyzer.analyze(tree, text).isSatisfiable());
+
+        //x\d+
+        facts = RegexAnalyzer.analyze(node(new MatchOneOrMoreGreedy(), new Constant("x\\d")), null);
+        assertEquals(2, facts.getMinLength());
+        assertEquals(RegexFacts.UNBOUNDED, facts.getMaxLength());
+
+        //(?:xa|a)+, the Quantifier groups the Or
+        tree = node(new MatchOneOrMoreGreedy(), node(new Or(), new Constant("xa"), new Constant("a")));
+        builder = new StringBuilder();
+        tree.describe(builder);
+        assertEquals("(?:xa|a)+", builder.toString());
+        facts = RegexAnalyzer.analyze(tree, text);
+        assertTrue(facts.isSatisfiable());
+        assertEquals(1, facts.getMinLength());
+        assertEquals(RegexFacts.UNBOUNDED, facts.getMaxLength());
+
+        //xab+, the quantifier binds to the last item of the concatenation
+        tree = node(new MatchOneOrMoreGreedy(), node(new Concatenator(), new Constant("x"), new Constant("ab")));
+        facts = RegexAnalyzer.analyze(tree, null);
+        assertTrue(facts.isComplete());
+        assertEquals(3, facts.getMinLength());
+        assertEquals(RegexFacts.UNBOUNDED, facts.getMaxLength());
+    }
+
+    /**
+     * Test of analyze method, of class RegexAnalyzer: an Or under a MatchMinMaxGreedy is not grouped, it splits the
+     * enclosing concatenation and the quantifier binds to its last alternative.
+     */
+    @Test
+    public void testGreedyUngroupedOr() {
+        //Za|b{1,2}
+        Node tree = node(new Concatenator(), new Constant("Z"),
+                node(new MatchMinMaxGreedy(), node(new Or(), new Constant("a"), new Constant("b")), new Constant("1"), new Constant("2")));
+        StringBuilder builder = new StringBuilder();
+        tree.describe(builder);
+        assertEquals("Za|b{1,2}", builder.toString());
+        TextFacts text = new TextFacts();
+        text.add("bbb");
+        assertTrue(RegexAnalyzer.analyze(tree, text).isSatisfiable());
+        RegexFacts facts = RegexAnalyzer.analyze(tree, null);
+        assertEquals(1, facts.getMinLength());
+        assertEquals(2, facts.getMaxLength());
+        assertEquals(CharacterSet.of('Z').union(CharacterSet.of('b')), facts.getFirstChars());
+        text = new TextFacts();
+        text.add("aaa");
+        assertFalse(RegexAnalyzer.analyze(tree, text).isSatisfiable());
+
+        //the same repetition as the root
+        tree = node(new MatchMinMaxGreedy(), node(new Or(), new Constant("a"), new Constant("b")), new Constant("2"), new Constant("2"));
+        facts = RegexAnalyzer.analyze(tree, null);
+        assertEquals(1, facts.getMinLength());
+        assertEquals(2, facts.getMaxLength());
+        //the analysis does not change the tree
+        builder = new StringBuilder();
+        tree.describe(builder);
+        assertEquals("a|b{2,2}", builder.toString());
+    }
+
+    /**
+     * Test of analyze method, of class RegexAnalyzer, against the facts of a text.
+     */
+    @Test
+    public void testSatisfiable() {
+        TextFacts text = new TextFacts();
+        text.add("order 1234, ref ab-99");
+        assertTrue(RegexAnalyzer.analyze(new Constant("ref"), text).isSatisfiable());
+        assertFalse(RegexAnalyzer.analyze(new Constant("fer"), text).isSatisfiable());
+        assertFalse(RegexAnalyzer.analyze(node(new ListMatch(), new RegexRange("A-Z")), text).isSatisfiable());
+        assertTrue(RegexAnalyzer.analyze(node(new ListMatch(), node(new Concatenator(), new RegexRange("A-Z"), new Constant("\\-"))), text).isSatisfiable());
+        //the lookahead cannot be satisfied
+        Node tree = node(new Concatenator(), new Constant("\\d"), node(new PositiveLookahead(), new Constant("Z")));
+        assertFalse(RegexAnalyzer.analyze(tree, text).isSatisfiable());
+        //too long for the text
+        Node alternatives = node(new Or(), new Constant("order 1234, ref ab-99"), new Constant("1234, ref ab-99 and more"));
+        assertTrue(RegexAnalyzer.analyze(alternatives, text).isSatisfiable());
+        assertFalse(RegexAnalyzer.analyze(alternatives.getChildrens().get(1), text).isSatisfiable());
+    }
+
+    /**
+     * Test of parseList method, of class RegexAnalyzer.
+     */
+    @Test
+    public void testParseList() {
+        CharacterSet set = RegexAnalyzer.parseList("a-c\\d_\\.");
+        assertTrue(set.contains('b'));
+        assertTrue(set.contains('5'));
+        assertTrue(set.contains('.'));
+        assertFalse(set.contains('d'));
+        assertNull(RegexAnalyzer.parseList("^a"));
+        assertNull(RegexAnalyzer.parseList("\\d-z"));
+        assertTrue(RegexAnalyzer.parseList("a-").contains('-'));
+    }
+}
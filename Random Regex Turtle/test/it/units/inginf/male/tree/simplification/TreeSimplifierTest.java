@@ -0,0 +1,80 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package it.units.inginf.male.tree.simplification;
+
+import it.units.inginf.male.tree.Anchor;
+import it.units.inginf.male.tree.Constant;
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.tree.operator.Concatenator;
+import it.units.inginf.male.tree.operator.MatchOneOrMoreGreedy;
+import it.units.inginf.male.tree.operator.MatchZeroOrMore;
+import it.units.inginf.male.tree.operator.MatchZeroOrOne;
+import it.units.inginf.male.tree.operator.MatchZeroOrOneGreedy;
+import it.units.inginf.male.tree.operator.NonCapturingGroup;
+import it.units.inginf.male.tree.operator.Or;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class TreeSimplifierTest {
+
+    private static Node node(Node node, Node... childrens) {
+        for (Node child : childrens) {
+            node.getChildrens().add(child);
+            child.setParent(node);
+        }
+        return node;
+    }
+
+    private static String simplify(Node tree) {
+        StringBuilder builder = new StringBuilder();
+        new TreeSimplifier().simplify(tree).describe(builder);
+        return builder.toString();
+    }
+
+    /**
+     * Test of simplify method, of class TreeSimplifier.
+     */
+    @Test
+    public void testSimplify() {
+        //(?:(?:a)(?:b))\d
+        Node tree = node(new Concatenator(), node(new NonCapturingGroup(), node(new Concatenator(),
+                node(new NonCapturingGroup(), new Constant("a")), node(new NonCapturingGroup(), new Constant("b")))), new Constant("\\d"));
+        assertEquals("ab\\d", simplify(tree));
+        //(?:x*+)?+
+        tree = node(new MatchZeroOrOne(), node(new NonCapturingGroup(), node(new MatchZeroOrMore(), new Constant("x"))));
+        assertEquals("x*+", simplify(tree));
+        //x|y|x keeps the first occurrences
+        tree = node(new Or(), node(new Or(), new Constant("x"), new Constant("y")), new Constant("x"));
+        assertEquals("x|y", simplify(tree));
+        //xa|a is not xa: the Or is not delimited by the concatenation
+        tree = node(new Concatenator(), new Constant("x"), node(new Or(), new Constant("a"), new Constant("a")));
+        assertEquals("xa|a", simplify(tree));
+        tree = node(new Concatenator(), new Constant("x"), node(new NonCapturingGroup(), node(new Or(), new Constant("a"), new Constant("a"))));
+        assertEquals("xa", simplify(tree));
+        //^^a
+        tree = node(new Concatenator(), node(new Concatenator(), new Anchor("^"), new Anchor("^")), new Constant("a"));
+        assertEquals("^a", simplify(tree));
+    }
+
+    /**
+     * Test of simplify method, of class TreeSimplifier: the greedy repetitions do not group their child.
+     */
+    @Test
+    public void testGreedy() {
+        //(?:ab+)? is not ab*
+        Node tree = node(new MatchZeroOrOneGreedy(), node(new NonCapturingGroup(), node(new MatchOneOrMoreGreedy(), new Constant("ab"))));
+        assertEquals("(?:ab+)?", simplify(tree));
+        tree = node(new MatchZeroOrOneGreedy(), node(new NonCapturingGroup(), node(new MatchOneOrMoreGreedy(), new Constant("b"))));
+        assertEquals("b*", simplify(tree));
+        //the suffix is bound to the last token: a(?:b)+ is not ab+
+        tree = node(new MatchOneOrMoreGreedy(), node(new Concatenator(), new Constant("a"), node(new NonCapturingGroup(), new Constant("bc"))));
+        assertEquals("a(?:bc)+", simplify(tree));
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package it.units.inginf.male.utils;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class LatencyHistogramTest {
+
+    /**
+     * Test of bucket bounds, every value falls into the bucket whose bounds contain it.
+     */
+    @Test
+    public void testBuckets() {
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 1000, 123456789L, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(LatencyHistogram.lowerBound(bucket) <= value);
+            assertTrue(LatencyHistogram.upperBound(bucket) >= value);
+        }
+    }
+
+    /**
+     * Test of getPercentile method, of class LatencyHistogram.
+     */
+    @Test
+    public void testPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500500.0, histogram.getMean(), 0.001);
+        assertEquals(1000000, histogram.getMax());
+        assertEquals(500000, histogram.getPercentile(50), 500000 / 16);
+        assertEquals(990000, histogram.getPercentile(99), 990000 / 16);
+        assertEquals(1000000, histogram.getPercentile(100));
+
+        LatencyHistogram other = new LatencyHistogram();
+        other.record(5);
+        other.add(histogram);
+        assertEquals(1001, other.getCount());
+        assertEquals(5, other.getPercentile(0));
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package it.units.inginf.male.utils;
+
+import java.util.regex.Matcher;
+import java.util.regex.PatternSyntaxException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class PatternCacheTest {
+
+    /**
+     * Test of getPattern method, of class PatternCache: Patterns are compiled once and evicted over capacity.
+     */
+    @Test
+    public void testGetPattern() {
+        PatternCache cache = new PatternCache(32);
+        assertSame(cache.getPattern("\\d+"), cache.getPattern("\\d+"));
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getCompileLatency().getCount());
+        for (int i = 0; i < 1000; i++) {
+            cache.getPattern("a{" + i + "}");
+        }
+        assertTrue(cache.getSize() <= cache.getCapacity());
+        assertTrue(cache.getEvictions() > 0);
+    }
+
+    /**
+     * Test of getPattern method, of class PatternCache: regexes which do not compile always throw.
+     */
+    @Test
+    public void testCompileError() {
+        PatternCache cache = new PatternCache(32);
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.getPattern("(a");
+                fail();
+            } catch (PatternSyntaxException ex) {
+                assertEquals("(a", ex.getPattern());
+            }
+        }
+        assertEquals(1, cache.getCompileErrors());
+        assertEquals(1, cache.getHits());
+    }
+
+    /**
+     * Test of getMatcher method, of class PatternCache.
+     */
+    @Test
+    public void testGetMatcher() {
+        PatternCache cache = new PatternCache(32);
+        Matcher matcher = cache.getMatcher("\\d+");
+        assertTrue(matcher.reset("abc 123").find());
+        Matcher reused = cache.getMatcher("\\d+");
+        assertSame(matcher, reused);
+        assertFalse(reused.find());
+    }
+}
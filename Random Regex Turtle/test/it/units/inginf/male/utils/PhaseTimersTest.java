@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.utils;
+
+import it.units.inginf.male.outputs.Results;
+import it.units.inginf.male.outputs.ResultsJsonWriter;
+import it.units.inginf.male.utils.PhaseTimers.Phase;
+import it.units.inginf.male.utils.PhaseTimers.PhaseStats;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class PhaseTimersTest {
+
+    private static final long MILLIS = 1000000L;
+
+    /**
+     * Test of record and summarize methods, of class PhaseTimers: only the recorded phases are summarized.
+     */
+    @Test
+    public void testSummarize() {
+        PhaseTimers timers = new PhaseTimers();
+        assertTrue(timers.summarize().isEmpty());
+        for (int i = 0; i < 4; i++) {
+            timers.record(Phase.SELECTION, System.nanoTime() - 2 * MILLIS);
+        }
+        timers.get(Phase.CROSSOVER).record(5 * MILLIS);
+        Map<String, PhaseStats> summary = timers.summarize();
+        assertEquals(Arrays.asList("selection", "crossover"), Arrays.asList(summary.keySet().toArray()));
+        PhaseStats selection = summary.get("selection");
+        assertEquals(4, selection.getCount());
+        assertTrue(selection.getTotalMillis() >= 8);
+        assertTrue(selection.getMeanMicros() >= 2000);
+        assertTrue(selection.getMaxMicros() >= selection.getP50Micros());
+        assertEquals(5000, summary.get("crossover").getMaxMicros(), 0);
+        assertEquals(5, summary.get("crossover").getTotalMillis(), 0);
+    }
+
+    /**
+     * Test of add method, of class PhaseTimers, and of the Job aggregation in Results: the phase latencies are merged
+     * over the Jobs and serialized with the results.
+     */
+    @Test
+    public void testAdd() throws IOException {
+        PhaseTimers firstJob = new PhaseTimers();
+        firstJob.get(Phase.MUTATION).record(1 * MILLIS);
+        firstJob.get(Phase.LISTENER).record(3 * MILLIS);
+        PhaseTimers secondJob = new PhaseTimers();
+        secondJob.get(Phase.MUTATION).record(2 * MILLIS);
+
+        Results results = new Results(2);
+        assertNull(results.getPhaseLatencies());
+        results.addPhaseTimers(firstJob);
+        results.addPhaseTimers(secondJob);
+        Map<String, PhaseStats> phaseLatencies = results.getPhaseLatencies();
+        assertEquals(2, phaseLatencies.get("mutation").getCount());
+        assertEquals(3, phaseLatencies.get("mutation").getTotalMillis(), 0);
+        assertEquals(1, phaseLatencies.get("listener").getCount());
+        //the Job timers are not changed
+        assertEquals(1, firstJob.get(Phase.MUTATION).getCount());
+
+        File file = File.createTempFile("results", ".json");
+        file.deleteOnExit();
+        new ResultsJsonWriter(false, false).write(results, file.getAbsolutePath());
+        Results loaded = Results.load(file.getAbsolutePath());
+        assertEquals(phaseLatencies.keySet(), loaded.getPhaseLatencies().keySet());
+        assertEquals(2, loaded.getPhaseLatencies().get("mutation").getCount());
+        assertEquals(2000, loaded.getPhaseLatencies().get("mutation").getMaxMicros(), 0);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package it.units.inginf.male.variations;
+
+import it.units.inginf.male.objective.Ranking;
+import it.units.inginf.male.tree.Constant;
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.tree.operator.Concatenator;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class BloatControlTest {
+
+    /**
+     * @param size
+     * @return a left-deep concatenation with size nodes, size is odd
+     */
+    private static Node tree(int size) {
+        Node node = new Constant("a");
+        while (size > 1) {
+            Node concatenator = new Concatenator();
+            concatenator.getChildrens().add(node);
+            concatenator.getChildrens().add(new Constant("b"));
+            node = concatenator;
+            size -= 2;
+        }
+        return node;
+    }
+
+    private static List<Ranking> rankings(int bestSize, double bestFitness, int otherSize) {
+        List<Ranking> rankings = new ArrayList<>();
+        rankings.add(new Ranking(tree(bestSize), new double[]{bestFitness}));
+        rankings.add(new Ranking(tree(otherSize), new double[]{bestFitness + 1}));
+        return rankings;
+    }
+
+    /**
+     * Test of admit method, of class BloatControl: the dynamic limit grows only when the best fitness improves.
+     */
+    @Test
+    public void testLimit() {
+        BloatControl control = new BloatControl(BloatControl.Mode.LIMIT, 5);
+        control.restart(rankings(3, 10, 5));
+        assertEquals(5, control.getLimit());
+        assertTrue(control.admit(tree(5)));
+        assertFalse(control.admit(tree(7)));
+        //larger, not better
+        control.update(rankings(9, 10, 5));
+        assertEquals(5, control.getLimit());
+        //larger and better
+        control.update(rankings(9, 8, 5));
+        assertEquals(9, control.getLimit());
+        assertTrue(control.admit(tree(9)));
+        assertFalse(control.admit(tree(11)));
+        assertEquals(2, control.getRejected());
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.benchmarks;
+
+import it.units.inginf.male.configuration.Configuration;
+import it.units.inginf.male.configuration.DatasetContainer;
+import it.units.inginf.male.inputs.DataSet;
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.inputs.DataSet.Example;
+import it.units.inginf.male.inputs.DataSetJsonReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark inputs: the reduced test dataset and its synthetic scaled-up variants, built with fixed seeds.
+ * The dataset path can be changed with the "benchmark.dataset" system property.
+ * @author MaleLabTs
+ */
+public final class BenchmarkDatasets {
+
+    public static final long SEED = 42;
+    public static final String DATASET_PATH = System.getProperty("benchmark.dataset", "../ConsoleRegexTurtle/testdataset/reduced.json");
+
+    private BenchmarkDatasets() {
+    }
+
+    /**
+     * Loads the base dataset; the not matched chars are annotated as unmatches, like the console does.
+     * @return
+     * @throws IOException
+     */
+    public static DataSet load() throws IOException {
+        DataSet dataset = DataSetJsonReader.read(new File(DATASET_PATH));
+        dataset.populateUnmatchesFromMatches();
+        dataset.updateStats();
+        return dataset;
+    }
+
+    /**
+     * Creates a synthetic variant with <code>scale</code> times the examples of the base dataset.
+     * Each copy replaces the digits with a shifted digit (the annotations stay valid for digit-class based targets)
+     * so the copies are not identical texts; the examples order is shuffled with a fixed seed.
+     * @param base
+     * @param scale
+     * @return
+     */
+    public static DataSet scaled(DataSet base, int scale) {
+        if (scale <= 1) {
+            return base;
+        }
+        List<Example> examples = new ArrayList<>(base.getNumberExamples() * scale);
+        for (int copy = 0; copy < scale; copy++) {
+            for (Example example : base.getExamples()) {
+                examples.add(shiftDigits(example, copy));
+            }
+        }
+        Collections.shuffle(examples, new Random(SEED));
+        DataSet dataset = new DataSet(base.getName() + " x" + scale, "Synthetic scaled variant", base.getRegexTarget());
+        dataset.getExamples().addAll(examples);
+        dataset.populateAnnotatedStrings();
+        dataset.updateStats();
+        return dataset;
+    }
+
+    private static Example shiftDigits(Example example, int shift) {
+        Example copy = new Example();
+        char[] chars = example.getString().toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] >= '0' && chars[i] <= '9') {
+                chars[i] = (char) ('0' + (chars[i] - '0' + shift) % 10);
+            }
+        }
+        copy.setString(new String(chars));
+        for (Bounds match : example.getMatch()) {
+            copy.addMatchBounds(match.start, match.end);
+        }
+        for (Bounds unmatch : example.getUnmatch()) {
+            copy.addUnmatchBounds(unmatch.start, unmatch.end);
+        }
+        return copy;
+    }
+
+    /**
+     * Creates a default configuration on the dataset, with fixed seed and default training/validation ranges.
+     * @param dataset
+     * @return
+     */
+    public static Configuration configuration(DataSet dataset) {
+        Configuration configuration = new Configuration();
+        configuration.setInitialSeed(SEED);
+        DatasetContainer datasetContainer = new DatasetContainer(dataset);
+        datasetContainer.createDefaultRanges((int) SEED);
+        configuration.setDatasetContainer(datasetContainer);
+        configuration.setup();
+        return configuration;
+    }
+}
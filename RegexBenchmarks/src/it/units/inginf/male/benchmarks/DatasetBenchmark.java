@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.benchmarks;
+
+import it.units.inginf.male.configuration.Configuration;
+import it.units.inginf.male.inputs.DataSet;
+import it.units.inginf.male.terminalsets.TerminalSetBuilder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Dataset preparation: striped views and terminal set builders.
+ * @author MaleLabTs
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class DatasetBenchmark {
+
+    @State(Scope.Thread)
+    public static class Striping {
+
+        @Param({"1", "5", "25"})
+        public double marginSize;
+    }
+
+    @State(Scope.Thread)
+    public static class TerminalSets {
+
+        @Param({"TokenizedContextTerminalSetBuilder", "TokenizedTerminalSetBuilder", "FlaggingNgramsTerminalSetBuilder"})
+        public String builderName;
+
+        TerminalSetBuilder builder;
+        Configuration configuration;
+
+        @Setup(Level.Trial)
+        public void setupBuilder() throws ReflectiveOperationException {
+            this.builder = (TerminalSetBuilder) Class.forName("it.units.inginf.male.terminalsets." + this.builderName).newInstance();
+        }
+
+        //builders add terminals to the configuration node factory, every invocation needs a fresh copy
+        @Setup(Level.Invocation)
+        public void setupConfiguration(EngineState state) {
+            this.configuration = new Configuration(state.configuration);
+        }
+    }
+
+    @Benchmark
+    public DataSet initStripedDatasetView(EngineState state, Striping striping) {
+        return state.dataset.initStripedDatasetView(striping.marginSize);
+    }
+
+    @Benchmark
+    public Configuration terminalSetBuilder(TerminalSets terminalSets) {
+        terminalSets.builder.setup(terminalSets.configuration);
+        return terminalSets.configuration;
+    }
+}
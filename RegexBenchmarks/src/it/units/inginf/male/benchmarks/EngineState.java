@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.benchmarks;
+
+import it.units.inginf.male.configuration.Configuration;
+import it.units.inginf.male.generations.Ramped;
+import it.units.inginf.male.inputs.Context;
+import it.units.inginf.male.inputs.DataSet;
+import it.units.inginf.male.objective.Objective;
+import it.units.inginf.male.objective.Ranking;
+import it.units.inginf.male.tree.Node;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Shared benchmark state: a configuration on the (scaled) benchmark dataset, a training Context
+ * and a fixed-seed population with its rankings.
+ * @author MaleLabTs
+ */
+@State(Scope.Benchmark)
+public class EngineState {
+
+    public static final int POPULATION_SIZE = 200;
+
+    @Param({"1", "32"})
+    public int scale;
+
+    public DataSet dataset;
+    public Configuration configuration;
+    public Context context;
+    public List<Node> population;
+    public List<Ranking> rankings;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.dataset = BenchmarkDatasets.scaled(BenchmarkDatasets.load(), this.scale);
+        this.configuration = BenchmarkDatasets.configuration(this.dataset);
+        this.context = new Context(Context.EvaluationPhases.TRAINING, this.configuration);
+        Ramped ramped = new Ramped(this.configuration.getEvolutionParameters().getCreationMaxDepth(), this.context);
+        this.population = ramped.generate(POPULATION_SIZE);
+        Objective objective = this.configuration.getObjective();
+        objective.setup(this.context);
+        this.rankings = new ArrayList<>(this.population.size());
+        for (Node individual : this.population) {
+            this.rankings.add(new Ranking(individual, objective.fitness(individual)));
+        }
+    }
+
+    /**
+     * Returns the population individuals in round robin order.
+     * @return
+     */
+    public Node nextIndividual() {
+        Node individual = this.population.get(this.next);
+        this.next = (this.next + 1) % this.population.size();
+        return individual;
+    }
+}
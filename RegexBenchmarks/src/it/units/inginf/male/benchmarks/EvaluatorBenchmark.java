@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.benchmarks;
+
+import it.units.inginf.male.evaluators.CachedTreeEvaluator;
+import it.units.inginf.male.evaluators.DefaultTreeEvaluator;
+import it.units.inginf.male.evaluators.TreeEvaluationException;
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.tree.Node;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tree evaluation: uncached evaluation, cache hits and cache misses.
+ * @author MaleLabTs
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class EvaluatorBenchmark {
+
+    @State(Scope.Thread)
+    public static class Evaluators {
+
+        DefaultTreeEvaluator defaultEvaluator;
+        CachedTreeEvaluator warmCachedEvaluator;
+
+        @Setup(Level.Trial)
+        public void setup(EngineState state) throws TreeEvaluationException {
+            this.defaultEvaluator = new DefaultTreeEvaluator();
+            this.defaultEvaluator.setup(Collections.<String, String>emptyMap());
+            this.warmCachedEvaluator = new CachedTreeEvaluator();
+            this.warmCachedEvaluator.setup(Collections.<String, String>emptyMap());
+            for (Node individual : state.population) {
+                this.warmCachedEvaluator.evaluate(individual, state.context);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ColdCache {
+
+        CachedTreeEvaluator cachedEvaluator;
+
+        @Setup(Level.Invocation)
+        public void setup() {
+            this.cachedEvaluator = new CachedTreeEvaluator();
+            this.cachedEvaluator.setup(Collections.<String, String>emptyMap());
+        }
+    }
+
+    @Benchmark
+    public List<List<Bounds>> defaultEvaluate(EngineState state, Evaluators evaluators) throws TreeEvaluationException {
+        return evaluators.defaultEvaluator.evaluate(state.nextIndividual(), state.context);
+    }
+
+    @Benchmark
+    public List<List<Bounds>> cachedEvaluateHit(EngineState state, Evaluators evaluators) throws TreeEvaluationException {
+        return evaluators.warmCachedEvaluator.evaluate(state.nextIndividual(), state.context);
+    }
+
+    @Benchmark
+    public List<List<Bounds>> cachedEvaluateMiss(EngineState state, ColdCache coldCache) throws TreeEvaluationException {
+        return coldCache.cachedEvaluator.evaluate(state.nextIndividual(), state.context);
+    }
+}
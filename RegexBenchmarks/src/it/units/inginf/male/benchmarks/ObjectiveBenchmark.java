@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.benchmarks;
+
+import it.units.inginf.male.configuration.Configuration;
+import it.units.inginf.male.evaluators.DefaultTreeEvaluator;
+import it.units.inginf.male.inputs.Context;
+import it.units.inginf.male.objective.Objective;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Objective.fitness for each objective implementation. The objectives use an uncached evaluator,
+ * the measured time includes the tree evaluation.
+ * @author MaleLabTs
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ObjectiveBenchmark {
+
+    @State(Scope.Thread)
+    public static class Objectives {
+
+        @Param({"PrecisionCharmaskLengthObjective", "CharmaskMatchLengthObjective", "FlaggingAccuracyPrecisionLengthObjective"})
+        public String objectiveName;
+
+        Objective objective;
+
+        @Setup(Level.Trial)
+        public void setup(EngineState state) throws ReflectiveOperationException {
+            Configuration configuration = new Configuration(state.configuration);
+            DefaultTreeEvaluator evaluator = new DefaultTreeEvaluator();
+            evaluator.setup(Collections.<String, String>emptyMap());
+            configuration.setEvaluator(evaluator);
+            this.objective = (Objective) Class.forName("it.units.inginf.male.objective." + this.objectiveName).newInstance();
+            this.objective.setup(new Context(Context.EvaluationPhases.TRAINING, configuration));
+        }
+    }
+
+    @Benchmark
+    public double[] fitness(EngineState state, Objectives objectives) {
+        return objectives.objective.fitness(state.nextIndividual());
+    }
+}
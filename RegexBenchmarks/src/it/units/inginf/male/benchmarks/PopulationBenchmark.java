@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.benchmarks;
+
+import it.units.inginf.male.generations.Ramped;
+import it.units.inginf.male.objective.Ranking;
+import it.units.inginf.male.tree.Node;
+import it.units.inginf.male.utils.Pair;
+import it.units.inginf.male.utils.Utils;
+import it.units.inginf.male.variations.Variation;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Population level operations: Pareto front extraction, variation operators, ramped generation and tree description.
+ * @author MaleLabTs
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class PopulationBenchmark {
+
+    @State(Scope.Thread)
+    public static class Operators {
+
+        Variation variation;
+        Ramped ramped;
+
+        @Setup(Level.Trial)
+        public void setup(EngineState state) {
+            this.variation = new Variation(state.context);
+            this.ramped = new Ramped(state.configuration.getEvolutionParameters().getCreationMaxDepth(), state.context);
+        }
+    }
+
+    @Benchmark
+    public List<Ranking> firstParetoFront(EngineState state) {
+        return Utils.getFirstParetoFront(state.rankings);
+    }
+
+    @Benchmark
+    public Pair<Node, Node> crossover(EngineState state, Operators operators) {
+        return operators.variation.crossover(state.nextIndividual(), state.nextIndividual());
+    }
+
+    @Benchmark
+    public Node mutate(EngineState state, Operators operators) {
+        return operators.variation.mutate(state.nextIndividual());
+    }
+
+    @Benchmark
+    public List<Node> rampedGenerate(Operators operators) {
+        return operators.ramped.generate(EngineState.POPULATION_SIZE);
+    }
+
+    @Benchmark
+    public StringBuilder describe(EngineState state) {
+        StringBuilder builder = new StringBuilder();
+        state.nextIndividual().describe(builder);
+        return builder;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2015 Machine Learning Lab - University of Trieste,
+ * Italy (http://machinelearning.inginf.units.it/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package it.units.inginf.male.benchmarks;
+
+import it.units.inginf.male.configuration.Configuration;
+import it.units.inginf.male.inputs.DataSet;
+import it.units.inginf.male.inputs.DataSet.Bounds;
+import it.units.inginf.male.inputs.DataSet.Example;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author MaleLabTs
+ */
+public class BenchmarkDatasetsTest {
+
+    private static DataSet dataSet() {
+        DataSet dataSet = new DataSet("test", "benchmark test", "\\d+");
+        for (int i = 0; i < 5; i++) {
+            Example example = new Example();
+            example.setString("order " + (120 + i) + " on day " + (3 + i));
+            example.addMatchBounds(6, 9);
+            example.addUnmatchBounds(0, 6);
+            dataSet.getExamples().add(example);
+        }
+        dataSet.populateAnnotatedStrings();
+        dataSet.updateStats();
+        return dataSet;
+    }
+
+    private static List<String> strings(DataSet dataSet) {
+        List<String> strings = new ArrayList<>();
+        for (Example example : dataSet.getExamples()) {
+            strings.add(example.getString());
+        }
+        return strings;
+    }
+
+    /**
+     * Test of scaled method, of class BenchmarkDatasets: the copies have shifted digits and the same annotations,
+     * the order is the same in every run.
+     */
+    @Test
+    public void testScaled() {
+        DataSet base = dataSet();
+        assertSame(base, BenchmarkDatasets.scaled(base, 1));
+        DataSet scaled = BenchmarkDatasets.scaled(base, 4);
+        assertEquals(20, scaled.getNumberExamples());
+        assertEquals(4 * base.getNumberMatches(), scaled.getNumberMatches());
+        assertEquals(4 * base.getNumberUnmatches(), scaled.getNumberUnmatches());
+        assertEquals(base.getRegexTarget(), scaled.getRegexTarget());
+        //the copies are not identical texts
+        assertEquals(20, new HashSet<>(strings(scaled)).size());
+        for (Example example : scaled.getExamples()) {
+            Bounds match = example.getMatch().get(0);
+            assertTrue(example.getString().substring(match.start, match.end).matches("\\d{3}"));
+            assertTrue(example.getString().startsWith("order "));
+        }
+        assertEquals(strings(scaled), strings(BenchmarkDatasets.scaled(base, 4)));
+    }
+
+    /**
+     * Test of configuration method, of class BenchmarkDatasets.
+     */
+    @Test
+    public void testConfiguration() {
+        DataSet dataset = BenchmarkDatasets.scaled(dataSet(), 4);
+        Configuration configuration = BenchmarkDatasets.configuration(dataset);
+        assertEquals(BenchmarkDatasets.SEED, configuration.getInitialSeed());
+        assertSame(dataset, configuration.getDatasetContainer().getDataset());
+        assertTrue(configuration.getDatasetContainer().getTrainingDataset().getNumberExamples() > 0);
+    }
+
+    /**
+     * Test of load method, of class BenchmarkDatasets: the not annotated chars become unmatches.
+     */
+    @Test
+    public void testLoad() throws IOException {
+        DataSet dataset = BenchmarkDatasets.load();
+        assertTrue(dataset.getNumberMatches() > 0);
+        for (Example example : dataset.getExamples()) {
+            int annotated = 0;
+            for (Bounds bounds : example.getMatch()) {
+                annotated += bounds.size();
+            }
+            for (Bounds bounds : example.getUnmatch()) {
+                annotated += bounds.size();
+            }
+            assertEquals(example.getNumberOfChars(), annotated);
+        }
+    }
+}